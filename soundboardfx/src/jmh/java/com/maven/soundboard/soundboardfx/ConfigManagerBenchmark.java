@@ -0,0 +1,82 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saving, loading and streaming sounds.json for libraries of different sizes, in a throwaway config directory
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigManagerBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int itemCount;
+
+    private File configDir;
+    private ConfigManager configManager;
+    private List<SoundItem> soundItems;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        configDir = Files.createTempDirectory("soundboardfx-bench").toFile();
+        configManager = new ConfigManager(configDir);
+        soundItems = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            soundItems.add(new SoundItem("Sound " + i,
+                "/home/user/sounds/library/folder" + (i % 100) + "/sound" + i + ".wav",
+                "CTRL+SHIFT+" + (char) ('A' + i % 26)));
+        }
+        // Load has something to read from the first iteration
+        configManager.saveSounds(soundItems);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(configDir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void save() {
+        configManager.saveSounds(soundItems);
+    }
+
+    @Benchmark
+    public List<SoundItem> load() {
+        return configManager.loadSounds();
+    }
+
+    /** The startup path: streamed in batches of 500, as the controller hands them to the FX thread */
+    @Benchmark
+    public void loadStreaming(Blackhole blackhole) {
+        configManager.loadSounds(500, blackhole::consume);
+    }
+}
@@ -0,0 +1,83 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Rescanning a watched library folder in which nothing changed: a listing and a stat
+ * per file, with no hashing, decoding or change reports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FolderScanBenchmark {
+    @Param({"1000", "50000"})
+    public int fileCount;
+
+    private Path folder;
+    private LibraryFolderWatcher watcher;
+    private final AtomicInteger reports = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        folder = Files.createTempDirectory("soundboardfx-bench");
+        byte[] content = new byte[64];
+        for (int i = 0; i < fileCount; i++) {
+            Path dir = folder.resolve("pack" + (i % 100));
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("sound" + i + ".wav"), content);
+        }
+
+        CountDownLatch scanned = new CountDownLatch(1);
+        watcher = new LibraryFolderWatcher((added, changed, removed) -> {
+            reports.incrementAndGet();
+            scanned.countDown();
+        });
+        long start = System.nanoTime();
+        watcher.start(List.of(folder.toFile()));
+        scanned.await();
+        System.out.printf("%nFirst scan of %d files: %.1f ms%n", fileCount, (System.nanoTime() - start) / 1e6);
+        reports.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        watcher.close();
+        if (reports.get() != 0) {
+            throw new IllegalStateException("Unchanged rescans reported changes");
+        }
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int rescanUnchanged() {
+        return watcher.rescan();
+    }
+}
@@ -0,0 +1,111 @@
+package com.maven.soundboard.soundboardfx;
+
+import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
+import javafx.scene.input.KeyCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event cost of hotkey matching. Run with -prof gc to confirm the compiled
+ * paths allocate nothing; the string path is the previous implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotkeyMatchBenchmark {
+
+    private GlobalHotkeyManager hotkeyManager;
+    private Map<String, SoundItem> stringKeybinds;
+    private Set<String> pressedKeys;
+
+    @Setup
+    public void setup() {
+        Map<String, SoundItem> keybinds = new HashMap<>();
+        stringKeybinds = new HashMap<>();
+        String[] modifiers = {"CTRL", "ALT", "SHIFT", "CTRL+SHIFT"};
+        for (String modifier : modifiers) {
+            for (char letter = 'A'; letter <= 'Z'; letter++) {
+                String keybind = modifier + "+" + letter;
+                SoundItem item = new SoundItem(keybind, "/sounds/" + letter + ".wav", keybind);
+                keybinds.put(keybind, item);
+                stringKeybinds.put(String.join("+", new TreeSet<>(Arrays.asList(keybind.split("\\+")))), item);
+            }
+        }
+        keybinds.put("F1 DIGIT3", new SoundItem("F1 DIGIT3", "/sounds/sequence.wav", "F1 DIGIT3"));
+        hotkeyManager = new GlobalHotkeyManager(null, null);
+        hotkeyManager.updateKeybinds(keybinds);
+        pressedKeys = new HashSet<>();
+    }
+
+    /** Native virtual key code to JavaFX key code, done once per event before matching */
+    @Benchmark
+    public KeyCode nativeKeyConversion() {
+        return KeyChord.fromNativeKeyCode(NativeKeyEvent.VC_K);
+    }
+
+    /** Plain typing: one unbound key pressed and released */
+    @Benchmark
+    public void compiledUnboundKey(Blackhole blackhole) {
+        blackhole.consume(hotkeyManager.keyDown(NativeKeyEvent.VC_E));
+        hotkeyManager.keyUp(NativeKeyEvent.VC_E);
+    }
+
+    /** CTRL+K pressed and released, matching a bound sound */
+    @Benchmark
+    public void compiledBoundChord(Blackhole blackhole) {
+        blackhole.consume(hotkeyManager.keyDown(NativeKeyEvent.VC_CONTROL));
+        blackhole.consume(hotkeyManager.keyDown(NativeKeyEvent.VC_K));
+        hotkeyManager.keyUp(NativeKeyEvent.VC_K);
+        hotkeyManager.keyUp(NativeKeyEvent.VC_CONTROL);
+    }
+
+    /** CTRL+K from window key events, which go through the same matcher as the native hook */
+    @Benchmark
+    public void windowBoundChord(Blackhole blackhole) {
+        long now = System.nanoTime();
+        blackhole.consume(hotkeyManager.match(KeyCode.CONTROL, true, now));
+        blackhole.consume(hotkeyManager.match(KeyCode.K, true, now));
+        hotkeyManager.match(KeyCode.K, false, now);
+        hotkeyManager.match(KeyCode.CONTROL, false, now);
+    }
+
+    /** F1 then 3, a two-step sequence; the first step arms the sequence timer and the second cancels it */
+    @Benchmark
+    public void compiledSequence(Blackhole blackhole) {
+        blackhole.consume(hotkeyManager.keyDown(NativeKeyEvent.VC_F1));
+        hotkeyManager.keyUp(NativeKeyEvent.VC_F1);
+        blackhole.consume(hotkeyManager.keyDown(NativeKeyEvent.VC_3));
+        hotkeyManager.keyUp(NativeKeyEvent.VC_3);
+    }
+
+    /** The previous key-text, sorted-join and string lookup path for the same unbound key */
+    @Benchmark
+    public void stringUnboundKey(Blackhole blackhole) {
+        String keyName = NativeKeyEvent.getKeyText(NativeKeyEvent.VC_E).toUpperCase();
+        if (pressedKeys.add(keyName)) {
+            String combination = String.join("+", pressedKeys.stream().sorted().toArray(String[]::new));
+            blackhole.consume(stringKeybinds.get(combination));
+        }
+        pressedKeys.remove(keyName);
+    }
+}
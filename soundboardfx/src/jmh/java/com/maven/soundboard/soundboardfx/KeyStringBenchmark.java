@@ -0,0 +1,55 @@
+package com.maven.soundboard.soundboardfx;
+
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning an in-window JavaFX key event into its keybind string
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyStringBenchmark {
+
+    private KeyEvent plainKey;
+    private KeyEvent chord;
+    private KeyEvent modifierOnly;
+
+    @Setup
+    public void setup() {
+        plainKey = new KeyEvent(KeyEvent.KEY_PRESSED, "e", "E", KeyCode.E, false, false, false, false);
+        chord = new KeyEvent(KeyEvent.KEY_PRESSED, "", "K", KeyCode.K, true, true, false, false);
+        modifierOnly = new KeyEvent(KeyEvent.KEY_PRESSED, "", "Ctrl", KeyCode.CONTROL, false, true, false, false);
+    }
+
+    @Benchmark
+    public String plainKey() {
+        return SoundBoardController.getKeyString(plainKey);
+    }
+
+    /** CTRL+SHIFT+K */
+    @Benchmark
+    public String chord() {
+        return SoundBoardController.getKeyString(chord);
+    }
+
+    @Benchmark
+    public String modifierOnly() {
+        return SoundBoardController.getKeyString(modifierOnly);
+    }
+}
@@ -0,0 +1,114 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Opening the library as sounds.json versus the memory-mapped sounds.bin.
+ * Run with -prof gc: bytes allocated per operation show how much each path
+ * has to materialize on the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LibraryFormatBenchmark {
+    /** Rows visible in the sound table without scrolling */
+    private static final int FIRST_SCREEN = 50;
+
+    @Param({"1000", "10000", "100000"})
+    public int itemCount;
+
+    private File configDir;
+    private ConfigManager configManager;
+    private File binaryFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        configDir = Files.createTempDirectory("soundboardfx-bench").toFile();
+        configManager = new ConfigManager(configDir);
+        List<SoundItem> soundItems = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            soundItems.add(new SoundItem("Sound " + i,
+                "/home/user/sounds/library/folder" + (i % 100) + "/sound" + i + ".wav",
+                "CTRL+SHIFT+" + (char) ('A' + i % 26)));
+        }
+        configManager.saveSounds(soundItems);
+        configManager.convertJsonToBinary();
+        binaryFile = new File(configDir, "sounds.bin");
+        System.out.printf("%nsounds.json %d bytes, sounds.bin %d bytes%n",
+            new File(configDir, "sounds.json").length(), binaryFile.length());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(configDir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public List<SoundItem> jsonLoadAll() {
+        return configManager.loadSounds();
+    }
+
+    /** Mapping the file and reading the header */
+    @Benchmark
+    public int binaryOpen() throws IOException {
+        try (SoundLibraryFile library = SoundLibraryFile.open(binaryFile)) {
+            return library.size();
+        }
+    }
+
+    /** What the table needs to show its first screen */
+    @Benchmark
+    public void binaryOpenFirstScreen(Blackhole blackhole) throws IOException {
+        try (SoundLibraryFile library = SoundLibraryFile.open(binaryFile)) {
+            int rows = Math.min(FIRST_SCREEN, library.size());
+            for (int i = 0; i < rows; i++) {
+                blackhole.consume(library.getItem(i));
+            }
+        }
+    }
+
+    /** Only the keybinds, as needed to arm the hotkeys */
+    @Benchmark
+    public void binaryKeybindsOnly(Blackhole blackhole) throws IOException {
+        try (SoundLibraryFile library = SoundLibraryFile.open(binaryFile)) {
+            for (int i = 0; i < library.size(); i++) {
+                blackhole.consume(library.getKeybind(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<SoundItem> binaryLoadAll() throws IOException {
+        try (SoundLibraryFile library = SoundLibraryFile.open(binaryFile)) {
+            return library.readAll();
+        }
+    }
+}
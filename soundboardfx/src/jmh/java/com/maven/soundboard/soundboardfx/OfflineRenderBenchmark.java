@@ -0,0 +1,106 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixer throughput without audio hardware: ten seconds of a trigger timeline rendered offline
+ * into a NullSink on one thread. The score is output frames per second on one core; divide by
+ * 44100 for how many times faster than real time the mix runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OfflineRenderBenchmark {
+    private static final int SECONDS = 10;
+    private static final int FRAMES = SECONDS * 44100;
+
+    /** Sounds started per second; each lasts a second, so this is also about how many play at once */
+    @Param({"4", "32"})
+    public int triggersPerSecond;
+
+    @Param({"PCM16", "MU_LAW"})
+    public SampleEncoding encoding;
+
+    private final List<File> files = new ArrayList<>();
+    private OfflineRenderer renderer;
+    private TriggerTimeline timeline;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<SoundItem> sounds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            File file = writeWav(44100, 10.0 + i * 3);
+            files.add(file);
+            SoundItem soundItem = new SoundItem("sound" + i, file.getPath(), "");
+            soundItem.setRetrigger(RetriggerPolicy.OVERLAP);
+            soundItem.setMaxVoices(RetriggerPolicy.MAX_VOICES_LIMIT);
+            sounds.add(soundItem);
+        }
+
+        Random random = new Random(42);
+        timeline = new TriggerTimeline();
+        long spacingNanos = 1_000_000_000L / triggersPerSecond;
+        for (long time = 0; time < SECONDS * 1_000_000_000L; time += spacingNanos) {
+            timeline.play(time, sounds.get(random.nextInt(sounds.size())));
+        }
+        // Cut everything at the end so each render is the same length
+        timeline.stop(SECONDS * 1_000_000_000L, null);
+
+        SampleCache cache = new SampleCache(new SampleDecoder(SampleDecoder.DEFAULT_SAMPLE_RATE, encoding));
+        renderer = new OfflineRenderer(cache, new LoudnessNormalizer(false, -16, true),
+            AudioMixer.DEFAULT_BLOCK_FRAMES, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        files.forEach(File::delete);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long renderTimeline() throws Exception {
+        return renderer.render(timeline, new NullSink());
+    }
+
+    private static File writeWav(int frames, double period) throws Exception {
+        AudioFormat format = new AudioFormat(44100f, 16, 2, true, false);
+        byte[] data = new byte[frames * format.getFrameSize()];
+        for (int i = 0; i < data.length; i += 2) {
+            short value = (short) (Math.sin(i / period) * 8000);
+            data[i] = (byte) value;
+            data[i + 1] = (byte) (value >> 8);
+        }
+        File file = File.createTempFile("soundboardfx-bench", ".wav");
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(data), format, frames)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file);
+        }
+        return file;
+    }
+}
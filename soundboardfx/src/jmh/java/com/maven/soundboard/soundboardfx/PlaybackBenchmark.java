@@ -0,0 +1,112 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a sound from disk versus starting it from the sample cache, for each cache
+ * encoding. Playback renders into a NullSink on the benchmark thread, so no audio device is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaybackBenchmark {
+
+    @Param({"PCM16", "MU_LAW"})
+    public SampleEncoding encoding;
+
+    private File monoWav;
+    private File stereoWav;
+    private SampleDecoder decoder;
+    private SampleCache cache;
+    private NullSink sink;
+    private AudioMixer mixer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        // Two seconds each: one needs channel and rate conversion, the other is already in engine format
+        monoWav = writeWav(22050f, 1, 44100);
+        stereoWav = writeWav(44100f, 2, 88200);
+        decoder = new SampleDecoder(SampleDecoder.DEFAULT_SAMPLE_RATE, encoding);
+        cache = new SampleCache(decoder);
+        cache.get(stereoWav.getPath());
+
+        sink = new NullSink();
+        mixer = new AudioMixer(sink, decoder.getTargetFormat());
+        sink.open(decoder.getTargetFormat(), mixer.getBlockFrames());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        monoWav.delete();
+        stereoWav.delete();
+    }
+
+    @Benchmark
+    public DecodedSample decodeMonoResampled() throws Exception {
+        return decoder.decode(monoWav);
+    }
+
+    @Benchmark
+    public DecodedSample decodeStereo() throws Exception {
+        return decoder.decode(stereoWav);
+    }
+
+    /** Cache lookup, trigger and the first rendered block, i.e. what a hotkey press costs once warmed up */
+    @Benchmark
+    public int cacheHitPlaybackStart() {
+        String path = stereoWav.getPath();
+        mixer.stop(path);
+        mixer.play(cache.get(path), path, System.nanoTime());
+        int length = mixer.renderBlock();
+        sink.write(mixer.getOutputBuffer(), length);
+        return length;
+    }
+
+    /** A retrigger that reuses the sound's oldest voice under OVERLAP; should allocate nothing */
+    @Benchmark
+    public int overlapRetrigger() {
+        String path = stereoWav.getPath();
+        mixer.play(cache.get(path), path, System.nanoTime(), 1f, RetriggerPolicy.OVERLAP, 4);
+        int length = mixer.renderBlock();
+        sink.write(mixer.getOutputBuffer(), length);
+        return length;
+    }
+
+    private static File writeWav(float sampleRate, int channels, int frames) throws Exception {
+        AudioFormat format = new AudioFormat(sampleRate, 16, channels, true, false);
+        byte[] data = new byte[frames * format.getFrameSize()];
+        for (int i = 0; i < data.length; i += 2) {
+            short value = (short) (Math.sin(i / 20.0) * 8000);
+            data[i] = (byte) value;
+            data[i + 1] = (byte) (value >> 8);
+        }
+        File file = File.createTempFile("soundboardfx-bench", ".wav");
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(data), format, frames)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,98 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.sound.sampled.AudioFormat;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap and GC cost of keeping a large decoded library resident. HEAP_ARRAYS is the
+ * previous layout, one PCM byte array per sound on the Java heap; PCM16 and MU_LAW are
+ * the off-heap encodings. Heap and direct memory in use are printed after setup, and
+ * the benchmarks time a full collection and a burst of ordinary garbage with the
+ * library loaded. Add -prof gc for collection counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g", "-XX:MaxDirectMemorySize=1g"})
+public class SampleStorageBenchmark {
+    private static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+
+    @Param({"HEAP_ARRAYS", "PCM16", "MU_LAW"})
+    public String storage;
+
+    /** One-second stereo clips */
+    @Param({"1000"})
+    public int clipCount;
+
+    private final List<Object> library = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] pcm = new byte[44100 * 4];
+        for (int i = 0; i < pcm.length / 2; i++) {
+            short value = (short) (Math.sin(i / 20.0) * 8000);
+            pcm[i * 2] = (byte) value;
+            pcm[i * 2 + 1] = (byte) (value >> 8);
+        }
+        for (int i = 0; i < clipCount; i++) {
+            String path = "/sounds/clip" + i + ".wav";
+            switch (storage) {
+                case "HEAP_ARRAYS":
+                    library.add(pcm.clone());
+                    break;
+                case "MU_LAW":
+                    library.add(new DecodedSample(path, FORMAT, pcm, SampleEncoding.MU_LAW));
+                    break;
+                default:
+                    library.add(new DecodedSample(path, FORMAT, pcm, SampleEncoding.PCM16));
+                    break;
+            }
+        }
+
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                direct = pool.getMemoryUsed();
+            }
+        }
+        System.out.printf("%n%s, %d clips: heap used %.1f MB, direct %.1f MB%n", storage, clipCount,
+            memory.getHeapMemoryUsage().getUsed() / 1048576.0, direct / 1048576.0);
+    }
+
+    /** A full collection with the library resident */
+    @Benchmark
+    public void fullGc() {
+        System.gc();
+    }
+
+    /** 64 MB of short-lived garbage, as produced by UI work, with the library resident */
+    @Benchmark
+    public void youngGarbage(Blackhole blackhole) {
+        for (int i = 0; i < 1024; i++) {
+            blackhole.consume(new byte[64 * 1024]);
+        }
+    }
+}
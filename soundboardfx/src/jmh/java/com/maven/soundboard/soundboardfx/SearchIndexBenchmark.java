@@ -0,0 +1,86 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the sound search index and querying it. Queries range from a rare term,
+ * which the trigram postings narrow to a handful of candidates, to a short term that
+ * has to be checked against every item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchIndexBenchmark {
+    private static final String[] WORDS = {
+        "air", "horn", "drum", "roll", "sad", "trombone", "applause", "laugh", "boing", "crash",
+        "whoosh", "bell", "alarm", "cheer", "boo", "scream", "explosion", "siren", "beep", "click",
+        "door", "slam", "rain", "thunder", "cat", "dog", "bird", "car", "engine", "glass"
+    };
+
+    @Param({"20000", "100000"})
+    public int itemCount;
+
+    private List<SoundItem> soundItems;
+    private SoundSearchIndex index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        soundItems = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            String folder = i % 3 == 0 ? "memes" : "pack" + (i % 200);
+            soundItems.add(new SoundItem(name, "/home/user/sounds/" + folder + "/" + name.replace(' ', '_') + ".wav",
+                i % 10 == 0 ? "CTRL+SHIFT+" + (char) ('A' + i % 26) : null));
+        }
+        index = new SoundSearchIndex();
+        index.addAll(soundItems);
+    }
+
+    @Benchmark
+    public SoundSearchIndex build() {
+        SoundSearchIndex built = new SoundSearchIndex();
+        built.addAll(soundItems);
+        return built;
+    }
+
+    /** Kept apart so build and update are not repeated for every query */
+    @State(Scope.Benchmark)
+    public static class Query {
+        @Param({"thunder 4217", "horn", "memes", "ro"})
+        public String text;
+    }
+
+    @Benchmark
+    public List<SoundItem> search(Query query) {
+        return index.search(query.text);
+    }
+
+    /** Re-indexing one edited item, as the edit dialog does */
+    @Benchmark
+    public int update() {
+        SoundItem item = soundItems.get(next++ % itemCount);
+        index.update(item);
+        return index.size();
+    }
+}
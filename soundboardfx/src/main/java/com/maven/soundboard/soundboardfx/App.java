@@ -7,6 +7,8 @@ import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
+import java.util.Arrays;
+
 /**
  * JavaFX Soundboard Application
  * A modern desktop soundboard for Windows 11 with keybind support
@@ -48,7 +50,12 @@ public class App extends Application {
         primaryStage.show();
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // --headless runs the engine behind a control socket instead of the window
+        if (Arrays.asList(args).contains("--headless")) {
+            HeadlessEngine.main(args);
+            return;
+        }
         launch(args);
     }
 }
\ No newline at end of file
@@ -0,0 +1,892 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Software mixer that sums a fixed pool of voices into one output stream.
+ * All voices and buffers are allocated up front; the audio thread allocates
+ * nothing while rendering blocks. Each voice plays at its own gain, and the sum
+ * passes through an optional peak limiter before it is converted to 16 bits.
+ *
+ * A trigger may carry a retrigger policy for its key. The policy is applied on the audio
+ * thread as the command is drained, against the voices actually playing at that point, so
+ * a burst of triggers on one key resolves the same way however the threads interleave.
+ *
+ * A {@link TriggerSchedule} is started as one command and walked by the audio thread as it
+ * renders. A block is mixed in pieces split at the frames where scheduled events fall, so
+ * each starts or stops a voice on its exact frame rather than the next block boundary.
+ */
+public class AudioMixer {
+    public static final int DEFAULT_BLOCK_FRAMES = 256;
+    public static final int DEFAULT_MAX_VOICES = 32;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    /** Schedules running at once; starting another replaces the one started first */
+    public static final int MAX_SCHEDULES = 16;
+    /** Limiter ceiling, just under full scale */
+    private static final float LIMITER_THRESHOLD = 0.944f;
+    private static final double LIMITER_RELEASE_SECONDS = 0.05;
+    /** Play commands carry the retrigger policy and voice limit above the command type */
+    private static final int COMMAND_MASK = 0xF;
+    private static final int POLICY_SHIFT = 4;
+    private static final int LIMIT_SHIFT = 8;
+    private static final RetriggerPolicy[] POLICIES = RetriggerPolicy.values();
+
+    private final AudioSink sink;
+    private final AudioFormat format;
+    private final int blockFrames;
+    private final Voice[] voices;
+    private final float[] mixBuffer;
+    private final byte[] outputBuffer;
+    private final TriggerQueue commands = new TriggerQueue(DEFAULT_QUEUE_CAPACITY);
+    private final TriggerQueue.Handler commandHandler = new TriggerQueue.Handler() {
+        @Override
+        public void onCommand(int type, DecodedSample sample, StreamingSource stream, String key,
+                              long triggerNanos, float gain, long enqueueNanos) {
+            queueLatency.record(System.nanoTime() - enqueueNanos);
+            if (type == TriggerQueue.STOP_ALL) {
+                cancelSchedules();
+            }
+            if (applyCommand(type, sample, stream, key, triggerNanos, gain) != null) {
+                recordPlaybackStarted(triggerNanos);
+            }
+        }
+
+        @Override
+        public void onSchedule(TriggerSchedule schedule, long triggerNanos, long enqueueNanos) {
+            queueLatency.record(System.nanoTime() - enqueueNanos);
+            startSchedule(schedule, triggerNanos);
+        }
+    };
+    private final LatencyStats queueLatency = new LatencyStats();
+    private final ScheduleSlot[] scheduleSlots = new ScheduleSlot[MAX_SCHEDULES];
+    private final LatencyHistogram scheduleJitter = new LatencyHistogram();
+    private final float limiterRelease;
+
+    private volatile PlaybackBackend.LatencyListener latencyListener;
+    private volatile LatencyMetrics metrics;
+    private volatile boolean running;
+    /** Set by shutdown; an audio thread that outlives the join releases everything itself */
+    private volatile boolean shutdownRequested;
+    private boolean released;
+    private volatile boolean limiterEnabled;
+    private float limiterGain = 1f;
+    private long limitedBlocks;
+    private volatile int activeVoiceCount;
+    private Thread audioThread;
+    private long voiceCounter;
+    private long framesRendered;
+    private long stolenVoices;
+    private long ignoredTriggers;
+    private int runningSchedules;
+    private volatile int activeScheduleCount;
+    private long replacedSchedules;
+    /** A scheduled voice or schedule start waits for its block to be written, to measure jitter */
+    private boolean jitterPending;
+
+    public AudioMixer(AudioSink sink, AudioFormat format) {
+        this(sink, format, DEFAULT_BLOCK_FRAMES, DEFAULT_MAX_VOICES);
+    }
+
+    /**
+     * @param sink Output target
+     * @param format 16-bit little-endian stereo output format
+     * @param blockFrames Frames rendered per block
+     * @param maxVoices Polyphony limit; the oldest voice is stolen when all are busy
+     */
+    public AudioMixer(AudioSink sink, AudioFormat format, int blockFrames, int maxVoices) {
+        if (format.getChannels() != 2 || format.getSampleSizeInBits() != 16 || format.isBigEndian()) {
+            throw new IllegalArgumentException("Mixer requires 16-bit little-endian stereo, got " + format);
+        }
+        this.sink = sink;
+        this.format = format;
+        this.blockFrames = blockFrames;
+        this.voices = new Voice[maxVoices];
+        for (int i = 0; i < maxVoices; i++) {
+            voices[i] = new Voice();
+        }
+        for (int i = 0; i < MAX_SCHEDULES; i++) {
+            scheduleSlots[i] = new ScheduleSlot();
+        }
+        this.mixBuffer = new float[blockFrames * 2];
+        this.outputBuffer = new byte[blockFrames * format.getFrameSize()];
+        this.limiterRelease = (float) (1 - Math.exp(-1 / (LIMITER_RELEASE_SECONDS * format.getFrameRate())));
+    }
+
+    /**
+     * Opens the sink and starts the audio thread
+     */
+    public void start() throws Exception {
+        sink.open(format, blockFrames);
+        shutdownRequested = false;
+        released = false;
+        running = true;
+        audioThread = new Thread(this::runAudioLoop, "soundboard-mixer");
+        audioThread.setDaemon(true);
+        audioThread.setPriority(Thread.MAX_PRIORITY);
+        audioThread.start();
+    }
+
+    /**
+     * Receives the trigger-to-first-sample delay of every voice, called on the audio thread
+     */
+    public void setLatencyListener(PlaybackBackend.LatencyListener latencyListener) {
+        this.latencyListener = latencyListener;
+    }
+
+    /**
+     * Receives the playback-started and first-buffer-written stages of every trigger,
+     * and the jitter of scheduled ones
+     */
+    public void setMetrics(LatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queues a sample to start playing on the next block
+     * @param sample Decoded sample in the mixer format
+     * @param key Identifies the voice for later stop requests, usually the file path
+     * @return false if the command queue was full and the trigger was dropped
+     */
+    public boolean play(DecodedSample sample, String key) {
+        return play(sample, key, System.nanoTime());
+    }
+
+    /**
+     * Queues a sample to start playing on the next block
+     * @param sample Decoded sample in the mixer format
+     * @param key Identifies the voice for later stop requests, usually the file path
+     * @param triggerNanos System.nanoTime() of the triggering event, for latency reporting
+     * @return false if the command queue was full and the trigger was dropped
+     */
+    public boolean play(DecodedSample sample, String key, long triggerNanos) {
+        return play(sample, key, triggerNanos, 1f);
+    }
+
+    /**
+     * Queues a sample to start playing on the next block
+     * @param sample Decoded sample in the mixer format
+     * @param key Identifies the voice for later stop requests, usually the file path
+     * @param triggerNanos System.nanoTime() of the triggering event, for latency reporting
+     * @param gain Linear gain applied to the voice
+     * @return false if the command queue was full and the trigger was dropped
+     */
+    public boolean play(DecodedSample sample, String key, long triggerNanos, float gain) {
+        return play(sample, key, triggerNanos, gain, null, 0);
+    }
+
+    /**
+     * Triggers a sample, resolving it against voices already playing under the same key
+     * @param policy What to do if the key is playing; null starts another voice regardless
+     * @param voiceLimit Voices the key may hold under {@link RetriggerPolicy#OVERLAP}; the oldest is reused beyond it
+     * @return false if the command queue was full and the trigger was dropped
+     */
+    public boolean play(DecodedSample sample, String key, long triggerNanos, float gain,
+                        RetriggerPolicy policy, int voiceLimit) {
+        if (!sample.getFormat().matches(format)) {
+            throw new IllegalArgumentException("Sample format " + sample.getFormat() + " does not match mixer " + format);
+        }
+        return commands.offer(playCommand(TriggerQueue.PLAY, policy, voiceLimit), sample, null, key, triggerNanos, gain);
+    }
+
+    /**
+     * Queues a streaming source to start playing on the next block. The mixer closes
+     * the source when it finishes, is stopped or its voice is stolen.
+     * @param stream A started source in the mixer format
+     * @param key Identifies the voice for later stop requests, usually the file path
+     * @param triggerNanos System.nanoTime() of the triggering event, for latency reporting
+     * @return false if the command queue was full; the caller still owns the source
+     */
+    public boolean playStream(StreamingSource stream, String key, long triggerNanos) {
+        return playStream(stream, key, triggerNanos, 1f);
+    }
+
+    /**
+     * Queues a streaming source to start playing on the next block at the given linear gain
+     * @return false if the command queue was full; the caller still owns the source
+     */
+    public boolean playStream(StreamingSource stream, String key, long triggerNanos, float gain) {
+        return playStream(stream, key, triggerNanos, gain, null, 0);
+    }
+
+    /**
+     * Triggers a streaming source under a retrigger policy. A trigger the policy drops closes the source.
+     * @return false if the command queue was full; the caller still owns the source
+     */
+    public boolean playStream(StreamingSource stream, String key, long triggerNanos, float gain,
+                              RetriggerPolicy policy, int voiceLimit) {
+        return commands.offer(playCommand(TriggerQueue.PLAY_STREAM, policy, voiceLimit), null, stream, key,
+            triggerNanos, gain);
+    }
+
+    /**
+     * Starts a schedule of triggers with the next block, its first frame falling where a
+     * direct trigger would. A schedule with the same key that is still running is replaced.
+     * @param triggerNanos System.nanoTime() of the triggering event
+     * @return false if the command queue was full and the schedule was dropped
+     */
+    public boolean playSchedule(TriggerSchedule schedule, long triggerNanos) {
+        if (schedule.getFrameRate() != format.getFrameRate()) {
+            throw new IllegalArgumentException("Schedule at " + schedule.getFrameRate() + " Hz does not match mixer " + format);
+        }
+        for (int i = 0; i < schedule.size(); i++) {
+            DecodedSample sample = schedule.getSample(i);
+            if (sample != null && !sample.getFormat().matches(format)) {
+                throw new IllegalArgumentException("Sample format " + sample.getFormat() + " does not match mixer " + format);
+            }
+        }
+        return commands.offer(schedule, triggerNanos);
+    }
+
+    static int playCommand(int type, RetriggerPolicy policy, int voiceLimit) {
+        if (policy == null) {
+            return type;
+        }
+        return type | (policy.ordinal() + 1) << POLICY_SHIFT | Math.max(1, Math.min(255, voiceLimit)) << LIMIT_SHIFT;
+    }
+
+    /**
+     * Switches between limiting and hard clipping the mixed output
+     */
+    public void setLimiterEnabled(boolean limiterEnabled) {
+        this.limiterEnabled = limiterEnabled;
+    }
+
+    /**
+     * Stops every voice playing under the given key; running schedules go on
+     */
+    public boolean stop(String key) {
+        return commands.offer(TriggerQueue.STOP, null, key, 0);
+    }
+
+    /**
+     * Stops every voice and every running schedule
+     */
+    public boolean stopAll() {
+        return commands.offer(TriggerQueue.STOP_ALL, null, null, 0);
+    }
+
+    /**
+     * Stops the audio thread and closes the sink. If the thread does not stop in time, it
+     * releases the voices and closes the sink itself once it does.
+     */
+    public void shutdown() {
+        shutdownRequested = true;
+        running = false;
+        Thread thread = audioThread;
+        if (thread != null) {
+            // Make a write blocked on the device return
+            sink.stop();
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                System.err.println("Mixer thread is still writing; it will release its voices when it stops");
+                return;
+            }
+            audioThread = null;
+        }
+        releaseAll();
+    }
+
+    /**
+     * Releases voices and any streams still queued so their reader threads end, then closes
+     * the sink. Runs once, on whichever thread knows the audio thread has stopped.
+     */
+    private synchronized void releaseAll() {
+        if (released) {
+            return;
+        }
+        released = true;
+        for (Voice voice : voices) {
+            voice.release();
+        }
+        commands.drain((type, sample, stream, key, triggerNanos, gain, enqueueNanos) -> {
+            if (stream != null) {
+                stream.close();
+            }
+        });
+        sink.close();
+    }
+
+    private void runAudioLoop() {
+        try {
+            renderUntilStopped();
+        } finally {
+            if (shutdownRequested) {
+                releaseAll();
+            }
+        }
+    }
+
+    private void renderUntilStopped() {
+        long blockNanos = (long) (blockFrames * 1_000_000_000L / format.getFrameRate());
+        long nextBlock = System.nanoTime();
+
+        while (running) {
+            int length = renderBlock();
+            try {
+                sink.write(outputBuffer, length);
+            } catch (Exception e) {
+                System.err.println("Audio output failed: " + e.getMessage());
+                running = false;
+                return;
+            }
+            reportFirstSamples();
+
+            // Blocking sinks pace the loop themselves; otherwise keep to real time
+            if (!sink.isBlocking()) {
+                nextBlock += blockNanos;
+                long wait = nextBlock - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else if (wait < -blockNanos * 8) {
+                    nextBlock = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports latency for voices that started in the block just written. The block's first
+     * frame becomes audible once everything queued ahead of it in the sink has played.
+     */
+    private void reportFirstSamples() {
+        PlaybackBackend.LatencyListener listener = latencyListener;
+        LatencyMetrics stageMetrics = metrics;
+        if (listener == null && stageMetrics == null && !jitterPending) {
+            return;
+        }
+
+        long writtenAt = System.nanoTime();
+        long aheadFrames = Math.max(0, sink.getQueuedFrames() - blockFrames);
+        long audibleAt = writtenAt + (long) (aheadFrames * 1_000_000_000L / format.getFrameRate());
+        if (jitterPending) {
+            reportScheduleJitter(audibleAt);
+        }
+        for (Voice voice : voices) {
+            if (voice.active && voice.reportPending) {
+                voice.reportPending = false;
+                if (stageMetrics != null) {
+                    stageMetrics.record(LatencyMetrics.Stage.FIRST_BUFFER_WRITTEN, writtenAt - voice.triggerNanos);
+                    stageMetrics.recordSound(voice.key, writtenAt - voice.triggerNanos);
+                }
+                if (listener != null) {
+                    listener.onFirstSample(voice.key, audibleAt - voice.triggerNanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Measures scheduled voices started in the block just written against the recorded timing:
+     * a schedule's start frame is heard at the block's audible time, and each event should be
+     * heard its recorded offset after that
+     * @param audibleAt When the block's first frame is expected to be heard
+     */
+    private void reportScheduleJitter(long audibleAt) {
+        jitterPending = false;
+        for (ScheduleSlot slot : scheduleSlots) {
+            if (slot.originPending) {
+                slot.originPending = false;
+                slot.originNanos = audibleAt;
+            }
+        }
+        double nanosPerFrame = 1_000_000_000.0 / format.getFrameRate();
+        for (Voice voice : voices) {
+            ScheduleSlot slot = voice.schedule;
+            if (voice.active && slot != null) {
+                voice.schedule = null;
+                long heardAt = audibleAt + Math.round(voice.blockOffset * nanosPerFrame);
+                long error = Math.abs(heardAt - (slot.originNanos + voice.scheduleOffsetNanos));
+                scheduleJitter.record(error);
+                LatencyMetrics stageMetrics = metrics;
+                if (stageMetrics != null) {
+                    stageMetrics.recordMacroJitter(error);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies pending commands and mixes one block into the output buffer.
+     * Called from the audio thread, or directly when rendering offline.
+     * @return Number of valid bytes in the output buffer
+     */
+    public int renderBlock() {
+        return render(blockFrames);
+    }
+
+    /**
+     * Applies pending commands and mixes a part of a block, so an offline render can start
+     * a trigger on its exact frame. Not for use while the audio thread is running.
+     * @param frames 0 to the block size; 0 only applies the pending commands
+     * @return Number of valid bytes in the output buffer
+     */
+    public int render(int frames) {
+        applyCommands();
+        Arrays.fill(mixBuffer, 0, frames * 2, 0f);
+
+        // Mix up to each scheduled event, apply it, and carry on from its frame
+        int done = 0;
+        while (done < frames) {
+            int until = applySchedules(done, frames);
+            for (Voice voice : voices) {
+                if (voice.active) {
+                    voice.mixInto(mixBuffer, done, until - done);
+                }
+            }
+            done = until;
+        }
+        int active = 0;
+        for (Voice voice : voices) {
+            if (voice.active) {
+                active++;
+            }
+        }
+        activeVoiceCount = active;
+        activeScheduleCount = runningSchedules;
+
+        if (limiterEnabled) {
+            limit(frames);
+        } else {
+            limiterGain = 1f;
+        }
+        for (int i = 0; i < frames * 2; i++) {
+            float value = mixBuffer[i];
+            if (value > 1f) {
+                value = 1f;
+            } else if (value < -1f) {
+                value = -1f;
+            }
+            int sample = (int) (value * 32767f);
+            outputBuffer[i * 2] = (byte) sample;
+            outputBuffer[i * 2 + 1] = (byte) (sample >> 8);
+        }
+
+        framesRendered += frames;
+        return frames * 4;
+    }
+
+    /**
+     * Scales the mix down wherever a frame would exceed the threshold: gain drops at once
+     * to catch the peak and recovers exponentially, so loud overlaps duck instead of clipping
+     */
+    private void limit(int frames) {
+        float gain = limiterGain;
+        float release = limiterRelease;
+        boolean limited = false;
+        for (int i = 0; i < frames * 2; i += 2) {
+            float peak = Math.max(Math.abs(mixBuffer[i]), Math.abs(mixBuffer[i + 1]));
+            float target = peak > LIMITER_THRESHOLD ? LIMITER_THRESHOLD / peak : 1f;
+            if (target < gain) {
+                gain = target;
+            } else {
+                gain += (target - gain) * release;
+            }
+            if (gain < 1f) {
+                mixBuffer[i] *= gain;
+                mixBuffer[i + 1] *= gain;
+                limited |= target < 1f;
+            }
+        }
+        limiterGain = gain;
+        if (limited) {
+            limitedBlocks++;
+        }
+    }
+
+    private void applyCommands() {
+        commands.drain(commandHandler);
+    }
+
+    /**
+     * Starts, restarts or stops voices for one command
+     * @return The voice started, or null
+     */
+    private Voice applyCommand(int type, DecodedSample sample, StreamingSource stream, String key,
+                               long triggerNanos, float gain) {
+        switch (type & COMMAND_MASK) {
+            case TriggerQueue.PLAY:
+            case TriggerQueue.PLAY_STREAM: {
+                int policy = (type >>> POLICY_SHIFT) & 0xF;
+                Voice voice = policy == 0 ? allocateVoice()
+                    : voiceForRetrigger(key, POLICIES[policy - 1], type >>> LIMIT_SHIFT);
+                if (voice == null) {
+                    if (stream != null) {
+                        stream.close();
+                    }
+                    return null;
+                }
+                if (stream != null) {
+                    voice.startStream(stream, key, voiceCounter++, triggerNanos, gain);
+                } else {
+                    voice.start(sample, key, voiceCounter++, triggerNanos, gain);
+                }
+                return voice;
+            }
+            case TriggerQueue.STOP:
+                releaseKey(key);
+                break;
+            case TriggerQueue.STOP_ALL:
+                for (Voice voice : voices) {
+                    voice.release();
+                }
+                break;
+            default:
+                break;
+        }
+        return null;
+    }
+
+    /**
+     * Takes a slot for a new schedule: the one running under the same key, a free one,
+     * or else the one started first
+     */
+    private void startSchedule(TriggerSchedule schedule, long triggerNanos) {
+        ScheduleSlot target = null;
+        ScheduleSlot oldest = null;
+        for (ScheduleSlot slot : scheduleSlots) {
+            if (slot.active && schedule.getKey().equals(slot.schedule.getKey())) {
+                target = slot;
+                break;
+            }
+            if (!slot.active && target == null) {
+                target = slot;
+            } else if (slot.active && (oldest == null || slot.startFrame < oldest.startFrame)) {
+                oldest = slot;
+            }
+        }
+        if (target == null) {
+            replacedSchedules++;
+            target = oldest;
+        }
+        if (!target.active) {
+            runningSchedules++;
+        }
+        target.start(schedule, framesRendered, triggerNanos);
+        jitterPending = true;
+    }
+
+    private void cancelSchedules() {
+        for (ScheduleSlot slot : scheduleSlots) {
+            slot.active = false;
+            slot.schedule = null;
+        }
+        runningSchedules = 0;
+    }
+
+    /**
+     * Applies the scheduled events due at a point in the block being rendered
+     * @param done Frames of the block already mixed
+     * @param frames Frames in the block
+     * @return Where in the block the next scheduled event falls, or the block's end
+     */
+    private int applySchedules(int done, int frames) {
+        if (runningSchedules == 0) {
+            return frames;
+        }
+        long now = framesRendered + done;
+        long next = framesRendered + frames;
+        for (ScheduleSlot slot : scheduleSlots) {
+            if (!slot.active) {
+                continue;
+            }
+            TriggerSchedule schedule = slot.schedule;
+            int cursor = slot.cursor;
+            while (cursor < schedule.size() && slot.startFrame + schedule.getFrame(cursor) <= now) {
+                Voice voice = applyCommand(schedule.getType(cursor), schedule.getSample(cursor), null,
+                    schedule.getEventKey(cursor), slot.triggerNanos + schedule.getOffsetNanos(cursor),
+                    schedule.getGain(cursor));
+                if (voice != null) {
+                    // Measured against the recorded timing instead of as trigger latency
+                    voice.reportPending = false;
+                    voice.schedule = slot;
+                    voice.scheduleOffsetNanos = schedule.getOffsetNanos(cursor);
+                    voice.blockOffset = done;
+                    jitterPending = true;
+                }
+                cursor++;
+            }
+            slot.cursor = cursor;
+            if (cursor == schedule.size()) {
+                slot.active = false;
+                slot.schedule = null;
+                runningSchedules--;
+            } else {
+                next = Math.min(next, slot.startFrame + schedule.getFrame(cursor));
+            }
+        }
+        return (int) (next - framesRendered);
+    }
+
+    private void recordPlaybackStarted(long triggerNanos) {
+        LatencyMetrics stageMetrics = metrics;
+        if (stageMetrics != null) {
+            stageMetrics.record(LatencyMetrics.Stage.PLAYBACK_STARTED, System.nanoTime() - triggerNanos);
+        }
+    }
+
+    /**
+     * Applies a retrigger policy to the voices playing under a key
+     * @return The voice to start, or null if the trigger ends here
+     */
+    private Voice voiceForRetrigger(String key, RetriggerPolicy policy, int voiceLimit) {
+        int playing = 0;
+        Voice oldest = null;
+        for (Voice voice : voices) {
+            if (voice.active && key.equals(voice.key)) {
+                playing++;
+                if (oldest == null || voice.startOrder < oldest.startOrder) {
+                    oldest = voice;
+                }
+            }
+        }
+        if (playing == 0) {
+            return allocateVoice();
+        }
+        switch (policy) {
+            case IGNORE:
+                ignoredTriggers++;
+                return null;
+            case TOGGLE:
+                releaseKey(key);
+                return null;
+            case OVERLAP:
+                if (playing < voiceLimit) {
+                    return allocateVoice();
+                }
+                // Reuse the key's own oldest voice rather than stealing another sound's
+                oldest.release();
+                return oldest;
+            default:
+                releaseKey(key);
+                return oldest;
+        }
+    }
+
+    private void releaseKey(String key) {
+        for (Voice voice : voices) {
+            if (voice.active && key.equals(voice.key)) {
+                voice.release();
+            }
+        }
+    }
+
+    /**
+     * Finds a free voice, stealing the oldest one if the pool is full
+     */
+    private Voice allocateVoice() {
+        Voice oldest = voices[0];
+        for (Voice voice : voices) {
+            if (!voice.active) {
+                return voice;
+            }
+            if (voice.startOrder < oldest.startOrder) {
+                oldest = voice;
+            }
+        }
+        stolenVoices++;
+        oldest.release();
+        return oldest;
+    }
+
+    public byte[] getOutputBuffer() {
+        return outputBuffer;
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    public int getBlockFrames() {
+        return blockFrames;
+    }
+
+    public int getMaxVoices() {
+        return voices.length;
+    }
+
+    public int getActiveVoiceCount() {
+        return activeVoiceCount;
+    }
+
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    /**
+     * @return Delay between a command being queued and the audio thread picking it up
+     */
+    public LatencyStats getQueueLatency() {
+        return queueLatency;
+    }
+
+    /**
+     * @return How far scheduled voices were heard from their recorded timing, estimated from the output clock
+     */
+    public LatencyHistogram getScheduleJitter() {
+        return scheduleJitter;
+    }
+
+    /**
+     * @return Schedules with events still to start
+     */
+    public int getActiveScheduleCount() {
+        return activeScheduleCount;
+    }
+
+    /**
+     * @return Schedules cut short because {@link #MAX_SCHEDULES} were already running
+     */
+    public long getReplacedScheduleCount() {
+        return replacedSchedules;
+    }
+
+    public long getStolenVoiceCount() {
+        return stolenVoices;
+    }
+
+    /**
+     * @return Triggers dropped because their sound was playing under {@link RetriggerPolicy#IGNORE}
+     */
+    public long getIgnoredTriggerCount() {
+        return ignoredTriggers;
+    }
+
+    /**
+     * @return Blocks in which the limiter had to reduce a peak
+     */
+    public long getLimitedBlockCount() {
+        return limitedBlocks;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * One playback slot in the voice pool
+     */
+    private static final class Voice {
+        private boolean active;
+        private ByteBuffer data;
+        private boolean muLaw;
+        private int sampleCount;
+        private StreamingSource stream;
+        private String key;
+        /** Linear gain folded into the 16-bit to float conversion */
+        private float scale;
+        /** Next interleaved sample to mix */
+        private int position;
+        private long startOrder;
+        private long triggerNanos;
+        private boolean reportPending;
+        /** Frame within its first block the voice started on */
+        private int blockOffset;
+        /** Schedule that started the voice, until its jitter is measured */
+        private ScheduleSlot schedule;
+        private long scheduleOffsetNanos;
+
+        void start(DecodedSample sample, String key, long startOrder, long triggerNanos, float gain) {
+            this.data = sample.getData();
+            this.muLaw = sample.getEncoding() == SampleEncoding.MU_LAW;
+            this.sampleCount = sample.getFrameCount() * 2;
+            this.key = key;
+            this.scale = gain / 32768f;
+            this.position = 0;
+            this.startOrder = startOrder;
+            this.triggerNanos = triggerNanos;
+            this.reportPending = true;
+            this.blockOffset = 0;
+            this.schedule = null;
+            this.active = true;
+        }
+
+        void startStream(StreamingSource stream, String key, long startOrder, long triggerNanos, float gain) {
+            this.data = null;
+            this.stream = stream;
+            this.key = key;
+            this.scale = gain / 32768f;
+            this.startOrder = startOrder;
+            this.triggerNanos = triggerNanos;
+            this.reportPending = true;
+            this.blockOffset = 0;
+            this.schedule = null;
+            this.active = true;
+        }
+
+        void release() {
+            active = false;
+            reportPending = false;
+            schedule = null;
+            data = null;
+            key = null;
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+        }
+
+        /**
+         * @param offsetFrames Frame of the block to start mixing at
+         */
+        void mixInto(float[] mix, int offsetFrames, int frames) {
+            if (stream != null) {
+                // An underrun leaves the rest of the block silent; only the end of the file releases
+                stream.mixInto(mix, offsetFrames, frames, scale);
+                if (stream.isFinished()) {
+                    release();
+                }
+                return;
+            }
+
+            // Samples are expanded to 16 bits here, so the cache can keep them compact
+            int count = Math.min(frames, (sampleCount - position) / 2);
+            int offset = position;
+            float gain = scale;
+            int start = offsetFrames * 2;
+            int end = start + count * 2;
+            if (muLaw) {
+                for (int i = start; i < end; i++) {
+                    mix[i] += MuLaw.decode(data.get(offset++)) * gain;
+                }
+            } else {
+                for (int i = start; i < end; i++) {
+                    mix[i] += data.getShort((offset++) * 2) * gain;
+                }
+            }
+            position = offset;
+            if (count < frames) {
+                release();
+            }
+        }
+    }
+
+    /**
+     * A schedule running on the audio thread and how far it has got
+     */
+    private static final class ScheduleSlot {
+        private boolean active;
+        private TriggerSchedule schedule;
+        private long startFrame;
+        private int cursor;
+        private long triggerNanos;
+        /** Estimated time the start frame was heard, set once its block is written */
+        private long originNanos;
+        private boolean originPending;
+
+        void start(TriggerSchedule schedule, long startFrame, long triggerNanos) {
+            this.schedule = schedule;
+            this.startFrame = startFrame;
+            this.cursor = 0;
+            this.triggerNanos = triggerNanos;
+            this.originPending = true;
+            this.active = true;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.maven.soundboard.soundboardfx;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * User-adjustable playback and hotkey settings, persisted by ConfigManager
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AudioSettings {
+    public static final int[] BUFFER_SIZES = {256, 512, 1024, 2048, 4096, 8192};
+    public static final int[] SAMPLE_RATES = {44100, 48000};
+    public static final int[] STREAMING_THRESHOLDS = {10, 30, 60, 120, 300};
+    public static final int[] TARGET_LOUDNESS = {-12, -14, -16, -18, -20, -23};
+
+    private BackendType backend = BackendType.SAMPLED_LINE;
+    private int bufferFrames = LineSink.DEFAULT_BUFFER_FRAMES;
+    private float sampleRate = SampleDecoder.DEFAULT_SAMPLE_RATE;
+    private int streamingThresholdSeconds = 30;
+    private SampleEncoding sampleEncoding = SampleEncoding.PCM16;
+    private boolean normalizeLoudness = true;
+    private int targetLoudness = -16;
+    private boolean limiterEnabled = true;
+    private List<String> pageKeybinds = new ArrayList<>();
+
+    public BackendType getBackend() {
+        return backend;
+    }
+
+    public void setBackend(BackendType backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * @return Output line buffer size in frames
+     */
+    public int getBufferFrames() {
+        return bufferFrames;
+    }
+
+    public void setBufferFrames(int bufferFrames) {
+        this.bufferFrames = bufferFrames;
+    }
+
+    public float getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(float sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * @return Files longer than this are streamed instead of decoded into the sample cache
+     */
+    public int getStreamingThresholdSeconds() {
+        return streamingThresholdSeconds;
+    }
+
+    public void setStreamingThresholdSeconds(int streamingThresholdSeconds) {
+        this.streamingThresholdSeconds = streamingThresholdSeconds;
+    }
+
+    /**
+     * @return How the sample cache stores decoded sounds
+     */
+    public SampleEncoding getSampleEncoding() {
+        return sampleEncoding;
+    }
+
+    public void setSampleEncoding(SampleEncoding sampleEncoding) {
+        this.sampleEncoding = sampleEncoding;
+    }
+
+    /**
+     * @return Whether measured sounds are played at the target loudness
+     */
+    public boolean isNormalizeLoudness() {
+        return normalizeLoudness;
+    }
+
+    public void setNormalizeLoudness(boolean normalizeLoudness) {
+        this.normalizeLoudness = normalizeLoudness;
+    }
+
+    /**
+     * @return Integrated loudness in LUFS that normalized sounds are brought to
+     */
+    public int getTargetLoudness() {
+        return targetLoudness;
+    }
+
+    public void setTargetLoudness(int targetLoudness) {
+        this.targetLoudness = targetLoudness;
+    }
+
+    /**
+     * @return Whether the mixer output passes through a peak limiter instead of clipping
+     */
+    public boolean isLimiterEnabled() {
+        return limiterEnabled;
+    }
+
+    public void setLimiterEnabled(boolean limiterEnabled) {
+        this.limiterEnabled = limiterEnabled;
+    }
+
+    /**
+     * @return Keybind switching to each hotkey page, by page number; page 0 has only the sounds on every page
+     */
+    public List<String> getPageKeybinds() {
+        return pageKeybinds;
+    }
+
+    public void setPageKeybinds(List<String> pageKeybinds) {
+        this.pageKeybinds = pageKeybinds != null ? pageKeybinds : new ArrayList<>();
+    }
+
+    /**
+     * @return Mixer block size, a quarter of the line buffer within sensible limits
+     */
+    @JsonIgnore
+    public int getBlockFrames() {
+        return Math.max(64, Math.min(AudioMixer.DEFAULT_BLOCK_FRAMES * 2, bufferFrames / 4));
+    }
+
+    public AudioSettings copy() {
+        AudioSettings copy = new AudioSettings();
+        copy.setBackend(backend);
+        copy.setBufferFrames(bufferFrames);
+        copy.setSampleRate(sampleRate);
+        copy.setStreamingThresholdSeconds(streamingThresholdSeconds);
+        copy.setSampleEncoding(sampleEncoding);
+        copy.setNormalizeLoudness(normalizeLoudness);
+        copy.setTargetLoudness(targetLoudness);
+        copy.setLimiterEnabled(limiterEnabled);
+        copy.setPageKeybinds(new ArrayList<>(pageKeybinds));
+        return copy;
+    }
+}
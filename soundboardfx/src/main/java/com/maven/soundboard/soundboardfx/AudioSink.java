@@ -0,0 +1,47 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Output target for the mixer: a sound card line, a file, or nothing at all
+ */
+public interface AudioSink {
+
+    /**
+     * Prepares the sink for writing
+     * @param format PCM format of every block that will be written
+     * @param blockFrames Number of frames in each mixer block
+     */
+    void open(AudioFormat format, int blockFrames) throws Exception;
+
+    /**
+     * Writes one block of interleaved PCM. Called only from the mixer thread.
+     * @param buffer PCM bytes
+     * @param length Number of valid bytes in the buffer
+     */
+    void write(byte[] buffer, int length) throws Exception;
+
+    /**
+     * @return true if write blocks until the device has consumed the data,
+     *         false if the mixer has to pace itself to real time
+     */
+    default boolean isBlocking() {
+        return false;
+    }
+
+    /**
+     * @return Frames written but not yet played, used to estimate when a block becomes audible
+     */
+    default long getQueuedFrames() {
+        return 0;
+    }
+
+    /**
+     * Makes a write in progress return early so the mixer thread can stop; called from
+     * another thread before close
+     */
+    default void stop() {
+    }
+
+    void close();
+}
@@ -0,0 +1,25 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * Available playback backends
+ */
+public enum BackendType {
+    JAVAFX_MEDIA("JavaFX Media"),
+    SAMPLED_LINE("Java Sound mixer (SourceDataLine)"),
+    SAMPLED_CLIP("Java Sound clips (Clip)");
+
+    private final String displayName;
+
+    BackendType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,153 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.LineEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plays cached samples with one Java Sound Clip per trigger. Simpler than the mixer,
+ * but every trigger opens a new line on the sound card. A sound's retrigger policy is
+ * checked before a line is opened, so ignored and toggled triggers cost nothing.
+ */
+public class ClipBackend implements PlaybackBackend {
+    /** Clips of each sound, oldest first; guarded by this */
+    private final Map<String, Deque<Clip>> clips = new HashMap<>();
+    private final SampleCache sampleCache;
+    private final StreamingPolicy streamingPolicy;
+    private final LoudnessNormalizer normalizer;
+    private final LatencyListener latencyListener;
+
+    public ClipBackend(SampleCache sampleCache, StreamingPolicy streamingPolicy, LoudnessNormalizer normalizer,
+                       LatencyListener latencyListener) {
+        this.sampleCache = sampleCache;
+        this.streamingPolicy = streamingPolicy;
+        this.normalizer = normalizer;
+        this.latencyListener = latencyListener;
+    }
+
+    @Override
+    public boolean play(SoundItem soundItem, long triggerNanos) throws Exception {
+        // A Clip holds the whole file, so long files go to JavaFX Media, which streams
+        if (streamingPolicy.shouldStream(soundItem.getFilePath())) {
+            return false;
+        }
+        // Key by the triggered path: the sample may be shared with a copy of this file
+        String key = soundItem.getFilePath();
+        if (!makeRoom(key, soundItem.getRetriggerPolicy(), soundItem.getVoiceLimit())) {
+            return true;
+        }
+        DecodedSample sample = sampleCache.get(key);
+        if (sample == null) {
+            return false;
+        }
+
+        Clip clip = AudioSystem.getClip();
+        // Clip copies the data into its own line buffer, so it needs plain PCM on the heap
+        byte[] pcm = sample.toPcmBytes();
+        clip.open(sample.getFormat(), pcm, 0, pcm.length);
+        applyGain(clip, normalizer.gainDbFor(soundItem));
+
+        // Line events arrive on the event dispatch thread, so only remove the clip we registered
+        clip.addLineListener(event -> {
+            if (event.getType() == LineEvent.Type.START) {
+                latencyListener.onFirstSample(key, System.nanoTime() - triggerNanos);
+            } else if (event.getType() == LineEvent.Type.STOP) {
+                clip.close();
+                remove(key, clip);
+            }
+        });
+
+        synchronized (this) {
+            clips.computeIfAbsent(key, k -> new ArrayDeque<>()).addLast(clip);
+        }
+        clip.start();
+        return true;
+    }
+
+    /**
+     * Applies the retrigger policy to the clips already playing a sound
+     * @return false if the trigger ends here
+     */
+    private boolean makeRoom(String key, RetriggerPolicy policy, int voiceLimit) {
+        List<Clip> closing = new ArrayList<>();
+        boolean start = true;
+        synchronized (this) {
+            Deque<Clip> playing = clips.get(key);
+            if (playing != null && !playing.isEmpty()) {
+                switch (policy) {
+                    case IGNORE:
+                        return false;
+                    case TOGGLE:
+                        closing.addAll(playing);
+                        start = false;
+                        break;
+                    case OVERLAP:
+                        while (playing.size() >= voiceLimit) {
+                            closing.add(playing.pollFirst());
+                        }
+                        break;
+                    default:
+                        closing.addAll(playing);
+                        break;
+                }
+                playing.removeAll(closing);
+            }
+        }
+        // Closing fires STOP events, so do it outside the lock
+        closing.forEach(Clip::close);
+        return start;
+    }
+
+    private synchronized void remove(String key, Clip clip) {
+        Deque<Clip> playing = clips.get(key);
+        if (playing != null) {
+            playing.remove(clip);
+            if (playing.isEmpty()) {
+                clips.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Sets the clip's master gain where the line supports it; there is no limiter on this path
+     */
+    private static void applyGain(Clip clip, double gainDb) {
+        if (gainDb != 0 && clip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+            FloatControl control = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
+            control.setValue((float) Math.max(control.getMinimum(), Math.min(control.getMaximum(), gainDb)));
+        }
+    }
+
+    @Override
+    public void stop(String filePath) {
+        Deque<Clip> playing;
+        synchronized (this) {
+            playing = clips.remove(filePath);
+        }
+        if (playing != null) {
+            playing.forEach(Clip::close);
+        }
+    }
+
+    @Override
+    public void stopAll() {
+        List<Clip> playing = new ArrayList<>();
+        synchronized (this) {
+            clips.values().forEach(playing::addAll);
+            clips.clear();
+        }
+        playing.forEach(Clip::close);
+    }
+
+    @Override
+    public void dispose() {
+        stopAll();
+    }
+}
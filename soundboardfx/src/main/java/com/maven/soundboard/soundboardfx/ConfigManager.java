@@ -1,57 +1,449 @@
 package com.maven.soundboard.soundboardfx;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.type.CollectionType;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
- * Manages saving and loading sound configurations to/from JSON
+ * Manages saving and loading sound configurations to/from JSON.
+ * Files are written to a temporary file, flushed to disk and renamed over the original,
+ * so a crash or power loss mid-write leaves the previous version intact.
  */
 public class ConfigManager {
     private static final String CONFIG_DIR = System.getProperty("user.home") + File.separator + ".soundboardfx";
-    private static final String CONFIG_FILE = CONFIG_DIR + File.separator + "sounds.json";
+    /** Edits arriving within this window of the first one are written together */
+    private static final long SAVE_DELAY_MILLIS = 250;
+
+    private final File configFile;
+    private final File binaryLibraryFile;
+    private final File settingsFile;
+    private final File latencyReportFile;
+    private final File libraryFoldersFile;
+    private final File waveformCacheFile;
+    private final File macrosFile;
     private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicReference<List<SoundItem>> pendingSounds = new AtomicReference<>();
+    private final LatencyStats saveLatency = new LatencyStats();
+    private volatile long lastSaveBytes;
+    private volatile long totalSaveBytes;
+    private volatile ScheduledExecutorService writer;
+    private volatile boolean binaryLibraryEnabled = Boolean.getBoolean("soundboardfx.binaryLibrary");
     
     public ConfigManager() {
+        this(new File(CONFIG_DIR));
+    }
+
+    /**
+     * @param configDir Directory holding sounds.json and settings.json
+     */
+    public ConfigManager(File configDir) {
         // Create config directory if it doesn't exist
-        File configDir = new File(CONFIG_DIR);
         if (!configDir.exists()) {
             configDir.mkdirs();
         }
+        configFile = new File(configDir, "sounds.json");
+        binaryLibraryFile = new File(configDir, "sounds.bin");
+        settingsFile = new File(configDir, "settings.json");
+        latencyReportFile = new File(configDir, "latency.json");
+        libraryFoldersFile = new File(configDir, "folders.json");
+        waveformCacheFile = new File(configDir, "waveforms.bin");
+        macrosFile = new File(configDir, "macros.bin");
     }
     
     /**
-     * Saves the sound items to the configuration file
+     * Saves the sound items to the configuration file on the calling thread
      * @param soundItems List of sound items to save
      */
-    public void saveSounds(List<SoundItem> soundItems) {
+    public synchronized void saveSounds(List<SoundItem> soundItems) {
+        long start = System.nanoTime();
         try {
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(CONFIG_FILE), soundItems);
+            long bytes = writeAtomically(configFile, soundItems, false);
+            if (binaryLibraryEnabled) {
+                bytes += writeBinaryLibrary(soundItems);
+            }
+            saveLatency.record(System.nanoTime() - start);
+            lastSaveBytes = bytes;
+            totalSaveBytes += bytes;
         } catch (IOException e) {
             System.err.println("Failed to save configuration: " + e.getMessage());
         }
     }
+
+    /**
+     * Saves the sound items on the background writer without blocking. Saves requested
+     * in quick succession are coalesced and only the latest list is written.
+     * @param soundItems Snapshot of the sound items; must not be modified afterwards
+     */
+    public void saveSoundsAsync(List<SoundItem> soundItems) {
+        if (pendingSounds.getAndSet(soundItems) == null) {
+            getWriter().schedule(this::writePendingSounds, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writePendingSounds() {
+        List<SoundItem> soundItems = pendingSounds.getAndSet(null);
+        if (soundItems != null) {
+            saveSounds(soundItems);
+        }
+    }
+
+    private synchronized ScheduledExecutorService getWriter() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "soundboard-config-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return writer;
+    }
+
+    /**
+     * Writes any pending save now and stops the background writer, letting a save it has
+     * already started finish
+     */
+    public void close() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = writer;
+            writer = null;
+        }
+        // Interrupting the writer would fail the save it is making, after it took the
+        // pending list; a delayed save still queued finds nothing left to write
+        if (current != null) {
+            current.shutdown();
+        }
+        writePendingSounds();
+        if (current != null) {
+            try {
+                current.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Writes a value to a temporary file beside the target, then moves it into place
+     * @return Number of bytes written
+     */
+    private long writeAtomically(File target, Object value, boolean pretty) throws IOException {
+        File tempFile = new File(target.getParentFile(), target.getName() + ".tmp");
+        if (pretty) {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tempFile, value);
+        } else {
+            objectMapper.writeValue(tempFile, value);
+        }
+        long bytes = tempFile.length();
+        moveIntoPlace(tempFile, target);
+        return bytes;
+    }
+
+    private long writeBinaryLibrary(List<SoundItem> soundItems) throws IOException {
+        File tempFile = new File(binaryLibraryFile.getParentFile(), binaryLibraryFile.getName() + ".tmp");
+        long bytes = SoundLibraryFile.write(tempFile, soundItems);
+        try {
+            moveIntoPlace(tempFile, binaryLibraryFile);
+        } catch (FileSystemException e) {
+            // Windows will not replace a file that is still mapped; the mapping from loading
+            // the library is unreachable once closed and goes with the next collection
+            System.gc();
+            moveIntoPlace(tempFile, binaryLibraryFile);
+        }
+        return bytes;
+    }
+
+    /**
+     * Flushes a finished temporary file to disk and renames it over the target. The rename
+     * must not reach the disk before the data, or a power loss could leave an empty target.
+     */
+    static void moveIntoPlace(File tempFile, File target) throws IOException {
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile.toPath(), target.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Flushes a directory so a rename in it survives a power loss. Not every platform can
+     * open a directory (Windows cannot), in which case the rename is left to the file system.
+     */
+    private static void syncDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported here
+        }
+    }
+
+    /**
+     * Also keep the library in the binary sounds.bin format and load from it when it is current.
+     * Off unless -Dsoundboardfx.binaryLibrary=true.
+     */
+    public void setBinaryLibraryEnabled(boolean enabled) {
+        binaryLibraryEnabled = enabled;
+    }
+
+    public boolean isBinaryLibraryEnabled() {
+        return binaryLibraryEnabled;
+    }
+
+    /**
+     * Writes sounds.bin from the current sounds.json
+     * @return Number of sounds converted
+     */
+    public int convertJsonToBinary() throws IOException {
+        List<SoundItem> soundItems = loadJsonSounds();
+        writeBinaryLibrary(soundItems);
+        return soundItems.size();
+    }
+
+    /**
+     * Writes sounds.json from the current sounds.bin
+     * @return Number of sounds converted
+     */
+    public int convertBinaryToJson() throws IOException {
+        List<SoundItem> soundItems;
+        try (SoundLibraryFile library = SoundLibraryFile.open(binaryLibraryFile)) {
+            soundItems = library.readAll();
+        }
+        writeAtomically(configFile, soundItems, false);
+        return soundItems.size();
+    }
+
+    /**
+     * @return Time taken by each sounds.json write
+     */
+    public LatencyStats getSaveLatency() {
+        return saveLatency;
+    }
+
+    public long getLastSaveBytes() {
+        return lastSaveBytes;
+    }
+
+    public long getTotalSaveBytes() {
+        return totalSaveBytes;
+    }
     
     /**
      * Loads sound items from the configuration file
      * @return List of sound items, empty if file doesn't exist or error occurs
      */
     public List<SoundItem> loadSounds() {
-        File configFile = new File(CONFIG_FILE);
+        List<SoundItem> soundItems = new ArrayList<>();
+        loadSounds(Integer.MAX_VALUE, soundItems::addAll);
+        return soundItems;
+    }
+
+    /**
+     * Streams sound items from the configuration file in batches, so callers can use
+     * the first sounds before the whole file has been read
+     * @param batchSize Maximum number of items per batch
+     * @param batchConsumer Receives each batch on the calling thread; the list is not reused
+     * @return Number of items loaded; items before a parse error are still delivered
+     */
+    public int loadSounds(int batchSize, Consumer<List<SoundItem>> batchConsumer) {
+        if (binaryLibraryEnabled && binaryLibraryFile.exists()
+                && (!configFile.exists() || binaryLibraryFile.lastModified() >= configFile.lastModified())) {
+            try {
+                return loadBinarySounds(batchSize, batchConsumer);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to load binary library, falling back to JSON: " + e.getMessage());
+            }
+        }
+        if (!configFile.exists()) {
+            return 0;
+        }
+
+        int loaded = 0;
+        List<SoundItem> batch = new ArrayList<>(Math.min(batchSize, 1024));
+        ObjectReader itemReader = objectMapper.readerFor(SoundItem.class);
+        try (JsonParser parser = objectMapper.getFactory().createParser(configFile)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of sounds");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(itemReader.readValue(parser));
+                loaded++;
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(Math.min(batchSize, 1024));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to load configuration: " + e.getMessage());
+        }
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+        }
+        return loaded;
+    }
+
+    private int loadBinarySounds(int batchSize, Consumer<List<SoundItem>> batchConsumer) throws IOException {
+        try (SoundLibraryFile library = SoundLibraryFile.open(binaryLibraryFile)) {
+            int count = library.size();
+            for (int start = 0; start < count; start += batchSize) {
+                int end = (int) Math.min((long) start + batchSize, count);
+                List<SoundItem> batch = new ArrayList<>(end - start);
+                for (int i = start; i < end; i++) {
+                    batch.add(library.getItem(i));
+                }
+                batchConsumer.accept(batch);
+            }
+            return count;
+        }
+    }
+
+    private List<SoundItem> loadJsonSounds() throws IOException {
         if (!configFile.exists()) {
             return new ArrayList<>();
         }
-        
+        CollectionType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, SoundItem.class);
+        return objectMapper.readValue(configFile, listType);
+    }
+
+    /**
+     * Saves the audio settings
+     * @param settings Settings to save
+     */
+    public void saveSettings(AudioSettings settings) {
         try {
-            CollectionType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, SoundItem.class);
-            return objectMapper.readValue(configFile, listType);
+            writeAtomically(settingsFile, settings, true);
         } catch (IOException e) {
-            System.err.println("Failed to load configuration: " + e.getMessage());
+            System.err.println("Failed to save settings: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the audio settings
+     * @return Saved settings, or defaults if none are saved or an error occurs
+     */
+    public AudioSettings loadSettings() {
+        if (!settingsFile.exists()) {
+            return new AudioSettings();
+        }
+
+        try {
+            return objectMapper.readValue(settingsFile, AudioSettings.class);
+        } catch (IOException e) {
+            System.err.println("Failed to load settings: " + e.getMessage());
+            return new AudioSettings();
+        }
+    }
+
+    /**
+     * Saves the watched library folders
+     * @param folders Absolute folder paths
+     */
+    public void saveLibraryFolders(List<String> folders) {
+        try {
+            writeAtomically(libraryFoldersFile, folders, true);
+        } catch (IOException e) {
+            System.err.println("Failed to save library folders: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the watched library folders
+     * @return Folder paths, empty if none are saved or an error occurs
+     */
+    public List<String> loadLibraryFolders() {
+        if (!libraryFoldersFile.exists()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            CollectionType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, String.class);
+            return objectMapper.readValue(libraryFoldersFile, listType);
+        } catch (IOException e) {
+            System.err.println("Failed to load library folders: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Saves the recorded macros to macros.bin
+     * @param macros Macros to save; their timelines must not change while they are written
+     */
+    public void saveMacros(List<TriggerMacro> macros) {
+        File tempFile = new File(macrosFile.getParentFile(), macrosFile.getName() + ".tmp");
+        try {
+            MacroFile.write(tempFile, macros);
+            moveIntoPlace(tempFile, macrosFile);
+        } catch (IOException e) {
+            System.err.println("Failed to save macros: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the recorded macros, their triggers pointing at the given library sounds
+     * @param library Sounds the macros were recorded from, matched by file path
+     * @return Macros, empty if none are saved or an error occurs
+     */
+    public List<TriggerMacro> loadMacros(Collection<? extends SoundItem> library) {
+        if (!macrosFile.exists()) {
             return new ArrayList<>();
         }
+        Map<String, SoundItem> soundsByPath = new HashMap<>();
+        for (SoundItem soundItem : library) {
+            soundsByPath.putIfAbsent(soundItem.getFilePath(), soundItem);
+        }
+        try {
+            return MacroFile.read(macrosFile, soundsByPath);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to load macros: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * @return Where {@link WaveformCache} keeps analyzed waveforms
+     */
+    public File getWaveformCacheFile() {
+        return waveformCacheFile;
+    }
+
+    /**
+     * Writes latency and cache statistics for later comparison
+     * @param report The report to write
+     * @return The file written, or null if writing failed
+     */
+    public File saveLatencyReport(LatencyReport report) {
+        try {
+            writeAtomically(latencyReportFile, report, true);
+            return latencyReportFile;
+        } catch (IOException e) {
+            System.err.println("Failed to save latency report: " + e.getMessage());
+            return null;
+        }
     }
 }
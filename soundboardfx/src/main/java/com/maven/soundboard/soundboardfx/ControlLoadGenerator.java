@@ -0,0 +1,188 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures how many commands a running headless engine sustains. Sends one command over
+ * and over in pipelined batches, keeping up to a window of commands unanswered, and times
+ * each batch from its write to its last reply. Runs flat out unless given a rate, and
+ * prints the engine's STATS afterwards so dropped triggers show up next to the throughput.
+ * <pre>
+ * java ... ControlLoadGenerator [--control 7878] [--count 100000] [--batch 64] [--window 1024]
+ *     [--rate commands-per-second] [--command "PLAY 0"]
+ * </pre>
+ */
+public final class ControlLoadGenerator {
+
+    /**
+     * Outcome of one run
+     */
+    public static final class Result {
+        private final String command;
+        private final long count;
+        private final long errors;
+        private final long elapsedNanos;
+        private final LatencyHistogram batchLatency;
+
+        private Result(String command, long count, long errors, long elapsedNanos, LatencyHistogram batchLatency) {
+            this.command = command;
+            this.count = count;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.batchLatency = batchLatency;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return Replies starting with ERR
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getCommandsPerSecond() {
+            return count * 1_000_000_000.0 / Math.max(1, elapsedNanos);
+        }
+
+        /**
+         * @return Time from writing each batch to reading its last reply
+         */
+        public LatencyHistogram getBatchLatency() {
+            return batchLatency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                "%d x \"%s\" in %.3f s: %.0f commands/s, %d errors; batch round trip p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                count, command, elapsedNanos / 1e9, getCommandsPerSecond(), errors,
+                batchLatency.getMillisAtPercentile(50), batchLatency.getMillisAtPercentile(99),
+                batchLatency.getMaxMillis());
+        }
+    }
+
+    private ControlLoadGenerator() {
+    }
+
+    /**
+     * Sends a command count times and waits for every reply
+     * @param batch Commands written together in one write
+     * @param window Most commands left unanswered at once; keep the replies to them within
+     *               the socket buffers, a few thousand at most
+     * @param rate Commands per second to pace the batches at, or 0 to send as fast as replies allow
+     */
+    public static Result run(SocketAddress address, String command, int count, int batch, int window, int rate)
+            throws IOException {
+        byte[] line = (command + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(line.length * batch);
+        ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        long[] sentNanos = new long[(count + batch - 1) / batch];
+        LatencyHistogram batchLatency = new LatencyHistogram();
+        long sent = 0;
+        long replied = 0;
+        long errors = 0;
+        boolean lineStart = true;
+
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            long startNanos = System.nanoTime();
+            while (replied < count) {
+                // Top the pipeline up, always keeping at least one batch in flight
+                while (sent < count) {
+                    int size = (int) Math.min(batch, count - sent);
+                    if (sent != replied && sent + size - replied > window) {
+                        break;
+                    }
+                    if (rate > 0) {
+                        long dueNanos = startNanos + sent * 1_000_000_000L / rate;
+                        if (System.nanoTime() < dueNanos) {
+                            if (sent != replied) {
+                                // Read replies while waiting for the next batch to be due
+                                break;
+                            }
+                            LockSupport.parkNanos(dueNanos - System.nanoTime());
+                        }
+                    }
+                    out.clear();
+                    for (int i = 0; i < size; i++) {
+                        out.put(line);
+                    }
+                    out.flip();
+                    sentNanos[(int) (sent / batch)] = System.nanoTime();
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                    sent += size;
+                }
+
+                in.clear();
+                if (channel.read(in) < 0) {
+                    throw new IOException("Engine closed the connection after " + replied + " replies");
+                }
+                long nowNanos = System.nanoTime();
+                for (int i = 0; i < in.position(); i++) {
+                    byte b = in.get(i);
+                    if (lineStart && b == 'E') {
+                        errors++;
+                    }
+                    lineStart = b == '\n';
+                    if (lineStart) {
+                        replied++;
+                        if (replied % batch == 0 || replied == count) {
+                            batchLatency.record(nowNanos - sentNanos[(int) ((replied - 1) / batch)]);
+                        }
+                    }
+                }
+            }
+            return new Result(command, count, errors, System.nanoTime() - startNanos, batchLatency);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String control = String.valueOf(ControlServer.DEFAULT_PORT);
+        String command = "PLAY 0";
+        int count = 100_000;
+        int batch = 64;
+        int window = 1024;
+        int rate = 0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--control": control = args[i + 1]; break;
+                case "--command": command = args[i + 1]; break;
+                case "--count": count = Integer.parseInt(args[i + 1]); break;
+                case "--batch": batch = Integer.parseInt(args[i + 1]); break;
+                case "--window": window = Integer.parseInt(args[i + 1]); break;
+                case "--rate": rate = Integer.parseInt(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    return;
+            }
+        }
+        SocketAddress address = ControlServer.parseAddress(control);
+        // A short warm-up run so the engine's JIT is not part of the measurement
+        run(address, command, Math.min(count, 10_000), batch, window, rate);
+        System.out.println(run(address, command, count, batch, window, rate));
+        System.out.println("Engine: " + stats(address));
+    }
+
+    private static String stats(SocketAddress address) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            channel.write(ByteBuffer.wrap("STATS\n".getBytes(StandardCharsets.UTF_8)));
+            ByteBuffer in = ByteBuffer.allocate(4096);
+            while (in.position() == 0 || in.get(in.position() - 1) != '\n') {
+                if (channel.read(in) < 0) {
+                    break;
+                }
+            }
+            return new String(in.array(), 0, in.position(), StandardCharsets.UTF_8).trim();
+        }
+    }
+}
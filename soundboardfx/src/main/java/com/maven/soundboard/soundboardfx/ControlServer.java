@@ -0,0 +1,271 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Local control socket for the headless engine. Listens on a Unix-domain socket or a
+ * loopback TCP port and serves every client from one selector thread with non-blocking I/O.
+ * Commands are UTF-8 text lines. Clients may pipeline as many as they like without waiting:
+ * every complete line in one read is executed in order and all their replies go back in
+ * a single write, so a batch costs one system call each way. A client that stops reading
+ * its replies is not read from again until they have drained.
+ */
+public final class ControlServer implements Closeable {
+    /** Port used when none is given */
+    public static final int DEFAULT_PORT = 7878;
+    /** Longest command line accepted; a client sending a longer one is disconnected */
+    public static final int MAX_LINE = 4096;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Executes commands; called on the server thread only, one line at a time
+     */
+    public interface Handler {
+        /**
+         * @param line The command, without its line ending
+         * @param receivedNanos System.nanoTime() when the read holding the line completed
+         * @param reply Empty builder for the reply line, without line ending
+         * @return false to close the connection once the reply is sent
+         */
+        boolean execute(String line, long receivedNanos, StringBuilder reply);
+    }
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Handler handler;
+    private final Path socketPath;
+    private final StringBuilder reply = new StringBuilder(128);
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Binds the socket; call {@link #start} to begin serving
+     * @param address A UnixDomainSocketAddress or a loopback InetSocketAddress
+     */
+    public ControlServer(SocketAddress address, Handler handler) throws IOException {
+        this.handler = handler;
+        if (address instanceof UnixDomainSocketAddress) {
+            socketPath = ((UnixDomainSocketAddress) address).getPath();
+            // A socket file left behind by an engine that did not shut down cleanly
+            Files.deleteIfExists(socketPath);
+            serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            InetSocketAddress inetAddress = (InetSocketAddress) address;
+            if (!inetAddress.getAddress().isLoopbackAddress()) {
+                throw new IllegalArgumentException("Control socket must be on loopback: " + address);
+            }
+            socketPath = null;
+            serverChannel = ServerSocketChannel.open();
+        }
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Parses a control address: a port number for loopback TCP, otherwise the path of a
+     * Unix-domain socket, optionally prefixed with "unix:"
+     */
+    public static SocketAddress parseAddress(String spec) {
+        if (spec.matches("\\d{1,5}")) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(spec));
+        }
+        return UnixDomainSocketAddress.of(spec.startsWith("unix:") ? spec.substring(5) : spec);
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "soundboard-control");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return The address clients connect to, with the actual port if 0 was asked for
+     */
+    public SocketAddress getLocalAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                System.err.println("Control socket failed: " + e.getMessage());
+                return;
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isWritable()) {
+                        flush(key);
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                } catch (IOException e) {
+                    // The client went away mid-request
+                    disconnect(key);
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer in = connection.in;
+        if (channel.read(in) < 0) {
+            disconnect(key);
+            return;
+        }
+        long receivedNanos = System.nanoTime();
+
+        byte[] bytes = in.array();
+        int limit = in.position();
+        int start = 0;
+        for (int i = 0; i < limit && !connection.closing; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            int end = i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+            if (end > start) {
+                reply.setLength(0);
+                connection.closing = !handler.execute(
+                    new String(bytes, start, end - start, StandardCharsets.UTF_8), receivedNanos, reply);
+                connection.append(reply);
+            }
+            start = i + 1;
+        }
+        in.position(start).limit(limit);
+        in.compact();
+        if (in.position() > MAX_LINE && !connection.closing) {
+            System.err.println("Control client sent a line longer than " + MAX_LINE + " bytes");
+            disconnect(key);
+            return;
+        }
+        flush(key);
+    }
+
+    /**
+     * Writes pending replies; reading pauses while any are left
+     */
+    private void flush(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer out = connection.out;
+        out.flip();
+        ((SocketChannel) key.channel()).write(out);
+        if (out.hasRemaining()) {
+            out.compact();
+            key.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+        out.clear();
+        if (connection.closing) {
+            disconnect(key);
+            return;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private static void disconnect(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    /**
+     * Stops serving and closes every connection
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+            serverChannel.close();
+            if (socketPath != null) {
+                Files.deleteIfExists(socketPath);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close control socket: " + e.getMessage());
+        }
+    }
+
+    private static final class Connection {
+        private final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        private ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        private boolean closing;
+
+        /**
+         * Queues a reply line. Plain ASCII replies are copied char by char without encoding.
+         */
+        private void append(CharSequence line) {
+            int length = line.length();
+            for (int i = 0; i < length; i++) {
+                if (line.charAt(i) >= 0x80) {
+                    byte[] encoded = line.toString().getBytes(StandardCharsets.UTF_8);
+                    reserve(encoded.length + 1);
+                    out.put(encoded).put((byte) '\n');
+                    return;
+                }
+            }
+            reserve(length + 1);
+            for (int i = 0; i < length; i++) {
+                out.put((byte) line.charAt(i));
+            }
+            out.put((byte) '\n');
+        }
+
+        private void reserve(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                grown.put(out);
+                out = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Holds a sound file fully decoded to the engine output format. The samples live off-heap in a
+ * direct buffer, either as 16-bit PCM or µ-law, so a large cache adds little to the Java heap
+ * and nothing for the garbage collector to copy.
+ */
+public class DecodedSample {
+    private final String filePath;
+    private final AudioFormat format;
+    private final SampleEncoding encoding;
+    private final ByteBuffer data;
+    private final int frameCount;
+
+    /**
+     * @param format The engine format the PCM is in; 16-bit, little-endian
+     * @param pcm Interleaved little-endian 16-bit PCM, copied off-heap
+     */
+    public DecodedSample(String filePath, AudioFormat format, byte[] pcm) {
+        this(filePath, format, pcm, SampleEncoding.PCM16);
+    }
+
+    public DecodedSample(String filePath, AudioFormat format, byte[] pcm, SampleEncoding encoding) {
+        this.filePath = filePath;
+        this.format = format;
+        this.encoding = encoding;
+        this.frameCount = pcm.length / format.getFrameSize();
+
+        int samples = pcm.length / 2;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(samples * encoding.getBytesPerSample())
+            .order(ByteOrder.LITTLE_ENDIAN);
+        if (encoding == SampleEncoding.PCM16) {
+            buffer.put(pcm, 0, samples * 2);
+        } else {
+            for (int i = 0; i < samples; i++) {
+                buffer.put(MuLaw.encode((short) ((pcm[i * 2] & 0xff) | (pcm[i * 2 + 1] << 8))));
+            }
+        }
+        this.data = buffer.flip().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    public SampleEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return Read-only little-endian view of the stored samples; use absolute reads only
+     */
+    public ByteBuffer getData() {
+        return data;
+    }
+
+    /**
+     * @param index Interleaved sample index
+     * @return The sample expanded to 16 bits
+     */
+    public short getSample(int index) {
+        return encoding == SampleEncoding.PCM16 ? data.getShort(index * 2) : MuLaw.decode(data.get(index));
+    }
+
+    /**
+     * Expands the whole sample to 16-bit PCM on the heap, for APIs that need a byte array
+     * @return Interleaved little-endian PCM bytes
+     */
+    public byte[] toPcmBytes() {
+        int samples = frameCount * format.getChannels();
+        byte[] pcm = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            short value = getSample(i);
+            pcm[i * 2] = (byte) value;
+            pcm[i * 2 + 1] = (byte) (value >> 8);
+        }
+        return pcm;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return Bytes held off-heap
+     */
+    public long getSizeInBytes() {
+        return data.capacity();
+    }
+
+    public double getDurationSeconds() {
+        return frameCount / (double) format.getFrameRate();
+    }
+}
@@ -4,26 +4,53 @@ import com.github.kwhat.jnativehook.GlobalScreen;
 import com.github.kwhat.jnativehook.NativeHookException;
 import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
 import com.github.kwhat.jnativehook.keyboard.NativeKeyListener;
-import javafx.application.Platform;
+import javafx.scene.input.KeyCode;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Handles global system-wide hotkeys using JNativeHook
+ * Handles global system-wide hotkeys using JNativeHook, and the window's own key events.
+ * Both feed the same HotkeyMatcher over a compiled keybind trie, so a keybind matches
+ * the same way from either and ordinary typing costs a few array reads and no allocation.
+ * While the native hook is active it already reports every key the window sees, so window
+ * events are ignored; counting both would fire a tap twice or drop a press as auto-repeat.
+ * The keybind table is an immutable snapshot swapped in atomically, so the FX thread
+ * never blocks the native hook thread while it updates it. The matcher belongs to one
+ * matcher thread: key events reach it through a lock-free queue, so the hook thread only
+ * enqueues and never waits, and the same thread ticks sequence and hold timeouts while
+ * one is pending.
+ * Every trigger passes the recorder, which keeps it only while a macro is being recorded.
  */
-public class GlobalHotkeyManager implements NativeKeyListener {
+public class GlobalHotkeyManager implements NativeKeyListener, HotkeyMatcher.Listener {
     
-    private final Map<String, SoundItem> keybindMap = new HashMap<>();
-    private final Set<String> pressedKeys = new HashSet<>();
+    static final int KEY_QUEUE_CAPACITY = 256;
+    private static final long MATCHED_POLL_NANOS = 50_000;
+    
+    private final HotkeyMatcher matcher = new HotkeyMatcher(this);
+    private final KeyEventQueue keyEvents = new KeyEventQueue(KEY_QUEUE_CAPACITY);
+    private final KeyEventQueue.Handler keyHandler = this::matchAndPlay;
+    private final TriggerRecorder recorder = new TriggerRecorder();
     private final SoundManager soundManager;
-    private final Runnable statusUpdater;
+    private final Consumer<SoundItem> statusUpdater;
+    private volatile IntConsumer pageListener;
+    private volatile boolean running;
+    private volatile long matchedEvents;
+    private volatile boolean nativeHookActive;
+    private boolean nativeHookRegistered;
+    private Thread matcherThread;
     
-    public GlobalHotkeyManager(SoundManager soundManager, Runnable statusUpdater) {
+    /**
+     * @param soundManager Plays matched sounds, called on the matcher thread
+     * @param statusUpdater Told each sound triggered, on the matcher thread; must be thread-safe
+     */
+    public GlobalHotkeyManager(SoundManager soundManager, Consumer<SoundItem> statusUpdater) {
         this.soundManager = soundManager;
         this.statusUpdater = statusUpdater;
         
@@ -37,9 +64,26 @@ public class GlobalHotkeyManager implements NativeKeyListener {
      * Initialize global hook
      */
     public void initialize() {
+        initialize(true);
+    }
+    
+    /**
+     * Starts the matcher thread and, if asked, the global hook
+     * @param registerNativeHook false to match only keys fed in through keyPressed and keyReleased
+     */
+    public void initialize(boolean registerNativeHook) {
+        running = true;
+        matcherThread = new Thread(this::runMatcher, "soundboard-hotkey-matcher");
+        matcherThread.setDaemon(true);
+        matcherThread.start();
+        if (!registerNativeHook) {
+            return;
+        }
         try {
             GlobalScreen.registerNativeHook();
             GlobalScreen.addNativeKeyListener(this);
+            nativeHookRegistered = true;
+            nativeHookActive = true;
         } catch (NativeHookException ex) {
             System.err.println("There was a problem registering the native hook.");
             System.err.println(ex.getMessage());
@@ -50,6 +94,15 @@ public class GlobalHotkeyManager implements NativeKeyListener {
      * Cleanup and unregister global hook
      */
     public void shutdown() {
+        running = false;
+        nativeHookActive = false;
+        if (matcherThread != null) {
+            LockSupport.unpark(matcherThread);
+        }
+        if (!nativeHookRegistered) {
+            return;
+        }
+        nativeHookRegistered = false;
         try {
             GlobalScreen.removeNativeKeyListener(this);
             GlobalScreen.unregisterNativeHook();
@@ -60,46 +113,115 @@ public class GlobalHotkeyManager implements NativeKeyListener {
     }
     
     /**
-     * Update the keybind mappings
+     * Update the keybind mappings. The new table is compiled off to the side and
+     * published in a single swap; lookups in flight keep using the previous snapshot.
      */
     public void updateKeybinds(Map<String, SoundItem> newKeybindMap) {
-        keybindMap.clear();
-        keybindMap.putAll(newKeybindMap);
-        
-        // Debug: Print all keybinds
-        System.out.println("Updated keybinds:");
-        for (String key : newKeybindMap.keySet()) {
-            System.out.println("  " + key + " -> " + newKeybindMap.get(key).getName());
-        }
+        matcher.setTable(new KeybindTable(newKeybindMap));
+    }
+    
+    /**
+     * Update the keybinds from sound items, including sequences, holds and pages
+     * @param pageKeybinds Keybind switching to each page, by page number
+     */
+    public void updateKeybinds(Collection<? extends SoundItem> soundItems, List<String> pageKeybinds) {
+        matcher.setTable(new KeybindTable(soundItems, pageKeybinds));
+    }
+    
+    /**
+     * @param pageListener Told the new page on the matcher thread; must be thread-safe
+     */
+    public void setPageListener(IntConsumer pageListener) {
+        this.pageListener = pageListener;
     }
     
     @Override
     public void nativeKeyPressed(NativeKeyEvent e) {
-        String keyName = convertNativeKeyToJavaFX(e);
-        if (keyName != null && !pressedKeys.contains(keyName)) {
-            pressedKeys.add(keyName);
-            String combination = buildKeyCombination();
-            
-            System.out.println("Key pressed: " + keyName + ", Combination: " + combination);
-            
-            SoundItem soundItem = keybindMap.get(combination);
-            if (soundItem != null) {
-                System.out.println("Playing sound: " + soundItem.getName());
-                Platform.runLater(() -> {
-                    soundManager.playSound(soundItem);
-                    if (statusUpdater != null) {
-                        statusUpdater.run();
-                    }
-                });
-            }
-        }
+        keyPressed(KeyChord.fromNativeKeyCode(e.getKeyCode()), System.nanoTime());
     }
     
     @Override
     public void nativeKeyReleased(NativeKeyEvent e) {
-        String keyName = convertNativeKeyToJavaFX(e);
-        if (keyName != null) {
-            pressedKeys.remove(keyName);
+        keyReleased(KeyChord.fromNativeKeyCode(e.getKeyCode()), System.nanoTime());
+    }
+    
+    /**
+     * Queues a key press from the window, unless the native hook is active and reports it already
+     * @param key JavaFX key, or null for a key that cannot be bound
+     * @param triggerNanos Time of the event, from System.nanoTime()
+     */
+    public void windowKeyPressed(KeyCode key, long triggerNanos) {
+        if (!nativeHookActive) {
+            submit(key, true, triggerNanos);
+        }
+    }
+    
+    /**
+     * Queues a key release from the window, unless the native hook is active and reports it already
+     * @param key JavaFX key, or null for a key that cannot be bound
+     * @param triggerNanos Time of the event, from System.nanoTime()
+     */
+    public void windowKeyReleased(KeyCode key, long triggerNanos) {
+        if (!nativeHookActive) {
+            submit(key, false, triggerNanos);
+        }
+    }
+    
+    /**
+     * @return Whether the native hook is registered and so the only source of key events
+     */
+    public boolean isNativeHookActive() {
+        return nativeHookActive;
+    }
+    
+    /**
+     * Stands in for a registered hook in tests, which cannot register one
+     */
+    void setNativeHookActive(boolean active) {
+        nativeHookActive = active;
+    }
+    
+    /**
+     * Queues a key press for the matcher thread, which plays what it triggers
+     * @param key JavaFX key, or null for a key that cannot be bound
+     * @param triggerNanos Time of the event, from System.nanoTime()
+     */
+    public void keyPressed(KeyCode key, long triggerNanos) {
+        submit(key, true, triggerNanos);
+    }
+    
+    /**
+     * Queues a key release for the matcher thread, which plays what it triggers
+     * @param key JavaFX key, or null for a key that cannot be bound
+     * @param triggerNanos Time of the event, from System.nanoTime()
+     */
+    public void keyReleased(KeyCode key, long triggerNanos) {
+        submit(key, false, triggerNanos);
+    }
+    
+    private void submit(KeyCode key, boolean pressed, long triggerNanos) {
+        KeyCode canonical = key != null ? KeyChord.canonicalKey(key) : null;
+        if (canonical == null) {
+            return;
+        }
+        if (!keyEvents.offer(canonical, pressed, triggerNanos)) {
+            System.err.println("Hotkey queue full, dropped " + canonical);
+            return;
+        }
+        Thread thread = matcherThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+    
+    /**
+     * Waits until the matcher thread has handled every key event queued before the call,
+     * so what they triggered is visible to the caller
+     */
+    public void awaitMatched() {
+        long target = keyEvents.offeredCount();
+        while (running && matchedEvents < target) {
+            LockSupport.parkNanos(MATCHED_POLL_NANOS);
         }
     }
     
@@ -108,98 +230,98 @@ public class GlobalHotkeyManager implements NativeKeyListener {
         // Not used
     }
     
-    private String buildKeyCombination() {
-        return String.join("+", pressedKeys.stream().sorted().toArray(String[]::new));
+    /**
+     * Plays a matched sound; for a timeout the trigger time is when it was decided
+     */
+    @Override
+    public void onTrigger(SoundItem soundItem, long triggerNanos) {
+        soundManager.getLatencyMetrics().record(LatencyMetrics.Stage.MATCHED, System.nanoTime() - triggerNanos);
+        recorder.record(soundItem, triggerNanos);
+        // Straight to the audio engine; the FX thread only hears about it for the status bar
+        soundManager.playSound(soundItem, triggerNanos);
+        if (statusUpdater != null) {
+            statusUpdater.accept(soundItem);
+        }
+    }
+    
+    @Override
+    public void onPageChanged(int page) {
+        IntConsumer listener = pageListener;
+        if (listener != null) {
+            listener.accept(page);
+        }
     }
     
-    private String convertNativeKeyToJavaFX(NativeKeyEvent e) {
-        // Use JNativeHook's built-in key text conversion and map to JavaFX equivalents
-        String nativeKeyText = NativeKeyEvent.getKeyText(e.getKeyCode()).toLowerCase();
-        
-        // Map JNativeHook key names to JavaFX key names
-        switch (nativeKeyText) {
-            // Modifiers
-            case "ctrl":
-            case "control": 
-                return "CTRL";
-            case "alt":
-            case "alt graph":
-                return "ALT";
-            case "shift":
-                return "SHIFT";
-                
-            // Letters (convert to uppercase)
-            case "a": return "A";
-            case "b": return "B";
-            case "c": return "C";
-            case "d": return "D";
-            case "e": return "E";
-            case "f": return "F";
-            case "g": return "G";
-            case "h": return "H";
-            case "i": return "I";
-            case "j": return "J";
-            case "k": return "K";
-            case "l": return "L";
-            case "m": return "M";
-            case "n": return "N";
-            case "o": return "O";
-            case "p": return "P";
-            case "q": return "Q";
-            case "r": return "R";
-            case "s": return "S";
-            case "t": return "T";
-            case "u": return "U";
-            case "v": return "V";
-            case "w": return "W";
-            case "x": return "X";
-            case "y": return "Y";
-            case "z": return "Z";
-                
-            // Numbers
-            case "0": return "DIGIT0";
-            case "1": return "DIGIT1";
-            case "2": return "DIGIT2";
-            case "3": return "DIGIT3";
-            case "4": return "DIGIT4";
-            case "5": return "DIGIT5";
-            case "6": return "DIGIT6";
-            case "7": return "DIGIT7";
-            case "8": return "DIGIT8";
-            case "9": return "DIGIT9";
-                
-            // Function keys
-            case "f1": return "F1";
-            case "f2": return "F2";
-            case "f3": return "F3";
-            case "f4": return "F4";
-            case "f5": return "F5";
-            case "f6": return "F6";
-            case "f7": return "F7";
-            case "f8": return "F8";
-            case "f9": return "F9";
-            case "f10": return "F10";
-            case "f11": return "F11";
-            case "f12": return "F12";
-                
-            // Special keys
-            case "space": return "SPACE";
-            case "enter": return "ENTER";
-            case "tab": return "TAB";
-            case "escape": return "ESCAPE";
-            case "backspace": return "BACK_SPACE";
-            case "delete": return "DELETE";
-                
-            // Arrow keys
-            case "up": return "UP";
-            case "down": return "DOWN";
-            case "left": return "LEFT";
-            case "right": return "RIGHT";
-                
-            default:
-                // Debug: Print unknown keys
-                System.out.println("Unknown key: '" + nativeKeyText + "' (code: " + e.getKeyCode() + ")");
-                return null;
-        }
-    }
-}
\ No newline at end of file
+    /**
+     * Records a key press and looks up the resulting combination
+     * @param nativeKeyCode JNativeHook virtual key code
+     * @return The sound bound to the combination now held, or null
+     */
+    SoundItem keyDown(int nativeKeyCode) {
+        return match(KeyChord.fromNativeKeyCode(nativeKeyCode), true, System.nanoTime());
+    }
+    
+    /**
+     * Records a key release
+     * @param nativeKeyCode JNativeHook virtual key code
+     */
+    void keyUp(int nativeKeyCode) {
+        match(KeyChord.fromNativeKeyCode(nativeKeyCode), false, System.nanoTime());
+    }
+    
+    /**
+     * Looks up a key event without playing anything, on the caller's thread. Only for a
+     * manager that was never initialized, since the matcher is not shared between threads.
+     * @return The sound the event triggers straight away, or null
+     */
+    SoundItem match(KeyCode key, boolean pressed, long nowNanos) {
+        KeyCode canonical = key != null ? KeyChord.canonicalKey(key) : null;
+        if (canonical == null) {
+            return null;
+        }
+        return pressed ? matcher.keyDown(canonical, nowNanos) : matcher.keyUp(canonical, nowNanos);
+    }
+    
+    private void matchAndPlay(KeyCode key, boolean pressed, long triggerNanos) {
+        SoundItem soundItem = pressed ? matcher.keyDown(key, triggerNanos) : matcher.keyUp(key, triggerNanos);
+        if (soundItem != null) {
+            onTrigger(soundItem, triggerNanos);
+        }
+    }
+    
+    /**
+     * Matcher thread: matches queued key events, then advances the matcher every tick while a
+     * timeout is pending, otherwise sleeps until an event arrives
+     */
+    private void runMatcher() {
+        while (running) {
+            int drained = keyEvents.drain(keyHandler);
+            matcher.advance(System.nanoTime());
+            if (drained > 0) {
+                matchedEvents += drained;
+            }
+            if (!keyEvents.isEmpty()) {
+                continue;
+            }
+            if (matcher.hasPendingTimeouts()) {
+                LockSupport.parkNanos(HotkeyMatcher.TICK_NANOS);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+    
+    /**
+     * @return Records triggers, with the time of their key event, for macros
+     */
+    public TriggerRecorder getRecorder() {
+        return recorder;
+    }
+    
+    /**
+     * @return The keybind table currently in effect
+     */
+    KeybindTable getKeybindTable() {
+        return matcher.getTable();
+    }
+}
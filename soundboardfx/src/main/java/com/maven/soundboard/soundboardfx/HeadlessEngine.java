@@ -0,0 +1,384 @@
+package com.maven.soundboard.soundboardfx;
+
+import javafx.scene.input.KeyCode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the sound library, audio engine and hotkey matcher without a window, taking its
+ * triggers from a {@link ControlServer}. Commands, one per line, with "OK" or "ERR reason" replies:
+ * <pre>
+ * PING                 check the engine is alive
+ * PLAY n [n ...]       play sounds by their position in the library, from 0
+ * PLAYNAME name        play the first sound, or else macro, with that name
+ * STOP [n ...]         stop the given sounds, or everything
+ * KEY keybind          tap a keybind such as "CTRL+K DIGIT3" through the hotkey matcher
+ * DOWN key / UP key    press or release one key, e.g. for holds
+ * RECORD               start recording the sounds triggered, to save as a macro
+ * RECORD STOP name [keybind]  save the recording as a macro bound to the keybind
+ * RELOAD               read sounds.json and settings.json again
+ * STATS                counters and latency percentiles
+ * QUIT                 close the connection
+ * </pre>
+ * Commands run on the control thread; sounds already in the sample cache start from there
+ * without a thread hand-off.
+ */
+public class HeadlessEngine implements ControlServer.Handler {
+    private static final KeyCode[] MODIFIER_KEYS = {KeyCode.CONTROL, KeyCode.ALT, KeyCode.SHIFT};
+
+    private final ConfigManager configManager;
+    private final SoundManager soundManager;
+    private final GlobalHotkeyManager hotkeyManager;
+    private final AtomicLong triggerCount = new AtomicLong();
+    private long commandCount;
+    private long errorCount;
+    private volatile List<SoundItem> soundItems = List.of();
+    private volatile List<TriggerMacro> macros = List.of();
+    private volatile Map<String, SoundItem> soundsByName = Map.of();
+
+    public HeadlessEngine(ConfigManager configManager, SoundManager soundManager) {
+        this.configManager = configManager;
+        this.soundManager = soundManager;
+        this.hotkeyManager = new GlobalHotkeyManager(soundManager, soundItem -> triggerCount.incrementAndGet());
+    }
+
+    /**
+     * Loads the library, starts the hotkey timeouts and warms the sample cache
+     */
+    public void start() {
+        hotkeyManager.initialize(false);
+        reload();
+    }
+
+    /**
+     * Replaces the sounds, macros and keybinds with the saved library
+     */
+    public void reload() {
+        List<SoundItem> items = configManager.loadSounds();
+        macros = List.copyOf(configManager.loadMacros(items));
+        setSounds(items);
+    }
+
+    /**
+     * Replaces the sounds and keybinds
+     */
+    public void setSounds(List<SoundItem> items) {
+        Map<String, SoundItem> byName = new HashMap<>();
+        for (SoundItem item : items) {
+            byName.putIfAbsent(item.getName(), item);
+        }
+        List<SoundItem> bound = new ArrayList<>(items);
+        for (TriggerMacro macro : macros) {
+            byName.putIfAbsent(macro.getName(), macro);
+            bound.add(macro);
+        }
+        soundItems = List.copyOf(items);
+        soundsByName = byName;
+        hotkeyManager.updateKeybinds(bound, soundManager.getSettings().getPageKeybinds());
+        soundManager.startWarmUp(items, null);
+    }
+
+    public List<SoundItem> getSounds() {
+        return soundItems;
+    }
+
+    /**
+     * @return Sounds triggered so far, by command or keybind
+     */
+    public long getTriggerCount() {
+        return triggerCount.get();
+    }
+
+    @Override
+    public boolean execute(String line, long receivedNanos, StringBuilder reply) {
+        commandCount++;
+        int space = line.indexOf(' ');
+        String command = (space < 0 ? line : line.substring(0, space)).toUpperCase(Locale.ROOT);
+        String argument = space < 0 ? "" : line.substring(space + 1).trim();
+        String error;
+        switch (command) {
+            case "PING":
+                error = null;
+                break;
+            case "PLAY":
+                error = play(argument, receivedNanos);
+                break;
+            case "PLAYNAME":
+                error = playNamed(argument, receivedNanos);
+                break;
+            case "STOP":
+                error = stop(argument);
+                break;
+            case "KEY":
+                error = tapKeybind(argument, receivedNanos);
+                break;
+            case "DOWN":
+            case "UP":
+                error = keyEvent(argument, command.equals("DOWN"), receivedNanos);
+                break;
+            case "RECORD":
+                error = record(argument);
+                break;
+            case "RELOAD":
+                soundManager.applySettings(loadSettings(configManager));
+                reload();
+                error = null;
+                break;
+            case "STATS":
+                reply.append("OK ");
+                appendStats(reply);
+                return true;
+            case "QUIT":
+                reply.append("OK");
+                return false;
+            default:
+                error = "unknown command " + command;
+                break;
+        }
+        if (error != null) {
+            errorCount++;
+            reply.append("ERR ").append(error);
+        } else {
+            reply.append("OK");
+        }
+        return true;
+    }
+
+    private String play(String argument, long receivedNanos) {
+        if (argument.isEmpty()) {
+            return "no sound given";
+        }
+        List<SoundItem> items = soundItems;
+        for (String token : argument.split("\\s+")) {
+            SoundItem item = soundAt(items, token);
+            if (item == null) {
+                return "no sound " + token;
+            }
+            trigger(item, receivedNanos);
+        }
+        return null;
+    }
+
+    private String playNamed(String name, long receivedNanos) {
+        SoundItem item = soundsByName.get(name);
+        if (item == null) {
+            return "no sound named " + name;
+        }
+        trigger(item, receivedNanos);
+        return null;
+    }
+
+    private void trigger(SoundItem item, long receivedNanos) {
+        hotkeyManager.getRecorder().record(item, receivedNanos);
+        soundManager.playSound(item, receivedNanos);
+        triggerCount.incrementAndGet();
+    }
+
+    private String stop(String argument) {
+        if (argument.isEmpty()) {
+            hotkeyManager.getRecorder().recordStopAll(System.nanoTime());
+            soundManager.stopAllSounds();
+            return null;
+        }
+        List<SoundItem> items = soundItems;
+        for (String token : argument.split("\\s+")) {
+            SoundItem item = soundAt(items, token);
+            if (item == null) {
+                return "no sound " + token;
+            }
+            soundManager.stopSound(item.getFilePath());
+        }
+        return null;
+    }
+
+    /**
+     * Starts recording, or with "STOP name [keybind]" saves what was recorded as a macro.
+     * Sounds played by any command or keybind are recorded.
+     */
+    private String record(String argument) {
+        TriggerRecorder recorder = hotkeyManager.getRecorder();
+        if (argument.isEmpty()) {
+            recorder.start();
+            return null;
+        }
+        String[] parts = argument.split("\\s+", 3);
+        if (!parts[0].equalsIgnoreCase("STOP") || parts.length < 2) {
+            return "expected RECORD or RECORD STOP name [keybind]";
+        }
+        if (!recorder.isRecording()) {
+            return "not recording";
+        }
+        String keybind = parts.length > 2 ? KeyChord.normalize(parts[2]) : null;
+        if (parts.length > 2 && keybind == null) {
+            return "invalid keybind " + parts[2];
+        }
+        TriggerTimeline timeline = recorder.stop();
+        if (timeline.size() == 0) {
+            return "nothing recorded";
+        }
+        List<TriggerMacro> saved = new ArrayList<>(macros);
+        saved.removeIf(macro -> macro.getName().equals(parts[1]));
+        saved.add(new TriggerMacro(parts[1], keybind, timeline));
+        configManager.saveMacros(saved);
+        macros = List.copyOf(saved);
+        setSounds(soundItems);
+        return null;
+    }
+
+    /**
+     * Presses and releases each chord of a keybind in turn, modifiers first
+     */
+    private String tapKeybind(String keybind, long receivedNanos) {
+        int[] steps = KeyChord.parseSequence(keybind);
+        if (steps == null) {
+            return "invalid keybind " + keybind;
+        }
+        for (int step : steps) {
+            int modifiers = KeyChord.modifiers(step);
+            if ((modifiers & KeyChord.HOLD) != 0) {
+                return "use DOWN and UP for holds";
+            }
+            KeyCode key = KeyChord.keyOf(KeyChord.keyCode(step));
+            setModifiers(modifiers, true, receivedNanos);
+            hotkeyManager.keyPressed(key, receivedNanos);
+            hotkeyManager.keyReleased(key, receivedNanos);
+            setModifiers(modifiers, false, receivedNanos);
+        }
+        // Reply only once the keys have been matched, so the next command sees what they triggered
+        hotkeyManager.awaitMatched();
+        return null;
+    }
+
+    private void setModifiers(int modifiers, boolean pressed, long nanos) {
+        for (KeyCode key : MODIFIER_KEYS) {
+            if ((modifiers & KeyChord.modifierBit(key)) == 0) {
+                continue;
+            }
+            if (pressed) {
+                hotkeyManager.keyPressed(key, nanos);
+            } else {
+                hotkeyManager.keyReleased(key, nanos);
+            }
+        }
+    }
+
+    private String keyEvent(String name, boolean pressed, long receivedNanos) {
+        KeyCode key = keyNamed(name);
+        if (key == null) {
+            return "unknown key " + name;
+        }
+        if (pressed) {
+            hotkeyManager.keyPressed(key, receivedNanos);
+        } else {
+            hotkeyManager.keyReleased(key, receivedNanos);
+        }
+        hotkeyManager.awaitMatched();
+        return null;
+    }
+
+    /**
+     * @param name A key name as written in keybinds, modifiers included
+     */
+    private static KeyCode keyNamed(String name) {
+        switch (name.toUpperCase(Locale.ROOT)) {
+            case "CTRL": return KeyCode.CONTROL;
+            case "ALT": return KeyCode.ALT;
+            case "SHIFT": return KeyCode.SHIFT;
+            default:
+                int chord = KeyChord.parse(name);
+                return chord == KeyChord.NONE || KeyChord.modifiers(chord) != 0
+                    ? null : KeyChord.keyOf(KeyChord.keyCode(chord));
+        }
+    }
+
+    private static SoundItem soundAt(List<SoundItem> items, String token) {
+        try {
+            int index = Integer.parseInt(token);
+            return index >= 0 && index < items.size() ? items.get(index) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void appendStats(StringBuilder reply) {
+        LatencyMetrics metrics = soundManager.getLatencyMetrics();
+        LatencyHistogram dispatched = metrics.getStage(LatencyMetrics.Stage.DISPATCHED);
+        LatencyHistogram started = metrics.getStage(LatencyMetrics.Stage.PLAYBACK_STARTED);
+        LatencyHistogram macroJitter = metrics.getMacroJitter();
+        reply.append("sounds=").append(soundItems.size())
+            .append(" commands=").append(commandCount)
+            .append(" errors=").append(errorCount)
+            .append(" triggers=").append(triggerCount.get())
+            .append(" dropped=").append(soundManager.getDroppedTriggerCount())
+            .append(String.format(Locale.ROOT, " dispatched_p50_ms=%.3f dispatched_p99_ms=%.3f",
+                dispatched.getMillisAtPercentile(50), dispatched.getMillisAtPercentile(99)))
+            .append(String.format(Locale.ROOT, " started_p50_ms=%.3f started_p99_ms=%.3f",
+                started.getMillisAtPercentile(50), started.getMillisAtPercentile(99)))
+            .append(" macros=").append(macros.size())
+            .append(String.format(Locale.ROOT, " macro_jitter_p50_ms=%.3f macro_jitter_p99_ms=%.3f",
+                macroJitter.getMillisAtPercentile(50), macroJitter.getMillisAtPercentile(99)));
+    }
+
+    public void shutdown() {
+        hotkeyManager.shutdown();
+        soundManager.dispose();
+        configManager.close();
+    }
+
+    /**
+     * Runs the engine until the process is stopped.
+     * Options: --control &lt;port or socket path&gt; (default 7878 on loopback), --config &lt;dir&gt;
+     */
+    /**
+     * Loads the saved settings, swapping JavaFX Media for the mixer
+     */
+    private static AudioSettings loadSettings(ConfigManager configManager) {
+        AudioSettings settings = configManager.loadSettings();
+        if (settings.getBackend() == BackendType.JAVAFX_MEDIA) {
+            // JavaFX Media needs the FX toolkit, which is not started without a window
+            System.out.println("JavaFX Media is not available headless, using " + BackendType.SAMPLED_LINE.getDisplayName());
+            settings.setBackend(BackendType.SAMPLED_LINE);
+        }
+        return settings;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String control = String.valueOf(ControlServer.DEFAULT_PORT);
+        ConfigManager configManager = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--control") && i + 1 < args.length) {
+                control = args[++i];
+            } else if (args[i].equals("--config") && i + 1 < args.length) {
+                configManager = new ConfigManager(new File(args[++i]));
+            }
+        }
+        if (configManager == null) {
+            configManager = new ConfigManager();
+        }
+
+        HeadlessEngine engine = new HeadlessEngine(configManager, new SoundManager(loadSettings(configManager)));
+        engine.start();
+        SocketAddress address = ControlServer.parseAddress(control);
+        ControlServer server = new ControlServer(address, engine);
+        server.start();
+        System.out.println("Soundboard engine loaded " + engine.getSounds().size()
+            + " sounds, listening on " + server.getLocalAddress());
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            engine.shutdown();
+            stopped.countDown();
+        }, "soundboard-engine-shutdown"));
+        stopped.await();
+    }
+}
@@ -0,0 +1,280 @@
+package com.maven.soundboard.soundboardfx;
+
+import javafx.scene.input.KeyCode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Walks the keybind trie one key event at a time. Besides single chords it follows
+ * sequences such as "CTRL+K DIGIT3", switches hotkey page, and tells a tap from a hold
+ * on keys bound both ways. A step that completes one keybind but could also start a
+ * longer one waits for the next key until the sequence timeout, and a key with a hold
+ * binding waits until it is released or held long enough; both waits are timers on a
+ * TimerWheel, which the owner advances. Each event is a table lookup and a few field
+ * writes and never allocates.
+ * Not thread-safe: the owner serializes key events and {@link #advance}. The table
+ * may be replaced from any thread and is picked up on the next event.
+ */
+public final class HotkeyMatcher {
+    public static final long SEQUENCE_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1000);
+    public static final long HOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(400);
+    public static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Receives what a timeout, or a key ending an earlier wait, decided; called on the thread
+     * that delivered the event or advanced the matcher
+     */
+    public interface Listener {
+        void onTrigger(SoundItem soundItem, long triggerNanos);
+
+        void onPageChanged(int page);
+    }
+
+    private final AtomicReference<KeybindTable> nextTable = new AtomicReference<>(KeybindTable.EMPTY);
+    private final Listener listener;
+    private final long sequenceTimeoutNanos;
+    private final long holdNanos;
+    private final TimerWheel wheel;
+    private final TimerWheel.Timer sequenceTimer = new TimerWheel.Timer(this::onSequenceTimeout);
+    private final TimerWheel.Timer holdTimer = new TimerWheel.Timer(this::onHoldTimeout);
+
+    private KeybindTable table = KeybindTable.EMPTY;
+    private int page;
+    private int root;
+    /** Where the current sequence has got to; root when none is in progress */
+    private int node;
+    /** Node waiting to be told tap from hold, or NO_NODE */
+    private int holdNode = KeybindTable.NO_NODE;
+    private int holdKey;
+    /** Time of the event or tick being handled, for triggers decided by a timeout */
+    private long nowNanos;
+
+    // Held non-modifier keys as a bitset over JavaFX key codes
+    private final long[] heldKeys = new long[KeyChord.MAX_KEY_CODE / 64];
+    private int heldKeyCount;
+    private int heldModifiers;
+
+    public HotkeyMatcher(Listener listener) {
+        this(listener, SEQUENCE_TIMEOUT_NANOS, HOLD_NANOS, System.nanoTime());
+    }
+
+    /**
+     * @param sequenceTimeoutNanos How long a sequence waits for its next chord
+     * @param holdNanos How long a key bound to a hold must be held down
+     * @param nowNanos Current time, from System.nanoTime()
+     */
+    public HotkeyMatcher(Listener listener, long sequenceTimeoutNanos, long holdNanos, long nowNanos) {
+        this.listener = listener;
+        this.sequenceTimeoutNanos = sequenceTimeoutNanos;
+        this.holdNanos = holdNanos;
+        this.wheel = new TimerWheel(TICK_NANOS, 256, nowNanos);
+    }
+
+    /**
+     * Replaces the keybinds; safe to call from any thread. A sequence in progress is dropped.
+     */
+    public void setTable(KeybindTable table) {
+        nextTable.set(table);
+    }
+
+    public KeybindTable getTable() {
+        return nextTable.get();
+    }
+
+    /**
+     * Records a key press and follows it through the trie
+     * @param nowNanos Time of the event, from System.nanoTime()
+     * @return The sound the press triggers straight away, or null
+     */
+    public SoundItem keyDown(KeyCode key, long nowNanos) {
+        advance(nowNanos);
+
+        // Ignore auto-repeat while a key is held
+        int modifierBit = KeyChord.modifierBit(key);
+        if (modifierBit != 0) {
+            if ((heldModifiers & modifierBit) != 0) {
+                return null;
+            }
+            heldModifiers |= modifierBit;
+            // A chord has at most one non-modifier key, and a key waiting for its hold keeps waiting
+            if (heldKeyCount > 1 || holdNode != KeybindTable.NO_NODE) {
+                return null;
+            }
+            return press(KeyChord.of(heldModifiers, heldKeyCount == 1 ? heldKeyCode() : 0), false);
+        }
+
+        int code = key.getCode();
+        long bit = 1L << code;
+        if ((heldKeys[code >>> 6] & bit) != 0) {
+            return null;
+        }
+        heldKeys[code >>> 6] |= bit;
+        heldKeyCount++;
+
+        // Another key while one waits for a hold means the first was a tap
+        if (holdNode != KeybindTable.NO_NODE) {
+            holdEnded();
+        }
+        // Within a sequence the next key may go down before the last one is up
+        if (heldKeyCount > 1 && node == root) {
+            return null;
+        }
+        return press(KeyChord.of(heldModifiers, code), true);
+    }
+
+    /**
+     * Records a key release
+     * @param nowNanos Time of the event, from System.nanoTime()
+     * @return The sound tapped, for a key that was waiting to be told tap from hold, or null
+     */
+    public SoundItem keyUp(KeyCode key, long nowNanos) {
+        advance(nowNanos);
+
+        int modifierBit = KeyChord.modifierBit(key);
+        if (modifierBit != 0) {
+            heldModifiers &= ~modifierBit;
+            return null;
+        }
+        int code = key.getCode();
+        long bit = 1L << code;
+        if ((heldKeys[code >>> 6] & bit) == 0) {
+            return null;
+        }
+        heldKeys[code >>> 6] &= ~bit;
+        heldKeyCount--;
+
+        if (holdNode != KeybindTable.NO_NODE && code == holdKey) {
+            wheel.cancel(holdTimer);
+            int tapped = holdNode;
+            holdNode = KeybindTable.NO_NODE;
+            return arrive(tapped);
+        }
+        return null;
+    }
+
+    /**
+     * Picks up a new table and fires the timeouts due by now
+     * @param nowNanos Current time, from System.nanoTime()
+     */
+    public void advance(long nowNanos) {
+        this.nowNanos = nowNanos;
+        KeybindTable latest = nextTable.get();
+        if (latest != table) {
+            table = latest;
+            wheel.cancel(sequenceTimer);
+            wheel.cancel(holdTimer);
+            holdNode = KeybindTable.NO_NODE;
+            page = Math.min(page, table.pageCount() - 1);
+            root = table.root(page);
+            node = root;
+        }
+        wheel.advance(nowNanos);
+    }
+
+    /**
+     * @return Whether a sequence or hold is waiting on a timeout, so the owner must keep advancing
+     */
+    public boolean hasPendingTimeouts() {
+        return wheel.size() > 0;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * @param keyPress Whether a non-modifier key went down; only that can break off a sequence,
+     *                 since modifiers may still be building its next chord
+     */
+    private SoundItem press(int chord, boolean keyPress) {
+        int next = table.child(node, chord);
+        if (next == KeybindTable.NO_NODE) {
+            if (!keyPress || node == root) {
+                return null;
+            }
+            // Not part of the sequence: it ends, and the chord may start a keybind of its own
+            endSequence();
+            next = table.child(root, chord);
+            if (next == KeybindTable.NO_NODE) {
+                return null;
+            }
+        }
+        wheel.cancel(sequenceTimer);
+        if (table.holdAt(next) != null) {
+            node = next;
+            holdNode = next;
+            holdKey = KeyChord.keyCode(chord);
+            wheel.schedule(holdTimer, nowNanos + holdNanos);
+            return null;
+        }
+        return arrive(next);
+    }
+
+    /**
+     * Completes a step: waits if longer keybinds continue from here, otherwise acts
+     */
+    private SoundItem arrive(int reached) {
+        if (table.hasChildren(reached)) {
+            node = reached;
+            wheel.schedule(sequenceTimer, nowNanos + sequenceTimeoutNanos);
+            return null;
+        }
+        node = root;
+        return act(reached);
+    }
+
+    private SoundItem act(int reached) {
+        int pageSwitch = table.pageSwitchAt(reached);
+        if (pageSwitch >= 0) {
+            page = pageSwitch;
+            root = table.root(page);
+            node = root;
+            listener.onPageChanged(page);
+            return null;
+        }
+        return table.tapAt(reached);
+    }
+
+    private void endSequence() {
+        wheel.cancel(sequenceTimer);
+        int ended = node;
+        node = root;
+        deliver(act(ended));
+    }
+
+    private void holdEnded() {
+        wheel.cancel(holdTimer);
+        int tapped = holdNode;
+        holdNode = KeybindTable.NO_NODE;
+        deliver(arrive(tapped));
+    }
+
+    private void onSequenceTimeout() {
+        int ended = node;
+        node = root;
+        deliver(act(ended));
+    }
+
+    private void onHoldTimeout() {
+        int held = holdNode;
+        holdNode = KeybindTable.NO_NODE;
+        node = root;
+        deliver(table.holdAt(held));
+    }
+
+    private void deliver(SoundItem soundItem) {
+        if (soundItem != null) {
+            listener.onTrigger(soundItem, nowNanos);
+        }
+    }
+
+    private int heldKeyCode() {
+        for (int word = 0; word < heldKeys.length; word++) {
+            if (heldKeys[word] != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(heldKeys[word]);
+            }
+        }
+        return 0;
+    }
+}
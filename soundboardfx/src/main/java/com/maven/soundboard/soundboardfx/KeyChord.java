@@ -0,0 +1,332 @@
+package com.maven.soundboard.soundboardfx;
+
+import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
+import javafx.scene.input.KeyCode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiles key combinations into a single int so hotkeys can be matched without
+ * building strings. A chord packs the modifier mask into the high half and the
+ * JavaFX key code of the one non-modifier key (or 0 for modifiers only) into the low half.
+ * A keybind may be a sequence of up to {@link #MAX_STEPS} chords separated by spaces,
+ * e.g. "CTRL+K DIGIT3", and its last chord may carry HOLD to fire only when held down.
+ * This is the one key model for both the window and the native hook: each names keys
+ * by JavaFX key code, restricted to the keys both can report, and keybinds are written
+ * back in a single canonical form.
+ */
+public final class KeyChord {
+    public static final int NONE = -1;
+
+    public static final int CTRL = 1;
+    public static final int ALT = 1 << 1;
+    public static final int SHIFT = 1 << 2;
+    /** Not a key: marks a chord that fires when held rather than tapped */
+    public static final int HOLD = 1 << 3;
+
+    /** Longest keybind sequence, in chords */
+    public static final int MAX_STEPS = 4;
+
+    /** Upper bound (exclusive) of the JavaFX key codes returned by {@link #fromNativeKeyCode} */
+    public static final int MAX_KEY_CODE = 0x100;
+
+    /** Every key the native hook can report, by JavaFX key code */
+    private static final KeyCode[] SUPPORTED_KEYS = new KeyCode[MAX_KEY_CODE];
+
+    static {
+        for (int nativeKeyCode = 0; nativeKeyCode <= 0xffff; nativeKeyCode++) {
+            KeyCode key = fromNativeKeyCode(nativeKeyCode);
+            if (key != null) {
+                SUPPORTED_KEYS[key.getCode()] = key;
+            }
+        }
+    }
+
+    private KeyChord() {
+    }
+
+    public static int of(int modifiers, int keyCode) {
+        return (modifiers << 16) | keyCode;
+    }
+
+    public static int modifiers(int chord) {
+        return chord >>> 16;
+    }
+
+    public static int keyCode(int chord) {
+        return chord & 0xffff;
+    }
+
+    /**
+     * @return The modifier bit for a modifier key, or 0 for any other key
+     */
+    public static int modifierBit(KeyCode key) {
+        switch (key) {
+            case CONTROL: return CTRL;
+            case ALT: return ALT;
+            case SHIFT: return SHIFT;
+            default: return 0;
+        }
+    }
+
+    /**
+     * Maps a key from a JavaFX event to the key the native hook reports for it
+     * @return The canonical key, or null for keys that cannot be bound
+     */
+    public static KeyCode canonicalKey(KeyCode key) {
+        if (key == KeyCode.ALT_GRAPH) {
+            return KeyCode.ALT;
+        }
+        int code = key.getCode();
+        return code >= 0 && code < MAX_KEY_CODE && SUPPORTED_KEYS[code] == key ? key : null;
+    }
+
+    /**
+     * @param keyCode A JavaFX key code, as held in a chord
+     * @return The key, or null if it cannot be bound
+     */
+    public static KeyCode keyOf(int keyCode) {
+        return keyCode >= 0 && keyCode < MAX_KEY_CODE ? SUPPORTED_KEYS[keyCode] : null;
+    }
+
+    /**
+     * @return Every key that can be bound, modifiers included
+     */
+    public static List<KeyCode> supportedKeys() {
+        List<KeyCode> keys = new ArrayList<>();
+        for (KeyCode key : SUPPORTED_KEYS) {
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        return Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * Writes a chord in canonical form: HOLD, CTRL, ALT and SHIFT in that order, then the key
+     */
+    public static String format(int chord) {
+        int modifiers = modifiers(chord);
+        StringBuilder text = new StringBuilder();
+        if ((modifiers & HOLD) != 0) text.append("HOLD+");
+        if ((modifiers & CTRL) != 0) text.append("CTRL+");
+        if ((modifiers & ALT) != 0) text.append("ALT+");
+        if ((modifiers & SHIFT) != 0) text.append("SHIFT+");
+        int keyCode = keyCode(chord);
+        if (keyCode != 0) {
+            text.append(SUPPORTED_KEYS[keyCode].name());
+        } else if (text.length() > 0) {
+            text.setLength(text.length() - 1);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes a sequence of chords in canonical form, separated by spaces
+     */
+    public static String formatSequence(int[] steps) {
+        StringBuilder text = new StringBuilder();
+        for (int step : steps) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(format(step));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Rewrites a keybind in canonical form, e.g. "a+ctrl" as "CTRL+A"
+     * @return The canonical keybind, or null if it is not understood
+     */
+    public static String normalize(String keybind) {
+        int[] steps = parseSequence(keybind);
+        return steps != null ? formatSequence(steps) : null;
+    }
+
+    /**
+     * Parses a keybind string such as "CTRL+SHIFT+A". Token order does not matter.
+     * @param keybind Keybind as stored on a SoundItem
+     * @return The compiled chord, or NONE if the keybind is empty, a sequence or not understood
+     */
+    public static int parse(String keybind) {
+        int[] steps = parseSequence(keybind);
+        return steps != null && steps.length == 1 ? steps[0] : NONE;
+    }
+
+    /**
+     * Parses a keybind of one or more chords separated by spaces, such as "CTRL+K DIGIT3"
+     * @param keybind Keybind as stored on a SoundItem
+     * @return The compiled chords in order, or null if the keybind is empty or not understood
+     */
+    public static int[] parseSequence(String keybind) {
+        if (keybind == null || keybind.isBlank()) {
+            return null;
+        }
+
+        String[] tokens = keybind.trim().split("\\s+");
+        if (tokens.length > MAX_STEPS) {
+            return null;
+        }
+        int[] steps = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            steps[i] = parseChord(tokens[i]);
+            // Only the last chord can wait for a hold
+            if (steps[i] == NONE || (i < tokens.length - 1 && (modifiers(steps[i]) & HOLD) != 0)) {
+                return null;
+            }
+        }
+        return steps;
+    }
+
+    private static int parseChord(String chord) {
+        int modifiers = 0;
+        int keyCode = 0;
+        for (String token : chord.toUpperCase().split("\\+")) {
+            switch (token) {
+                case "CTRL":
+                case "CONTROL":
+                    modifiers |= CTRL;
+                    break;
+                case "ALT":
+                    modifiers |= ALT;
+                    break;
+                case "SHIFT":
+                    modifiers |= SHIFT;
+                    break;
+                case "HOLD":
+                    modifiers |= HOLD;
+                    break;
+                default:
+                    KeyCode key;
+                    try {
+                        key = canonicalKey(KeyCode.valueOf(token));
+                    } catch (IllegalArgumentException e) {
+                        return NONE;
+                    }
+                    if (key == null) {
+                        return NONE;
+                    }
+                    if (modifierBit(key) != 0) {
+                        modifiers |= modifierBit(key);
+                        break;
+                    }
+                    // Only one non-modifier key per chord
+                    if (keyCode != 0) {
+                        return NONE;
+                    }
+                    keyCode = key.getCode();
+                    break;
+            }
+        }
+        // Holding only modifiers is not a hold binding
+        if ((modifiers & HOLD) != 0 && keyCode == 0) {
+            return NONE;
+        }
+        return of(modifiers, keyCode);
+    }
+
+    /**
+     * Maps a JNativeHook virtual key code to the equivalent JavaFX key
+     * @return The JavaFX key, or null for keys that cannot be bound
+     */
+    public static KeyCode fromNativeKeyCode(int nativeKeyCode) {
+        switch (nativeKeyCode) {
+            // Modifiers (left and right, including AltGr, share one code)
+            case NativeKeyEvent.VC_CONTROL: return KeyCode.CONTROL;
+            case NativeKeyEvent.VC_ALT: return KeyCode.ALT;
+            case NativeKeyEvent.VC_SHIFT: return KeyCode.SHIFT;
+
+            // Letters
+            case NativeKeyEvent.VC_A: return KeyCode.A;
+            case NativeKeyEvent.VC_B: return KeyCode.B;
+            case NativeKeyEvent.VC_C: return KeyCode.C;
+            case NativeKeyEvent.VC_D: return KeyCode.D;
+            case NativeKeyEvent.VC_E: return KeyCode.E;
+            case NativeKeyEvent.VC_F: return KeyCode.F;
+            case NativeKeyEvent.VC_G: return KeyCode.G;
+            case NativeKeyEvent.VC_H: return KeyCode.H;
+            case NativeKeyEvent.VC_I: return KeyCode.I;
+            case NativeKeyEvent.VC_J: return KeyCode.J;
+            case NativeKeyEvent.VC_K: return KeyCode.K;
+            case NativeKeyEvent.VC_L: return KeyCode.L;
+            case NativeKeyEvent.VC_M: return KeyCode.M;
+            case NativeKeyEvent.VC_N: return KeyCode.N;
+            case NativeKeyEvent.VC_O: return KeyCode.O;
+            case NativeKeyEvent.VC_P: return KeyCode.P;
+            case NativeKeyEvent.VC_Q: return KeyCode.Q;
+            case NativeKeyEvent.VC_R: return KeyCode.R;
+            case NativeKeyEvent.VC_S: return KeyCode.S;
+            case NativeKeyEvent.VC_T: return KeyCode.T;
+            case NativeKeyEvent.VC_U: return KeyCode.U;
+            case NativeKeyEvent.VC_V: return KeyCode.V;
+            case NativeKeyEvent.VC_W: return KeyCode.W;
+            case NativeKeyEvent.VC_X: return KeyCode.X;
+            case NativeKeyEvent.VC_Y: return KeyCode.Y;
+            case NativeKeyEvent.VC_Z: return KeyCode.Z;
+
+            // Numbers
+            case NativeKeyEvent.VC_0: return KeyCode.DIGIT0;
+            case NativeKeyEvent.VC_1: return KeyCode.DIGIT1;
+            case NativeKeyEvent.VC_2: return KeyCode.DIGIT2;
+            case NativeKeyEvent.VC_3: return KeyCode.DIGIT3;
+            case NativeKeyEvent.VC_4: return KeyCode.DIGIT4;
+            case NativeKeyEvent.VC_5: return KeyCode.DIGIT5;
+            case NativeKeyEvent.VC_6: return KeyCode.DIGIT6;
+            case NativeKeyEvent.VC_7: return KeyCode.DIGIT7;
+            case NativeKeyEvent.VC_8: return KeyCode.DIGIT8;
+            case NativeKeyEvent.VC_9: return KeyCode.DIGIT9;
+
+            // Function keys
+            case NativeKeyEvent.VC_F1: return KeyCode.F1;
+            case NativeKeyEvent.VC_F2: return KeyCode.F2;
+            case NativeKeyEvent.VC_F3: return KeyCode.F3;
+            case NativeKeyEvent.VC_F4: return KeyCode.F4;
+            case NativeKeyEvent.VC_F5: return KeyCode.F5;
+            case NativeKeyEvent.VC_F6: return KeyCode.F6;
+            case NativeKeyEvent.VC_F7: return KeyCode.F7;
+            case NativeKeyEvent.VC_F8: return KeyCode.F8;
+            case NativeKeyEvent.VC_F9: return KeyCode.F9;
+            case NativeKeyEvent.VC_F10: return KeyCode.F10;
+            case NativeKeyEvent.VC_F11: return KeyCode.F11;
+            case NativeKeyEvent.VC_F12: return KeyCode.F12;
+
+            // Special keys
+            case NativeKeyEvent.VC_SPACE: return KeyCode.SPACE;
+            case NativeKeyEvent.VC_ENTER: return KeyCode.ENTER;
+            case NativeKeyEvent.VC_TAB: return KeyCode.TAB;
+            case NativeKeyEvent.VC_ESCAPE: return KeyCode.ESCAPE;
+            case NativeKeyEvent.VC_BACKSPACE: return KeyCode.BACK_SPACE;
+            case NativeKeyEvent.VC_DELETE: return KeyCode.DELETE;
+            case NativeKeyEvent.VC_INSERT: return KeyCode.INSERT;
+            case NativeKeyEvent.VC_HOME: return KeyCode.HOME;
+            case NativeKeyEvent.VC_END: return KeyCode.END;
+            case NativeKeyEvent.VC_PAGE_UP: return KeyCode.PAGE_UP;
+            case NativeKeyEvent.VC_PAGE_DOWN: return KeyCode.PAGE_DOWN;
+
+            // Punctuation, named by its position on a US layout
+            case NativeKeyEvent.VC_MINUS: return KeyCode.MINUS;
+            case NativeKeyEvent.VC_EQUALS: return KeyCode.EQUALS;
+            case NativeKeyEvent.VC_BACKQUOTE: return KeyCode.BACK_QUOTE;
+            case NativeKeyEvent.VC_OPEN_BRACKET: return KeyCode.OPEN_BRACKET;
+            case NativeKeyEvent.VC_CLOSE_BRACKET: return KeyCode.CLOSE_BRACKET;
+            case NativeKeyEvent.VC_BACK_SLASH: return KeyCode.BACK_SLASH;
+            case NativeKeyEvent.VC_SEMICOLON: return KeyCode.SEMICOLON;
+            case NativeKeyEvent.VC_QUOTE: return KeyCode.QUOTE;
+            case NativeKeyEvent.VC_COMMA: return KeyCode.COMMA;
+            case NativeKeyEvent.VC_PERIOD: return KeyCode.PERIOD;
+            case NativeKeyEvent.VC_SLASH: return KeyCode.SLASH;
+
+            // Arrow keys
+            case NativeKeyEvent.VC_UP: return KeyCode.UP;
+            case NativeKeyEvent.VC_DOWN: return KeyCode.DOWN;
+            case NativeKeyEvent.VC_LEFT: return KeyCode.LEFT;
+            case NativeKeyEvent.VC_RIGHT: return KeyCode.RIGHT;
+
+            default:
+                return null;
+        }
+    }
+}
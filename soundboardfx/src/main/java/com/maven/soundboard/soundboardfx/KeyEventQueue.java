@@ -0,0 +1,120 @@
+package com.maven.soundboard.soundboardfx;
+
+import javafx.scene.input.KeyCode;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free multi-producer, single-consumer queue of raw key events.
+ * Slots are allocated once and reused, so offering and draining never allocate.
+ * Any thread may offer; only the hotkey matcher thread drains.
+ */
+public class KeyEventQueue {
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private long dequeuePosition;
+
+    /**
+     * @param capacity Maximum queued events, rounded up to a power of two
+     */
+    public KeyEventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i);
+        }
+    }
+
+    /**
+     * Adds a key event
+     * @return false if the queue is full and the event was dropped
+     */
+    public boolean offer(KeyCode key, boolean pressed, long eventNanos) {
+        long position = enqueuePosition.get();
+        Slot slot;
+        while (true) {
+            slot = slots[(int) position & mask];
+            long difference = slot.sequence - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+
+        slot.key = key;
+        slot.pressed = pressed;
+        slot.eventNanos = eventNanos;
+        // Publishing the sequence makes the fields above visible to the consumer
+        slot.sequence = position + 1;
+        return true;
+    }
+
+    /**
+     * Hands every queued event to the handler. Must only be called from the consumer thread.
+     * @return Number of events drained
+     */
+    public int drain(Handler handler) {
+        int count = 0;
+        while (true) {
+            Slot slot = slots[(int) dequeuePosition & mask];
+            if (slot.sequence != dequeuePosition + 1) {
+                return count;
+            }
+
+            KeyCode key = slot.key;
+            boolean pressed = slot.pressed;
+            long eventNanos = slot.eventNanos;
+            slot.key = null;
+            slot.sequence = dequeuePosition + slots.length;
+            dequeuePosition++;
+
+            handler.onKey(key, pressed, eventNanos);
+            count++;
+        }
+    }
+
+    /**
+     * @return Whether an event is waiting. Must only be called from the consumer thread.
+     */
+    public boolean isEmpty() {
+        return slots[(int) dequeuePosition & mask].sequence != dequeuePosition + 1;
+    }
+
+    /**
+     * @return Number of events accepted so far, from any thread
+     */
+    public long offeredCount() {
+        return enqueuePosition.get();
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Receives drained events on the consumer thread
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void onKey(KeyCode key, boolean pressed, long eventNanos);
+    }
+
+    private static final class Slot {
+        private volatile long sequence;
+        private KeyCode key;
+        private boolean pressed;
+        private long eventNanos;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
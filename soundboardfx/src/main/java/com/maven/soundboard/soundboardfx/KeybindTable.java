@@ -0,0 +1,268 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable prefix trie of compiled keybinds. A keybind of several chords is a path from
+ * a root, and each node may hold the sound played when its chord is tapped, the sound
+ * played when it is held, or a page to switch to. Every hotkey page has its own root,
+ * with that page's sounds laid over the ones on every page, so switching page is choosing
+ * another root. Edges live in one open-addressing table keyed by node and chord, so a
+ * step is a few array reads and never allocates.
+ */
+public final class KeybindTable {
+    private static final int CHORD_MASK = ~(KeyChord.HOLD << 16);
+
+    public static final KeybindTable EMPTY = new KeybindTable(Map.of());
+    public static final int NO_NODE = -1;
+    /** Highest hotkey page; page 0 only has the sounds that are on every page */
+    public static final int MAX_PAGE = 9;
+
+    private final long[] edgeKeys;
+    /** Target node + 1, 0 meaning an empty slot */
+    private final int[] edgeTargets;
+    private final int edgeMask;
+    private final SoundItem[] taps;
+    private final SoundItem[] holds;
+    private final int[] pageSwitches;
+    private final boolean[] branches;
+    private final int pageCount;
+    private final int size;
+
+    /**
+     * Compiles keybind strings. Entries whose keybind cannot be parsed are skipped.
+     * @param keybindMap Keybind string to sound item
+     */
+    public KeybindTable(Map<String, SoundItem> keybindMap) {
+        this(bindingsOf(keybindMap), List.of());
+    }
+
+    /**
+     * Compiles the keybinds of sound items and the keys that switch page
+     * @param soundItems Sounds, those without a keybind are skipped
+     * @param pageKeybinds Keybind switching to each page, by page number; null entries are skipped
+     */
+    public KeybindTable(Collection<? extends SoundItem> soundItems, List<String> pageKeybinds) {
+        this(bindingsOf(soundItems), pageKeybinds);
+    }
+
+    private KeybindTable(List<Binding> bindings, List<String> pageKeybinds) {
+        int pages = Math.min(MAX_PAGE + 1, Math.max(1, pageKeybinds.size()));
+        for (Binding binding : bindings) {
+            pages = Math.max(pages, binding.page + 1);
+        }
+
+        Trie trie = new Trie(pages);
+        for (int page = 0; page < pages; page++) {
+            // Sounds on every page first, so the page's own sounds replace them
+            for (Binding binding : bindings) {
+                if (binding.page == 0) {
+                    trie.insert(page, binding.steps, binding.item, -1);
+                }
+            }
+            for (Binding binding : bindings) {
+                if (binding.page == page && page > 0) {
+                    trie.insert(page, binding.steps, binding.item, -1);
+                }
+            }
+            // Page keys work from every page and win over sounds on the same keys
+            for (int target = 0; target < pages && target < pageKeybinds.size(); target++) {
+                int[] steps = KeyChord.parseSequence(pageKeybinds.get(target));
+                if (steps != null && (KeyChord.modifiers(steps[steps.length - 1]) & KeyChord.HOLD) == 0) {
+                    trie.insert(page, steps, null, target);
+                }
+            }
+        }
+        Set<String> distinct = new HashSet<>();
+        for (Binding binding : bindings) {
+            distinct.add(binding.page + " " + Arrays.toString(binding.steps));
+        }
+
+        int nodes = trie.taps.size();
+        this.taps = trie.taps.toArray(new SoundItem[0]);
+        this.holds = trie.holds.toArray(new SoundItem[0]);
+        this.pageSwitches = new int[nodes];
+        this.branches = new boolean[nodes];
+        for (int node = 0; node < nodes; node++) {
+            pageSwitches[node] = trie.pageSwitches.get(node);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(4, trie.edges.size() * 2 - 1)) << 1;
+        this.edgeKeys = new long[capacity];
+        this.edgeTargets = new int[capacity];
+        this.edgeMask = capacity - 1;
+        for (Map.Entry<Long, Integer> edge : trie.edges.entrySet()) {
+            int slot = slotFor(edge.getKey());
+            edgeKeys[slot] = edge.getKey();
+            edgeTargets[slot] = edge.getValue() + 1;
+            branches[(int) (edge.getKey() >>> 32)] = true;
+        }
+        this.pageCount = pages;
+        this.size = distinct.size();
+    }
+
+    /**
+     * @param chord A compiled chord
+     * @return The sound tapped with that single chord on page 0, or null
+     */
+    public SoundItem get(int chord) {
+        int node = child(root(0), chord);
+        return node == NO_NODE ? null : taps[node];
+    }
+
+    /**
+     * @return Number of distinct keybinds compiled, not counting page keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of pages, at least 1
+     */
+    public int pageCount() {
+        return pageCount;
+    }
+
+    int root(int page) {
+        return page;
+    }
+
+    /**
+     * @return The node reached from a node by a chord, or NO_NODE
+     */
+    int child(int node, int chord) {
+        int target = edgeTargets[slotFor(edgeKey(node, chord))];
+        return target - 1;
+    }
+
+    SoundItem tapAt(int node) {
+        return taps[node];
+    }
+
+    SoundItem holdAt(int node) {
+        return holds[node];
+    }
+
+    /**
+     * @return The page a node switches to, or -1
+     */
+    int pageSwitchAt(int node) {
+        return pageSwitches[node];
+    }
+
+    /**
+     * @return Whether longer keybinds continue from a node
+     */
+    boolean hasChildren(int node) {
+        return branches[node];
+    }
+
+    private int slotFor(long key) {
+        int slot = mix(key) & edgeMask;
+        while (edgeTargets[slot] != 0 && edgeKeys[slot] != key) {
+            slot = (slot + 1) & edgeMask;
+        }
+        return slot;
+    }
+
+    private static long edgeKey(int node, int chord) {
+        return ((long) node << 32) | (chord & 0xffffffffL);
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static List<Binding> bindingsOf(Map<String, SoundItem> keybindMap) {
+        List<Binding> bindings = new ArrayList<>();
+        for (Map.Entry<String, SoundItem> entry : keybindMap.entrySet()) {
+            addBinding(bindings, entry.getKey(), entry.getValue());
+        }
+        return bindings;
+    }
+
+    private static List<Binding> bindingsOf(Collection<? extends SoundItem> soundItems) {
+        List<Binding> bindings = new ArrayList<>();
+        for (SoundItem item : soundItems) {
+            addBinding(bindings, item.getKeybind(), item);
+        }
+        return bindings;
+    }
+
+    private static void addBinding(List<Binding> bindings, String keybind, SoundItem item) {
+        int[] steps = KeyChord.parseSequence(keybind);
+        int page = item.getPage() != null ? item.getPage() : 0;
+        if (steps != null && page >= 0 && page <= MAX_PAGE) {
+            bindings.add(new Binding(steps, page, item));
+        }
+    }
+
+    private static final class Binding {
+        private final int[] steps;
+        private final int page;
+        private final SoundItem item;
+
+        private Binding(int[] steps, int page, SoundItem item) {
+            this.steps = steps;
+            this.page = page;
+            this.item = item;
+        }
+    }
+
+    /**
+     * Growable node lists used while compiling
+     */
+    private static final class Trie {
+        private final List<SoundItem> taps = new ArrayList<>();
+        private final List<SoundItem> holds = new ArrayList<>();
+        private final List<Integer> pageSwitches = new ArrayList<>();
+        private final Map<Long, Integer> edges = new HashMap<>();
+
+        private Trie(int roots) {
+            for (int i = 0; i < roots; i++) {
+                addNode();
+            }
+        }
+
+        private int addNode() {
+            taps.add(null);
+            holds.add(null);
+            pageSwitches.add(-1);
+            return taps.size() - 1;
+        }
+
+        /**
+         * Adds a path from a page's root; the last node plays the item or switches to the page
+         */
+        private void insert(int root, int[] steps, SoundItem item, int pageSwitch) {
+            int node = root;
+            for (int step : steps) {
+                long key = edgeKey(node, step & CHORD_MASK);
+                Integer next = edges.get(key);
+                if (next == null) {
+                    next = addNode();
+                    edges.put(key, next);
+                }
+                node = next;
+            }
+            if (item == null) {
+                taps.set(node, null);
+                pageSwitches.set(node, pageSwitch);
+            } else if ((KeyChord.modifiers(steps[steps.length - 1]) & KeyChord.HOLD) != 0) {
+                holds.set(node, item);
+            } else {
+                taps.set(node, item);
+                pageSwitches.set(node, -1);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of nanosecond latencies in the style of HdrHistogram.
+ * Values below 128 ns are exact; above that each power of two is split into 64 buckets,
+ * keeping every recorded value within about 1.6% of its bucket. Recording never allocates
+ * and is safe from any number of threads.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKET_COUNT = indexFor(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * @param nanos A latency in nanoseconds; negative values count as 0 and huge ones are capped
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(indexFor(value));
+        totalCount.incrementAndGet();
+        maxValue.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMaxNanos() {
+        return maxValue.get();
+    }
+
+    /**
+     * @param percentile 0 to 100
+     * @return The highest value equivalent to the bucket holding that percentile, in nanoseconds
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            seen += counts.get(index);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(index), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public double getMillisAtPercentile(double percentile) {
+        return getValueAtPercentile(percentile) / 1_000_000.0;
+    }
+
+    public double getMaxMillis() {
+        return getMaxNanos() / 1_000_000.0;
+    }
+
+    public void reset() {
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            counts.set(index, 0);
+        }
+        totalCount.set(0);
+        maxValue.set(0);
+    }
+
+    private static int indexFor(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value | 1);
+        if (magnitude < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int shift = magnitude - (SUB_BUCKET_BITS - 1);
+        return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+    }
+
+    private static long highestValueIn(int index) {
+        if (index < (1 << SUB_BUCKET_BITS)) {
+            return index;
+        }
+        int shift = (index >>> (SUB_BUCKET_BITS - 1)) - 1;
+        long subBucket = index - ((long) shift << (SUB_BUCKET_BITS - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        if (getCount() == 0) {
+            return "no samples";
+        }
+        return String.format("p50 %.2f ms, p99 %.2f ms, max %.2f ms (%d samples)",
+            getMillisAtPercentile(50), getMillisAtPercentile(99), getMaxMillis(), getCount());
+    }
+}
@@ -0,0 +1,114 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Key-to-sound latency broken down by pipeline stage and by sound.
+ * Every stage is measured from the moment the key event reached the application
+ * (the native hook callback, or the JavaFX handler for in-window keys and clicks).
+ */
+public class LatencyMetrics {
+
+    /**
+     * Points along the trigger path, in the order a trigger passes them
+     */
+    public enum Stage {
+        MATCHED("Combination matched"),
+        DISPATCHED("Dispatched to backend"),
+        PLAYBACK_STARTED("Playback started"),
+        FIRST_BUFFER_WRITTEN("First buffer written");
+
+        private final String displayName;
+
+        Stage(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+    private final Map<String, LatencyHistogram> sounds = new ConcurrentHashMap<>();
+    private final LatencyHistogram macroJitter = new LatencyHistogram();
+
+    public LatencyMetrics() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Records that a trigger reached a stage
+     * @param stage The stage reached
+     * @param latencyNanos Time since the key event was received
+     */
+    public void record(Stage stage, long latencyNanos) {
+        stages.get(stage).record(latencyNanos);
+    }
+
+    /**
+     * Records the end-to-end latency of one sound, from key event to its first audio output
+     * @param soundKey Identifies the sound, usually its file path
+     * @param latencyNanos Measured latency
+     */
+    public void recordSound(String soundKey, long latencyNanos) {
+        LatencyHistogram histogram = sounds.get(soundKey);
+        if (histogram == null) {
+            histogram = sounds.computeIfAbsent(soundKey, key -> new LatencyHistogram());
+        }
+        histogram.record(latencyNanos);
+    }
+
+    /**
+     * Records how far a macro's trigger was heard from its recorded time
+     */
+    public void recordMacroJitter(long errorNanos) {
+        macroJitter.record(errorNanos);
+    }
+
+    public LatencyHistogram getMacroJitter() {
+        return macroJitter;
+    }
+
+    public LatencyHistogram getStage(Stage stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * @return Per-sound histograms keyed by sound, sorted for display
+     */
+    public Map<String, LatencyHistogram> getSounds() {
+        return new TreeMap<>(sounds);
+    }
+
+    public void reset() {
+        stages.values().forEach(LatencyHistogram::reset);
+        sounds.clear();
+        macroJitter.reset();
+    }
+
+    /**
+     * @return A point-in-time copy of every histogram's summary, suitable for JSON
+     */
+    public LatencyReport snapshot() {
+        LatencyReport report = new LatencyReport();
+        List<LatencyReport.Row> stageRows = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            stageRows.add(LatencyReport.Row.of(stage.getDisplayName(), stages.get(stage)));
+        }
+        report.setStages(stageRows);
+
+        List<LatencyReport.Row> soundRows = new ArrayList<>();
+        getSounds().forEach((sound, histogram) -> soundRows.add(LatencyReport.Row.of(sound, histogram)));
+        report.setSounds(soundRows);
+        report.setMacroJitter(LatencyReport.Row.of("Macro jitter", macroJitter));
+        return report;
+    }
+}
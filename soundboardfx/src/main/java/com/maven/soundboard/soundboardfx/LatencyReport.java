@@ -0,0 +1,185 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Machine-readable latency and cache statistics, written by ConfigManager as JSON
+ * so figures can be compared across releases
+ */
+public class LatencyReport {
+    private String generatedAt = Instant.now().toString();
+    private String backend;
+    private List<Row> stages = new ArrayList<>();
+    private List<Row> sounds = new ArrayList<>();
+    private Row macroJitter;
+    private long cacheHits;
+    private long cacheMisses;
+    private long cacheEvictions;
+    private long cacheBytes;
+    private int cacheDuplicates;
+    private long cacheBytesSaved;
+
+    public String getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(String generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    public List<Row> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<Row> stages) {
+        this.stages = stages;
+    }
+
+    public List<Row> getSounds() {
+        return sounds;
+    }
+
+    public void setSounds(List<Row> sounds) {
+        this.sounds = sounds;
+    }
+
+    /**
+     * @return Distance between macro triggers as heard and as recorded
+     */
+    public Row getMacroJitter() {
+        return macroJitter;
+    }
+
+    public void setMacroJitter(Row macroJitter) {
+        this.macroJitter = macroJitter;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public void setCacheHits(long cacheHits) {
+        this.cacheHits = cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public void setCacheMisses(long cacheMisses) {
+        this.cacheMisses = cacheMisses;
+    }
+
+    public long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    public void setCacheEvictions(long cacheEvictions) {
+        this.cacheEvictions = cacheEvictions;
+    }
+
+    public long getCacheBytes() {
+        return cacheBytes;
+    }
+
+    public void setCacheBytes(long cacheBytes) {
+        this.cacheBytes = cacheBytes;
+    }
+
+    public int getCacheDuplicates() {
+        return cacheDuplicates;
+    }
+
+    public void setCacheDuplicates(int cacheDuplicates) {
+        this.cacheDuplicates = cacheDuplicates;
+    }
+
+    public long getCacheBytesSaved() {
+        return cacheBytesSaved;
+    }
+
+    public void setCacheBytesSaved(long cacheBytesSaved) {
+        this.cacheBytesSaved = cacheBytesSaved;
+    }
+
+    /**
+     * Summary of one histogram, in milliseconds
+     */
+    public static class Row {
+        private String name;
+        private long count;
+        private double p50Millis;
+        private double p90Millis;
+        private double p99Millis;
+        private double maxMillis;
+
+        public static Row of(String name, LatencyHistogram histogram) {
+            Row row = new Row();
+            row.name = name;
+            row.count = histogram.getCount();
+            row.p50Millis = histogram.getMillisAtPercentile(50);
+            row.p90Millis = histogram.getMillisAtPercentile(90);
+            row.p99Millis = histogram.getMillisAtPercentile(99);
+            row.maxMillis = histogram.getMaxMillis();
+            return row;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public void setP50Millis(double p50Millis) {
+            this.p50Millis = p50Millis;
+        }
+
+        public double getP90Millis() {
+            return p90Millis;
+        }
+
+        public void setP90Millis(double p90Millis) {
+            this.p90Millis = p90Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public void setP99Millis(double p99Millis) {
+            this.p99Millis = p99Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public void setMaxMillis(double maxMillis) {
+            this.maxMillis = maxMillis;
+        }
+    }
+}
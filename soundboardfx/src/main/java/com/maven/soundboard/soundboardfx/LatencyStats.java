@@ -0,0 +1,49 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * Running trigger-to-first-sample latency figures for one backend
+ */
+public class LatencyStats {
+    private long count;
+    private long totalNanos;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+    private long lastNanos;
+
+    public synchronized void record(long latencyNanos) {
+        count++;
+        totalNanos += latencyNanos;
+        minNanos = Math.min(minNanos, latencyNanos);
+        maxNanos = Math.max(maxNanos, latencyNanos);
+        lastNanos = latencyNanos;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getAverageMillis() {
+        return count == 0 ? 0 : totalNanos / (double) count / 1_000_000.0;
+    }
+
+    public synchronized double getMinMillis() {
+        return count == 0 ? 0 : minNanos / 1_000_000.0;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1_000_000.0;
+    }
+
+    public synchronized double getLastMillis() {
+        return lastNanos / 1_000_000.0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (count == 0) {
+            return "not measured yet";
+        }
+        return String.format("avg %.1f ms, min %.1f ms, max %.1f ms (%d triggers)",
+            getAverageMillis(), getMinMillis(), getMaxMillis(), count);
+    }
+}
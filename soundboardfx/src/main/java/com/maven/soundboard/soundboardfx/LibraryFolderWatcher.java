@@ -0,0 +1,449 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a set of library folders in sync with the sound files inside them.
+ * The folders are scanned in parallel on start, then kept current through a WatchService;
+ * events are coalesced and only the files they name, and directories created since, are
+ * looked at again. Files are tracked by size and modification time. A directory that has
+ * been watched since it was last listed and whose own modification time is unchanged has
+ * the same entries, and edits to those arrive as events, so rescans skip listing it.
+ * Content hashing and decoding are left to the sample cache, which redoes them only for
+ * the paths reported as changed.
+ */
+public class LibraryFolderWatcher implements Closeable {
+    /** File extensions picked up from library folders */
+    public static final Set<String> AUDIO_EXTENSIONS = Set.of("wav", "mp3", "m4a", "aac", "aif", "aiff", "au");
+    /** Further events within this window are handled together with the first */
+    private static final long COALESCE_MILLIS = 100;
+
+    /**
+     * Receives the differences found by a scan, on the scanning thread. Only called when
+     * something changed.
+     */
+    public interface Listener {
+        void onChanges(List<String> added, List<String> changed, List<String> removed);
+    }
+
+    /** Size and modification time of a tracked sound file */
+    private static final class FileState {
+        final long size;
+        final long modified;
+
+        FileState(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    /** What a directory held when it was last listed */
+    private static final class DirState {
+        final FileTime modified;
+        final long epoch;
+        final List<Path> subdirs;
+        final Set<String> files;
+
+        DirState(FileTime modified, long epoch, List<Path> subdirs, Set<String> files) {
+            this.modified = modified;
+            this.epoch = epoch;
+            this.subdirs = subdirs;
+            this.files = files;
+        }
+    }
+
+    private final Listener listener;
+    private final ForkJoinPool scanPool;
+    private final ConcurrentNavigableMap<String, FileState> files = new ConcurrentSkipListMap<>();
+    private final Map<String, DirState> dirs = new ConcurrentHashMap<>();
+    private final Map<String, WatchKey> watchedDirs = new ConcurrentHashMap<>();
+    private final List<Path> roots = new ArrayList<>();
+    private WatchService watchService;
+    private Thread watchThread;
+    /** Bumped when events were lost; directories listed in an older epoch are listed again */
+    private volatile long epoch;
+    private volatile boolean closed;
+
+    public LibraryFolderWatcher(Listener listener) {
+        this(listener, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public LibraryFolderWatcher(Listener listener, int scanThreads) {
+        this.listener = listener;
+        this.scanPool = new ForkJoinPool(scanThreads);
+    }
+
+    /**
+     * Scans the folders and starts watching them on a background thread.
+     * May be called once per watcher.
+     * @param folders Library folders; ones that do not exist are skipped
+     */
+    public void start(List<File> folders) {
+        for (File folder : folders) {
+            if (folder.isDirectory()) {
+                roots.add(folder.toPath().toAbsolutePath().normalize());
+            } else {
+                System.err.println("Library folder not found: " + folder);
+            }
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            System.err.println("Library folders will not be watched: " + e.getMessage());
+        }
+
+        watchThread = new Thread(() -> {
+            long start = System.nanoTime();
+            int found = rescan();
+            System.out.printf("Scanned %d library folders: %d sound files in %.1f ms%n",
+                roots.size(), found, (System.nanoTime() - start) / 1_000_000.0);
+            if (watchService != null) {
+                watchLoop();
+            }
+        }, "soundboard-folder-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Compares every library folder against what was last seen and reports the differences
+     * @return Number of sound files now tracked
+     */
+    public int rescan() {
+        scan(roots, List.of());
+        return files.size();
+    }
+
+    /**
+     * Walks the given directories and looks at the given paths, all of which must lie in a
+     * library folder, and reports what changed
+     * @param dirsToWalk Directories to walk recursively
+     * @param paths Single entries that were created, modified or deleted
+     */
+    private synchronized void scan(List<Path> dirsToWalk, List<Path> paths) {
+        if (closed) {
+            return;
+        }
+        ConcurrentLinkedQueue<String> added = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<String> changed = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<String> removed = new ConcurrentLinkedQueue<>();
+
+        List<ScanTask> tasks = new ArrayList<>();
+        for (Path dir : dirsToWalk) {
+            tasks.add(new ScanTask(dir, added, changed, removed));
+        }
+        for (Path path : paths) {
+            BasicFileAttributes attributes = readAttributes(path);
+            if (attributes != null && attributes.isDirectory()) {
+                tasks.add(new ScanTask(path, added, changed, removed));
+            } else if (attributes != null && attributes.isRegularFile() && isAudioFile(path)) {
+                compare(path.toString(), attributes, added, changed);
+            } else {
+                // Deleted, renamed away or no longer a sound; may have been a whole directory
+                forget(path.toString(), removed);
+            }
+        }
+        scanPool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        if (!added.isEmpty() || !changed.isEmpty() || !removed.isEmpty()) {
+            listener.onChanges(new ArrayList<>(added), new ArrayList<>(changed), new ArrayList<>(removed));
+        }
+    }
+
+    /**
+     * Brings one directory up to date and forks a task per subdirectory
+     */
+    private final class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final Collection<String> added;
+        private final Collection<String> changed;
+        private final Collection<String> removed;
+
+        ScanTask(Path dir, Collection<String> added, Collection<String> changed, Collection<String> removed) {
+            this.dir = dir;
+            this.added = added;
+            this.changed = changed;
+            this.removed = removed;
+        }
+
+        @Override
+        protected void compute() {
+            String key = dir.toString();
+            // Read before listing, so a change made during the listing shows up next time
+            BasicFileAttributes attributes = readAttributes(dir);
+            if (attributes == null || !attributes.isDirectory()) {
+                forget(key, removed);
+                return;
+            }
+            boolean watchedSinceListing = watch(dir);
+            long currentEpoch = epoch;
+            DirState known = dirs.get(key);
+            if (known != null && watchedSinceListing && known.epoch == currentEpoch
+                    && known.modified.equals(attributes.lastModifiedTime())) {
+                invokeAll(subtasks(known.subdirs));
+                return;
+            }
+
+            List<Path> subdirs = new ArrayList<>();
+            Set<String> seen = ConcurrentHashMap.newKeySet();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes entryAttributes = readAttributes(entry);
+                    if (entryAttributes == null) {
+                        continue;
+                    }
+                    if (entryAttributes.isDirectory()) {
+                        subdirs.add(entry);
+                    } else if (entryAttributes.isRegularFile() && isAudioFile(entry)) {
+                        seen.add(entry.toString());
+                        compare(entry.toString(), entryAttributes, added, changed);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to scan library folder: " + e.getMessage());
+                return;
+            }
+
+            if (known != null) {
+                for (String file : known.files) {
+                    if (!seen.contains(file) && files.remove(file) != null) {
+                        removed.add(file);
+                    }
+                }
+                for (Path subdir : known.subdirs) {
+                    if (!subdirs.contains(subdir)) {
+                        forget(subdir.toString(), removed);
+                    }
+                }
+            }
+            dirs.put(key, new DirState(attributes.lastModifiedTime(), currentEpoch, subdirs, seen));
+            invokeAll(subtasks(subdirs));
+        }
+
+        private List<ScanTask> subtasks(List<Path> subdirs) {
+            List<ScanTask> tasks = new ArrayList<>(subdirs.size());
+            for (Path subdir : subdirs) {
+                tasks.add(new ScanTask(subdir, added, changed, removed));
+            }
+            return tasks;
+        }
+    }
+
+    private void compare(String path, BasicFileAttributes attributes,
+                         Collection<String> added, Collection<String> changed) {
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        FileState known = files.get(path);
+        if (known != null && known.size == size && known.modified == modified) {
+            return;
+        }
+        files.put(path, new FileState(size, modified));
+        if (known == null) {
+            added.add(path);
+            DirState parent = dirs.get(parentOf(path));
+            if (parent != null) {
+                parent.files.add(path);
+            }
+        } else {
+            changed.add(path);
+        }
+    }
+
+    /**
+     * Stops tracking a file, or a directory and everything below it
+     */
+    private void forget(String path, Collection<String> removed) {
+        if (files.remove(path) != null) {
+            removed.add(path);
+            DirState parent = dirs.get(parentOf(path));
+            if (parent != null) {
+                parent.files.remove(path);
+            }
+        }
+        DirState dir = dirs.remove(path);
+        if (dir != null) {
+            for (String file : dir.files) {
+                if (files.remove(file) != null) {
+                    removed.add(file);
+                }
+            }
+            for (Path subdir : dir.subdirs) {
+                forget(subdir.toString(), removed);
+            }
+        }
+        WatchKey key = watchedDirs.remove(path);
+        if (key != null) {
+            key.cancel();
+        }
+    }
+
+    private static String parentOf(String path) {
+        int separator = path.lastIndexOf(File.separatorChar);
+        return separator > 0 ? path.substring(0, separator) : path;
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Registers a directory with the watch service unless it already is
+     * @return true if it was already being watched, so no change to it can have been missed
+     */
+    private boolean watch(Path dir) {
+        if (watchService == null) {
+            return false;
+        }
+        WatchKey existing = watchedDirs.get(dir.toString());
+        if (existing != null && existing.isValid()) {
+            return true;
+        }
+        try {
+            watchedDirs.put(dir.toString(), dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY));
+        } catch (IOException | ClosedWatchServiceException e) {
+            // Gone already, or the watcher is closing; the next scan of its parent catches up
+        }
+        return false;
+    }
+
+    private void watchLoop() {
+        try {
+            while (!closed) {
+                WatchKey key = watchService.take();
+                // Collect what this burst of events touched, then look at only those entries
+                Set<Path> dirtyDirs = new LinkedHashSet<>();
+                Set<Path> dirtyPaths = new LinkedHashSet<>();
+                boolean overflow = false;
+                while (key != null) {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                            continue;
+                        }
+                        Path child = dir.resolve((Path) event.context());
+                        if (!Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                            dirtyPaths.add(child);
+                        } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                            // Created or moved in: its contents arrived without events of their own
+                            dirtyDirs.add(child);
+                        }
+                    }
+                    if (!key.reset()) {
+                        // The directory itself went away
+                        watchedDirs.remove(dir.toString(), key);
+                        dirtyPaths.add(dir);
+                    }
+                    key = watchService.poll(COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (overflow) {
+                    epoch++;
+                    scan(roots, List.of());
+                } else {
+                    List<Path> dirsToWalk = outermost(dirtyDirs);
+                    dirtyPaths.removeIf(path -> dirsToWalk.stream().anyMatch(path::startsWith));
+                    scan(dirsToWalk, new ArrayList<>(dirtyPaths));
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * @return The directories that are not inside another one in the set, and lie inside a library folder
+     */
+    private List<Path> outermost(Set<Path> candidates) {
+        List<Path> result = new ArrayList<>();
+        for (Path dir : candidates) {
+            if (roots.stream().noneMatch(dir::startsWith)) {
+                continue;
+            }
+            boolean nested = false;
+            for (Path other : candidates) {
+                if (other != dir && dir.startsWith(other)) {
+                    nested = true;
+                    break;
+                }
+            }
+            if (!nested) {
+                result.add(dir);
+            }
+        }
+        return result;
+    }
+
+    static boolean isAudioFile(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && AUDIO_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return Paths of every sound file currently tracked, sorted
+     */
+    public List<String> getFiles() {
+        return Collections.unmodifiableList(new ArrayList<>(files.keySet()));
+    }
+
+    public int getWatchedDirectoryCount() {
+        return watchedDirs.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close folder watcher: " + e.getMessage());
+            }
+        }
+        scanPool.shutdownNow();
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Writes mixer output to the default sound card through a SourceDataLine
+ */
+public class LineSink implements AudioSink {
+    public static final int DEFAULT_BUFFER_FRAMES = 2048;
+
+    private final int bufferFrames;
+    private volatile SourceDataLine line;
+
+    public LineSink() {
+        this(DEFAULT_BUFFER_FRAMES);
+    }
+
+    /**
+     * @param bufferFrames Size of the line's hardware buffer in frames
+     */
+    public LineSink(int bufferFrames) {
+        this.bufferFrames = bufferFrames;
+    }
+
+    @Override
+    public void open(AudioFormat format, int blockFrames) throws Exception {
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format, Math.max(bufferFrames, blockFrames * 2) * format.getFrameSize());
+        line.start();
+    }
+
+    @Override
+    public void write(byte[] buffer, int length) {
+        line.write(buffer, 0, length);
+    }
+
+    @Override
+    public boolean isBlocking() {
+        return true;
+    }
+
+    @Override
+    public long getQueuedFrames() {
+        return (line.getBufferSize() - line.available()) / line.getFormat().getFrameSize();
+    }
+
+    @Override
+    public void stop() {
+        SourceDataLine current = line;
+        if (current != null) {
+            // A stopped or flushed line returns from write with what it has taken so far
+            current.stop();
+            current.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (line != null) {
+            line.stop();
+            line.flush();
+            line.close();
+            line = null;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Measures a file's integrated loudness and true peak in the manner of ITU-R BS.1770:
+ * K-weighted mean square over 400 ms blocks overlapping by 75%, gated at -70 LUFS and then
+ * 10 LU below the ungated level. Clips shorter than one block are measured as a single block,
+ * since soundboards are full of them. The true peak is taken from a 4x oversampled signal.
+ */
+public final class LoudnessAnalyzer {
+    /** Loudness reported for silence, the absolute gate */
+    public static final double SILENCE_LUFS = -70;
+    private static final double RELATIVE_GATE_LU = 10;
+    private static final int OVERSAMPLING = 4;
+    private static final int TAPS_PER_PHASE = 12;
+    /** Interpolation filter, one row of taps per oversampled phase */
+    private static final double[][] PHASES = designInterpolator();
+
+    private LoudnessAnalyzer() {
+    }
+
+    /**
+     * Result of one measurement
+     */
+    public static final class Result {
+        private final double integratedLufs;
+        private final double truePeakDb;
+
+        Result(double integratedLufs, double truePeakDb) {
+            this.integratedLufs = integratedLufs;
+            this.truePeakDb = truePeakDb;
+        }
+
+        /**
+         * @return Gated loudness in LUFS, {@link #SILENCE_LUFS} for silence
+         */
+        public double getIntegratedLufs() {
+            return integratedLufs;
+        }
+
+        /**
+         * @return Highest interpolated sample in dB relative to full scale
+         */
+        public double getTruePeakDb() {
+            return truePeakDb;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f LUFS, %.1f dBTP", integratedLufs, truePeakDb);
+        }
+    }
+
+    /**
+     * Reads a whole file once and measures it
+     * @param file A sound file readable by javax.sound.sampled
+     */
+    public static Result analyze(File file) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream pcm = SampleDecoder.openPcmStream(file)) {
+            AudioFormat format = pcm.getFormat();
+            int channels = format.getChannels();
+            Meter meter = new Meter(format.getSampleRate(), channels);
+            byte[] buffer = new byte[4096 * channels * 2];
+            int read;
+            while ((read = pcm.readNBytes(buffer, 0, buffer.length)) > 0) {
+                meter.process(buffer, read / (channels * 2));
+            }
+            return meter.result();
+        }
+    }
+
+    /**
+     * Streaming measurement state for one file
+     */
+    static final class Meter {
+        private final int channels;
+        private final double[] weights;
+        private final Biquad[] shelves;
+        private final Biquad[] highPasses;
+        private final int segmentFrames;
+        /** Interpolation history per channel, newest sample first */
+        private final double[][] history;
+
+        /** Weighted energy of each completed 100 ms segment; four make a gating block */
+        private double[] segments = new double[64];
+        private int segmentCount;
+        private double segmentEnergy;
+        private int segmentFill;
+        private double peak;
+
+        Meter(float sampleRate, int channels) {
+            this.channels = channels;
+            this.weights = channelWeights(channels);
+            this.shelves = new Biquad[channels];
+            this.highPasses = new Biquad[channels];
+            for (int c = 0; c < channels; c++) {
+                shelves[c] = Biquad.shelf(sampleRate);
+                highPasses[c] = Biquad.highPass(sampleRate);
+            }
+            this.segmentFrames = Math.max(1, Math.round(sampleRate / 10));
+            this.history = new double[channels][TAPS_PER_PHASE];
+        }
+
+        /**
+         * @param pcm Interleaved little-endian 16-bit frames
+         */
+        void process(byte[] pcm, int frames) {
+            for (int frame = 0; frame < frames; frame++) {
+                double energy = 0;
+                for (int c = 0; c < channels; c++) {
+                    int index = (frame * channels + c) * 2;
+                    double sample = (short) ((pcm[index] & 0xff) | (pcm[index + 1] << 8)) / 32768.0;
+                    double weighted = highPasses[c].filter(shelves[c].filter(sample));
+                    energy += weights[c] * weighted * weighted;
+                    trackPeak(history[c], sample);
+                }
+                segmentEnergy += energy;
+                if (++segmentFill == segmentFrames) {
+                    if (segmentCount == segments.length) {
+                        segments = Arrays.copyOf(segments, segmentCount * 2);
+                    }
+                    segments[segmentCount++] = segmentEnergy;
+                    segmentEnergy = 0;
+                    segmentFill = 0;
+                }
+            }
+        }
+
+        private void trackPeak(double[] taps, double sample) {
+            System.arraycopy(taps, 0, taps, 1, TAPS_PER_PHASE - 1);
+            taps[0] = sample;
+            peak = Math.max(peak, Math.abs(sample));
+            for (double[] phase : PHASES) {
+                double value = 0;
+                for (int k = 0; k < TAPS_PER_PHASE; k++) {
+                    value += phase[k] * taps[k];
+                }
+                peak = Math.max(peak, Math.abs(value));
+            }
+        }
+
+        Result result() {
+            double truePeakDb = peak > 0 ? 20 * Math.log10(peak) : SILENCE_LUFS;
+            int blocks = segmentCount - 3;
+            if (blocks <= 0) {
+                // Shorter than a gating block: measure everything that was read
+                double total = segmentEnergy;
+                for (int i = 0; i < segmentCount; i++) {
+                    total += segments[i];
+                }
+                int frames = segmentCount * segmentFrames + segmentFill;
+                double lufs = frames > 0 ? loudnessOf(total / frames) : SILENCE_LUFS;
+                return new Result(Math.max(SILENCE_LUFS, lufs), truePeakDb);
+            }
+
+            double[] blockPower = new double[blocks];
+            double sum = 0;
+            int passed = 0;
+            for (int b = 0; b < blocks; b++) {
+                double power = (segments[b] + segments[b + 1] + segments[b + 2] + segments[b + 3]) / (4.0 * segmentFrames);
+                blockPower[b] = power;
+                if (loudnessOf(power) > SILENCE_LUFS) {
+                    sum += power;
+                    passed++;
+                }
+            }
+            if (passed == 0) {
+                return new Result(SILENCE_LUFS, truePeakDb);
+            }
+
+            double relativeGate = loudnessOf(sum / passed) - RELATIVE_GATE_LU;
+            sum = 0;
+            passed = 0;
+            for (double power : blockPower) {
+                double lufs = loudnessOf(power);
+                if (lufs > SILENCE_LUFS && lufs > relativeGate) {
+                    sum += power;
+                    passed++;
+                }
+            }
+            return new Result(Math.max(SILENCE_LUFS, loudnessOf(sum / passed)), truePeakDb);
+        }
+    }
+
+    private static double loudnessOf(double meanSquare) {
+        return meanSquare > 0 ? -0.691 + 10 * Math.log10(meanSquare) : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Left, right and centre count once and the surrounds 1.41 times; the LFE of a 5.1 file is left out
+     */
+    private static double[] channelWeights(int channels) {
+        double[] weights = new double[channels];
+        Arrays.fill(weights, 1.0);
+        if (channels == 5) {
+            weights[3] = 1.41;
+            weights[4] = 1.41;
+        } else if (channels == 6) {
+            weights[3] = 0;
+            weights[4] = 1.41;
+            weights[5] = 1.41;
+        }
+        return weights;
+    }
+
+    /**
+     * Hann-windowed sinc lowpass at the original Nyquist frequency, split into polyphase rows
+     */
+    private static double[][] designInterpolator() {
+        int length = OVERSAMPLING * TAPS_PER_PHASE;
+        double center = (length - 1) / 2.0;
+        double[][] phases = new double[OVERSAMPLING][TAPS_PER_PHASE];
+        for (int p = 0; p < OVERSAMPLING; p++) {
+            double sum = 0;
+            for (int k = 0; k < TAPS_PER_PHASE; k++) {
+                double x = (p + k * OVERSAMPLING - center) / OVERSAMPLING;
+                double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+                double window = 0.5 - 0.5 * Math.cos(2 * Math.PI * (p + k * OVERSAMPLING + 0.5) / length);
+                phases[p][k] = sinc * window;
+                sum += phases[p][k];
+            }
+            for (int k = 0; k < TAPS_PER_PHASE; k++) {
+                phases[p][k] /= sum;
+            }
+        }
+        return phases;
+    }
+
+    /**
+     * Second-order section of the K-weighting filter, coefficients derived for any sample rate
+     */
+    private static final class Biquad {
+        private final double b0, b1, b2, a1, a2;
+        private double z1, z2;
+
+        private Biquad(double b0, double b1, double b2, double a1, double a2) {
+            this.b0 = b0;
+            this.b1 = b1;
+            this.b2 = b2;
+            this.a1 = a1;
+            this.a2 = a2;
+        }
+
+        /** High shelf of about +4 dB above 1.5 kHz, modelling the head */
+        static Biquad shelf(double sampleRate) {
+            double k = Math.tan(Math.PI * 1681.974450955533 / sampleRate);
+            double q = 0.7071752369554196;
+            double vh = Math.pow(10, 3.999843853973347 / 20);
+            double vb = Math.pow(vh, 0.4996667741545416);
+            double a0 = 1 + k / q + k * k;
+            return new Biquad((vh + vb * k / q + k * k) / a0, 2 * (k * k - vh) / a0, (vh - vb * k / q + k * k) / a0,
+                2 * (k * k - 1) / a0, (1 - k / q + k * k) / a0);
+        }
+
+        /** High pass at about 38 Hz */
+        static Biquad highPass(double sampleRate) {
+            double k = Math.tan(Math.PI * 38.13547087602444 / sampleRate);
+            double q = 0.5003270373238773;
+            double a0 = 1 + k / q + k * k;
+            return new Biquad(1, -2, 1, 2 * (k * k - 1) / a0, (1 - k / q + k * k) / a0);
+        }
+
+        double filter(double x) {
+            double y = b0 * x + z1;
+            z1 = b1 * x - a1 * y + z2;
+            z2 = b2 * x - a2 * y;
+            return y;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * Turns a sound's stored loudness measurement into the gain its voices play at.
+ * Nothing is analyzed here, so working out the gain costs a few arithmetic operations per trigger.
+ */
+public class LoudnessNormalizer {
+    /** Quiet sounds are raised by at most this much, so noise floors stay down */
+    public static final double MAX_BOOST_DB = 12;
+    public static final double MAX_CUT_DB = -30;
+    /** Peak ceiling for normalized sounds when no limiter catches overs */
+    public static final double PEAK_CEILING_DB = -1;
+
+    private final boolean enabled;
+    private final double targetLufs;
+    private final boolean limited;
+
+    /**
+     * @param enabled Whether measured sounds are normalized at all
+     * @param targetLufs Loudness to bring them to
+     * @param limited Whether the output is limited; without a limiter a boost stops at the peak ceiling
+     */
+    public LoudnessNormalizer(boolean enabled, double targetLufs, boolean limited) {
+        this.enabled = enabled;
+        this.targetLufs = targetLufs;
+        this.limited = limited;
+    }
+
+    public LoudnessNormalizer(AudioSettings settings) {
+        this(settings.isNormalizeLoudness(), settings.getTargetLoudness(), settings.isLimiterEnabled());
+    }
+
+    /**
+     * @return Gain in dB: the item's own gain if set, else the normalizing gain, else 0
+     */
+    public double gainDbFor(SoundItem soundItem) {
+        Double override = soundItem.getGainDb();
+        if (override != null) {
+            return override;
+        }
+        Double loudness = soundItem.getLoudness();
+        if (!enabled || loudness == null || loudness <= LoudnessAnalyzer.SILENCE_LUFS) {
+            return 0;
+        }
+        double gain = targetLufs - loudness;
+        Double truePeak = soundItem.getTruePeak();
+        if (!limited && truePeak != null) {
+            gain = Math.min(gain, Math.max(0, PEAK_CEILING_DB - truePeak));
+        }
+        return Math.max(MAX_CUT_DB, Math.min(MAX_BOOST_DB, gain));
+    }
+
+    /**
+     * @return Linear gain factor for the mixer
+     */
+    public float gainFor(SoundItem soundItem) {
+        double db = gainDbFor(soundItem);
+        return db == 0 ? 1f : (float) Math.pow(10, db / 20);
+    }
+}
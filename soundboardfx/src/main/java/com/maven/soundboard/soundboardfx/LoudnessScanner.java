@@ -0,0 +1,99 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the loudness of sounds that have none stored, one file at a time on a
+ * minimum-priority thread. Results go to the listener, which stores them with the
+ * sound items so each file is measured once rather than on every trigger.
+ */
+public class LoudnessScanner {
+
+    /**
+     * Receives measurements on the scanner thread
+     */
+    public interface Listener {
+        void onMeasured(String filePath, LoudnessAnalyzer.Result result);
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "soundboard-loudness");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final LatencyHistogram analyzeTimes = new LatencyHistogram();
+    private final Listener listener;
+
+    public LoudnessScanner(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Queues every item not yet measured; files already queued are not queued again
+     */
+    public void scan(Collection<? extends SoundItem> soundItems) {
+        for (SoundItem item : soundItems) {
+            if (!item.isMeasured()) {
+                measure(item.getFilePath());
+            }
+        }
+    }
+
+    /**
+     * Queues one file, e.g. after it changed on disk
+     */
+    public void measure(String filePath) {
+        if (filePath == null || !pending.add(filePath)) {
+            return;
+        }
+        try {
+            worker.execute(() -> analyze(filePath));
+        } catch (RejectedExecutionException e) {
+            pending.remove(filePath);
+        }
+    }
+
+    private void analyze(String filePath) {
+        pending.remove(filePath);
+        long start = System.nanoTime();
+        try {
+            LoudnessAnalyzer.Result result = LoudnessAnalyzer.analyze(new File(filePath));
+            analyzeTimes.record(System.nanoTime() - start);
+            listener.onMeasured(filePath, result);
+        } catch (UnsupportedAudioFileException e) {
+            // Played through JavaFX Media at unity gain
+        } catch (IOException e) {
+            System.err.println("Failed to measure loudness: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Time taken by each file measured
+     */
+    public LatencyHistogram getAnalyzeTimes() {
+        return analyzeTimes;
+    }
+
+    /**
+     * Stops after the file being measured
+     */
+    public void close() {
+        worker.shutdownNow();
+        try {
+            worker.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
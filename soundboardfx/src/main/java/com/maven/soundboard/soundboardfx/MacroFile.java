@@ -0,0 +1,186 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file of recorded macros.
+ *
+ * Layout (big-endian, as written by DataOutputStream): magic "SBFXMAC1", version, macro
+ * count, then per macro the name, keybind ("" for none) and hotkey page + 1 (0 for every
+ * page), the distinct sound file paths it uses, and its events. Each event is two varints:
+ * microseconds since the previous event, and the index + 1 of its sound shifted left by one
+ * with the low bit set for a stop, index 0 meaning every sound. A trigger usually takes
+ * three or four bytes.
+ */
+public final class MacroFile {
+    private static final byte[] MAGIC = "SBFXMAC1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    /** Fewest bytes a macro, a sound path and an event can take, to bound counts by the file size */
+    private static final int MIN_MACRO_BYTES = 7;
+    private static final int MIN_PATH_BYTES = 2;
+    private static final int MIN_EVENT_BYTES = 2;
+    /** Latest event time, so offsets in nanoseconds cannot overflow */
+    private static final long MAX_MICROS = Long.MAX_VALUE / 1000 / 2;
+
+    private MacroFile() {
+    }
+
+    /**
+     * @return Number of bytes written
+     */
+    public static long write(File file, List<TriggerMacro> macros) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(macros.size());
+            for (TriggerMacro macro : macros) {
+                writeMacro(out, macro);
+            }
+            out.flush();
+            return out.size();
+        }
+    }
+
+    private static void writeMacro(DataOutputStream out, TriggerMacro macro) throws IOException {
+        TriggerTimeline timeline = macro.getTimeline();
+        out.writeUTF(macro.getName());
+        out.writeUTF(macro.getKeybind() != null ? macro.getKeybind() : "");
+        writeVarint(out, macro.getPage() != null ? macro.getPage() + 1 : 0);
+
+        Map<String, Integer> pathIndex = new HashMap<>();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < timeline.size(); i++) {
+            SoundItem soundItem = timeline.getSound(i);
+            if (soundItem != null && pathIndex.putIfAbsent(soundItem.getFilePath(), paths.size()) == null) {
+                paths.add(soundItem.getFilePath());
+            }
+        }
+        writeVarint(out, paths.size());
+        for (String path : paths) {
+            out.writeUTF(path);
+        }
+
+        writeVarint(out, timeline.size());
+        long previousMicros = 0;
+        for (int i = 0; i < timeline.size(); i++) {
+            long micros = Math.round(timeline.getTimeNanos(i) / 1000.0);
+            SoundItem soundItem = timeline.getSound(i);
+            int sound = soundItem != null ? pathIndex.get(soundItem.getFilePath()) + 1 : 0;
+            writeVarint(out, Math.max(0, micros - previousMicros));
+            writeVarint(out, (long) sound << 1 | (timeline.isStop(i) ? 1 : 0));
+            previousMicros = Math.max(previousMicros, micros);
+        }
+    }
+
+    /**
+     * Reads macros, pointing their triggers at the library's sounds. A path no longer in the
+     * library gets a sound of its own, played at the default gain and retrigger policy.
+     * @param soundsByPath Library sounds by file path
+     * @throws IOException If the file cannot be read or is damaged
+     */
+    public static List<TriggerMacro> read(File file, Map<String, SoundItem> soundsByPath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a macro file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported macro file version " + version);
+            }
+            long length = file.length();
+            int count = checkCount(in.readInt(), MIN_MACRO_BYTES, length, "macros");
+            List<TriggerMacro> macros = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                macros.add(readMacro(in, soundsByPath, length));
+            }
+            return macros;
+        }
+    }
+
+    private static TriggerMacro readMacro(DataInputStream in, Map<String, SoundItem> soundsByPath, long length)
+            throws IOException {
+        String name = in.readUTF();
+        String keybind = in.readUTF();
+        long page = readVarint(in);
+        if (page > Integer.MAX_VALUE) {
+            throw new IOException("Macro " + name + " has page " + page);
+        }
+
+        SoundItem[] sounds = new SoundItem[checkCount(readVarint(in), MIN_PATH_BYTES, length, "sounds") + 1];
+        for (int i = 1; i < sounds.length; i++) {
+            String path = in.readUTF();
+            SoundItem soundItem = soundsByPath.get(path);
+            sounds[i] = soundItem != null ? soundItem : new SoundItem(new File(path).getName(), path, null);
+        }
+
+        TriggerTimeline timeline = new TriggerTimeline();
+        int events = checkCount(readVarint(in), MIN_EVENT_BYTES, length, "events");
+        long micros = 0;
+        for (int i = 0; i < events; i++) {
+            long delta = readVarint(in);
+            if (delta < 0 || delta > MAX_MICROS - micros) {
+                throw new IOException("Macro " + name + " runs past " + MAX_MICROS + " microseconds");
+            }
+            micros += delta;
+            long event = readVarint(in);
+            long sound = event >>> 1;
+            if (sound >= sounds.length) {
+                throw new IOException("Macro " + name + " refers to sound " + sound + " of " + (sounds.length - 1));
+            }
+            if ((event & 1) != 0) {
+                timeline.stop(micros * 1000, sounds[(int) sound]);
+            } else if (sound > 0) {
+                timeline.play(micros * 1000, sounds[(int) sound]);
+            }
+        }
+
+        TriggerMacro macro = new TriggerMacro(name, keybind.isEmpty() ? null : keybind, timeline);
+        macro.setPage(page > 0 ? (int) page - 1 : null);
+        return macro;
+    }
+
+    /**
+     * Rejects a count the rest of the file could not hold, before anything is allocated for it
+     */
+    private static int checkCount(long count, int minBytes, long length, String what) throws IOException {
+        if (count < 0 || count > length / minBytes) {
+            throw new IOException("Macro file is damaged: " + count + " " + what + " in " + length + " bytes");
+        }
+        return (int) count;
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,233 @@
+package com.maven.soundboard.soundboardfx;
+
+import javafx.application.Platform;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plays sounds with JavaFX MediaPlayers. Handles every format JavaFX supports, but
+ * start-up latency is large and the output buffer cannot be tuned. Players are kept per
+ * sound and rewound for the next trigger instead of being disposed, since creating one is
+ * the slow part; a sound keeps at most as many as its retrigger policy lets it play at once,
+ * and at most {@link #MAX_IDLE_PLAYERS} wait across all sounds, the least recently used
+ * being disposed first. All player state is confined to the JavaFX Application Thread.
+ */
+public class MediaPlayerBackend implements PlaybackBackend {
+    /** Each idle player holds a native decoder, so only the most recently used are kept */
+    static final int MAX_IDLE_PLAYERS = 32;
+
+    private final Map<String, Players> players = new HashMap<>();
+    /** Idle players of every sound, least recently parked first */
+    private final Map<MediaPlayer, Players> idlePlayers = new LinkedHashMap<>();
+    private final LoudnessNormalizer normalizer;
+    private final LatencyListener latencyListener;
+
+    public MediaPlayerBackend(LoudnessNormalizer normalizer, LatencyListener latencyListener) {
+        this.normalizer = normalizer;
+        this.latencyListener = latencyListener;
+    }
+
+    /**
+     * Players of one sound, oldest playing first
+     */
+    private static final class Players {
+        private final String key;
+        /** The item last triggered, whose retrigger settings apply when a player is parked */
+        private SoundItem soundItem;
+        private Media media;
+        private final Deque<MediaPlayer> playing = new ArrayDeque<>();
+        private final Deque<MediaPlayer> idle = new ArrayDeque<>();
+
+        private Players(String key) {
+            this.key = key;
+        }
+    }
+
+    @Override
+    public boolean play(SoundItem soundItem, long triggerNanos) {
+        if (!onFxThread(() -> startPlayer(soundItem, triggerNanos))) {
+            System.err.println("JavaFX Media is not available without a window: " + soundItem.getFilePath());
+        }
+        return true;
+    }
+
+    private void startPlayer(SoundItem soundItem, long triggerNanos) {
+        String key = soundItem.getFilePath();
+        Players sound = players.computeIfAbsent(key, Players::new);
+        sound.soundItem = soundItem;
+
+        MediaPlayer player = null;
+        if (!sound.playing.isEmpty()) {
+            switch (soundItem.getRetriggerPolicy()) {
+                case IGNORE:
+                    return;
+                case TOGGLE:
+                    while (!sound.playing.isEmpty()) {
+                        park(sound, sound.playing.pollFirst());
+                    }
+                    return;
+                case OVERLAP:
+                    if (sound.playing.size() >= soundItem.getVoiceLimit()) {
+                        player = sound.playing.pollFirst();
+                    }
+                    break;
+                default:
+                    player = sound.playing.pollFirst();
+                    while (!sound.playing.isEmpty()) {
+                        park(sound, sound.playing.pollFirst());
+                    }
+                    break;
+            }
+        }
+        if (player == null) {
+            player = sound.idle.pollFirst();
+            idlePlayers.remove(player);
+        }
+        if (player == null) {
+            player = createPlayer(key, sound);
+            if (player == null) {
+                return;
+            }
+        }
+
+        // PLAYING is the closest MediaPlayer gets to reporting the first sample
+        MediaPlayer started = player;
+        started.setOnPlaying(() -> {
+            latencyListener.onFirstSample(key, System.nanoTime() - triggerNanos);
+            started.setOnPlaying(null);
+        });
+        // MediaPlayer volume cannot go above 1, so only cuts take effect here
+        started.setVolume(Math.min(1.0, normalizer.gainFor(soundItem)));
+        started.seek(Duration.ZERO);
+        sound.playing.addLast(started);
+        started.play();
+    }
+
+    private MediaPlayer createPlayer(String key, Players sound) {
+        MediaPlayer player;
+        try {
+            if (sound.media == null) {
+                sound.media = new Media(new File(key).toURI().toString());
+            }
+            player = new MediaPlayer(sound.media);
+        } catch (Exception e) {
+            System.err.println("Failed to play sound: " + e.getMessage());
+            return null;
+        }
+
+        player.setOnEndOfMedia(() -> {
+            if (sound.playing.remove(player)) {
+                park(sound, player);
+            }
+        });
+
+        player.setOnError(() -> {
+            System.err.println("Error playing sound: " + player.getError().getMessage());
+            sound.playing.remove(player);
+            sound.idle.remove(player);
+            idlePlayers.remove(player);
+            player.dispose();
+        });
+        return player;
+    }
+
+    /**
+     * Stops a player and keeps it for the next trigger, up to the sound's current voice limit
+     * and the idle players allowed across all sounds
+     */
+    private void park(Players sound, MediaPlayer player) {
+        player.stop();
+        if (sound.idle.size() + sound.playing.size() >= sound.soundItem.getVoiceLimit()) {
+            player.dispose();
+            return;
+        }
+        sound.idle.addLast(player);
+        idlePlayers.put(player, sound);
+
+        Iterator<Map.Entry<MediaPlayer, Players>> eldest = idlePlayers.entrySet().iterator();
+        while (idlePlayers.size() > MAX_IDLE_PLAYERS) {
+            Map.Entry<MediaPlayer, Players> entry = eldest.next();
+            eldest.remove();
+            Players owner = entry.getValue();
+            owner.idle.remove(entry.getKey());
+            entry.getKey().dispose();
+            // A sound with nothing left playing lets go of its Media too
+            if (owner.idle.isEmpty() && owner.playing.isEmpty()) {
+                players.remove(owner.key, owner);
+            }
+        }
+    }
+
+    @Override
+    public void stop(String filePath) {
+        onFxThread(() -> disposePlayers(filePath));
+    }
+
+    /**
+     * Drops the players of a file that changed on disk, so the next trigger reads it again
+     */
+    @Override
+    public void invalidate(String filePath) {
+        onFxThread(() -> disposePlayers(filePath));
+    }
+
+    private void disposePlayers(String filePath) {
+        Players sound = players.remove(filePath);
+        if (sound != null) {
+            sound.idle.forEach(idlePlayers::remove);
+            dispose(sound);
+        }
+    }
+
+    @Override
+    public void stopAll() {
+        onFxThread(this::stopAllPlayers);
+    }
+
+    private void stopAllPlayers() {
+        players.values().forEach(MediaPlayerBackend::dispose);
+        players.clear();
+        idlePlayers.clear();
+    }
+
+    private static void dispose(Players sound) {
+        for (MediaPlayer player : sound.playing) {
+            player.stop();
+            player.dispose();
+        }
+        sound.idle.forEach(MediaPlayer::dispose);
+        sound.playing.clear();
+        sound.idle.clear();
+    }
+
+    @Override
+    public void dispose() {
+        stopAll();
+    }
+
+    /**
+     * @return false if the JavaFX toolkit is not running, as in the headless engine;
+     *         no player can exist then, so there is nothing to stop either
+     */
+    private static boolean onFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+            return true;
+        }
+        try {
+            Platform.runLater(action);
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays cached samples through the software mixer onto a SourceDataLine
+ * whose buffer size is taken from the audio settings. Files the streaming policy
+ * marks as long are streamed instead of cached. Each voice gets the gain the
+ * normalizer works out from the sound's stored loudness, and the mixer applies
+ * the sound's retrigger policy when the trigger reaches the audio thread.
+ */
+public class MixerBackend implements PlaybackBackend {
+    /** Longest wait for a new stream to buffer before it starts anyway */
+    private static final long STREAM_PREFILL_MILLIS = 200;
+    /** A flood of triggers can overrun the queue many times a second; log only every so often */
+    private static final long DROP_LOG_INTERVAL = 1000;
+
+    private final SampleCache sampleCache;
+    private final StreamingPolicy streamingPolicy;
+    private final LoudnessNormalizer normalizer;
+    private final AudioSettings settings;
+    private final LatencyListener latencyListener;
+    private final LatencyMetrics metrics;
+    private final AtomicLong droppedTriggers = new AtomicLong();
+    private volatile AudioMixer mixer;
+
+    public MixerBackend(SampleCache sampleCache, StreamingPolicy streamingPolicy, LoudnessNormalizer normalizer,
+                        AudioSettings settings, LatencyListener latencyListener, LatencyMetrics metrics) {
+        this.sampleCache = sampleCache;
+        this.streamingPolicy = streamingPolicy;
+        this.normalizer = normalizer;
+        this.settings = settings;
+        this.latencyListener = latencyListener;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean play(SoundItem soundItem, long triggerNanos) throws Exception {
+        if (streamingPolicy.shouldStream(soundItem.getFilePath())) {
+            return playStream(soundItem, triggerNanos);
+        }
+        DecodedSample sample = sampleCache.get(soundItem.getFilePath());
+        if (sample == null) {
+            return false;
+        }
+        enqueue(getMixer(), sample, soundItem, triggerNanos);
+        return true;
+    }
+
+    @Override
+    public boolean playIfReady(SoundItem soundItem, long triggerNanos) {
+        AudioMixer running = mixer;
+        if (running == null) {
+            return false;
+        }
+        // A long file may sit in the cache from elsewhere, but it must still stream; a file
+        // the policy has not seen yet goes through play, which reads its header
+        if (!streamingPolicy.isKnownToCache(soundItem.getFilePath())) {
+            return false;
+        }
+        DecodedSample sample = sampleCache.getIfPresent(soundItem.getFilePath());
+        if (sample == null) {
+            return false;
+        }
+        enqueue(running, sample, soundItem, triggerNanos);
+        return true;
+    }
+
+    /**
+     * Builds a schedule of a macro's triggers from decoded samples and hands it to the mixer
+     * as one command, so each trigger starts on its exact frame. Files the streaming policy
+     * marks as long are decoded for this run only and never enter the sample cache.
+     * @param mayDecode true to decode sounds not cached yet and start the mixer if needed,
+     *                  which may block; false to give up instead
+     * @return false if the macro was not started because that would have blocked
+     */
+    public boolean playMacro(TriggerMacro macro, long triggerNanos, boolean mayDecode) throws Exception {
+        AudioMixer target = mayDecode ? getMixer() : mixer;
+        if (target == null) {
+            return false;
+        }
+        TriggerTimeline timeline = macro.getTimeline();
+        TriggerSchedule schedule = new TriggerSchedule(macro.getName(), target.getFormat().getFrameRate());
+        for (int i = 0; i < timeline.size(); i++) {
+            SoundItem soundItem = timeline.getSound(i);
+            long offsetNanos = timeline.getTimeNanos(i);
+            if (timeline.isStop(i)) {
+                schedule.stop(offsetNanos, soundItem != null ? soundItem.getFilePath() : null);
+                continue;
+            }
+            String filePath = soundItem.getFilePath();
+            DecodedSample sample;
+            if (!mayDecode) {
+                sample = streamingPolicy.isKnownToCache(filePath) ? sampleCache.getIfPresent(filePath) : null;
+            } else if (streamingPolicy.shouldStream(filePath)) {
+                // A stream cannot start on a given frame, so a long file is decoded whole, uncached
+                sample = sampleCache.decodeUncached(filePath);
+            } else {
+                sample = sampleCache.get(filePath);
+            }
+            if (sample == null) {
+                if (!mayDecode) {
+                    return false;
+                }
+                System.err.println("Cannot decode, skipped in macro " + macro.getName() + ": " + filePath);
+                continue;
+            }
+            schedule.play(offsetNanos, sample, filePath, normalizer.gainFor(soundItem),
+                soundItem.getRetriggerPolicy(), soundItem.getVoiceLimit());
+        }
+        if (!target.playSchedule(schedule, triggerNanos)) {
+            dropped(macro.getName());
+        }
+        return true;
+    }
+
+    private boolean playStream(SoundItem soundItem, long triggerNanos) throws Exception {
+        String filePath = soundItem.getFilePath();
+        StreamingSource stream;
+        try {
+            stream = StreamingSource.open(new File(filePath), sampleCache.getFormat());
+        } catch (UnsupportedAudioFileException e) {
+            return false;
+        }
+        stream.start();
+        stream.awaitBuffered(STREAM_PREFILL_MILLIS);
+
+        AudioMixer target = getMixer();
+        if (!target.playStream(stream, filePath, triggerNanos, normalizer.gainFor(soundItem),
+                soundItem.getRetriggerPolicy(), soundItem.getVoiceLimit())) {
+            stream.close();
+            dropped(filePath);
+        }
+        return true;
+    }
+
+    /**
+     * Keys the voice by the triggered path; samples are shared between files with identical
+     * content, so the sample's own path may belong to another file
+     */
+    private void enqueue(AudioMixer target, DecodedSample sample, SoundItem soundItem, long triggerNanos) {
+        String key = soundItem.getFilePath();
+        if (!target.play(sample, key, triggerNanos, normalizer.gainFor(soundItem),
+                soundItem.getRetriggerPolicy(), soundItem.getVoiceLimit())) {
+            dropped(key);
+        }
+    }
+
+    private void dropped(String key) {
+        long count = droppedTriggers.incrementAndGet();
+        if (count == 1 || count % DROP_LOG_INTERVAL == 0) {
+            System.err.println("Trigger queue full, dropped: " + key + " (" + count + " dropped so far)");
+        }
+    }
+
+    /**
+     * @return Triggers dropped because the mixer's command queue was full
+     */
+    public long getDroppedTriggerCount() {
+        return droppedTriggers.get();
+    }
+
+    /**
+     * Starts the mixer on first use, falling back to a silent sink if no output line is available
+     */
+    private synchronized AudioMixer getMixer() throws Exception {
+        if (mixer == null) {
+            AudioMixer lineMixer = createMixer(new LineSink(settings.getBufferFrames()));
+            try {
+                lineMixer.start();
+                mixer = lineMixer;
+            } catch (Exception e) {
+                System.err.println("No audio output line available, mixing to null sink: " + e.getMessage());
+                mixer = createMixer(new NullSink());
+                mixer.start();
+            }
+        }
+        return mixer;
+    }
+
+    private AudioMixer createMixer(AudioSink sink) {
+        AudioMixer created = new AudioMixer(sink, sampleCache.getFormat(),
+            settings.getBlockFrames(), AudioMixer.DEFAULT_MAX_VOICES);
+        created.setLatencyListener(latencyListener);
+        created.setMetrics(metrics);
+        created.setLimiterEnabled(settings.isLimiterEnabled());
+        return created;
+    }
+
+    @Override
+    public void stop(String filePath) {
+        if (mixer != null) {
+            mixer.stop(filePath);
+        }
+    }
+
+    @Override
+    public void stopAll() {
+        if (mixer != null) {
+            mixer.stopAll();
+        }
+    }
+
+    /**
+     * @return The running mixer, or null before the first sound was played
+     */
+    public AudioMixer getRunningMixer() {
+        return mixer;
+    }
+
+    @Override
+    public synchronized void dispose() {
+        if (mixer != null) {
+            mixer.shutdown();
+            mixer = null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * G.711 µ-law companding: 16-bit samples stored in 8 bits with roughly 14-bit dynamic range.
+ * Decoding is a table lookup, cheap enough to do per sample inside the mixer.
+ */
+public final class MuLaw {
+    private static final int BIAS = 0x84;
+    private static final int CLIP = 32635;
+    private static final short[] DECODE_TABLE = new short[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int value = ~i & 0xff;
+            int sign = value & 0x80;
+            int exponent = (value >> 4) & 0x07;
+            int mantissa = value & 0x0f;
+            int magnitude = (((mantissa << 3) + BIAS) << exponent) - BIAS;
+            DECODE_TABLE[i] = (short) (sign != 0 ? -magnitude : magnitude);
+        }
+    }
+
+    private MuLaw() {
+    }
+
+    public static byte encode(short sample) {
+        int value = sample;
+        int sign = (value >> 8) & 0x80;
+        if (sign != 0) {
+            value = -value;
+        }
+        value = Math.min(value, CLIP) + BIAS;
+        int exponent = 7;
+        for (int mask = 0x4000; (value & mask) == 0 && exponent > 0; mask >>= 1) {
+            exponent--;
+        }
+        int mantissa = (value >> (exponent + 3)) & 0x0f;
+        return (byte) ~(sign | (exponent << 4) | mantissa);
+    }
+
+    public static short decode(byte encoded) {
+        return DECODE_TABLE[encoded & 0xff];
+    }
+}
@@ -0,0 +1,29 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Discards mixer output. Used on headless machines and for testing and benchmarking the engine.
+ */
+public class NullSink implements AudioSink {
+    private long bytesWritten;
+
+    @Override
+    public void open(AudioFormat format, int blockFrames) {
+        bytesWritten = 0;
+    }
+
+    @Override
+    public void write(byte[] buffer, int length) {
+        bytesWritten += length;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
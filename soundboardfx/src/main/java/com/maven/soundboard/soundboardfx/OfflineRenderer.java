@@ -0,0 +1,151 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plays a trigger timeline through the software mixer as fast as it can render, into any
+ * sink, usually a WAV file. Each trigger goes through the same mixer, loudness gain and
+ * retrigger policy as a live hotkey press, but starts on its exact frame instead of at the
+ * next block boundary. Rendering goes on after the last event until every voice has ended.
+ * Sounds are decoded up front, so the render itself only mixes.
+ */
+public class OfflineRenderer {
+    private final SampleCache sampleCache;
+    private final LoudnessNormalizer normalizer;
+    private final int blockFrames;
+    private final boolean limiterEnabled;
+
+    public OfflineRenderer(SampleCache sampleCache, AudioSettings settings) {
+        this(sampleCache, new LoudnessNormalizer(settings), settings.getBlockFrames(), settings.isLimiterEnabled());
+    }
+
+    /**
+     * @param blockFrames Largest piece rendered at once, as for the live mixer
+     */
+    public OfflineRenderer(SampleCache sampleCache, LoudnessNormalizer normalizer, int blockFrames,
+                           boolean limiterEnabled) {
+        this.sampleCache = sampleCache;
+        this.normalizer = normalizer;
+        this.blockFrames = blockFrames;
+        this.limiterEnabled = limiterEnabled;
+    }
+
+    /**
+     * Renders a timeline to a 16-bit stereo WAV file in the cache's format
+     * @return Frames written
+     */
+    public long renderToWav(TriggerTimeline timeline, File wavFile) throws Exception {
+        return render(timeline, new WavFileSink(wavFile));
+    }
+
+    /**
+     * Renders a timeline into a sink, which is opened and closed here.
+     * Triggers whose file cannot be decoded are skipped with a warning.
+     * @param timeline Events in time order
+     * @return Frames written
+     */
+    public long render(TriggerTimeline timeline, AudioSink sink) throws Exception {
+        Map<String, DecodedSample> samples = decodeAll(timeline);
+        AudioMixer mixer = new AudioMixer(sink, sampleCache.getFormat(), blockFrames, AudioMixer.DEFAULT_MAX_VOICES);
+        mixer.setLimiterEnabled(limiterEnabled);
+        float frameRate = mixer.getFormat().getFrameRate();
+
+        sink.open(mixer.getFormat(), blockFrames);
+        try {
+            long frame = 0;
+            for (int i = 0; i < timeline.size(); i++) {
+                long eventFrame = Math.round(timeline.getTimeNanos(i) * (double) frameRate / 1_000_000_000L);
+                frame = renderUntil(mixer, sink, frame, eventFrame);
+                enqueue(mixer, timeline, i, samples);
+            }
+            // Let the last voices play out
+            do {
+                frame = renderUntil(mixer, sink, frame, frame + blockFrames);
+            } while (mixer.getActiveVoiceCount() > 0);
+            return frame;
+        } finally {
+            sink.close();
+        }
+    }
+
+    private Map<String, DecodedSample> decodeAll(TriggerTimeline timeline) {
+        Map<String, DecodedSample> samples = new HashMap<>();
+        for (int i = 0; i < timeline.size(); i++) {
+            SoundItem soundItem = timeline.getSound(i);
+            if (soundItem != null && !timeline.isStop(i) && !samples.containsKey(soundItem.getFilePath())) {
+                DecodedSample sample = sampleCache.get(soundItem.getFilePath());
+                if (sample == null) {
+                    System.err.println("Cannot decode, skipped in render: " + soundItem.getFilePath());
+                }
+                samples.put(soundItem.getFilePath(), sample);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Renders from one frame up to another in pieces of at most a block
+     * @return The frame reached
+     */
+    private long renderUntil(AudioMixer mixer, AudioSink sink, long frame, long targetFrame) throws Exception {
+        while (frame < targetFrame) {
+            int frames = (int) Math.min(blockFrames, targetFrame - frame);
+            int length = mixer.render(frames);
+            sink.write(mixer.getOutputBuffer(), length);
+            frame += frames;
+        }
+        return frame;
+    }
+
+    private void enqueue(AudioMixer mixer, TriggerTimeline timeline, int index, Map<String, DecodedSample> samples) {
+        SoundItem soundItem = timeline.getSound(index);
+        boolean queued;
+        if (timeline.isStop(index)) {
+            queued = soundItem == null ? mixer.stopAll() : mixer.stop(soundItem.getFilePath());
+        } else {
+            DecodedSample sample = samples.get(soundItem.getFilePath());
+            if (sample == null) {
+                return;
+            }
+            queued = mixer.play(sample, soundItem.getFilePath(), 0, normalizer.gainFor(soundItem),
+                soundItem.getRetriggerPolicy(), soundItem.getVoiceLimit());
+        }
+        if (!queued) {
+            // Many triggers on one frame: apply those queued so far without advancing time
+            mixer.render(0);
+            enqueue(mixer, timeline, index, samples);
+        }
+    }
+
+    /**
+     * Renders a timeline file to WAV with the saved library and settings.
+     * Usage: OfflineRenderer timeline.txt out.wav [config dir]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: OfflineRenderer <timeline.txt> <out.wav> [config dir]");
+            return;
+        }
+        ConfigManager configManager = args.length > 2 ? new ConfigManager(new File(args[2])) : new ConfigManager();
+        AudioSettings settings = configManager.loadSettings();
+        Map<String, SoundItem> soundsByName = new HashMap<>();
+        for (SoundItem soundItem : configManager.loadSounds()) {
+            soundsByName.putIfAbsent(soundItem.getName(), soundItem);
+        }
+        List<String> lines = Files.readAllLines(new File(args[0]).toPath());
+        TriggerTimeline timeline = TriggerTimeline.parse(lines, soundsByName);
+
+        SampleCache cache = new SampleCache(new SampleDecoder(settings.getSampleRate(), settings.getSampleEncoding()));
+        OfflineRenderer renderer = new OfflineRenderer(cache, settings);
+        long startNanos = System.nanoTime();
+        long frames = renderer.renderToWav(timeline, new File(args[1]));
+        double seconds = frames / cache.getFormat().getFrameRate();
+        double renderSeconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("Rendered %d triggers, %.1f s of audio in %.2f s (%.0fx real time) to %s%n",
+            timeline.size(), seconds, renderSeconds, seconds / renderSeconds, args[1]);
+    }
+}
@@ -0,0 +1,53 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * A way of getting sound items to the speakers. SoundManager delegates to the active backend,
+ * so callers never need to know which one is in use.
+ */
+public interface PlaybackBackend {
+
+    /**
+     * Starts playing a sound item, or restarts, stops or ignores it if it is already
+     * playing, as its retrigger policy says
+     * @param soundItem The sound item to play
+     * @param triggerNanos System.nanoTime() of the key press or click that triggered playback
+     * @return false if this backend cannot play the file and the caller should fall back
+     */
+    boolean play(SoundItem soundItem, long triggerNanos) throws Exception;
+
+    /**
+     * Restarts a sound immediately if that needs no blocking work such as decoding or
+     * opening a line. Called directly on the triggering thread, e.g. the hotkey matcher thread.
+     * @param soundItem The sound item to play
+     * @param triggerNanos System.nanoTime() of the triggering event
+     * @return true if the sound was handled, false to fall back to {@link #play}
+     */
+    default boolean playIfReady(SoundItem soundItem, long triggerNanos) {
+        return false;
+    }
+
+    /**
+     * Stops every instance of a sound
+     * @param filePath The file path of the sound to stop
+     */
+    void stop(String filePath);
+
+    void stopAll();
+
+    /**
+     * Forgets anything kept for a file that changed on disk
+     * @param filePath The file path of the sound
+     */
+    default void invalidate(String filePath) {
+    }
+
+    void dispose();
+
+    /**
+     * Receives the measured delay between a trigger and its first audible sample
+     */
+    @FunctionalInterface
+    interface LatencyListener {
+        void onFirstSample(String filePath, long latencyNanos);
+    }
+}
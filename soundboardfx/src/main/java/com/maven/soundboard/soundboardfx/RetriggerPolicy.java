@@ -0,0 +1,31 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * What triggering a sound does while it is already playing
+ */
+public enum RetriggerPolicy {
+    RESTART("Restart"),
+    OVERLAP("Overlap"),
+    IGNORE("Ignore while playing"),
+    TOGGLE("Toggle stop");
+
+    /** Voices one sound may hold under OVERLAP unless the sound sets its own limit */
+    public static final int DEFAULT_MAX_VOICES = 4;
+    /** Highest per-sound voice limit; the mixer pool is smaller anyway */
+    public static final int MAX_VOICES_LIMIT = 16;
+
+    private final String displayName;
+
+    RetriggerPolicy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,393 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of decoded samples. Samples are stored once per distinct file content,
+ * identified by a SHA-256 of the file, so copies of a file under other paths and a path
+ * bound to several keys all share one decoded buffer. Entries are evicted
+ * least-recently-used first once the total decoded size exceeds the limit. Concurrent
+ * misses on one path wait for a single decode.
+ */
+public class SampleCache {
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private final SampleDecoder decoder;
+    private final long maxBytes;
+    /** Decoded samples keyed by content hash, in access order */
+    private final LinkedHashMap<String, DecodedSample> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Content hash of every path whose sample is cached or being decoded */
+    private final Map<String, String> pathHashes = new HashMap<>();
+    /** The reverse of pathHashes, so dropping a path or an entry needs no scan */
+    private final Map<String, Set<String>> hashPaths = new HashMap<>();
+    private final Set<String> unsupported = new HashSet<>();
+    /** Decodes under way, by path */
+    private final Map<String, CompletableFuture<DecodedSample>> inFlight = new ConcurrentHashMap<>();
+    private final LatencyHistogram decodeTimes = new LatencyHistogram();
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SampleCache(SampleDecoder decoder) {
+        this(decoder, DEFAULT_MAX_BYTES);
+    }
+
+    public SampleCache(SampleDecoder decoder, long maxBytes) {
+        this.decoder = decoder;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the decoded sample for a file, decoding it on first use
+     * @param filePath Path of the sound file
+     * @return The decoded sample, or null if the file cannot be decoded to PCM
+     */
+    public DecodedSample get(String filePath) {
+        synchronized (this) {
+            DecodedSample cached = lookup(filePath);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            if (unsupported.contains(filePath)) {
+                return null;
+            }
+        }
+
+        // Decode outside the lock so other lookups are not held up
+        CompletableFuture<DecodedSample> flight = new CompletableFuture<>();
+        CompletableFuture<DecodedSample> running = inFlight.putIfAbsent(filePath, flight);
+        if (running != null) {
+            return running.join();
+        }
+        return decodeOnce(filePath, flight);
+    }
+
+    /**
+     * Decodes a file without caching it, for a one-off use that must not crowd out the
+     * samples kept for triggers, such as a long file placed in a macro
+     * @param filePath Path of the sound file
+     * @return The decoded sample, or null if the file cannot be decoded to PCM
+     */
+    public DecodedSample decodeUncached(String filePath) {
+        try {
+            return decoder.decode(new File(filePath));
+        } catch (UnsupportedAudioFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Failed to decode sound: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Decodes a file into the cache ahead of its first trigger. Unlike get, this does not
+     * count as a hit or miss, and a file whose content is already cached is not decoded again.
+     * @param filePath Path of the sound file
+     * @return true if the file was decoded by this call
+     */
+    public boolean preload(String filePath) {
+        synchronized (this) {
+            if (lookup(filePath) != null || unsupported.contains(filePath)) {
+                return false;
+            }
+        }
+        // A decode already under way for a trigger is left to finish on its own
+        CompletableFuture<DecodedSample> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(filePath, flight) != null) {
+            return false;
+        }
+        DecodedSample sample = decodeOnce(filePath, flight);
+        return sample != null && sample.getFilePath().equals(filePath);
+    }
+
+    /**
+     * Decodes a path on behalf of every caller waiting on the flight
+     */
+    private DecodedSample decodeOnce(String filePath, CompletableFuture<DecodedSample> flight) {
+        try {
+            DecodedSample sample;
+            synchronized (this) {
+                // The previous flight may have finished between the lookup and claiming this one
+                sample = lookup(filePath);
+            }
+            if (sample == null) {
+                sample = decodeAndPut(filePath);
+            }
+            flight.complete(sample);
+            return sample;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(filePath, flight);
+        }
+    }
+
+    private DecodedSample lookup(String filePath) {
+        String hash = pathHashes.get(filePath);
+        return hash != null ? entries.get(hash) : null;
+    }
+
+    private DecodedSample decodeAndPut(String filePath) {
+        File file = new File(filePath);
+        String hash;
+        try {
+            hash = hashContent(file);
+        } catch (IOException e) {
+            System.err.println("Failed to read sound: " + e.getMessage());
+            return null;
+        }
+
+        // Another path with the same content may already be decoded
+        synchronized (this) {
+            mapPath(filePath, hash);
+            DecodedSample shared = entries.get(hash);
+            if (shared != null) {
+                return shared;
+            }
+        }
+
+        DecodedSample sample;
+        long start = System.nanoTime();
+        try {
+            sample = decoder.decode(file);
+        } catch (UnsupportedAudioFileException e) {
+            synchronized (this) {
+                unmapPath(filePath);
+                unsupported.add(filePath);
+            }
+            return null;
+        } catch (IOException e) {
+            System.err.println("Failed to decode sound: " + e.getMessage());
+            synchronized (this) {
+                unmapPath(filePath);
+            }
+            return null;
+        }
+        decodeTimes.record(System.nanoTime() - start);
+
+        put(filePath, hash, sample);
+        return sample;
+    }
+
+    private void mapPath(String filePath, String hash) {
+        if (hash.equals(pathHashes.get(filePath))) {
+            return;
+        }
+        // The file's content changed since it was last decoded
+        unmapPath(filePath);
+        pathHashes.put(filePath, hash);
+        hashPaths.computeIfAbsent(hash, key -> new HashSet<>()).add(filePath);
+    }
+
+    /**
+     * Forgets a path's hash, dropping the decoded sample once no other path shares it
+     */
+    private void unmapPath(String filePath) {
+        String hash = pathHashes.remove(filePath);
+        if (hash == null) {
+            return;
+        }
+        Set<String> paths = hashPaths.get(hash);
+        paths.remove(filePath);
+        if (paths.isEmpty()) {
+            hashPaths.remove(hash);
+            DecodedSample removed = entries.remove(hash);
+            if (removed != null) {
+                currentBytes -= removed.getSizeInBytes();
+            }
+        }
+    }
+
+    /**
+     * @return Hex SHA-256 of the file's bytes
+     */
+    static String hashContent(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Returns a sample only if it is already decoded, never blocking on a decode
+     * @param filePath Path of the sound file
+     * @return The cached sample, or null
+     */
+    public synchronized DecodedSample getIfPresent(String filePath) {
+        DecodedSample cached = lookup(filePath);
+        if (cached != null) {
+            hits++;
+        }
+        return cached;
+    }
+
+    private synchronized void put(String filePath, String hash, DecodedSample sample) {
+        // Samples larger than the whole cache are played once and not kept
+        if (sample.getSizeInBytes() > maxBytes) {
+            unmapPath(filePath);
+            return;
+        }
+        // An eviction of the same content while this path decoded may have unmapped it
+        mapPath(filePath, hash);
+
+        DecodedSample previous = entries.put(hash, sample);
+        if (previous != null) {
+            currentBytes -= previous.getSizeInBytes();
+        }
+        currentBytes += sample.getSizeInBytes();
+
+        Iterator<Map.Entry<String, DecodedSample>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, DecodedSample> eldest = iterator.next();
+            if (eldest.getValue() == sample) {
+                continue;
+            }
+            iterator.remove();
+            currentBytes -= eldest.getValue().getSizeInBytes();
+            evictions++;
+            Set<String> paths = hashPaths.remove(eldest.getKey());
+            if (paths != null) {
+                pathHashes.keySet().removeAll(paths);
+            }
+        }
+    }
+
+    /**
+     * Drops a file from the cache, e.g. after its path or content changed. The decoded
+     * sample stays while other paths still share its content.
+     * @param filePath Path of the sound file
+     */
+    public synchronized void invalidate(String filePath) {
+        unmapPath(filePath);
+        unsupported.remove(filePath);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        pathHashes.clear();
+        hashPaths.clear();
+        unsupported.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * @return Cached paths whose content matched a sample already decoded for another path
+     */
+    public synchronized int getDuplicateCount() {
+        int duplicates = 0;
+        for (int paths : pathsPerEntry().values()) {
+            duplicates += paths - 1;
+        }
+        return duplicates;
+    }
+
+    /**
+     * @return Bytes that decoding every duplicate path separately would have added to the cache
+     */
+    public synchronized long getDeduplicatedBytes() {
+        // Iterate rather than get(), which would reorder the LRU
+        Map<String, Integer> paths = pathsPerEntry();
+        long saved = 0;
+        for (Map.Entry<String, DecodedSample> entry : entries.entrySet()) {
+            saved += (paths.getOrDefault(entry.getKey(), 1) - 1) * entry.getValue().getSizeInBytes();
+        }
+        return saved;
+    }
+
+    private Map<String, Integer> pathsPerEntry() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : hashPaths.entrySet()) {
+            if (entries.containsKey(entry.getKey())) {
+                counts.put(entry.getKey(), entry.getValue().size());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return Paths whose content hash is remembered
+     */
+    synchronized int getPathCount() {
+        return pathHashes.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * @return Time taken by every decode, whether from a trigger or a preload
+     */
+    public LatencyHistogram getDecodeTimes() {
+        return decodeTimes;
+    }
+
+    public AudioFormat getFormat() {
+        return decoder.getTargetFormat();
+    }
+
+    public SampleEncoding getEncoding() {
+        return decoder.getEncoding();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SampleCache[%d entries, %.1f/%.1f MB, hits=%d, misses=%d, evictions=%d,"
+                + " duplicates=%d, %.1f MB saved]",
+            entries.size(), currentBytes / 1048576.0, maxBytes / 1048576.0, hits, misses, evictions,
+            getDuplicateCount(), getDeduplicatedBytes() / 1048576.0);
+    }
+}
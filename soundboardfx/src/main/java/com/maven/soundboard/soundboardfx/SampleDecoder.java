@@ -0,0 +1,153 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Decodes sound files into 16-bit stereo PCM at the engine sample rate.
+ * Only formats readable by javax.sound.sampled (WAV, AIFF, AU) can be decoded;
+ * everything else is reported as unsupported so callers can fall back to JavaFX Media.
+ */
+public class SampleDecoder {
+    public static final float DEFAULT_SAMPLE_RATE = 44100f;
+
+    private final AudioFormat targetFormat;
+    private final SampleEncoding encoding;
+
+    public SampleDecoder() {
+        this(DEFAULT_SAMPLE_RATE);
+    }
+
+    public SampleDecoder(float sampleRate) {
+        this(sampleRate, SampleEncoding.PCM16);
+    }
+
+    /**
+     * @param encoding How decoded samples are stored
+     */
+    public SampleDecoder(float sampleRate, SampleEncoding encoding) {
+        this.targetFormat = new AudioFormat(sampleRate, 16, 2, true, false);
+        this.encoding = encoding;
+    }
+
+    public AudioFormat getTargetFormat() {
+        return targetFormat;
+    }
+
+    public SampleEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Decodes a whole file to PCM in the target format
+     * @param file The sound file to decode
+     * @return The decoded sample
+     */
+    public DecodedSample decode(File file) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream pcmStream = openPcmStream(file)) {
+            AudioFormat pcmFormat = pcmStream.getFormat();
+            byte[] pcm = pcmStream.readAllBytes();
+
+            short[] interleaved = toStereo(pcm, pcmFormat.getChannels());
+            short[] resampled = resample(interleaved, pcmFormat.getSampleRate(), targetFormat.getSampleRate());
+            return new DecodedSample(file.getPath(), targetFormat, toBytes(resampled), encoding);
+        }
+    }
+
+    /**
+     * Opens a file as little-endian 16-bit PCM at its own sample rate and channel count
+     * @param file The sound file
+     * @return The PCM stream; the caller closes it
+     */
+    static AudioInputStream openPcmStream(File file) throws IOException, UnsupportedAudioFileException {
+        AudioInputStream source = AudioSystem.getAudioInputStream(file);
+        AudioFormat sourceFormat = source.getFormat();
+        AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16, sourceFormat.getChannels(), true, false);
+
+        if (!AudioSystem.isConversionSupported(pcmFormat, sourceFormat)) {
+            source.close();
+            throw new UnsupportedAudioFileException("Cannot convert " + sourceFormat + " to PCM");
+        }
+        return AudioSystem.getAudioInputStream(pcmFormat, source);
+    }
+
+    /**
+     * Reads a file's length from its header without decoding it
+     * @param file The sound file
+     * @return Duration in seconds, or -1 if the format is unsupported or the length is not in the header
+     */
+    public static double getDurationSeconds(File file) {
+        try {
+            AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(file);
+            long frames = fileFormat.getFrameLength();
+            float rate = fileFormat.getFormat().getFrameRate();
+            if (frames == AudioSystem.NOT_SPECIFIED || rate <= 0) {
+                return -1;
+            }
+            return frames / (double) rate;
+        } catch (UnsupportedAudioFileException | IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Converts little-endian 16-bit PCM with any channel count to interleaved stereo
+     */
+    private static short[] toStereo(byte[] pcm, int channels) {
+        int frames = pcm.length / (2 * channels);
+        short[] stereo = new short[frames * 2];
+        for (int frame = 0; frame < frames; frame++) {
+            int base = frame * channels * 2;
+            short left = readShort(pcm, base);
+            short right = channels > 1 ? readShort(pcm, base + 2) : left;
+            stereo[frame * 2] = left;
+            stereo[frame * 2 + 1] = right;
+        }
+        return stereo;
+    }
+
+    /**
+     * Linear-interpolation resampling of interleaved stereo samples
+     */
+    private static short[] resample(short[] stereo, float sourceRate, float targetRate) {
+        if (sourceRate == targetRate || stereo.length == 0) {
+            return stereo;
+        }
+
+        int sourceFrames = stereo.length / 2;
+        int targetFrames = (int) ((long) sourceFrames * targetRate / sourceRate);
+        short[] out = new short[targetFrames * 2];
+        double step = sourceRate / (double) targetRate;
+
+        for (int frame = 0; frame < targetFrames; frame++) {
+            double position = frame * step;
+            int index = (int) position;
+            double fraction = position - index;
+            int next = Math.min(index + 1, sourceFrames - 1);
+            for (int channel = 0; channel < 2; channel++) {
+                double a = stereo[index * 2 + channel];
+                double b = stereo[next * 2 + channel];
+                out[frame * 2 + channel] = (short) Math.round(a + (b - a) * fraction);
+            }
+        }
+        return out;
+    }
+
+    private static short readShort(byte[] data, int offset) {
+        return (short) ((data[offset] & 0xff) | (data[offset + 1] << 8));
+    }
+
+    private static byte[] toBytes(short[] samples) {
+        byte[] bytes = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            bytes[i * 2] = (byte) samples[i];
+            bytes[i * 2 + 1] = (byte) (samples[i] >> 8);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,30 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * How cached samples are held in memory. The mixer expands either form to 16-bit while mixing.
+ */
+public enum SampleEncoding {
+    PCM16("16-bit PCM", 2),
+    MU_LAW("µ-law (half size)", 1);
+
+    private final String displayName;
+    private final int bytesPerSample;
+
+    SampleEncoding(String displayName, int bytesPerSample) {
+        this.displayName = displayName;
+        this.bytesPerSample = bytesPerSample;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public int getBytesPerSample() {
+        return bytesPerSample;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,157 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes a library into the sample cache in the background, so first triggers don't
+ * wait on a decode. Sounds with a keybind go first. Workers run at minimum priority on a
+ * small pool and pause between files, leaving the FX and audio threads room to run.
+ * Warming stops early once the cache is nearly full, since going further would only
+ * evict sounds warmed a moment before.
+ */
+public class SampleWarmer {
+    /** Pause between files on each worker */
+    private static final long THROTTLE_MILLIS = 2;
+    /** Stop warming when the cache is this full */
+    private static final double CACHE_FILL_LIMIT = 0.9;
+
+    /**
+     * Receives progress from worker threads
+     */
+    public interface Listener {
+        void onProgress(int done, int total);
+
+        void onFinished(int done, int total, long elapsedNanos, boolean cancelled);
+    }
+
+    private final SampleCache cache;
+    private final StreamingPolicy streamingPolicy;
+    private final ExecutorService workers;
+    private final Map<String, Long> decodeNanos = new ConcurrentHashMap<>();
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private volatile boolean cancelled;
+    private int total;
+    private long startNanos;
+
+    public SampleWarmer(SampleCache cache, StreamingPolicy streamingPolicy) {
+        this(cache, streamingPolicy, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    /**
+     * @param streamingPolicy Files it marks for streaming are skipped; may be null to warm everything
+     */
+    public SampleWarmer(SampleCache cache, StreamingPolicy streamingPolicy, int threads) {
+        this.cache = cache;
+        this.streamingPolicy = streamingPolicy;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "soundboard-warmup-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts decoding. May be called once per warmer.
+     * @param soundItems Sounds to warm; duplicate paths are decoded once
+     * @param listener Receives progress on worker threads, may be null
+     */
+    public void start(List<SoundItem> soundItems, Listener listener) {
+        Set<String> bound = new LinkedHashSet<>();
+        Set<String> unbound = new LinkedHashSet<>();
+        for (SoundItem item : soundItems) {
+            String keybind = item.getKeybind();
+            (keybind != null && !keybind.isEmpty() ? bound : unbound).add(item.getFilePath());
+        }
+        unbound.removeAll(bound);
+        List<String> paths = new ArrayList<>(bound);
+        paths.addAll(unbound);
+
+        total = paths.size();
+        startNanos = System.nanoTime();
+        remaining.set(total);
+        if (total == 0) {
+            finish(listener);
+            return;
+        }
+        for (String path : paths) {
+            workers.execute(() -> warm(path, listener));
+        }
+        workers.shutdown();
+    }
+
+    private void warm(String path, Listener listener) {
+        if (!cancelled && cache.getSizeInBytes() >= cache.getMaxBytes() * CACHE_FILL_LIMIT) {
+            System.out.println("Warm-up stopped: sample cache is nearly full");
+            cancelled = true;
+        }
+        if (!cancelled) {
+            long start = System.nanoTime();
+            boolean streamed = streamingPolicy != null && streamingPolicy.shouldStream(path);
+            if (!streamed && cache.preload(path)) {
+                decodeNanos.put(path, System.nanoTime() - start);
+            }
+            int completed = done.incrementAndGet();
+            if (listener != null) {
+                listener.onProgress(completed, total);
+            }
+            try {
+                Thread.sleep(THROTTLE_MILLIS);
+            } catch (InterruptedException e) {
+                cancelled = true;
+            }
+        }
+        if (remaining.decrementAndGet() == 0) {
+            finish(listener);
+        }
+    }
+
+    private void finish(Listener listener) {
+        long elapsed = System.nanoTime() - startNanos;
+        System.out.println(summary(elapsed));
+        if (listener != null) {
+            listener.onFinished(done.get(), total, elapsed, cancelled);
+        }
+    }
+
+    /**
+     * Stops warming after the files already being decoded
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return Decode time of every file this warmer decoded, keyed by path
+     */
+    public Map<String, Long> getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    private String summary(long elapsedNanos) {
+        StringBuilder summary = new StringBuilder(String.format(
+            "Warm-up %s: %d of %d sounds in %.1f ms, %d duplicates sharing audio (%.1f MB saved), decode %s",
+            cancelled ? "cancelled" : "finished", done.get(), total, elapsedNanos / 1_000_000.0,
+            cache.getDuplicateCount(), cache.getDeduplicatedBytes() / 1048576.0, cache.getDecodeTimes()));
+        decodeNanos.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(5)
+            .forEach(entry -> summary.append(String.format("%n  %.1f ms  %s",
+                entry.getValue() / 1_000_000.0, entry.getKey())));
+        return summary.toString();
+    }
+}
@@ -1,10 +1,11 @@
 package com.maven.soundboard.soundboardfx;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
@@ -16,55 +17,94 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 import java.io.File;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SoundBoardController implements Initializable {
+    private static final int LOAD_BATCH_SIZE = 500;
     
+    @FXML private TextField searchField;
     @FXML private TableView<SoundItem> soundTable;
     @FXML private TableColumn<SoundItem, String> nameColumn;
+    @FXML private TableColumn<SoundItem, String> waveformColumn;
+    @FXML private TableColumn<SoundItem, String> durationColumn;
     @FXML private TableColumn<SoundItem, String> keybindColumn;
     @FXML private Button addSoundButton;
     @FXML private Button editSoundButton;
     @FXML private Button removeSoundButton;
     @FXML private Button stopAllButton;
+    @FXML private Button settingsButton;
+    @FXML private Button statsButton;
+    @FXML private Button foldersButton;
+    @FXML private Button macrosButton;
     @FXML private Label statusLabel;
+    @FXML private ProgressBar warmUpProgress;
+    @FXML private Button cancelWarmUpButton;
     
     private ObservableList<SoundItem> soundItems = FXCollections.observableArrayList();
-    private SoundManager soundManager = new SoundManager();
+    private final FilteredList<SoundItem> visibleItems = new FilteredList<>(soundItems);
+    private final SoundSearchIndex searchIndex = new SoundSearchIndex();
     private ConfigManager configManager = new ConfigManager();
-    private Map<String, SoundItem> keybindMap = new HashMap<>();
-    private Set<String> pressedKeys = new HashSet<>();
+    private SoundManager soundManager = new SoundManager(configManager.loadSettings());
+    private final WaveformCache waveformCache = new WaveformCache(configManager.getWaveformCacheFile());
+    private final AtomicBoolean waveformRefreshPending = new AtomicBoolean();
+    private final Map<String, LoudnessAnalyzer.Result> newMeasurements = new ConcurrentHashMap<>();
+    private final AtomicBoolean measurementsPending = new AtomicBoolean();
+    private final LoudnessScanner loudnessScanner = new LoudnessScanner(this::onLoudnessMeasured);
+    private boolean libraryLoaded;
+    private boolean saveAfterLoad;
+    private long firstBatchNanos;
+    private final AtomicBoolean warmUpProgressPending = new AtomicBoolean();
+    private volatile double warmUpFraction;
+    private SampleWarmer.Listener currentWarmUp;
+    private LibraryFolderWatcher folderWatcher;
+    /** Sounds found in library folders, by path; these are not written to sounds.json */
+    private final Map<String, SoundItem> folderItems = new HashMap<>();
+    /** Recorded macros, bound alongside the sounds; kept in macros.bin */
+    private final List<TriggerMacro> macros = new ArrayList<>();
     
     // Global hotkey support
     private GlobalHotkeyManager globalHotkeyManager;
+    private StatusUpdater statusUpdater;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        statusUpdater = new StatusUpdater(statusLabel, "Ready - Global hotkeys active!");
         setupTable();
         loadSounds();
         setupEventHandlers();
         
         // Initialize global hotkey manager
-        globalHotkeyManager = new GlobalHotkeyManager(soundManager, () -> 
-            updateStatus("Playing sound via global hotkey"));
+        globalHotkeyManager = new GlobalHotkeyManager(soundManager, soundItem ->
+            updateStatus("Playing: " + soundItem.getName()));
+        globalHotkeyManager.setPageListener(page -> updateStatus(page == 0
+            ? "Hotkey page: sounds on every page" : "Hotkey page " + page));
         globalHotkeyManager.initialize();
-        globalHotkeyManager.updateKeybinds(keybindMap);
+        publishKeybinds();
         
-        updateStatus("Ready - Global hotkeys active!");
+        updateStatus(statusUpdater.getIdleText());
+        
+        // Optional busy work on every frame, for measuring trigger latency while the UI is loaded
+        long uiLoadMillis = Long.getLong("soundboardfx.uiLoadMillis", 0);
+        if (uiLoadMillis > 0) {
+            startArtificialUiLoad(uiLoadMillis);
+        }
     }
     
     private void setupTable() {
         nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
         keybindColumn.setCellValueFactory(new PropertyValueFactory<>("keybind"));
+        setupWaveformColumns();
         
-        soundTable.setItems(soundItems);
+        soundTable.setItems(visibleItems);
         soundTable.setRowFactory(tv -> {
             TableRow<SoundItem> row = new TableRow<>();
             row.setOnMouseClicked(event -> {
@@ -77,6 +117,101 @@ public class SoundBoardController implements Initializable {
         
         // Enable selection
         soundTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
+        
+        // Keep the search index in step with the list, one change at a time
+        soundItems.addListener((ListChangeListener<SoundItem>) change -> {
+            while (change.next()) {
+                searchIndex.removeAll(change.getRemoved());
+                searchIndex.addAll(change.getAddedSubList());
+                loudnessScanner.scan(change.getAddedSubList());
+            }
+            if (!searchField.getText().isBlank()) {
+                applySearch();
+            }
+        });
+        searchField.textProperty().addListener((obs, oldText, newText) -> applySearch());
+    }
+    
+    /**
+     * Waveform and length columns, filled in from the waveform cache as rows come into view
+     */
+    private void setupWaveformColumns() {
+        waveformColumn.setCellValueFactory(new PropertyValueFactory<>("filePath"));
+        waveformColumn.setCellFactory(column -> new WaveformCell(waveformCache));
+        durationColumn.setCellValueFactory(new PropertyValueFactory<>("filePath"));
+        durationColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(String filePath, boolean empty) {
+                super.updateItem(filePath, empty);
+                WaveformEnvelope envelope = empty || filePath == null ? null : waveformCache.get(filePath);
+                if (envelope == null) {
+                    setText(null);
+                } else {
+                    setText(envelope.isSupported() ? formatDuration(envelope.getDurationSeconds()) : "\u2014");
+                }
+            }
+        });
+
+        // Envelopes finish one by one on the worker; redraw at most once per pulse
+        waveformCache.start((filePath, envelope) -> {
+            if (waveformRefreshPending.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    waveformRefreshPending.set(false);
+                    soundTable.refresh();
+                });
+            }
+        });
+    }
+
+    static String formatDuration(double seconds) {
+        int minutes = (int) (seconds / 60);
+        return String.format("%d:%04.1f", minutes, seconds - minutes * 60);
+    }
+    
+    /**
+     * Collects a measurement from the scanner thread; they are stored in batches on the FX thread
+     */
+    private void onLoudnessMeasured(String filePath, LoudnessAnalyzer.Result result) {
+        newMeasurements.put(filePath, result);
+        if (measurementsPending.compareAndSet(false, true)) {
+            Platform.runLater(this::storeMeasurements);
+        }
+    }
+
+    private void storeMeasurements() {
+        measurementsPending.set(false);
+        Map<String, LoudnessAnalyzer.Result> batch = new HashMap<>();
+        for (String path : new ArrayList<>(newMeasurements.keySet())) {
+            batch.put(path, newMeasurements.remove(path));
+        }
+        boolean saved = false;
+        for (SoundItem item : soundItems) {
+            LoudnessAnalyzer.Result result = batch.get(item.getFilePath());
+            if (result != null) {
+                item.setMeasurement(result);
+                saved |= folderItems.get(item.getFilePath()) != item;
+            }
+        }
+        if (saved) {
+            saveSounds();
+        }
+    }
+
+    /**
+     * Filters the table through the search index
+     */
+    private void applySearch() {
+        String query = searchField.getText();
+        if (query.isBlank()) {
+            visibleItems.setPredicate(null);
+            return;
+        }
+        long start = System.nanoTime();
+        Set<SoundItem> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+        matches.addAll(searchIndex.search(query));
+        visibleItems.setPredicate(matches::contains);
+        updateStatus(String.format("%d of %d sounds match (%.1f ms)",
+            matches.size(), soundItems.size(), (System.nanoTime() - start) / 1_000_000.0));
     }
     
     private void setupEventHandlers() {
@@ -84,6 +219,11 @@ public class SoundBoardController implements Initializable {
         editSoundButton.setOnAction(e -> editSelectedSound());
         removeSoundButton.setOnAction(e -> removeSelectedSound());
         stopAllButton.setOnAction(e -> stopAllSounds());
+        settingsButton.setOnAction(e -> showSettingsDialog());
+        statsButton.setOnAction(e -> showStatsDialog());
+        foldersButton.setOnAction(e -> showFoldersDialog());
+        macrosButton.setOnAction(e -> showMacrosDialog());
+        cancelWarmUpButton.setOnAction(e -> soundManager.cancelWarmUp());
         
         // Update button states based on selection
         soundTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
@@ -102,41 +242,44 @@ public class SoundBoardController implements Initializable {
         scene.setOnKeyReleased(this::handleKeyReleased);
     }
     
+    /**
+     * Window key events go to the same matcher as the native hook, so both match alike, and
+     * are dropped while the hook is active since it reports the same keys. Matching happens
+     * on the matcher thread, so a chord bound on the first page is consumed here either way
+     * rather than waiting to hear whether it triggered.
+     */
     private void handleKeyPressed(KeyEvent event) {
-        String keyString = getKeyString(event);
-        if (keyString != null && !pressedKeys.contains(keyString)) {
-            pressedKeys.add(keyString);
-            String combination = String.join("+", pressedKeys.stream().sorted().toArray(String[]::new));
-            
-            SoundItem soundItem = keybindMap.get(combination);
-            if (soundItem != null) {
-                soundManager.playSound(soundItem);
-                updateStatus("Playing: " + soundItem.getName());
-                event.consume();
-            }
+        long triggerNanos = System.nanoTime();
+        if (event.getTarget() == searchField) {
+            // Typing a search is not a trigger
+            return;
+        }
+        globalHotkeyManager.windowKeyPressed(event.getCode(), triggerNanos);
+        String chord = getKeyString(event);
+        if (chord != null && globalHotkeyManager.getKeybindTable().get(KeyChord.parse(chord)) != null) {
+            event.consume();
         }
     }
     
     private void handleKeyReleased(KeyEvent event) {
-        String keyString = getKeyString(event);
-        if (keyString != null) {
-            pressedKeys.remove(keyString);
-        }
+        globalHotkeyManager.windowKeyReleased(event.getCode(), System.nanoTime());
     }
     
-    private String getKeyString(KeyEvent event) {
-        KeyCode code = event.getCode();
-        List<String> modifiers = new ArrayList<>();
-        
-        if (event.isControlDown()) modifiers.add("CTRL");
-        if (event.isAltDown()) modifiers.add("ALT");
-        if (event.isShiftDown()) modifiers.add("SHIFT");
-        
-        if (code != KeyCode.CONTROL && code != KeyCode.ALT && code != KeyCode.SHIFT) {
-            modifiers.add(code.toString());
+    /**
+     * @return The chord an event completes, in canonical form, or null for a key that cannot be bound
+     */
+    static String getKeyString(KeyEvent event) {
+        KeyCode code = KeyChord.canonicalKey(event.getCode());
+        if (code == null) {
+            return null;
         }
+        int modifiers = KeyChord.modifierBit(code);
+        
+        if (event.isControlDown()) modifiers |= KeyChord.CTRL;
+        if (event.isAltDown()) modifiers |= KeyChord.ALT;
+        if (event.isShiftDown()) modifiers |= KeyChord.SHIFT;
         
-        return modifiers.isEmpty() ? null : String.join("+", modifiers);
+        return KeyChord.format(KeyChord.of(modifiers, KeyChord.modifierBit(code) == 0 ? code.getCode() : 0));
     }
     
     @FXML
@@ -173,7 +316,8 @@ public class SoundBoardController implements Initializable {
             Optional<ButtonType> result = alert.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
                 soundItems.remove(selected);
-                rebuildKeybindMap();
+                folderItems.remove(selected.getFilePath(), selected);
+                publishKeybinds();
                 saveSounds();
                 updateStatus("Removed: " + selected.getName());
             }
@@ -182,6 +326,7 @@ public class SoundBoardController implements Initializable {
     
     @FXML
     private void stopAllSounds() {
+        globalHotkeyManager.getRecorder().recordStopAll(System.nanoTime());
         soundManager.stopAllSounds();
         updateStatus("All sounds stopped");
     }
@@ -224,9 +369,7 @@ public class SoundBoardController implements Initializable {
             if (selectedFile != null) {
                 fileField.setText(selectedFile.getAbsolutePath());
                 if (nameField.getText().isEmpty()) {
-                    String fileName = selectedFile.getName();
-                    int dotIndex = fileName.lastIndexOf('.');
-                    nameField.setText(dotIndex > 0 ? fileName.substring(0, dotIndex) : fileName);
+                    nameField.setText(displayNameOf(selectedFile));
                 }
             }
         });
@@ -240,20 +383,78 @@ public class SoundBoardController implements Initializable {
         keybindField.setEditable(false);
         keybindField.setPrefWidth(300);
         keybindField.setPromptText("Click and press key combination...");
+        CheckBox holdCheck = new CheckBox("Play when the last key is held down instead of tapped");
+        if (editItem != null && editItem.getKeybind() != null) {
+            String keybind = editItem.getKeybind();
+            holdCheck.setSelected(!keybind.equals(withHold(keybind, false)));
+            keybindField.setText(withHold(keybind, false));
+        }
         
-        Set<String> capturedKeys = new HashSet<>();
+        // Chords pressed in quick succession make a sequence such as "CTRL+K DIGIT3"
+        String[] capturedSteps = {keybindField.getText()};
+        long[] lastStepNanos = {0};
         keybindField.setOnKeyPressed(event -> {
             String keyString = getKeyString(event);
             if (keyString != null) {
-                capturedKeys.clear();
-                capturedKeys.addAll(Arrays.asList(keyString.split("\\+")));
-                keybindField.setText(keyString);
+                long now = System.nanoTime();
+                String previous = capturedSteps[0];
+                boolean continues = previous != null && !previous.isEmpty()
+                    && now - lastStepNanos[0] < HotkeyMatcher.SEQUENCE_TIMEOUT_NANOS
+                    && previous.split(" ").length < KeyChord.MAX_STEPS;
+                String sequence = continues ? previous + " " + keyString : keyString;
+                if (KeyChord.modifierBit(KeyChord.canonicalKey(event.getCode())) == 0) {
+                    capturedSteps[0] = sequence;
+                    lastStepNanos[0] = now;
+                }
+                keybindField.setText(sequence);
                 event.consume();
             }
         });
         
         keybindField.setOnKeyReleased(event -> event.consume());
         
+        // Gain: blank plays the sound at the normalized loudness
+        Label gainLabel = new Label("Gain (dB):");
+        TextField gainField = new TextField();
+        gainField.setPrefWidth(300);
+        gainField.setPromptText("Automatic (loudness normalized)");
+        if (editItem != null && editItem.getGainDb() != null) {
+            gainField.setText(String.format(Locale.ROOT, "%.1f", editItem.getGainDb()));
+        }
+        Label loudnessLabel = new Label(editItem != null && editItem.isMeasured()
+            ? String.format("Measured %.1f LUFS, true peak %.1f dBTP", editItem.getLoudness(), editItem.getTruePeak())
+            : "Loudness not measured yet");
+        loudnessLabel.setStyle("-fx-font-size: 11px; -fx-opacity: 0.7;");
+        
+        // What pressing the key again does while the sound is still playing
+        Label retriggerLabel = new Label("When triggered while playing:");
+        ChoiceBox<RetriggerPolicy> retriggerChoice = new ChoiceBox<>(FXCollections.observableArrayList(RetriggerPolicy.values()));
+        retriggerChoice.setValue(editItem != null ? editItem.getRetriggerPolicy() : RetriggerPolicy.RESTART);
+        ChoiceBox<Integer> voicesChoice = new ChoiceBox<>();
+        for (int voices = 2; voices <= RetriggerPolicy.MAX_VOICES_LIMIT; voices *= 2) {
+            voicesChoice.getItems().add(voices);
+        }
+        voicesChoice.setValue(editItem != null && editItem.getRetriggerPolicy() == RetriggerPolicy.OVERLAP
+            ? editItem.getVoiceLimit() : RetriggerPolicy.DEFAULT_MAX_VOICES);
+        if (!voicesChoice.getItems().contains(voicesChoice.getValue())) {
+            voicesChoice.getItems().add(voicesChoice.getValue());
+            voicesChoice.getItems().sort(null);
+        }
+        voicesChoice.visibleProperty().bind(retriggerChoice.valueProperty().isEqualTo(RetriggerPolicy.OVERLAP));
+        Label voicesLabel = new Label("voices at most");
+        voicesLabel.visibleProperty().bind(voicesChoice.visibleProperty());
+        HBox retriggerBox = new HBox(10, retriggerChoice, voicesChoice, voicesLabel);
+        retriggerBox.setAlignment(Pos.CENTER_LEFT);
+        
+        // Hotkey page whose keybinds include the sound
+        Label pageLabel = new Label("Hotkey page:");
+        ChoiceBox<String> pageChoice = new ChoiceBox<>();
+        pageChoice.getItems().add("Every page");
+        for (int page = 1; page <= KeybindTable.MAX_PAGE; page++) {
+            pageChoice.getItems().add("Page " + page);
+        }
+        pageChoice.getSelectionModel().select(editItem != null && editItem.getPage() != null ? editItem.getPage() : 0);
+        
         // Buttons
         HBox buttonBox = new HBox(10);
         buttonBox.setAlignment(Pos.CENTER);
@@ -263,7 +464,12 @@ public class SoundBoardController implements Initializable {
         okButton.setOnAction(e -> {
             String name = nameField.getText().trim();
             String filePath = fileField.getText().trim();
-            String keybind = keybindField.getText().trim();
+            // Stored in canonical form, so equal keybinds are equal strings
+            String keybindText = withHold(keybindField.getText().trim(), holdCheck.isSelected());
+            String keybind = Objects.requireNonNullElse(KeyChord.normalize(keybindText), keybindText);
+            int selectedPage = pageChoice.getSelectionModel().getSelectedIndex();
+            Integer page = selectedPage > 0 ? selectedPage : null;
+            String gainText = gainField.getText().trim();
             
             if (name.isEmpty() || filePath.isEmpty() || keybind.isEmpty()) {
                 Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -274,6 +480,32 @@ public class SoundBoardController implements Initializable {
                 return;
             }
             
+            if (KeyChord.normalize(keybind) == null) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Validation Error");
+                alert.setHeaderText("Invalid Keybind");
+                alert.setContentText("This keybind cannot be used as a hotkey. Click the field and press it again.");
+                alert.showAndWait();
+                return;
+            }
+            
+            Double gainDb = null;
+            if (!gainText.isEmpty()) {
+                try {
+                    gainDb = Double.parseDouble(gainText.replace(',', '.'));
+                } catch (NumberFormatException ex) {
+                    gainDb = Double.NaN;
+                }
+                if (!(Math.abs(gainDb) <= 40)) {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Validation Error");
+                    alert.setHeaderText("Invalid Gain");
+                    alert.setContentText("Enter a gain between -40 and 40 dB, or leave it blank.");
+                    alert.showAndWait();
+                    return;
+                }
+            }
+            
             // Check if file exists
             if (!new File(filePath).exists()) {
                 Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -284,15 +516,16 @@ public class SoundBoardController implements Initializable {
                 return;
             }
             
-            // Check for keybind conflicts (excluding current item if editing)
+            // Check for keybind conflicts on the same page (excluding current item if editing)
             boolean hasConflict = soundItems.stream()
-                .anyMatch(item -> !item.equals(editItem) && keybind.equals(item.getKeybind()));
+                .anyMatch(item -> !item.equals(editItem) && keybind.equals(KeyChord.normalize(item.getKeybind()))
+                    && Objects.equals(page, item.getPage()));
             
             if (hasConflict) {
                 Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("Keybind Conflict");
                 alert.setHeaderText("Duplicate Keybind");
-                alert.setContentText("This keybind is already in use by another sound.");
+                alert.setContentText("This keybind is already in use by another sound on the same page.");
                 alert.showAndWait();
                 return;
             }
@@ -300,18 +533,38 @@ public class SoundBoardController implements Initializable {
             if (editItem == null) {
                 // Add new item
                 SoundItem newItem = new SoundItem(name, filePath, keybind);
+                newItem.setGainDb(gainDb);
+                newItem.setPage(page);
+                applyRetrigger(newItem, retriggerChoice.getValue(), voicesChoice.getValue());
                 soundItems.add(newItem);
                 updateStatus("Added: " + name);
             } else {
-                // Update existing item
+                // Update existing item; a folder sound given a keybind is saved from now on
+                String oldPath = editItem.getFilePath();
+                folderItems.remove(oldPath, editItem);
                 editItem.setName(name);
-                editItem.setFilePath(filePath);
                 editItem.setKeybind(keybind);
+                editItem.setGainDb(gainDb);
+                editItem.setPage(page);
+                applyRetrigger(editItem, retriggerChoice.getValue(), voicesChoice.getValue());
+                if (!filePath.equals(oldPath)) {
+                    editItem.setFilePath(filePath);
+                    editItem.clearMeasurement();
+                    loudnessScanner.measure(filePath);
+                    soundManager.invalidateSound(oldPath);
+                    waveformCache.invalidate(oldPath);
+                }
+                soundManager.invalidateSound(filePath);
+                waveformCache.invalidate(filePath);
+                searchIndex.update(editItem);
+                if (!searchField.getText().isBlank()) {
+                    applySearch();
+                }
                 soundTable.refresh();
                 updateStatus("Updated: " + name);
             }
             
-            rebuildKeybindMap();
+            publishKeybinds();
             saveSounds();
             dialog.close();
         });
@@ -325,7 +578,10 @@ public class SoundBoardController implements Initializable {
         root.getChildren().addAll(
             nameLabel, nameField,
             fileLabel, fileBox,
-            keybindLabel, keybindField,
+            keybindLabel, keybindField, holdCheck,
+            pageLabel, pageChoice,
+            gainLabel, gainField, loudnessLabel,
+            retriggerLabel, retriggerBox,
             buttonBox
         );
         
@@ -334,46 +590,735 @@ public class SoundBoardController implements Initializable {
         dialog.showAndWait();
     }
     
-    private void rebuildKeybindMap() {
-        keybindMap.clear();
-        for (SoundItem item : soundItems) {
-            keybindMap.put(item.getKeybind(), item);
+    /**
+     * Adds or removes HOLD on the last chord of a keybind
+     */
+    static String withHold(String keybind, boolean hold) {
+        int lastStep = keybind.lastIndexOf(' ') + 1;
+        String last = keybind.substring(lastStep).replace("HOLD+", "");
+        return keybind.substring(0, lastStep) + (hold && !last.isEmpty() ? "HOLD+" + last : last);
+    }
+    
+    /**
+     * Stores a retrigger choice, leaving the defaults unset so they are not written out
+     */
+    private static void applyRetrigger(SoundItem item, RetriggerPolicy policy, int voices) {
+        item.setRetrigger(policy == RetriggerPolicy.RESTART ? null : policy);
+        item.setMaxVoices(policy == RetriggerPolicy.OVERLAP && voices != RetriggerPolicy.DEFAULT_MAX_VOICES ? voices : null);
+    }
+    
+    @FXML
+    private void showSettingsDialog() {
+        AudioSettings current = soundManager.getSettings();
+
+        Stage dialog = new Stage();
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.setTitle("Audio Settings");
+        dialog.setResizable(false);
+
+        VBox root = new VBox(15);
+        root.setPadding(new Insets(20));
+        root.setAlignment(Pos.CENTER_LEFT);
+
+        // Backend selection
+        Label backendLabel = new Label("Playback Backend:");
+        ChoiceBox<BackendType> backendChoice = new ChoiceBox<>(FXCollections.observableArrayList(BackendType.values()));
+        backendChoice.setValue(current.getBackend());
+        backendChoice.setPrefWidth(300);
+
+        // Buffer size, shown with the latency it adds at the selected sample rate
+        Label bufferLabel = new Label("Output Buffer (frames):");
+        ChoiceBox<Integer> bufferChoice = new ChoiceBox<>();
+        for (int frames : AudioSettings.BUFFER_SIZES) {
+            bufferChoice.getItems().add(frames);
         }
-        
-        // Update global hotkey manager with new keybinds
+        bufferChoice.setValue(current.getBufferFrames());
+
+        Label sampleRateLabel = new Label("Sample Rate (Hz):");
+        ChoiceBox<Integer> sampleRateChoice = new ChoiceBox<>();
+        for (int rate : AudioSettings.SAMPLE_RATES) {
+            sampleRateChoice.getItems().add(rate);
+        }
+        sampleRateChoice.setValue((int) current.getSampleRate());
+
+        Label encodingLabel = new Label("Cached Sound Storage:");
+        ChoiceBox<SampleEncoding> encodingChoice = new ChoiceBox<>(FXCollections.observableArrayList(SampleEncoding.values()));
+        encodingChoice.setValue(current.getSampleEncoding());
+
+        // Long files are streamed rather than decoded whole into memory
+        Label streamingLabel = new Label("Stream files longer than (seconds):");
+        ChoiceBox<Integer> streamingChoice = new ChoiceBox<>();
+        for (int seconds : AudioSettings.STREAMING_THRESHOLDS) {
+            streamingChoice.getItems().add(seconds);
+        }
+        streamingChoice.setValue(current.getStreamingThresholdSeconds());
+
+        // Loudness normalization and the limiter on the mixed output
+        CheckBox normalizeCheck = new CheckBox("Normalize loudness to");
+        normalizeCheck.setSelected(current.isNormalizeLoudness());
+        ChoiceBox<Integer> targetChoice = new ChoiceBox<>();
+        for (int lufs : AudioSettings.TARGET_LOUDNESS) {
+            targetChoice.getItems().add(lufs);
+        }
+        targetChoice.setValue(current.getTargetLoudness());
+        targetChoice.disableProperty().bind(normalizeCheck.selectedProperty().not());
+        HBox loudnessBox = new HBox(10, normalizeCheck, targetChoice, new Label("LUFS"));
+        loudnessBox.setAlignment(Pos.CENTER_LEFT);
+        CheckBox limiterCheck = new CheckBox("Limit output peaks instead of clipping");
+        limiterCheck.setSelected(current.isLimiterEnabled());
+
+        // One keybind per hotkey page, the first going back to the sounds on every page
+        Label pageKeysLabel = new Label("Hotkey page keys (page 0, 1, 2, ...):");
+        TextField pageKeysField = new TextField(String.join(", ", current.getPageKeybinds()));
+        pageKeysField.setPromptText("e.g. CTRL+ALT+DIGIT0, CTRL+ALT+DIGIT1, CTRL+ALT+DIGIT2");
+        pageKeysField.setPrefWidth(300);
+
+        Label bufferLatencyLabel = new Label();
+        Runnable updateBufferLatency = () -> bufferLatencyLabel.setText(String.format("Buffer adds %.1f ms",
+            bufferChoice.getValue() * 1000.0 / sampleRateChoice.getValue()));
+        bufferChoice.setOnAction(e -> updateBufferLatency.run());
+        sampleRateChoice.setOnAction(e -> updateBufferLatency.run());
+        updateBufferLatency.run();
+
+        // Measured key-to-first-sample latency per backend
+        Label latencyLabel = new Label("Measured Key-to-Sound Latency:");
+        VBox latencyBox = new VBox(5);
+        for (BackendType type : BackendType.values()) {
+            latencyBox.getChildren().add(new Label(type.getDisplayName() + ": " + soundManager.getLatencyStats(type)));
+        }
+        LatencyStats queueLatency = soundManager.getQueueLatency();
+        if (queueLatency != null) {
+            latencyBox.getChildren().add(new Label("Trigger queue to audio thread: " + queueLatency));
+        }
+
+        // Buttons
+        HBox buttonBox = new HBox(10);
+        buttonBox.setAlignment(Pos.CENTER);
+
+        Button applyButton = new Button("Apply");
+        applyButton.setDefaultButton(true);
+        applyButton.setOnAction(e -> {
+            List<String> pageKeybinds = new ArrayList<>();
+            for (String keybind : pageKeysField.getText().split(",")) {
+                if (!keybind.isBlank()) {
+                    pageKeybinds.add(keybind.trim().toUpperCase());
+                }
+            }
+            if (pageKeybinds.size() > KeybindTable.MAX_PAGE + 1
+                    || pageKeybinds.stream().anyMatch(keybind -> KeyChord.parseSequence(keybind) == null)) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Validation Error");
+                alert.setHeaderText("Invalid Page Keys");
+                alert.setContentText("Enter up to " + (KeybindTable.MAX_PAGE + 1)
+                    + " keybinds separated by commas, such as CTRL+ALT+DIGIT1.");
+                alert.showAndWait();
+                return;
+            }
+
+            AudioSettings updated = current.copy();
+            updated.setBackend(backendChoice.getValue());
+            updated.setBufferFrames(bufferChoice.getValue());
+            updated.setSampleRate(sampleRateChoice.getValue());
+            updated.setStreamingThresholdSeconds(streamingChoice.getValue());
+            updated.setSampleEncoding(encodingChoice.getValue());
+            updated.setNormalizeLoudness(normalizeCheck.isSelected());
+            updated.setTargetLoudness(targetChoice.getValue());
+            updated.setLimiterEnabled(limiterCheck.isSelected());
+            updated.setPageKeybinds(pageKeybinds);
+
+            soundManager.applySettings(updated);
+            configManager.saveSettings(updated);
+            publishKeybinds();
+            if (libraryLoaded) {
+                startWarmUp();
+            }
+            updateStatus("Using " + updated.getBackend().getDisplayName());
+            dialog.close();
+        });
+
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setCancelButton(true);
+        cancelButton.setOnAction(e -> dialog.close());
+
+        buttonBox.getChildren().addAll(applyButton, cancelButton);
+
+        root.getChildren().addAll(
+            backendLabel, backendChoice,
+            bufferLabel, bufferChoice,
+            sampleRateLabel, sampleRateChoice,
+            bufferLatencyLabel,
+            encodingLabel, encodingChoice,
+            streamingLabel, streamingChoice,
+            loudnessBox, limiterCheck,
+            pageKeysLabel, pageKeysField,
+            latencyLabel, latencyBox,
+            buttonBox
+        );
+
+        Scene scene = new Scene(root);
+        dialog.setScene(scene);
+        dialog.showAndWait();
+    }
+
+    private void showStatsDialog() {
+        Stage dialog = new Stage();
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.setTitle("Latency Statistics");
+
+        VBox root = new VBox(10);
+        root.setPadding(new Insets(20));
+
+        Label stageLabel = new Label("Key-to-sound latency by stage:");
+        TableView<LatencyReport.Row> stageTable = createLatencyTable("Stage");
+        stageTable.setPrefHeight(150);
+
+        Label soundLabel = new Label("Key-to-first-buffer latency by sound:");
+        TableView<LatencyReport.Row> soundTable = createLatencyTable("Sound");
+        soundTable.setPrefHeight(220);
+
+        Label cacheLabel = new Label();
+        Label saveLabel = new Label();
+
+        Runnable refresh = () -> {
+            LatencyReport report = soundManager.createLatencyReport();
+            stageTable.getItems().setAll(report.getStages());
+            if (report.getMacroJitter().getCount() > 0) {
+                stageTable.getItems().add(report.getMacroJitter());
+            }
+            // Show sound names instead of file paths where the sound is still in the list
+            Map<String, String> names = new HashMap<>();
+            for (SoundItem item : soundItems) {
+                names.put(item.getFilePath(), item.getName());
+            }
+            for (LatencyReport.Row row : report.getSounds()) {
+                row.setName(names.getOrDefault(row.getName(), new File(row.getName()).getName()));
+            }
+            soundTable.getItems().setAll(report.getSounds());
+            cacheLabel.setText(String.format("Sample cache: %d hits, %d misses, %d evictions, %.1f MB"
+                    + " (%d duplicate files sharing audio, %.1f MB saved)",
+                report.getCacheHits(), report.getCacheMisses(), report.getCacheEvictions(),
+                report.getCacheBytes() / (1024.0 * 1024.0), report.getCacheDuplicates(),
+                report.getCacheBytesSaved() / (1024.0 * 1024.0)));
+            saveLabel.setText(formatSaveStats());
+        };
+        refresh.run();
+
+        // Buttons
+        HBox buttonBox = new HBox(10);
+        buttonBox.setAlignment(Pos.CENTER);
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(e -> refresh.run());
+
+        Button resetButton = new Button("Reset");
+        resetButton.setOnAction(e -> {
+            soundManager.getLatencyMetrics().reset();
+            refresh.run();
+        });
+
+        Button exportButton = new Button("Export JSON");
+        exportButton.setOnAction(e -> {
+            File reportFile = configManager.saveLatencyReport(soundManager.createLatencyReport());
+            if (reportFile != null) {
+                updateStatus("Latency report saved to " + reportFile.getPath());
+            }
+        });
+
+        Button closeButton = new Button("Close");
+        closeButton.setCancelButton(true);
+        closeButton.setOnAction(e -> dialog.close());
+
+        buttonBox.getChildren().addAll(refreshButton, resetButton, exportButton, closeButton);
+
+        root.getChildren().addAll(stageLabel, stageTable, soundLabel, soundTable, cacheLabel, saveLabel, buttonBox);
+
+        Scene scene = new Scene(root, 620, 560);
+        dialog.setScene(scene);
+        dialog.showAndWait();
+    }
+
+    private String formatSaveStats() {
+        LatencyStats saveLatency = configManager.getSaveLatency();
+        if (saveLatency.getCount() == 0) {
+            return "Library saves: none yet";
+        }
+        return String.format("Library saves: %d, avg %.1f ms, max %.1f ms, last %.1f KB, %.1f KB total",
+            saveLatency.getCount(), saveLatency.getAverageMillis(), saveLatency.getMaxMillis(),
+            configManager.getLastSaveBytes() / 1024.0, configManager.getTotalSaveBytes() / 1024.0);
+    }
+
+    private TableView<LatencyReport.Row> createLatencyTable(String nameHeader) {
+        TableView<LatencyReport.Row> table = new TableView<>();
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<LatencyReport.Row, String> nameCol = new TableColumn<>(nameHeader);
+        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
+        nameCol.setPrefWidth(200);
+        TableColumn<LatencyReport.Row, Long> countCol = new TableColumn<>("Count");
+        countCol.setCellValueFactory(new PropertyValueFactory<>("count"));
+        table.getColumns().add(nameCol);
+        table.getColumns().add(countCol);
+        table.getColumns().add(createMillisColumn("p50 (ms)", "p50Millis"));
+        table.getColumns().add(createMillisColumn("p90 (ms)", "p90Millis"));
+        table.getColumns().add(createMillisColumn("p99 (ms)", "p99Millis"));
+        table.getColumns().add(createMillisColumn("Max (ms)", "maxMillis"));
+        return table;
+    }
+
+    private TableColumn<LatencyReport.Row, Double> createMillisColumn(String header, String property) {
+        TableColumn<LatencyReport.Row, Double> column = new TableColumn<>(header);
+        column.setCellValueFactory(new PropertyValueFactory<>(property));
+        column.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double millis, boolean empty) {
+                super.updateItem(millis, empty);
+                setText(empty || millis == null ? null : String.format("%.2f", millis));
+            }
+        });
+        return column;
+    }
+
+    /**
+     * Compiles every keybind, with sequences, holds and pages, into the table shared by the
+     * window and the native hook. The table is built to the side and swapped in, never
+     * mutating the one in use.
+     */
+    private void publishKeybinds() {
         if (globalHotkeyManager != null) {
-            globalHotkeyManager.updateKeybinds(keybindMap);
+            List<SoundItem> bound = soundItems;
+            if (!macros.isEmpty()) {
+                bound = new ArrayList<>(soundItems.size() + macros.size());
+                bound.addAll(soundItems);
+                bound.addAll(macros);
+            }
+            globalHotkeyManager.updateKeybinds(bound, soundManager.getSettings().getPageKeybinds());
         }
     }
     
+    /**
+     * Streams the library in on a background thread. Each batch is added on the FX thread
+     * as it arrives, so the first sounds and their hotkeys work while the rest is still loading.
+     */
     private void loadSounds() {
-        List<SoundItem> loadedSounds = configManager.loadSounds();
+        long startNanos = System.nanoTime();
         soundItems.clear();
-        soundItems.addAll(loadedSounds);
-        rebuildKeybindMap();
-        updateStatus("Loaded " + loadedSounds.size() + " sounds");
+        publishKeybinds();
+        libraryLoaded = false;
+        firstBatchNanos = 0;
+
+        Thread loader = new Thread(() -> {
+            int total = configManager.loadSounds(LOAD_BATCH_SIZE,
+                batch -> Platform.runLater(() -> addLoadedBatch(batch, startNanos)));
+            Platform.runLater(() -> finishLoading(total, startNanos));
+        }, "soundboard-config-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void addLoadedBatch(List<SoundItem> batch, long startNanos) {
+        if (firstBatchNanos == 0) {
+            firstBatchNanos = System.nanoTime() - startNanos;
+        }
+        soundItems.addAll(batch);
+
+        // Each batch's hotkeys work as soon as it is in the list
+        publishKeybinds();
+        updateStatus("Loading sounds... " + soundItems.size());
+    }
+
+    private void finishLoading(int total, long startNanos) {
+        libraryLoaded = true;
+        double totalMillis = (System.nanoTime() - startNanos) / 1_000_000.0;
+        System.out.printf("Loaded %d sounds in %.1f ms (first batch shown after %.1f ms)%n",
+            total, totalMillis, firstBatchNanos / 1_000_000.0);
+        updateStatus("Loaded " + total + " sounds");
+        macros.addAll(configManager.loadMacros(soundItems));
+        publishKeybinds();
+        if (saveAfterLoad) {
+            saveAfterLoad = false;
+            saveSounds();
+        }
+        startWarmUp();
+        startFolderWatcher();
+    }
+
+    /**
+     * Scans the library folders and keeps the sound list in step with them. Replaces any
+     * watcher already running, dropping the sounds it had found.
+     */
+    private void startFolderWatcher() {
+        if (folderWatcher != null) {
+            folderWatcher.close();
+            folderWatcher = null;
+            Set<SoundItem> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+            stale.addAll(folderItems.values());
+            soundItems.removeIf(stale::contains);
+            folderItems.clear();
+        }
+        List<String> folders = configManager.loadLibraryFolders();
+        if (folders.isEmpty()) {
+            return;
+        }
+        List<File> folderFiles = new ArrayList<>();
+        for (String folder : folders) {
+            folderFiles.add(new File(folder));
+        }
+        LibraryFolderWatcher[] watcher = new LibraryFolderWatcher[1];
+        watcher[0] = new LibraryFolderWatcher((added, changed, removed) -> Platform.runLater(() -> {
+            // Ignore anything still arriving from a replaced watcher
+            if (folderWatcher == watcher[0]) {
+                applyFolderChanges(added, changed, removed);
+            }
+        }));
+        folderWatcher = watcher[0];
+        folderWatcher.start(folderFiles);
+    }
+
+    /**
+     * Applies what the folder watcher found, touching only the sounds involved. Folder sounds
+     * have no keybind until edited, so the keybind map stays as it is.
+     */
+    private void applyFolderChanges(List<String> added, List<String> changed, List<String> removed) {
+        if (!removed.isEmpty()) {
+            Set<SoundItem> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (String path : removed) {
+                SoundItem item = folderItems.remove(path);
+                if (item != null) {
+                    gone.add(item);
+                }
+                soundManager.invalidateSound(path);
+                waveformCache.invalidate(path);
+            }
+            soundItems.removeIf(gone::contains);
+        }
+
+        // Only these get re-hashed and decoded again, on their next trigger
+        for (String path : changed) {
+            soundManager.invalidateSound(path);
+            waveformCache.invalidate(path);
+        }
+        if (!changed.isEmpty()) {
+            Set<String> changedPaths = new HashSet<>(changed);
+            for (SoundItem item : soundItems) {
+                if (changedPaths.contains(item.getFilePath())) {
+                    item.clearMeasurement();
+                }
+            }
+            changed.forEach(loudnessScanner::measure);
+            soundTable.refresh();
+        }
+
+        if (!added.isEmpty()) {
+            // Sounds already in the list, e.g. given a keybind, are not added twice
+            Set<String> listed = new HashSet<>();
+            for (SoundItem item : soundItems) {
+                listed.add(item.getFilePath());
+            }
+            List<SoundItem> newItems = new ArrayList<>();
+            for (String path : added) {
+                if (listed.add(path)) {
+                    SoundItem item = new SoundItem(displayNameOf(new File(path)), path, null);
+                    folderItems.put(path, item);
+                    newItems.add(item);
+                }
+            }
+            soundItems.addAll(newItems);
+        }
+
+        updateStatus(String.format("Library folders: %d added, %d changed, %d removed",
+            added.size(), changed.size(), removed.size()));
+    }
+
+    private void showFoldersDialog() {
+        Stage dialog = new Stage();
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.setTitle("Library Folders");
+
+        VBox root = new VBox(10);
+        root.setPadding(new Insets(20));
+
+        Label folderLabel = new Label("Sound files in these folders are added and kept up to date:");
+        ListView<String> folderList = new ListView<>(FXCollections.observableArrayList(configManager.loadLibraryFolders()));
+        folderList.setPrefHeight(200);
+
+        Runnable apply = () -> {
+            configManager.saveLibraryFolders(new ArrayList<>(folderList.getItems()));
+            if (libraryLoaded) {
+                startFolderWatcher();
+            }
+        };
+
+        // Buttons
+        HBox buttonBox = new HBox(10);
+        buttonBox.setAlignment(Pos.CENTER);
+
+        Button addButton = new Button("Add Folder...");
+        addButton.setOnAction(e -> {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Select Sound Folder");
+            File folder = chooser.showDialog(dialog);
+            if (folder != null && !folderList.getItems().contains(folder.getAbsolutePath())) {
+                folderList.getItems().add(folder.getAbsolutePath());
+                apply.run();
+            }
+        });
+
+        Button removeButton = new Button("Remove");
+        removeButton.disableProperty().bind(folderList.getSelectionModel().selectedItemProperty().isNull());
+        removeButton.setOnAction(e -> {
+            folderList.getItems().remove(folderList.getSelectionModel().getSelectedItem());
+            apply.run();
+        });
+
+        Button rescanButton = new Button("Rescan");
+        rescanButton.setOnAction(e -> {
+            LibraryFolderWatcher watcher = folderWatcher;
+            if (watcher != null) {
+                Thread rescan = new Thread(watcher::rescan, "soundboard-folder-rescan");
+                rescan.setDaemon(true);
+                rescan.start();
+            }
+        });
+
+        Button closeButton = new Button("Close");
+        closeButton.setCancelButton(true);
+        closeButton.setOnAction(e -> dialog.close());
+
+        buttonBox.getChildren().addAll(addButton, removeButton, rescanButton, closeButton);
+
+        root.getChildren().addAll(folderLabel, folderList, buttonBox);
+
+        Scene scene = new Scene(root, 520, 320);
+        dialog.setScene(scene);
+        dialog.showAndWait();
+    }
+
+    /**
+     * Records hotkey triggers into macros, and lists, plays and removes them
+     */
+    private void showMacrosDialog() {
+        Stage dialog = new Stage();
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.setTitle("Macros");
+
+        VBox root = new VBox(10);
+        root.setPadding(new Insets(20));
+
+        Label macroLabel = new Label("Each macro plays back recorded hotkey triggers with their original timing:");
+        ListView<TriggerMacro> macroList = new ListView<>(FXCollections.observableArrayList(macros));
+        macroList.setPrefHeight(200);
+        Label jitterLabel = new Label();
+        Runnable refreshJitter = () -> jitterLabel.setText("Macro timing against the recording: "
+            + soundManager.getLatencyMetrics().getMacroJitter());
+        refreshJitter.run();
+
+        Runnable apply = () -> {
+            macros.clear();
+            macros.addAll(macroList.getItems());
+            publishKeybinds();
+            configManager.saveMacros(new ArrayList<>(macros));
+        };
+
+        // Buttons
+        HBox buttonBox = new HBox(10);
+        buttonBox.setAlignment(Pos.CENTER);
+
+        TriggerRecorder recorder = globalHotkeyManager.getRecorder();
+        Button recordButton = new Button("Record");
+        recordButton.setOnAction(e -> {
+            if (!recorder.isRecording()) {
+                recorder.start();
+                recordButton.setText("Stop Recording");
+                updateStatus("Recording macro - press hotkeys, then Stop Recording");
+                return;
+            }
+            recordButton.setText("Record");
+            TriggerTimeline timeline = recorder.stop();
+            if (timeline.size() == 0) {
+                updateStatus("Nothing recorded");
+                return;
+            }
+            TriggerMacro macro = askForMacroDetails(timeline, macroList.getItems().size() + 1);
+            if (macro != null) {
+                macroList.getItems().add(macro);
+                apply.run();
+                updateStatus(String.format("Recorded macro %s: %d triggers over %.1f s",
+                    macro.getName(), timeline.size(), macro.getDurationNanos() / 1e9));
+            }
+        });
+
+        Button playButton = new Button("Play");
+        playButton.disableProperty().bind(macroList.getSelectionModel().selectedItemProperty().isNull());
+        playButton.setOnAction(e -> soundManager.playSound(macroList.getSelectionModel().getSelectedItem()));
+
+        Button removeButton = new Button("Remove");
+        removeButton.disableProperty().bind(macroList.getSelectionModel().selectedItemProperty().isNull());
+        removeButton.setOnAction(e -> {
+            macroList.getItems().remove(macroList.getSelectionModel().getSelectedItem());
+            apply.run();
+        });
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(e -> refreshJitter.run());
+
+        Button closeButton = new Button("Close");
+        closeButton.setCancelButton(true);
+        closeButton.setOnAction(e -> dialog.close());
+
+        buttonBox.getChildren().addAll(recordButton, playButton, removeButton, refreshButton, closeButton);
+
+        root.getChildren().addAll(macroLabel, macroList, jitterLabel, buttonBox);
+
+        Scene scene = new Scene(root, 560, 340);
+        dialog.setScene(scene);
+        dialog.setOnHidden(e -> {
+            if (recorder.isRecording()) {
+                recorder.stop();
+                updateStatus("Macro recording discarded");
+            }
+        });
+        dialog.showAndWait();
+    }
+
+    /**
+     * Asks for a new macro's name and keybind, typed like the hotkey page keys
+     * @return The macro, or null if cancelled
+     */
+    private TriggerMacro askForMacroDetails(TriggerTimeline timeline, int number) {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Save Macro");
+        dialog.setHeaderText(String.format("%d triggers over %.1f s", timeline.size(), timeline.getDurationNanos() / 1e9));
+        TextField nameField = new TextField("Macro " + number);
+        TextField keybindField = new TextField();
+        keybindField.setPromptText("e.g. CTRL+M or CTRL+K M");
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.addRow(0, new Label("Name:"), nameField);
+        grid.addRow(1, new Label("Keybind:"), keybindField);
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        while (true) {
+            Optional<ButtonType> result = dialog.showAndWait();
+            if (result.isEmpty() || result.get() != ButtonType.OK) {
+                return null;
+            }
+            String name = nameField.getText().trim();
+            String keybindText = keybindField.getText().trim();
+            String keybind = keybindText.isEmpty() ? null : KeyChord.normalize(keybindText);
+            if (!name.isEmpty() && (keybindText.isEmpty() || keybind != null)) {
+                return new TriggerMacro(name, keybind, timeline);
+            }
+            dialog.setHeaderText(name.isEmpty() ? "Please enter a name." : "Keybind not understood: " + keybindText);
+        }
+    }
+
+    static String displayNameOf(File file) {
+        String fileName = file.getName();
+        int dotIndex = fileName.lastIndexOf('.');
+        return dotIndex > 0 ? fileName.substring(0, dotIndex) : fileName;
+    }
+
+    /**
+     * Decodes the library in the background so first triggers don't wait on a decode
+     */
+    private void startWarmUp() {
+        SampleWarmer.Listener listener = new SampleWarmer.Listener() {
+            @Override
+            public void onProgress(int done, int total) {
+                // Coalesce worker updates into at most one pending FX task
+                warmUpFraction = done / (double) total;
+                if (warmUpProgressPending.compareAndSet(false, true)) {
+                    Platform.runLater(() -> {
+                        warmUpProgressPending.set(false);
+                        if (currentWarmUp == this) {
+                            warmUpProgress.setProgress(warmUpFraction);
+                        }
+                    });
+                }
+            }
+
+            @Override
+            public void onFinished(int done, int total, long elapsedNanos, boolean cancelled) {
+                Platform.runLater(() -> {
+                    // A warm-up replaced by a newer one finishes quietly
+                    if (currentWarmUp != this) {
+                        return;
+                    }
+                    currentWarmUp = null;
+                    showWarmUpProgress(false);
+                    updateStatus(String.format("%s %d of %d sounds in %.1f s",
+                        cancelled ? "Warm-up cancelled after" : "Warmed up", done, total, elapsedNanos / 1e9));
+                });
+            }
+        };
+        currentWarmUp = listener;
+        showWarmUpProgress(true);
+        if (!soundManager.startWarmUp(soundItems, listener)) {
+            currentWarmUp = null;
+            showWarmUpProgress(false);
+        }
+    }
+
+    private void showWarmUpProgress(boolean show) {
+        warmUpProgress.setProgress(0);
+        warmUpProgress.setVisible(show);
+        warmUpProgress.setManaged(show);
+        cancelWarmUpButton.setVisible(show);
+        cancelWarmUpButton.setManaged(show);
     }
     
     private void saveSounds() {
-        configManager.saveSounds(new ArrayList<>(soundItems));
+        if (!libraryLoaded) {
+            // Saving now would drop the sounds that have not arrived yet
+            saveAfterLoad = true;
+            return;
+        }
+        // Items are edited in place, so the writer gets copies; folder sounds are found again on start
+        List<SoundItem> snapshot = new ArrayList<>(soundItems.size());
+        for (SoundItem item : soundItems) {
+            if (folderItems.get(item.getFilePath()) != item) {
+                snapshot.add(item.copy());
+            }
+        }
+        configManager.saveSoundsAsync(snapshot);
     }
     
     private void updateStatus(String message) {
-        statusLabel.setText(message);
-        
-        // Auto-clear status after 3 seconds
-        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(3), e -> {
-            if (statusLabel.getText().equals(message)) {
-                statusLabel.setText("Ready - Global hotkeys active!");
+        statusUpdater.post(message);
+    }
+    
+    private void startArtificialUiLoad(long millisPerFrame) {
+        System.out.println("Artificial UI load: " + millisPerFrame + " ms per frame");
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                long end = System.nanoTime() + millisPerFrame * 1_000_000;
+                while (System.nanoTime() < end) {
+                    Thread.onSpinWait();
+                }
             }
-        }));
-        timeline.play();
+        }.start();
     }
     
     public void shutdown() {
         if (globalHotkeyManager != null) {
             globalHotkeyManager.shutdown();
         }
+        if (folderWatcher != null) {
+            folderWatcher.close();
+        }
+        waveformCache.close();
+        loudnessScanner.close();
+        if (soundManager.getLatencyMetrics().getStage(LatencyMetrics.Stage.MATCHED).getCount() > 0) {
+            configManager.saveLatencyReport(soundManager.createLatencyReport());
+        }
+        configManager.close();
+        LatencyStats saveLatency = configManager.getSaveLatency();
+        if (saveLatency.getCount() > 0) {
+            System.out.println(formatSaveStats());
+        }
         soundManager.dispose();
     }
 }
\ No newline at end of file
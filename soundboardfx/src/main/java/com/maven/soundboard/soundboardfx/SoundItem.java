@@ -1,15 +1,25 @@
 package com.maven.soundboard.soundboardfx;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
- * Represents a sound item with its file path, display name, and keybind
+ * Represents a sound item with its file path, display name, and keybind,
+ * plus its measured loudness, an optional gain chosen by the user, what
+ * triggering it again while it plays does and the hotkey page it belongs to
  */
 public class SoundItem {
 	private String name;
 	private String filePath;
 	private String keybind;
+	private Double loudness;
+	private Double truePeak;
+	private Double gainDb;
+	private RetriggerPolicy retrigger;
+	private Integer maxVoices;
+	private Integer page;
 	
 	@JsonCreator
 	public SoundItem(@JsonProperty("name") String name,
@@ -44,6 +54,135 @@ public class SoundItem {
 		this.keybind = keybind;
 	}
 	
+	/**
+	 * @return Integrated loudness of the file in LUFS, or null if not measured yet
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public Double getLoudness() {
+		return loudness;
+	}
+	
+	public void setLoudness(Double loudness) {
+		this.loudness = loudness;
+	}
+	
+	/**
+	 * @return True peak of the file in dBTP, or null if not measured yet
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public Double getTruePeak() {
+		return truePeak;
+	}
+	
+	public void setTruePeak(Double truePeak) {
+		this.truePeak = truePeak;
+	}
+	
+	/**
+	 * @return Gain in dB used instead of loudness normalization, or null to normalize
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public Double getGainDb() {
+		return gainDb;
+	}
+	
+	public void setGainDb(Double gainDb) {
+		this.gainDb = gainDb;
+	}
+	
+	/**
+	 * @return Retrigger policy, or null for the default of restarting
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public RetriggerPolicy getRetrigger() {
+		return retrigger;
+	}
+	
+	public void setRetrigger(RetriggerPolicy retrigger) {
+		this.retrigger = retrigger;
+	}
+	
+	/**
+	 * @return Voice limit under OVERLAP, or null for the default
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public Integer getMaxVoices() {
+		return maxVoices;
+	}
+	
+	public void setMaxVoices(Integer maxVoices) {
+		this.maxVoices = maxVoices;
+	}
+	
+	/**
+	 * @return Hotkey page whose keybinds include this sound, or null for every page
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public Integer getPage() {
+		return page;
+	}
+	
+	public void setPage(Integer page) {
+		this.page = page;
+	}
+	
+	/**
+	 * @return The retrigger policy in effect
+	 */
+	@JsonIgnore
+	public RetriggerPolicy getRetriggerPolicy() {
+		return retrigger != null ? retrigger : RetriggerPolicy.RESTART;
+	}
+	
+	/**
+	 * @return How many voices this sound may hold at once
+	 */
+	@JsonIgnore
+	public int getVoiceLimit() {
+		switch (getRetriggerPolicy()) {
+			case OVERLAP:
+				int limit = maxVoices != null ? maxVoices : RetriggerPolicy.DEFAULT_MAX_VOICES;
+				return Math.max(1, Math.min(RetriggerPolicy.MAX_VOICES_LIMIT, limit));
+			default:
+				return 1;
+		}
+	}
+	
+	/**
+	 * Stores a measurement of the file
+	 */
+	public void setMeasurement(LoudnessAnalyzer.Result result) {
+		this.loudness = result.getIntegratedLufs();
+		this.truePeak = result.getTruePeakDb();
+	}
+	
+	/**
+	 * Forgets the measurement, after the file changed
+	 */
+	public void clearMeasurement() {
+		this.loudness = null;
+		this.truePeak = null;
+	}
+	
+	@JsonIgnore
+	public boolean isMeasured() {
+		return loudness != null;
+	}
+	
+	/**
+	 * @return An independent copy, safe to hand to another thread
+	 */
+	public SoundItem copy() {
+		SoundItem copy = new SoundItem(name, filePath, keybind);
+		copy.loudness = loudness;
+		copy.truePeak = truePeak;
+		copy.gainDb = gainDb;
+		copy.retrigger = retrigger;
+		copy.maxVoices = maxVoices;
+		copy.page = page;
+		return copy;
+	}
+	
 	@Override
 	public String toString() {
 		return name + " (" + keybind + ")";
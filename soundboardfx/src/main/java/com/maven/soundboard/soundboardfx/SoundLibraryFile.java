@@ -0,0 +1,316 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary sound library, read through a memory-mapped file.
+ *
+ * Layout (little-endian):
+ * <pre>
+ * header   32 bytes: magic "SBFXLIB1", version, record count, records offset,
+ *                    string table offset, string table length, reserved
+ * records  64 bytes each: name, file path and keybind as (offset, length) pairs
+ *                    into the string table, offset -1 meaning null; then loudness,
+ *                    true peak and gain as doubles, NaN meaning null; then the
+ *                    retrigger policy (ordinal + 1, 0 meaning null), voice limit
+ *                    (0 meaning null) and hotkey page (-1 meaning null) as ints,
+ *                    and 4 reserved bytes
+ * strings  UTF-8 bytes, each distinct string stored once
+ * </pre>
+ * Opening maps the file and checks the header and that every record lies inside the file and
+ * points inside the string table, so a damaged file is rejected before any sound is read;
+ * records are decoded when asked for.
+ * Older files are still read: version 1 records end after the keybind, version 2
+ * records after the gain and version 3 records after the voice limit.
+ */
+public class SoundLibraryFile implements Closeable {
+    private static final byte[] MAGIC = "SBFXLIB1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 64;
+    private static final int[] RECORD_SIZES = {0, 24, 48, 56, RECORD_SIZE};
+
+    private final FileChannel channel;
+    /** Dropped on close so the mapping can be released and the file replaced */
+    private MappedByteBuffer buffer;
+    private final int recordCount;
+    private final int recordSize;
+    private final int recordsOffset;
+    private final int stringsOffset;
+    private final int stringsLength;
+
+    private SoundLibraryFile(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.capacity() < HEADER_SIZE) {
+            throw new IOException("Not a sound library: file too short");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a sound library: bad magic");
+        }
+        int version = buffer.getInt(8);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported sound library version " + version);
+        }
+        recordSize = RECORD_SIZES[version];
+        recordCount = buffer.getInt(12);
+        recordsOffset = buffer.getInt(16);
+        stringsOffset = buffer.getInt(20);
+        stringsLength = buffer.getInt(24);
+        if (recordCount < 0 || recordsOffset < HEADER_SIZE || stringsOffset < HEADER_SIZE || stringsLength < 0
+                || (long) recordsOffset + (long) recordCount * recordSize > buffer.capacity()
+                || (long) stringsOffset + stringsLength > buffer.capacity()) {
+            throw new IOException("Sound library is truncated");
+        }
+        for (int i = 0; i < recordCount; i++) {
+            for (int field = 0; field < 24; field += 8) {
+                checkString(recordsOffset + i * recordSize + field);
+            }
+        }
+    }
+
+    /**
+     * Maps a library file for reading
+     * @param file The library file
+     * @return The open library; close it to release the mapping's file handle
+     */
+    public static SoundLibraryFile open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SoundLibraryFile(channel, buffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public String getName(int index) throws IOException {
+        return readString(index, 0);
+    }
+
+    public String getFilePath(int index) throws IOException {
+        return readString(index, 8);
+    }
+
+    public String getKeybind(int index) throws IOException {
+        return readString(index, 16);
+    }
+
+    public Double getLoudness(int index) {
+        return readDouble(index, 24);
+    }
+
+    public Double getTruePeak(int index) {
+        return readDouble(index, 32);
+    }
+
+    public Double getGainDb(int index) {
+        return readDouble(index, 40);
+    }
+
+    /**
+     * @return The retrigger policy, or null if none is stored
+     */
+    public RetriggerPolicy getRetrigger(int index) {
+        int code = readInt(index, 48);
+        return code > 0 && code <= RetriggerPolicy.values().length ? RetriggerPolicy.values()[code - 1] : null;
+    }
+
+    public Integer getMaxVoices(int index) {
+        int value = readInt(index, 52);
+        return value > 0 ? value : null;
+    }
+
+    /**
+     * @return The hotkey page, or null for a sound on every page
+     */
+    public Integer getPage(int index) {
+        int page = readInt(index, 56, -1);
+        return page >= 0 ? page : null;
+    }
+
+    public SoundItem getItem(int index) throws IOException {
+        SoundItem item = new SoundItem(getName(index), getFilePath(index), getKeybind(index));
+        item.setLoudness(getLoudness(index));
+        item.setTruePeak(getTruePeak(index));
+        item.setGainDb(getGainDb(index));
+        item.setRetrigger(getRetrigger(index));
+        item.setMaxVoices(getMaxVoices(index));
+        item.setPage(getPage(index));
+        return item;
+    }
+
+    /**
+     * @return Every sound in the library, in file order
+     */
+    public List<SoundItem> readAll() throws IOException {
+        List<SoundItem> soundItems = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            soundItems.add(getItem(i));
+        }
+        return soundItems;
+    }
+
+    private String readString(int index, int fieldOffset) throws IOException {
+        int record = recordOffset(index) + fieldOffset;
+        int offset = checkString(record);
+        if (offset < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[buffer.getInt(record + 4)];
+        buffer.get(stringsOffset + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The string's offset in the string table, negative for null
+     * @throws IOException If the string does not lie inside the string table
+     */
+    private int checkString(int record) throws IOException {
+        int offset = buffer.getInt(record);
+        if (offset < 0) {
+            return offset;
+        }
+        int length = buffer.getInt(record + 4);
+        if (length < 0 || (long) offset + length > stringsLength) {
+            throw new IOException("Sound library is corrupt: string at " + offset + " of length " + length
+                + " outside the " + stringsLength + " byte string table");
+        }
+        return offset;
+    }
+
+    private Double readDouble(int index, int fieldOffset) {
+        int record = recordOffset(index);
+        if (fieldOffset >= recordSize) {
+            return null;
+        }
+        double value = buffer.getDouble(record + fieldOffset);
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private int readInt(int index, int fieldOffset) {
+        return readInt(index, fieldOffset, 0);
+    }
+
+    private int readInt(int index, int fieldOffset, int missing) {
+        int record = recordOffset(index);
+        return fieldOffset < recordSize ? buffer.getInt(record + fieldOffset) : missing;
+    }
+
+    private int recordOffset(int index) {
+        if (index < 0 || index >= recordCount) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + recordCount);
+        }
+        return recordsOffset + index * recordSize;
+    }
+
+    /**
+     * Closes the file. The mapping itself goes once it is garbage collected; until then
+     * Windows refuses to replace the file.
+     */
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+
+    /**
+     * Writes sound items in the library format
+     * @param file Destination, overwritten if it exists
+     * @param soundItems Sounds to write
+     * @return Number of bytes written
+     */
+    public static long write(File file, List<SoundItem> soundItems) throws IOException {
+        // Build the string table first so records can point into it
+        Map<String, Integer> stringOffsets = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int stringsLength = 0;
+        int[] fields = new int[soundItems.size() * 9];
+        double[] levels = new double[soundItems.size() * 3];
+        for (int i = 0; i < soundItems.size(); i++) {
+            SoundItem item = soundItems.get(i);
+            String[] values = {item.getName(), item.getFilePath(), item.getKeybind()};
+            Double[] itemLevels = {item.getLoudness(), item.getTruePeak(), item.getGainDb()};
+            for (int l = 0; l < itemLevels.length; l++) {
+                levels[i * 3 + l] = itemLevels[l] != null ? itemLevels[l] : Double.NaN;
+            }
+            fields[i * 9 + 6] = item.getRetrigger() != null ? item.getRetrigger().ordinal() + 1 : 0;
+            fields[i * 9 + 7] = item.getMaxVoices() != null ? item.getMaxVoices() : 0;
+            fields[i * 9 + 8] = item.getPage() != null ? item.getPage() : -1;
+            for (int f = 0; f < values.length; f++) {
+                int slot = i * 9 + f * 2;
+                if (values[f] == null) {
+                    fields[slot] = -1;
+                    continue;
+                }
+                byte[] bytes = values[f].getBytes(StandardCharsets.UTF_8);
+                Integer offset = stringOffsets.get(values[f]);
+                if (offset == null) {
+                    offset = stringsLength;
+                    stringOffsets.put(values[f], offset);
+                    strings.add(bytes);
+                    stringsLength += bytes.length;
+                }
+                fields[slot] = offset;
+                fields[slot + 1] = bytes.length;
+            }
+        }
+
+        int recordsOffset = HEADER_SIZE;
+        int stringsOffset = recordsOffset + soundItems.size() * RECORD_SIZE;
+        ByteBuffer out = ByteBuffer.allocate(stringsOffset + stringsLength).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(soundItems.size());
+        out.putInt(recordsOffset);
+        out.putInt(stringsOffset);
+        out.putInt(stringsLength);
+        out.putInt(0);
+        for (int i = 0; i < soundItems.size(); i++) {
+            for (int f = 0; f < 6; f++) {
+                out.putInt(fields[i * 9 + f]);
+            }
+            for (int l = 0; l < 3; l++) {
+                out.putDouble(levels[i * 3 + l]);
+            }
+            out.putInt(fields[i * 9 + 6]);
+            out.putInt(fields[i * 9 + 7]);
+            out.putInt(fields[i * 9 + 8]);
+            out.putInt(0);
+        }
+        for (byte[] bytes : strings) {
+            out.put(bytes);
+        }
+        out.flip();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        return stringsOffset + stringsLength;
+    }
+}
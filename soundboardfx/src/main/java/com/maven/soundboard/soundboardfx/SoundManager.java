@@ -1,24 +1,126 @@
 package com.maven.soundboard.soundboardfx;
 
-import javafx.scene.media.Media;
-import javafx.scene.media.MediaPlayer;
-import javafx.util.Duration;
-
 import java.io.File;
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Manages sound playback with MediaPlayer instances
+ * Manages sound playback through the backend chosen in the audio settings.
+ * Files the active backend cannot decode fall back to JavaFX Media.
+ * playSound may be called from any thread: cached sounds go straight to the mixer
+ * from the caller, anything that needs decoding or device setup runs on a dispatch thread.
+ * Each backend applies the sound's retrigger policy itself, so repeated triggers are
+ * not stopped and set up again from scratch. A macro's triggers are scheduled on the
+ * mixer's audio thread rather than timed by a thread here.
  */
 public class SoundManager {
-    private final Map<String, MediaPlayer> mediaPlayers = new HashMap<>();
-    
+    private final Map<BackendType, LatencyStats> latencyStats = new EnumMap<>(BackendType.class);
+    private final LatencyMetrics latencyMetrics = new LatencyMetrics();
+    private final ExecutorService dispatchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "soundboard-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile AudioSettings settings;
+    private volatile SampleCache sampleCache;
+    private volatile StreamingPolicy streamingPolicy;
+    private volatile PlaybackBackend mediaBackend;
+    private volatile PlaybackBackend activeBackend;
+    private SampleWarmer warmer;
+
+    public SoundManager() {
+        this(new AudioSettings());
+    }
+
+    public SoundManager(AudioSettings settings) {
+        for (BackendType type : BackendType.values()) {
+            latencyStats.put(type, new LatencyStats());
+        }
+        applySettings(settings);
+    }
+
+    /**
+     * Switches backend, buffer size or sample rate. Playing sounds are stopped.
+     * @param newSettings The settings to apply
+     */
+    public void applySettings(AudioSettings newSettings) {
+        if (activeBackend != null) {
+            stopAllSounds();
+            disposeBackends();
+        }
+
+        boolean cacheChanged = settings == null || settings.getSampleRate() != newSettings.getSampleRate()
+            || settings.getSampleEncoding() != newSettings.getSampleEncoding();
+        settings = newSettings.copy();
+        if (cacheChanged) {
+            cancelWarmUp();
+            sampleCache = new SampleCache(new SampleDecoder(settings.getSampleRate(), settings.getSampleEncoding()));
+        }
+
+        streamingPolicy = new StreamingPolicy(settings.getStreamingThresholdSeconds());
+        LoudnessNormalizer normalizer = new LoudnessNormalizer(settings);
+
+        mediaBackend = new MediaPlayerBackend(normalizer, latencyRecorder(BackendType.JAVAFX_MEDIA));
+        switch (settings.getBackend()) {
+            case SAMPLED_LINE:
+                activeBackend = new MixerBackend(sampleCache, streamingPolicy, normalizer, settings,
+                    latencyRecorder(BackendType.SAMPLED_LINE), latencyMetrics);
+                break;
+            case SAMPLED_CLIP:
+                activeBackend = new ClipBackend(sampleCache, streamingPolicy, normalizer,
+                    latencyRecorder(BackendType.SAMPLED_CLIP));
+                break;
+            default:
+                activeBackend = mediaBackend;
+                break;
+        }
+    }
+
+    private PlaybackBackend.LatencyListener latencyRecorder(BackendType type) {
+        LatencyStats stats = latencyStats.get(type);
+        if (type == BackendType.SAMPLED_LINE) {
+            // The mixer records its own stages
+            return (filePath, latencyNanos) -> stats.record(latencyNanos);
+        }
+        // Clip START and MediaPlayer PLAYING are as close as these backends get to their first buffer
+        return (filePath, latencyNanos) -> {
+            stats.record(latencyNanos);
+            latencyMetrics.record(LatencyMetrics.Stage.PLAYBACK_STARTED, latencyNanos);
+            latencyMetrics.recordSound(filePath, latencyNanos);
+        };
+    }
+
     /**
      * Plays a sound file
      * @param soundItem The sound item to play
      */
     public void playSound(SoundItem soundItem) {
+        playSound(soundItem, System.nanoTime());
+    }
+
+    /**
+     * Plays a sound file
+     * @param soundItem The sound item to play
+     * @param triggerNanos System.nanoTime() of the key press or click that triggered it
+     */
+    public void playSound(SoundItem soundItem, long triggerNanos) {
+        if (soundItem instanceof TriggerMacro) {
+            playMacro((TriggerMacro) soundItem, triggerNanos);
+            return;
+        }
+        PlaybackBackend backend = activeBackend;
+        if (backend.playIfReady(soundItem, triggerNanos)) {
+            latencyMetrics.record(LatencyMetrics.Stage.DISPATCHED, System.nanoTime() - triggerNanos);
+            return;
+        }
+        dispatchExecutor.execute(() -> dispatch(soundItem, triggerNanos, backend));
+    }
+
+    private void dispatch(SoundItem soundItem, long triggerNanos, PlaybackBackend backend) {
         try {
             File soundFile = new File(soundItem.getFilePath());
             if (!soundFile.exists()) {
@@ -26,59 +128,204 @@ public class SoundManager {
                 return;
             }
 
-            // Stop any currently playing instance of this sound
-            stopSound(soundItem.getFilePath());
-
-            Media media = new Media(soundFile.toURI().toString());
-            MediaPlayer mediaPlayer = new MediaPlayer(media);
-            
-            mediaPlayer.setOnEndOfMedia(() -> {
-                mediaPlayer.dispose();
-                mediaPlayers.remove(soundItem.getFilePath());
-            });
-            
-            mediaPlayer.setOnError(() -> {
-                System.err.println("Error playing sound: " + mediaPlayer.getError().getMessage());
-                mediaPlayer.dispose();
-                mediaPlayers.remove(soundItem.getFilePath());
-            });
-            
-            mediaPlayers.put(soundItem.getFilePath(), mediaPlayer);
-            mediaPlayer.play();
-            
+            if (!backend.play(soundItem, triggerNanos)) {
+                mediaBackend.play(soundItem, triggerNanos);
+            }
+            latencyMetrics.record(LatencyMetrics.Stage.DISPATCHED, System.nanoTime() - triggerNanos);
+
         } catch (Exception e) {
             System.err.println("Failed to play sound: " + e.getMessage());
         }
     }
-    
+
+    /**
+     * Plays a recorded macro, each trigger starting on its exact sample relative to the first.
+     * Only the mixer backend can schedule triggers; with the others the macro is skipped.
+     * @param triggerNanos System.nanoTime() of the key press that triggered the macro
+     */
+    public void playMacro(TriggerMacro macro, long triggerNanos) {
+        PlaybackBackend backend = activeBackend;
+        if (!(backend instanceof MixerBackend)) {
+            System.err.println("Macros play only through " + BackendType.SAMPLED_LINE.getDisplayName()
+                + ", skipped: " + macro.getName());
+            return;
+        }
+        MixerBackend mixerBackend = (MixerBackend) backend;
+        try {
+            if (mixerBackend.playMacro(macro, triggerNanos, false)) {
+                latencyMetrics.record(LatencyMetrics.Stage.DISPATCHED, System.nanoTime() - triggerNanos);
+                return;
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to play macro: " + e.getMessage());
+            return;
+        }
+        dispatchExecutor.execute(() -> {
+            try {
+                mixerBackend.playMacro(macro, triggerNanos, true);
+                latencyMetrics.record(LatencyMetrics.Stage.DISPATCHED, System.nanoTime() - triggerNanos);
+            } catch (Exception e) {
+                System.err.println("Failed to play macro: " + e.getMessage());
+            }
+        });
+    }
+
     /**
      * Stops a currently playing sound
      * @param filePath The file path of the sound to stop
      */
     public void stopSound(String filePath) {
-        MediaPlayer player = mediaPlayers.get(filePath);
-        if (player != null) {
-            player.stop();
-            player.dispose();
-            mediaPlayers.remove(filePath);
+        activeBackend.stop(filePath);
+        if (activeBackend != mediaBackend) {
+            mediaBackend.stop(filePath);
         }
     }
-    
+
     /**
      * Stops all currently playing sounds
      */
     public void stopAllSounds() {
-        mediaPlayers.values().forEach(player -> {
-            player.stop();
-            player.dispose();
-        });
-        mediaPlayers.clear();
+        activeBackend.stopAll();
+        if (activeBackend != mediaBackend) {
+            mediaBackend.stopAll();
+        }
+    }
+
+    private void disposeBackends() {
+        activeBackend.dispose();
+        if (activeBackend != mediaBackend) {
+            mediaBackend.dispose();
+        }
+    }
+
+    public AudioSettings getSettings() {
+        return settings.copy();
     }
-    
+
+    /**
+     * @param type A playback backend
+     * @return Measured trigger-to-first-sample latency of that backend
+     */
+    public LatencyStats getLatencyStats(BackendType type) {
+        return latencyStats.get(type);
+    }
+
+    public SampleCache getSampleCache() {
+        return sampleCache;
+    }
+
+    /**
+     * Decodes the given sounds into the sample cache in the background, replacing any
+     * warm-up already running. Does nothing when JavaFX Media is the active backend,
+     * since it does not use the cache.
+     * @param soundItems Sounds to decode, hotkey-bound ones first
+     * @param listener Receives progress on worker threads, may be null
+     * @return false if no warm-up was started
+     */
+    public synchronized boolean startWarmUp(List<SoundItem> soundItems, SampleWarmer.Listener listener) {
+        cancelWarmUp();
+        if (settings.getBackend() == BackendType.JAVAFX_MEDIA) {
+            return false;
+        }
+        warmer = new SampleWarmer(sampleCache, streamingPolicy);
+        warmer.start(soundItems, listener);
+        return true;
+    }
+
+    public synchronized void cancelWarmUp() {
+        if (warmer != null) {
+            warmer.cancel();
+            warmer = null;
+        }
+    }
+
+    /**
+     * Forgets everything known about a file, after it was replaced or a sound now points elsewhere
+     * @param filePath Path of the sound file
+     */
+    public void invalidateSound(String filePath) {
+        sampleCache.invalidate(filePath);
+        streamingPolicy.invalidate(filePath);
+        activeBackend.invalidate(filePath);
+        if (activeBackend != mediaBackend) {
+            mediaBackend.invalidate(filePath);
+        }
+    }
+
+    /**
+     * @return Per-stage and per-sound key-to-sound latency histograms
+     */
+    public LatencyMetrics getLatencyMetrics() {
+        return latencyMetrics;
+    }
+
+    /**
+     * @return Current latency histograms and cache counters, ready to be written as JSON
+     */
+    public LatencyReport createLatencyReport() {
+        LatencyReport report = latencyMetrics.snapshot();
+        SampleCache cache = sampleCache;
+        report.setBackend(settings.getBackend().name());
+        report.setCacheHits(cache.getHitCount());
+        report.setCacheMisses(cache.getMissCount());
+        report.setCacheEvictions(cache.getEvictionCount());
+        report.setCacheBytes(cache.getSizeInBytes());
+        report.setCacheDuplicates(cache.getDuplicateCount());
+        report.setCacheBytesSaved(cache.getDeduplicatedBytes());
+        return report;
+    }
+
+    /**
+     * @return Delay between a trigger entering the mixer queue and the audio thread taking it,
+     *         or null if the mixer backend is not running
+     */
+    public LatencyStats getQueueLatency() {
+        PlaybackBackend backend = activeBackend;
+        if (backend instanceof MixerBackend) {
+            AudioMixer mixer = ((MixerBackend) backend).getRunningMixer();
+            return mixer != null ? mixer.getQueueLatency() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Mixes a trigger timeline into a WAV file faster than real time, with the current
+     * settings and sample cache; nothing is played on the output device
+     * @return Frames written
+     */
+    public long renderTimeline(TriggerTimeline timeline, File wavFile) throws Exception {
+        return new OfflineRenderer(sampleCache, settings).renderToWav(timeline, wavFile);
+    }
+
+    /**
+     * @return Triggers the mixer backend dropped because its queue was full, 0 for other backends
+     */
+    public long getDroppedTriggerCount() {
+        PlaybackBackend backend = activeBackend;
+        return backend instanceof MixerBackend ? ((MixerBackend) backend).getDroppedTriggerCount() : 0;
+    }
+
     /**
      * Cleanup resources
      */
     public void dispose() {
+        cancelWarmUp();
+        dispatchExecutor.shutdown();
+        try {
+            dispatchExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LatencyStats queueLatency = getQueueLatency();
+        if (queueLatency != null) {
+            System.out.println("Trigger queue latency: " + queueLatency);
+        }
         stopAllSounds();
+        disposeBackends();
+        System.out.println(sampleCache);
+        for (BackendType type : BackendType.values()) {
+            System.out.println(type.getDisplayName() + " latency: " + latencyStats.get(type));
+        }
+        sampleCache.clear();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,279 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Trigram index over the name, file path and keybind of sound items, for filtering large
+ * libraries as the user types. A query matches items containing every one of its
+ * whitespace-separated terms, case-insensitively. Terms of three or more characters are
+ * narrowed down through the index; shorter ones are checked against each candidate directly.
+ *
+ * Items get ascending ids as they are added, so posting lists stay sorted and intersect
+ * with a merge. Removing an item only clears its slot; the postings are compacted once
+ * removed items outnumber live ones. Edited items must be passed to {@link #update}.
+ * Not thread-safe: use it from one thread, normally the FX thread.
+ */
+public class SoundSearchIndex {
+    private static final int MIN_COMPACT = 1024;
+
+    private final Map<SoundItem, Integer> ids = new IdentityHashMap<>();
+    private SoundItem[] items = new SoundItem[1024];
+    private String[] texts = new String[1024];
+    private int nextId;
+    private int live;
+
+    // Open-addressing map from packed trigram to its posting list
+    private long[] keys = new long[4096];
+    private int[][] postings = new int[4096][];
+    private int[] postingSizes = new int[4096];
+    private int trigramCount;
+
+    /**
+     * Adds an item; adding one already indexed re-indexes it
+     */
+    public void add(SoundItem item) {
+        if (ids.containsKey(item)) {
+            update(item);
+            return;
+        }
+        int id = nextId++;
+        if (id == items.length) {
+            items = Arrays.copyOf(items, id * 2);
+            texts = Arrays.copyOf(texts, id * 2);
+        }
+        String text = textOf(item);
+        items[id] = item;
+        texts[id] = text;
+        ids.put(item, id);
+        live++;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            appendPosting(pack(text, i), id);
+        }
+    }
+
+    public void addAll(Collection<? extends SoundItem> added) {
+        for (SoundItem item : added) {
+            add(item);
+        }
+    }
+
+    public void remove(SoundItem item) {
+        Integer id = ids.remove(item);
+        if (id == null) {
+            return;
+        }
+        items[id] = null;
+        texts[id] = null;
+        live--;
+        if (nextId - live > Math.max(MIN_COMPACT, live)) {
+            compact();
+        }
+    }
+
+    public void removeAll(Collection<? extends SoundItem> removed) {
+        for (SoundItem item : removed) {
+            remove(item);
+        }
+    }
+
+    /**
+     * Re-indexes an item after its name, path or keybind changed
+     */
+    public void update(SoundItem item) {
+        remove(item);
+        add(item);
+    }
+
+    public void clear() {
+        ids.clear();
+        Arrays.fill(items, 0, nextId, null);
+        Arrays.fill(texts, 0, nextId, null);
+        nextId = 0;
+        live = 0;
+        Arrays.fill(keys, 0);
+        Arrays.fill(postings, null);
+        Arrays.fill(postingSizes, 0);
+        trigramCount = 0;
+    }
+
+    public int size() {
+        return live;
+    }
+
+    /**
+     * @param query Terms separated by whitespace
+     * @return Items matching every term, in the order they were indexed; all items for a blank query
+     */
+    public List<SoundItem> search(String query) {
+        String[] terms = query.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        if (terms[0].isEmpty()) {
+            terms = new String[0];
+        }
+
+        // Intersect the posting lists of every trigram, shortest first
+        List<int[]> lists = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        for (String term : terms) {
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                int slot = slotFor(pack(term, i));
+                if (postings[slot] == null) {
+                    return new ArrayList<>();
+                }
+                lists.add(postings[slot]);
+                sizes.add(postingSizes[slot]);
+            }
+        }
+
+        List<SoundItem> results = new ArrayList<>();
+        if (lists.isEmpty()) {
+            for (int id = 0; id < nextId; id++) {
+                collect(id, terms, results);
+            }
+            return results;
+        }
+
+        int shortest = 0;
+        for (int i = 1; i < sizes.size(); i++) {
+            if (sizes.get(i) < sizes.get(shortest)) {
+                shortest = i;
+            }
+        }
+        int[] candidates = Arrays.copyOf(lists.get(shortest), sizes.get(shortest));
+        int count = candidates.length;
+        for (int i = 0; i < lists.size() && count > 0; i++) {
+            if (i != shortest) {
+                count = intersect(candidates, count, lists.get(i), sizes.get(i));
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            collect(candidates[i], terms, results);
+        }
+        return results;
+    }
+
+    /**
+     * Adds an item if it is still live and really contains every term; trigrams alone
+     * can match terms whose trigrams appear in a different order
+     */
+    private void collect(int id, String[] terms, List<SoundItem> results) {
+        String text = texts[id];
+        if (text == null) {
+            return;
+        }
+        for (String term : terms) {
+            if (!text.contains(term)) {
+                return;
+            }
+        }
+        results.add(items[id]);
+    }
+
+    /**
+     * Keeps the ids in candidates that are also in other, in place
+     * @return Number of ids kept
+     */
+    private static int intersect(int[] candidates, int count, int[] other, int otherSize) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < otherSize; i++) {
+            int id = candidates[i];
+            while (j < otherSize && other[j] < id) {
+                j++;
+            }
+            if (j < otherSize && other[j] == id) {
+                candidates[kept++] = id;
+            }
+        }
+        return kept;
+    }
+
+    private void compact() {
+        List<SoundItem> remaining = new ArrayList<>(live);
+        for (int id = 0; id < nextId; id++) {
+            if (items[id] != null) {
+                remaining.add(items[id]);
+            }
+        }
+        clear();
+        addAll(remaining);
+    }
+
+    private static String textOf(SoundItem item) {
+        // Separators keep trigrams from spanning two fields
+        return (nullToEmpty(item.getName()) + '\n' + nullToEmpty(item.getFilePath()) + '\n'
+            + nullToEmpty(item.getKeybind())).toLowerCase(Locale.ROOT);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * @return Three chars packed into one key; never 0, which marks an empty slot
+     */
+    private static long pack(String text, int index) {
+        return 1L << 48 | (long) text.charAt(index) << 32 | (long) text.charAt(index + 1) << 16 | text.charAt(index + 2);
+    }
+
+    private void appendPosting(long key, int id) {
+        int slot = slotFor(key);
+        int[] list = postings[slot];
+        if (list == null) {
+            keys[slot] = key;
+            postings[slot] = new int[] {id};
+            postingSizes[slot] = 1;
+            if (++trigramCount * 2 > keys.length) {
+                growTable();
+            }
+            return;
+        }
+        int size = postingSizes[slot];
+        // A trigram repeated within one item is listed once
+        if (list[size - 1] == id) {
+            return;
+        }
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size * 2);
+            postings[slot] = list;
+        }
+        list[size] = id;
+        postingSizes[slot] = size + 1;
+    }
+
+    private int slotFor(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growTable() {
+        long[] oldKeys = keys;
+        int[][] oldPostings = postings;
+        int[] oldSizes = postingSizes;
+        keys = new long[oldKeys.length * 2];
+        postings = new int[oldKeys.length * 2][];
+        postingSizes = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                postings[slot] = oldPostings[i];
+                postingSizes[slot] = oldSizes[i];
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,68 @@
+package com.maven.soundboard.soundboardfx;
+
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.control.Label;
+import javafx.util.Duration;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes status messages to the status label from any thread. Bursts of messages are
+ * coalesced so the label changes at most once per frame, showing the latest message,
+ * and the label returns to its idle text a few seconds after the last one.
+ */
+public class StatusUpdater {
+    private static final Duration RESET_DELAY = Duration.seconds(3);
+
+    private final Label label;
+    private final String idleText;
+    private final AtomicReference<String> pending = new AtomicReference<>();
+    private final AtomicBoolean armed = new AtomicBoolean();
+    private final PauseTransition resetTimer = new PauseTransition(RESET_DELAY);
+    private final AnimationTimer frameTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            applyPending();
+        }
+    };
+
+    public StatusUpdater(Label label, String idleText) {
+        this.label = label;
+        this.idleText = idleText;
+        resetTimer.setOnFinished(e -> label.setText(idleText));
+    }
+
+    /**
+     * Queues a message for the next frame. Safe to call from any thread.
+     * @param message The status message
+     */
+    public void post(String message) {
+        pending.set(message);
+        if (armed.compareAndSet(false, true)) {
+            Platform.runLater(frameTimer::start);
+        }
+    }
+
+    private void applyPending() {
+        String message = pending.getAndSet(null);
+        if (message != null) {
+            label.setText(message);
+            resetTimer.playFromStart();
+            return;
+        }
+
+        // Nothing arrived during the last frame, so stop pulsing until the next post
+        frameTimer.stop();
+        armed.set(false);
+        if (pending.get() != null && armed.compareAndSet(false, true)) {
+            frameTimer.start();
+        }
+    }
+
+    public String getIdleText() {
+        return idleText;
+    }
+}
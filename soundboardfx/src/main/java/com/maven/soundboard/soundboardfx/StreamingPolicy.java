@@ -0,0 +1,53 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides per file whether to play it from the sample cache or stream it.
+ * Files longer than the threshold are streamed; the length comes from the file header
+ * and is remembered, so each file is inspected once.
+ */
+public class StreamingPolicy {
+    private final double thresholdSeconds;
+    private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+    public StreamingPolicy(double thresholdSeconds) {
+        this.thresholdSeconds = thresholdSeconds;
+    }
+
+    /**
+     * @param filePath Path of the sound file
+     * @return true if the file is long enough to stream; files of unknown length are cached
+     */
+    public boolean shouldStream(String filePath) {
+        Boolean decision = decisions.get(filePath);
+        if (decision == null) {
+            decision = SampleDecoder.getDurationSeconds(new File(filePath)) > thresholdSeconds;
+            decisions.put(filePath, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Answers from remembered decisions only, for callers that must not block on reading a header
+     * @param filePath Path of the sound file
+     * @return true if the file was already found short enough to cache; false if it streams or
+     *         has not been inspected yet
+     */
+    public boolean isKnownToCache(String filePath) {
+        return Boolean.FALSE.equals(decisions.get(filePath));
+    }
+
+    /**
+     * Forgets the decision for a file, e.g. after it was replaced
+     */
+    public void invalidate(String filePath) {
+        decisions.remove(filePath);
+    }
+
+    public double getThresholdSeconds() {
+        return thresholdSeconds;
+    }
+}
@@ -0,0 +1,281 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays a long file without decoding it whole. A reader thread decodes ahead into a small
+ * ring of reusable direct buffers, converting to the mixer format on the way (same channel
+ * mapping and linear resampling as SampleDecoder), and the audio thread mixes straight out
+ * of the ring. Memory use is the ring plus a few small scratch arrays, whatever the file length.
+ */
+public class StreamingSource {
+    public static final int DEFAULT_BUFFER_FRAMES = 4096;
+    public static final int DEFAULT_BUFFER_COUNT = 8;
+    private static final int READ_CHUNK_FRAMES = 1024;
+    private static final long READER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final String filePath;
+    private final AudioInputStream pcmStream;
+    private final ByteBuffer[] buffers;
+
+    // Reader thread state
+    private final int sourceChannels;
+    private final float sourceRate;
+    private final float targetRate;
+    private final double step;
+    private final byte[] readBuffer;
+    private final short[] window;
+    private long windowStart;
+    private int windowFrames;
+    private long sourceFrames;
+    private long outputFrame;
+    private boolean sourceEnded;
+    private Thread readerThread;
+
+    // Shared between the reader and the audio thread
+    private volatile long writeIndex;
+    private volatile long readIndex;
+    private volatile boolean endOfStream;
+    private volatile boolean closed;
+
+    // Audio thread state
+    private ByteBuffer current;
+    private long underruns;
+
+    private StreamingSource(String filePath, AudioInputStream pcmStream, AudioFormat targetFormat,
+                            int bufferFrames, int bufferCount) {
+        this.filePath = filePath;
+        this.pcmStream = pcmStream;
+        AudioFormat pcmFormat = pcmStream.getFormat();
+        this.sourceChannels = pcmFormat.getChannels();
+        this.sourceRate = pcmFormat.getSampleRate();
+        this.targetRate = targetFormat.getSampleRate();
+        this.step = sourceRate / (double) targetRate;
+        this.readBuffer = new byte[READ_CHUNK_FRAMES * sourceChannels * 2];
+        this.window = new short[(READ_CHUNK_FRAMES + 2) * 2];
+        this.buffers = new ByteBuffer[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(bufferFrames * 4).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Opens a file for streaming in the given mixer format. Call start to begin reading.
+     */
+    public static StreamingSource open(File file, AudioFormat targetFormat)
+            throws IOException, UnsupportedAudioFileException {
+        return open(file, targetFormat, DEFAULT_BUFFER_FRAMES, DEFAULT_BUFFER_COUNT);
+    }
+
+    public static StreamingSource open(File file, AudioFormat targetFormat, int bufferFrames, int bufferCount)
+            throws IOException, UnsupportedAudioFileException {
+        return new StreamingSource(file.getPath(), SampleDecoder.openPcmStream(file), targetFormat,
+            bufferFrames, bufferCount);
+    }
+
+    /**
+     * Starts the reader thread
+     */
+    public void start() {
+        readerThread = new Thread(this::readLoop, "soundboard-stream-reader");
+        readerThread.setDaemon(true);
+        readerThread.setPriority(Thread.NORM_PRIORITY + 1);
+        readerThread.start();
+    }
+
+    /**
+     * Waits until the ring is full or the file is fully read, so playback doesn't begin with an underrun
+     * @return false if the timeout passed first
+     */
+    public boolean awaitBuffered(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (writeIndex - readIndex < buffers.length && !endOfStream) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    private void readLoop() {
+        try {
+            while (!closed) {
+                if (writeIndex - readIndex >= buffers.length) {
+                    LockSupport.parkNanos(this, READER_PARK_NANOS);
+                    continue;
+                }
+                ByteBuffer buffer = buffers[(int) (writeIndex % buffers.length)];
+                buffer.clear();
+                boolean more = fill(buffer);
+                buffer.flip();
+                if (buffer.hasRemaining()) {
+                    // Publishing the index hands the buffer to the audio thread
+                    writeIndex++;
+                }
+                if (!more) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Streaming failed for " + filePath + ": " + e.getMessage());
+        } finally {
+            endOfStream = true;
+            try {
+                pcmStream.close();
+            } catch (IOException e) {
+                // Nothing left to read from it anyway
+            }
+        }
+    }
+
+    /**
+     * Converts source frames into the buffer until it is full or the file ends
+     * @return false once the last output frame has been written
+     */
+    private boolean fill(ByteBuffer buffer) throws IOException {
+        while (buffer.remaining() >= 4) {
+            double position = outputFrame * step;
+            long index = (long) position;
+            if (sourceEnded) {
+                long targetFrames = (long) (sourceFrames * targetRate / sourceRate);
+                if (outputFrame >= targetFrames) {
+                    return false;
+                }
+            } else if (index + 1 >= windowStart + windowFrames) {
+                readMore(index);
+                continue;
+            }
+
+            double fraction = position - index;
+            long next = Math.min(index + 1, sourceFrames - 1);
+            int a = (int) (index - windowStart) * 2;
+            int b = (int) (next - windowStart) * 2;
+            for (int channel = 0; channel < 2; channel++) {
+                double first = window[a + channel];
+                double second = window[b + channel];
+                buffer.putShort((short) Math.round(first + (second - first) * fraction));
+            }
+            outputFrame++;
+        }
+        return true;
+    }
+
+    /**
+     * Drops window frames before the given source frame and appends the next chunk of the file
+     */
+    private void readMore(long keepFrom) throws IOException {
+        int drop = (int) Math.min(Math.max(0, keepFrom - windowStart), windowFrames);
+        System.arraycopy(window, drop * 2, window, 0, (windowFrames - drop) * 2);
+        windowStart += drop;
+        windowFrames -= drop;
+
+        int frameSize = sourceChannels * 2;
+        int bytes = pcmStream.readNBytes(readBuffer, 0, readBuffer.length);
+        int frames = bytes / frameSize;
+        for (int frame = 0; frame < frames; frame++) {
+            int base = frame * frameSize;
+            short left = (short) ((readBuffer[base] & 0xff) | (readBuffer[base + 1] << 8));
+            short right = sourceChannels > 1
+                ? (short) ((readBuffer[base + 2] & 0xff) | (readBuffer[base + 3] << 8))
+                : left;
+            window[(windowFrames + frame) * 2] = left;
+            window[(windowFrames + frame) * 2 + 1] = right;
+        }
+        windowFrames += frames;
+        sourceFrames += frames;
+        if (bytes < readBuffer.length) {
+            sourceEnded = true;
+        }
+    }
+
+    /**
+     * Adds the next frames to the mix. Audio thread only; never blocks or allocates.
+     * @return Frames mixed, fewer than requested if the reader fell behind or the file ended
+     */
+    public int mixInto(float[] mix, int frames) {
+        return mixInto(mix, frames, 1f / 32768f);
+    }
+
+    /**
+     * Adds the next frames to the mix, each 16-bit sample multiplied by scale
+     * @return Frames mixed, fewer than requested if the reader fell behind or the file ended
+     */
+    public int mixInto(float[] mix, int frames, float scale) {
+        return mixInto(mix, 0, frames, scale);
+    }
+
+    /**
+     * Adds the next frames to the mix starting at a frame offset, each 16-bit sample multiplied by scale
+     * @return Frames mixed, fewer than requested if the reader fell behind or the file ended
+     */
+    public int mixInto(float[] mix, int offsetFrames, int frames, float scale) {
+        int mixed = 0;
+        while (mixed < frames) {
+            if (current == null) {
+                if (readIndex == writeIndex) {
+                    break;
+                }
+                current = buffers[(int) (readIndex % buffers.length)];
+            }
+            int count = Math.min(frames - mixed, current.remaining() / 4);
+            int offset = (offsetFrames + mixed) * 2;
+            for (int i = 0; i < count * 2; i++) {
+                mix[offset + i] += current.getShort() * scale;
+            }
+            mixed += count;
+            if (current.remaining() < 4) {
+                current = null;
+                readIndex++;
+            }
+        }
+        if (mixed < frames && !endOfStream) {
+            underruns++;
+        }
+        return mixed;
+    }
+
+    /**
+     * @return true once every frame of the file has been mixed
+     */
+    public boolean isFinished() {
+        return endOfStream && current == null && readIndex == writeIndex;
+    }
+
+    /**
+     * Stops the reader. Safe to call from the audio thread.
+     */
+    public void close() {
+        closed = true;
+        Thread reader = readerThread;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * @return Blocks in which the reader had not caught up
+     */
+    public long getUnderrunCount() {
+        return underruns;
+    }
+
+    /**
+     * @return Total size of the ring's direct buffers
+     */
+    public int getBufferBytes() {
+        return buffers.length * buffers[0].capacity();
+    }
+}
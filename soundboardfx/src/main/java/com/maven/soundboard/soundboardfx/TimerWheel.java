@@ -0,0 +1,130 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * Hashed timer wheel for the hotkey timeouts. Time is cut into fixed ticks and each
+ * timer waits in the slot of its deadline tick, staying there for whole turns of the
+ * wheel if the deadline is further away than one turn. Timers are created once and rearmed
+ * in place, so scheduling and cancelling are a few field writes and never allocate.
+ * Not thread-safe; the owner serializes every call.
+ */
+public final class TimerWheel {
+
+    /**
+     * A reusable timer; it is in at most one slot at a time
+     */
+    public static final class Timer {
+        private final Runnable action;
+        private Timer previous;
+        private Timer next;
+        private int slot = -1;
+        private long deadlineTick;
+
+        /**
+         * @param action Run on the thread that advances the wheel when the timer expires
+         */
+        public Timer(Runnable action) {
+            this.action = action;
+        }
+
+        public boolean isScheduled() {
+            return slot >= 0;
+        }
+    }
+
+    private final Timer[] slots;
+    private final int mask;
+    private final long tickNanos;
+    private final long originNanos;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickNanos Resolution; timers fire up to one tick late
+     * @param slotCount Slots per turn, rounded up to a power of two
+     * @param nowNanos Current time, from System.nanoTime()
+     */
+    public TimerWheel(long tickNanos, int slotCount, long nowNanos) {
+        int capacity = Integer.highestOneBit(Math.max(2, slotCount - 1)) << 1;
+        this.slots = new Timer[capacity];
+        this.mask = capacity - 1;
+        this.tickNanos = tickNanos;
+        this.originNanos = nowNanos;
+    }
+
+    /**
+     * Arms a timer, moving it if it is already scheduled
+     * @param deadlineNanos When the timer should fire, from System.nanoTime()
+     */
+    public void schedule(Timer timer, long deadlineNanos) {
+        cancel(timer);
+        // Round up so a timer never fires early; a deadline already passed fires on the next tick
+        long deadlineTick = Math.max(currentTick + 1,
+            Math.floorDiv(deadlineNanos - originNanos + tickNanos - 1, tickNanos));
+        int slot = (int) (deadlineTick & mask);
+        timer.deadlineTick = deadlineTick;
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        slots[slot] = timer;
+        size++;
+    }
+
+    /**
+     * Disarms a timer; does nothing if it is not scheduled
+     */
+    public void cancel(Timer timer) {
+        if (timer.slot < 0) {
+            return;
+        }
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+        timer.slot = -1;
+        size--;
+    }
+
+    /**
+     * Fires every timer due by now, in deadline order; actions may schedule timers again
+     * @param nowNanos Current time, from System.nanoTime()
+     */
+    public void advance(long nowNanos) {
+        long nowTick = Math.floorDiv(nowNanos - originNanos, tickNanos);
+        while (currentTick < nowTick) {
+            if (size == 0) {
+                // Nothing waiting, so skip the idle ticks in one step
+                currentTick = nowTick;
+                return;
+            }
+            currentTick++;
+            int slot = (int) (currentTick & mask);
+            Timer timer = slots[slot];
+            while (timer != null) {
+                if (timer.deadlineTick <= currentTick) {
+                    cancel(timer);
+                    timer.action.run();
+                    // The action may have changed this slot, so walk it again
+                    timer = slots[slot];
+                } else {
+                    timer = timer.next;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Number of timers scheduled
+     */
+    public int size() {
+        return size;
+    }
+}
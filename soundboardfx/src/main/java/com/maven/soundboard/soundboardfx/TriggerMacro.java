@@ -0,0 +1,41 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * A recorded run of triggers played back from one keybind. It takes a sound's place in the
+ * keybind table, so it matches like any other keybind, and SoundManager plays its timeline
+ * instead of a file. Macros are kept in macros.bin, not in the sound library.
+ */
+public class TriggerMacro extends SoundItem {
+    private final TriggerTimeline timeline;
+
+    /**
+     * @param timeline Triggers in time order, the first usually at offset 0; not changed afterwards
+     */
+    public TriggerMacro(String name, String keybind, TriggerTimeline timeline) {
+        super(name, null, keybind);
+        this.timeline = timeline;
+    }
+
+    public TriggerTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * @return Offset of the last trigger
+     */
+    public long getDurationNanos() {
+        return timeline.getDurationNanos();
+    }
+
+    @Override
+    public TriggerMacro copy() {
+        TriggerMacro copy = new TriggerMacro(getName(), getKeybind(), timeline);
+        copy.setPage(getPage());
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return getName() + " (" + getKeybind() + ", " + timeline.size() + " triggers)";
+    }
+}
@@ -0,0 +1,169 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free multi-producer, single-consumer queue of mixer commands.
+ * Slots are allocated once and reused, so offering and draining never allocate.
+ * Any thread may offer; only the audio thread drains.
+ */
+public class TriggerQueue {
+    public static final int PLAY = 0;
+    public static final int STOP = 1;
+    public static final int STOP_ALL = 2;
+    public static final int PLAY_STREAM = 3;
+    public static final int PLAY_SCHEDULE = 4;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private long dequeuePosition;
+
+    /**
+     * @param capacity Maximum queued commands, rounded up to a power of two
+     */
+    public TriggerQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i);
+        }
+    }
+
+    /**
+     * Adds a command
+     * @return false if the queue is full and the command was dropped
+     */
+    public boolean offer(int type, DecodedSample sample, String key, long triggerNanos) {
+        return offer(type, sample, null, key, triggerNanos);
+    }
+
+    /**
+     * Adds a command that may carry a streaming source instead of a decoded sample
+     * @return false if the queue is full and the command was dropped
+     */
+    public boolean offer(int type, DecodedSample sample, StreamingSource stream, String key, long triggerNanos) {
+        return offer(type, sample, stream, key, triggerNanos, 1f);
+    }
+
+    /**
+     * Adds a command carrying the linear gain to play at
+     * @return false if the queue is full and the command was dropped
+     */
+    public boolean offer(int type, DecodedSample sample, StreamingSource stream, String key, long triggerNanos,
+                         float gain) {
+        return offer(type, sample, stream, key, triggerNanos, gain, null);
+    }
+
+    /**
+     * Adds a schedule of triggers to start together
+     * @return false if the queue is full and the command was dropped
+     */
+    public boolean offer(TriggerSchedule schedule, long triggerNanos) {
+        return offer(PLAY_SCHEDULE, null, null, null, triggerNanos, 1f, schedule);
+    }
+
+    private boolean offer(int type, DecodedSample sample, StreamingSource stream, String key, long triggerNanos,
+                          float gain, TriggerSchedule schedule) {
+        long position = enqueuePosition.get();
+        Slot slot;
+        while (true) {
+            slot = slots[(int) position & mask];
+            long difference = slot.sequence - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+
+        slot.type = type;
+        slot.sample = sample;
+        slot.stream = stream;
+        slot.key = key;
+        slot.triggerNanos = triggerNanos;
+        slot.gain = gain;
+        slot.schedule = schedule;
+        slot.enqueueNanos = System.nanoTime();
+        // Publishing the sequence makes the fields above visible to the consumer
+        slot.sequence = position + 1;
+        return true;
+    }
+
+    /**
+     * Hands every queued command to the handler. Must only be called from the consumer thread.
+     * @return Number of commands drained
+     */
+    public int drain(Handler handler) {
+        int count = 0;
+        while (true) {
+            Slot slot = slots[(int) dequeuePosition & mask];
+            if (slot.sequence != dequeuePosition + 1) {
+                return count;
+            }
+
+            int type = slot.type;
+            DecodedSample sample = slot.sample;
+            StreamingSource stream = slot.stream;
+            String key = slot.key;
+            long triggerNanos = slot.triggerNanos;
+            float gain = slot.gain;
+            long enqueueNanos = slot.enqueueNanos;
+            TriggerSchedule schedule = slot.schedule;
+            slot.sample = null;
+            slot.stream = null;
+            slot.key = null;
+            slot.schedule = null;
+            slot.sequence = dequeuePosition + slots.length;
+            dequeuePosition++;
+
+            if (type == PLAY_SCHEDULE) {
+                handler.onSchedule(schedule, triggerNanos, enqueueNanos);
+            } else {
+                handler.onCommand(type, sample, stream, key, triggerNanos, gain, enqueueNanos);
+            }
+            count++;
+        }
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Receives drained commands on the consumer thread
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void onCommand(int type, DecodedSample sample, StreamingSource stream, String key,
+                       long triggerNanos, float gain, long enqueueNanos);
+
+        /**
+         * Receives a schedule of triggers; dropped unless overridden
+         */
+        default void onSchedule(TriggerSchedule schedule, long triggerNanos, long enqueueNanos) {
+        }
+    }
+
+    private static final class Slot {
+        private volatile long sequence;
+        private int type;
+        private DecodedSample sample;
+        private StreamingSource stream;
+        private String key;
+        private long triggerNanos;
+        private float gain;
+        private TriggerSchedule schedule;
+        private long enqueueNanos;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.maven.soundboard.soundboardfx;
+
+/**
+ * Records hotkey triggers with the time their key event arrived, to be played back as a
+ * macro. Offsets are taken from the first trigger, so a macro starts on its first sound.
+ * Triggers of other macros are not recorded. Recording is cheap enough for the hotkey matcher
+ * thread, and is a single volatile read while stopped.
+ */
+public final class TriggerRecorder {
+    private volatile boolean recording;
+    private TriggerTimeline timeline;
+    private long firstNanos;
+
+    public synchronized void start() {
+        timeline = new TriggerTimeline();
+        firstNanos = 0;
+        recording = true;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * @param triggerNanos System.nanoTime() of the key event
+     */
+    public void record(SoundItem soundItem, long triggerNanos) {
+        if (recording && !(soundItem instanceof TriggerMacro)) {
+            add(soundItem, false, triggerNanos);
+        }
+    }
+
+    /**
+     * Records stopping everything, e.g. from the Stop All button
+     */
+    public void recordStopAll(long triggerNanos) {
+        if (recording) {
+            add(null, true, triggerNanos);
+        }
+    }
+
+    private synchronized void add(SoundItem soundItem, boolean stop, long triggerNanos) {
+        if (!recording) {
+            return;
+        }
+        if (timeline.size() == 0) {
+            if (stop) {
+                // Nothing to stop yet
+                return;
+            }
+            firstNanos = triggerNanos;
+        }
+        // The matcher thread and control commands may hand in triggers slightly out of order
+        long offset = Math.max(0, triggerNanos - firstNanos);
+        if (stop) {
+            timeline.stop(offset, soundItem);
+        } else {
+            timeline.play(offset, soundItem);
+        }
+    }
+
+    /**
+     * Ends the recording
+     * @return The triggers recorded, in time order; empty if there were none
+     */
+    public synchronized TriggerTimeline stop() {
+        recording = false;
+        TriggerTimeline recorded = timeline != null ? timeline : new TriggerTimeline();
+        timeline = null;
+        recorded.sort();
+        return recorded;
+    }
+}
@@ -0,0 +1,115 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.util.Arrays;
+
+/**
+ * Triggers at fixed frame offsets, handed to the mixer in one command and started by the
+ * audio thread on their exact frame as it renders. Samples, gains and retrigger policies
+ * are resolved when the schedule is built, so the audio thread only reads the arrays.
+ * Built on one thread and not changed once queued.
+ */
+public final class TriggerSchedule {
+    private final String key;
+    private final float frameRate;
+    private long[] frames = new long[16];
+    private long[] offsets = new long[16];
+    private int[] types = new int[16];
+    private DecodedSample[] samples = new DecodedSample[16];
+    private String[] keys = new String[16];
+    private float[] gains = new float[16];
+    private int size;
+
+    /**
+     * @param key Identifies what is playing, usually a macro name; triggering the same key
+     *            again while it runs starts it over
+     * @param frameRate Frame rate of the mixer the schedule is for
+     */
+    public TriggerSchedule(String key, float frameRate) {
+        this.key = key;
+        this.frameRate = frameRate;
+    }
+
+    /**
+     * Adds a trigger, resolved against voices playing under its key when it starts
+     * @param offsetNanos Time after the start of the schedule, no earlier than the previous event
+     * @param key Identifies the voice, usually the file path
+     * @param policy What to do if the key is playing; null starts another voice regardless
+     */
+    public void play(long offsetNanos, DecodedSample sample, String key, float gain,
+                     RetriggerPolicy policy, int voiceLimit) {
+        add(offsetNanos, AudioMixer.playCommand(TriggerQueue.PLAY, policy, voiceLimit), sample, key, gain);
+    }
+
+    /**
+     * Adds a stop
+     * @param key Voices to stop, or null to stop everything
+     */
+    public void stop(long offsetNanos, String key) {
+        add(offsetNanos, key == null ? TriggerQueue.STOP_ALL : TriggerQueue.STOP, null, key, 1f);
+    }
+
+    private void add(long offsetNanos, int type, DecodedSample sample, String eventKey, float gain) {
+        if (offsetNanos < 0 || size > 0 && offsetNanos < offsets[size - 1]) {
+            throw new IllegalArgumentException("Events must be added in time order, got " + offsetNanos);
+        }
+        if (size == frames.length) {
+            int capacity = size * 2;
+            frames = Arrays.copyOf(frames, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            types = Arrays.copyOf(types, capacity);
+            samples = Arrays.copyOf(samples, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            gains = Arrays.copyOf(gains, capacity);
+        }
+        // Rounded the same way as an offline render, so both start a trigger on the same frame
+        frames[size] = Math.round(offsetNanos * (double) frameRate / 1_000_000_000L);
+        offsets[size] = offsetNanos;
+        types[size] = type;
+        samples[size] = sample;
+        keys[size] = eventKey;
+        gains[size] = gain;
+        size++;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public float getFrameRate() {
+        return frameRate;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Frames from the start of the schedule to the event
+     */
+    public long getFrame(int index) {
+        return frames[index];
+    }
+
+    /**
+     * @return The event's time as given, before rounding to a frame
+     */
+    public long getOffsetNanos(int index) {
+        return offsets[index];
+    }
+
+    int getType(int index) {
+        return types[index];
+    }
+
+    DecodedSample getSample(int index) {
+        return samples[index];
+    }
+
+    String getEventKey(int index) {
+        return keys[index];
+    }
+
+    float getGain(int index) {
+        return gains[index];
+    }
+}
@@ -0,0 +1,134 @@
+package com.maven.soundboard.soundboardfx;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Triggers at offsets from the start of a take, for rendering offline. Events are kept in
+ * parallel arrays in the order added; {@link #sort} puts them in time order, keeping the
+ * order of events at the same time.
+ */
+public final class TriggerTimeline {
+    private long[] times = new long[16];
+    private SoundItem[] sounds = new SoundItem[16];
+    private boolean[] stops = new boolean[16];
+    private int size;
+
+    /**
+     * @param offsetNanos Time from the start of the timeline
+     */
+    public void play(long offsetNanos, SoundItem soundItem) {
+        add(offsetNanos, soundItem, false);
+    }
+
+    /**
+     * @param soundItem The sound to stop, or null to stop everything
+     */
+    public void stop(long offsetNanos, SoundItem soundItem) {
+        add(offsetNanos, soundItem, true);
+    }
+
+    private void add(long offsetNanos, SoundItem soundItem, boolean stop) {
+        if (offsetNanos < 0) {
+            throw new IllegalArgumentException("Negative offset " + offsetNanos);
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            sounds = Arrays.copyOf(sounds, size * 2);
+            stops = Arrays.copyOf(stops, size * 2);
+        }
+        times[size] = offsetNanos;
+        sounds[size] = soundItem;
+        stops[size] = stop;
+        size++;
+    }
+
+    /**
+     * Orders the events by time; events at the same time keep the order they were added in
+     */
+    public void sort() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+        long[] sortedTimes = new long[times.length];
+        SoundItem[] sortedSounds = new SoundItem[sounds.length];
+        boolean[] sortedStops = new boolean[stops.length];
+        for (int i = 0; i < size; i++) {
+            sortedTimes[i] = times[order[i]];
+            sortedSounds[i] = sounds[order[i]];
+            sortedStops[i] = stops[order[i]];
+        }
+        times = sortedTimes;
+        sounds = sortedSounds;
+        stops = sortedStops;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTimeNanos(int index) {
+        return times[index];
+    }
+
+    /**
+     * @return The sound, or null for an event stopping everything
+     */
+    public SoundItem getSound(int index) {
+        return sounds[index];
+    }
+
+    public boolean isStop(int index) {
+        return stops[index];
+    }
+
+    /**
+     * @return Offset of the latest event
+     */
+    public long getDurationNanos() {
+        long latest = 0;
+        for (int i = 0; i < size; i++) {
+            latest = Math.max(latest, times[i]);
+        }
+        return latest;
+    }
+
+    /**
+     * Reads a timeline written one event per line as "seconds PLAY name", "seconds STOP name"
+     * or "seconds STOP" to stop everything. Blank lines and lines starting with # are skipped.
+     * @param soundsByName Sounds the names refer to
+     */
+    public static TriggerTimeline parse(List<String> lines, Map<String, SoundItem> soundsByName) {
+        TriggerTimeline timeline = new TriggerTimeline();
+        for (int number = 1; number <= lines.size(); number++) {
+            String line = lines.get(number - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+", 3);
+            try {
+                long offsetNanos = Math.round(Double.parseDouble(parts[0]) * 1_000_000_000L);
+                String action = parts.length > 1 ? parts[1].toUpperCase(Locale.ROOT) : "";
+                SoundItem soundItem = parts.length > 2 ? soundsByName.get(parts[2]) : null;
+                if (parts.length > 2 && soundItem == null) {
+                    throw new IllegalArgumentException("no sound named " + parts[2]);
+                }
+                if (action.equals("PLAY") && soundItem != null) {
+                    timeline.play(offsetNanos, soundItem);
+                } else if (action.equals("STOP")) {
+                    timeline.stop(offsetNanos, soundItem);
+                } else {
+                    throw new IllegalArgumentException("expected PLAY name or STOP [name]");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Timeline line " + number + ": " + e.getMessage(), e);
+            }
+        }
+        timeline.sort();
+        return timeline;
+    }
+}
@@ -0,0 +1,94 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Writes mixer output to a 16-bit PCM WAV file
+ */
+public class WavFileSink implements AudioSink {
+    private static final int HEADER_SIZE = 44;
+
+    private final File file;
+    private RandomAccessFile output;
+    private AudioFormat format;
+    private long dataBytes;
+
+    public WavFileSink(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void open(AudioFormat format, int blockFrames) throws IOException {
+        this.format = format;
+        this.dataBytes = 0;
+        output = new RandomAccessFile(file, "rw");
+        output.setLength(0);
+        // Sizes are patched in on close once the data length is known
+        output.write(new byte[HEADER_SIZE]);
+    }
+
+    @Override
+    public void write(byte[] buffer, int length) throws IOException {
+        output.write(buffer, 0, length);
+        dataBytes += length;
+    }
+
+    @Override
+    public void close() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.seek(0);
+            output.write(header());
+            output.close();
+        } catch (IOException e) {
+            System.err.println("Failed to finish WAV file: " + e.getMessage());
+        }
+        output = null;
+    }
+
+    private byte[] header() {
+        int channels = format.getChannels();
+        int sampleRate = (int) format.getSampleRate();
+        int bitsPerSample = format.getSampleSizeInBits();
+        int blockAlign = channels * bitsPerSample / 8;
+
+        byte[] header = new byte[HEADER_SIZE];
+        writeAscii(header, 0, "RIFF");
+        writeInt(header, 4, (int) (36 + dataBytes));
+        writeAscii(header, 8, "WAVE");
+        writeAscii(header, 12, "fmt ");
+        writeInt(header, 16, 16);
+        writeShort(header, 20, 1);
+        writeShort(header, 22, channels);
+        writeInt(header, 24, sampleRate);
+        writeInt(header, 28, sampleRate * blockAlign);
+        writeShort(header, 32, blockAlign);
+        writeShort(header, 34, bitsPerSample);
+        writeAscii(header, 36, "data");
+        writeInt(header, 40, (int) dataBytes);
+        return header;
+    }
+
+    private static void writeAscii(byte[] target, int offset, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            target[offset + i] = (byte) text.charAt(i);
+        }
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >> 8);
+        target[offset + 2] = (byte) (value >> 16);
+        target[offset + 3] = (byte) (value >> 24);
+    }
+
+    private static void writeShort(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >> 8);
+    }
+}
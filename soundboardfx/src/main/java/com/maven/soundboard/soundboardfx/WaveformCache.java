@@ -0,0 +1,264 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waveform envelopes of sound files, analyzed once on a background thread and kept on disk
+ * between runs. An envelope loaded from disk is used only after the file's size and
+ * modification time have been checked against it. Requests are served newest first, so
+ * the rows on screen are analyzed before ones scrolled past.
+ *
+ * File layout: magic "SBFXWAV1", version, entry count, then per entry the path, file size,
+ * modification time, duration and bucket count followed by the min, max and RMS bytes.
+ */
+public class WaveformCache implements Closeable {
+    private static final byte[] MAGIC = "SBFXWAV1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    /** Newly analyzed envelopes are written once the worker has been idle this long */
+    private static final long SAVE_DELAY_MILLIS = 2000;
+
+    /**
+     * Receives envelopes as they become available, on the worker thread
+     */
+    public interface Listener {
+        void onAnalyzed(String filePath, WaveformEnvelope envelope);
+    }
+
+    private final File cacheFile;
+    private final int buckets;
+    private final Map<String, WaveformEnvelope> envelopes = new ConcurrentHashMap<>();
+    /** Paths whose envelope has been checked against the file this session */
+    private final Set<String> checked = ConcurrentHashMap.newKeySet();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final LinkedBlockingDeque<String> requests = new LinkedBlockingDeque<>();
+    private final LatencyHistogram analyzeTimes = new LatencyHistogram();
+    private volatile Listener listener;
+    private volatile boolean dirty;
+    private volatile boolean closed;
+    private Thread worker;
+
+    public WaveformCache(File cacheFile) {
+        this(cacheFile, WaveformEnvelope.DEFAULT_BUCKETS);
+    }
+
+    public WaveformCache(File cacheFile, int buckets) {
+        this.cacheFile = cacheFile;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Loads the disk cache and starts serving requests on a background thread
+     * @param listener Told about each envelope checked or analyzed, may be null
+     */
+    public synchronized void start(Listener listener) {
+        this.listener = listener;
+        worker = new Thread(this::run, "soundboard-waveforms");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    /**
+     * Returns a file's envelope if it is known to be current, otherwise queues the file
+     * and returns null; the listener hears when it is ready. Never blocks.
+     * @param filePath Path of the sound file
+     */
+    public WaveformEnvelope get(String filePath) {
+        if (checked.contains(filePath)) {
+            return envelopes.get(filePath);
+        }
+        if (queued.add(filePath)) {
+            requests.offerFirst(filePath);
+        }
+        return null;
+    }
+
+    /**
+     * Forgets that a file was checked, after it was reported as changed
+     */
+    public void invalidate(String filePath) {
+        checked.remove(filePath);
+    }
+
+    private void run() {
+        load();
+        try {
+            while (!closed) {
+                String filePath = requests.pollFirst(SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                if (filePath == null) {
+                    if (dirty) {
+                        save();
+                    }
+                    continue;
+                }
+                queued.remove(filePath);
+                WaveformEnvelope envelope = refresh(filePath);
+                Listener current = listener;
+                if (current != null) {
+                    current.onAnalyzed(filePath, envelope);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Checks a file against its stored envelope and analyzes it again if it changed
+     * @return The current envelope, or null if the file is gone
+     */
+    WaveformEnvelope refresh(String filePath) {
+        File file = new File(filePath);
+        checked.add(filePath);
+        if (!file.isFile()) {
+            if (envelopes.remove(filePath) != null) {
+                dirty = true;
+            }
+            return null;
+        }
+        long size = file.length();
+        long lastModified = file.lastModified();
+        WaveformEnvelope known = envelopes.get(filePath);
+        if (known != null && known.matches(size, lastModified)) {
+            return known;
+        }
+
+        WaveformEnvelope envelope;
+        long start = System.nanoTime();
+        try {
+            envelope = WaveformEnvelope.analyze(file, buckets);
+            analyzeTimes.record(System.nanoTime() - start);
+        } catch (UnsupportedAudioFileException e) {
+            envelope = WaveformEnvelope.unsupported(size, lastModified);
+        } catch (IOException e) {
+            System.err.println("Failed to analyze waveform: " + e.getMessage());
+            checked.remove(filePath);
+            return null;
+        }
+        envelopes.put(filePath, envelope);
+        dirty = true;
+        return envelope;
+    }
+
+    /**
+     * Reads the disk cache; a missing or damaged file leaves the cache empty
+     */
+    void load() {
+        if (!cacheFile.exists()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) {
+                throw new IOException("Not a waveform cache");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String filePath = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                double duration = in.readDouble();
+                int points = in.readUnsignedShort();
+                byte[] min = new byte[points];
+                byte[] max = new byte[points];
+                byte[] rms = new byte[points];
+                in.readFully(min);
+                in.readFully(max);
+                in.readFully(rms);
+                envelopes.putIfAbsent(filePath, new WaveformEnvelope(size, lastModified, duration, min, max, rms));
+            }
+            System.out.printf("Loaded %d waveforms in %.1f ms%n", count, (System.nanoTime() - start) / 1_000_000.0);
+        } catch (IOException e) {
+            System.err.println("Failed to load waveform cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every envelope to a temporary file and renames it over the cache
+     */
+    synchronized void save() {
+        dirty = false;
+        File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+        try {
+            Map<String, WaveformEnvelope> snapshot = Map.copyOf(envelopes);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, WaveformEnvelope> entry : snapshot.entrySet()) {
+                    WaveformEnvelope envelope = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(envelope.getFileSize());
+                    out.writeLong(envelope.getLastModified());
+                    out.writeDouble(envelope.getDurationSeconds());
+                    int points = envelope.getBucketCount();
+                    out.writeShort(points);
+                    for (int i = 0; i < points; i++) {
+                        out.writeByte(envelope.getMin(i));
+                    }
+                    for (int i = 0; i < points; i++) {
+                        out.writeByte(envelope.getMax(i));
+                    }
+                    for (int i = 0; i < points; i++) {
+                        out.writeByte(envelope.getRms(i));
+                    }
+                }
+            }
+            ConfigManager.moveIntoPlace(tempFile, cacheFile);
+        } catch (IOException e) {
+            System.err.println("Failed to save waveform cache: " + e.getMessage());
+        }
+    }
+
+    public int size() {
+        return envelopes.size();
+    }
+
+    /**
+     * @return Time taken by each file analyzed this session
+     */
+    public LatencyHistogram getAnalyzeTimes() {
+        return analyzeTimes;
+    }
+
+    /**
+     * Stops the worker and writes anything not yet saved
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread current;
+        synchronized (this) {
+            current = worker;
+        }
+        if (current != null) {
+            current.interrupt();
+            try {
+                current.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (dirty) {
+            save();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.maven.soundboard.soundboardfx;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.TableCell;
+import javafx.scene.paint.Color;
+
+/**
+ * Table cell drawing a sound's waveform thumbnail from its cached envelope: the min/max
+ * outline with the RMS level filled in on top. Draws nothing until the envelope is ready.
+ */
+public class WaveformCell extends TableCell<SoundItem, String> {
+    private static final double WIDTH = 100;
+    private static final double HEIGHT = 24;
+    private static final Color PEAK_COLOR = Color.web("#58A6FF", 0.45);
+    private static final Color RMS_COLOR = Color.web("#58A6FF");
+
+    private final WaveformCache cache;
+    private final Canvas canvas = new Canvas(WIDTH, HEIGHT);
+
+    public WaveformCell(WaveformCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    protected void updateItem(String filePath, boolean empty) {
+        super.updateItem(filePath, empty);
+        setText(null);
+        WaveformEnvelope envelope = empty || filePath == null ? null : cache.get(filePath);
+        if (envelope == null || !envelope.isSupported() || envelope.getBucketCount() == 0) {
+            setGraphic(null);
+            return;
+        }
+        draw(envelope);
+        setGraphic(canvas);
+    }
+
+    private void draw(WaveformEnvelope envelope) {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.clearRect(0, 0, WIDTH, HEIGHT);
+        int points = envelope.getBucketCount();
+        double step = WIDTH / points;
+        double middle = HEIGHT / 2;
+        double scale = middle / 128;
+        for (int i = 0; i < points; i++) {
+            double x = i * step;
+            double top = middle - envelope.getMax(i) * scale;
+            double bottom = middle - envelope.getMin(i) * scale;
+            g.setFill(PEAK_COLOR);
+            g.fillRect(x, top, Math.max(1, step - 0.5), Math.max(1, bottom - top));
+            double rms = envelope.getRms(i) * scale;
+            g.setFill(RMS_COLOR);
+            g.fillRect(x, middle - rms, Math.max(1, step - 0.5), Math.max(1, rms * 2));
+        }
+    }
+}
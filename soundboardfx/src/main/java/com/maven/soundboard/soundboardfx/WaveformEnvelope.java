@@ -0,0 +1,160 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Downsampled outline of a sound file for drawing a thumbnail: per bucket the minimum and
+ * maximum sample and the RMS level, each quantized to 8 bits, plus the file's duration.
+ * The file's size and modification time at analysis are kept so a stale envelope can be told
+ * from a current one without reading the audio.
+ */
+public final class WaveformEnvelope {
+    public static final int DEFAULT_BUCKETS = 96;
+    /** Frames summarized together before the final downsampling, when the length is unknown */
+    private static final int BLOCK_FRAMES = 256;
+
+    private final long fileSize;
+    private final long lastModified;
+    private final double durationSeconds;
+    private final byte[] min;
+    private final byte[] max;
+    private final byte[] rms;
+
+    WaveformEnvelope(long fileSize, long lastModified, double durationSeconds, byte[] min, byte[] max, byte[] rms) {
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.durationSeconds = durationSeconds;
+        this.min = min;
+        this.max = max;
+        this.rms = rms;
+    }
+
+    /**
+     * Marks a file that cannot be analyzed, so it is not retried until it changes
+     */
+    static WaveformEnvelope unsupported(long fileSize, long lastModified) {
+        return new WaveformEnvelope(fileSize, lastModified, -1, new byte[0], new byte[0], new byte[0]);
+    }
+
+    /**
+     * Reads a whole file once and summarizes it
+     * @param file A sound file readable by javax.sound.sampled
+     * @param buckets Number of points in the envelope
+     */
+    public static WaveformEnvelope analyze(File file, int buckets) throws IOException, UnsupportedAudioFileException {
+        long fileSize = file.length();
+        long lastModified = file.lastModified();
+        try (AudioInputStream pcm = SampleDecoder.openPcmStream(file)) {
+            AudioFormat format = pcm.getFormat();
+            int frameSize = format.getFrameSize();
+
+            // Summarize fixed blocks first, since the stream length may not be known up front
+            int blockCount = 0;
+            short[] blockMin = new short[64];
+            short[] blockMax = new short[64];
+            double[] blockSquares = new double[64];
+            long frames = 0;
+            byte[] buffer = new byte[BLOCK_FRAMES * frameSize];
+            int read;
+            while ((read = pcm.readNBytes(buffer, 0, buffer.length)) > 0) {
+                if (blockCount == blockMin.length) {
+                    blockMin = Arrays.copyOf(blockMin, blockCount * 2);
+                    blockMax = Arrays.copyOf(blockMax, blockCount * 2);
+                    blockSquares = Arrays.copyOf(blockSquares, blockCount * 2);
+                }
+                int samples = read / 2;
+                short lo = Short.MAX_VALUE;
+                short hi = Short.MIN_VALUE;
+                double squares = 0;
+                for (int i = 0; i < samples; i++) {
+                    short sample = (short) ((buffer[i * 2] & 0xff) | (buffer[i * 2 + 1] << 8));
+                    lo = (short) Math.min(lo, sample);
+                    hi = (short) Math.max(hi, sample);
+                    squares += (double) sample * sample;
+                }
+                blockMin[blockCount] = lo;
+                blockMax[blockCount] = hi;
+                blockSquares[blockCount] = squares / samples;
+                blockCount++;
+                frames += read / frameSize;
+            }
+
+            int points = Math.min(buckets, blockCount);
+            byte[] min = new byte[points];
+            byte[] max = new byte[points];
+            byte[] rms = new byte[points];
+            for (int bucket = 0; bucket < points; bucket++) {
+                int from = (int) ((long) bucket * blockCount / points);
+                int to = (int) ((long) (bucket + 1) * blockCount / points);
+                short lo = Short.MAX_VALUE;
+                short hi = Short.MIN_VALUE;
+                double squares = 0;
+                for (int block = from; block < to; block++) {
+                    lo = (short) Math.min(lo, blockMin[block]);
+                    hi = (short) Math.max(hi, blockMax[block]);
+                    squares += blockSquares[block];
+                }
+                min[bucket] = (byte) (lo >> 8);
+                max[bucket] = (byte) (hi >> 8);
+                rms[bucket] = (byte) Math.min(255, (int) (Math.sqrt(squares / (to - from)) / 128));
+            }
+            return new WaveformEnvelope(fileSize, lastModified, frames / (double) format.getFrameRate(), min, max, rms);
+        }
+    }
+
+    /**
+     * @return Whether the file still has the size and modification time it was analyzed at
+     */
+    public boolean matches(long fileSize, long lastModified) {
+        return this.fileSize == fileSize && this.lastModified == lastModified;
+    }
+
+    public boolean isSupported() {
+        return durationSeconds >= 0;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return Length in seconds, or -1 if the file could not be analyzed
+     */
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getBucketCount() {
+        return min.length;
+    }
+
+    /**
+     * @return Lowest sample in the bucket, from -128 to 127
+     */
+    public int getMin(int bucket) {
+        return min[bucket];
+    }
+
+    /**
+     * @return Highest sample in the bucket, from -128 to 127
+     */
+    public int getMax(int bucket) {
+        return max[bucket];
+    }
+
+    /**
+     * @return RMS level of the bucket, from 0 to 255
+     */
+    public int getRms(int bucket) {
+        return rms[bucket] & 0xff;
+    }
+}
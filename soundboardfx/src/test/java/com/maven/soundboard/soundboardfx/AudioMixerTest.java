@@ -0,0 +1,256 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudioMixerTest {
+    private static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sumsOverlappingVoices() {
+        AudioMixer mixer = new AudioMixer(new NullSink(), FORMAT, 64, 4);
+        mixer.play(constant("a", 1000, 64), "a");
+        mixer.play(constant("b", 2000, 64), "b");
+
+        mixer.renderBlock();
+
+        assertEquals(2, mixer.getActiveVoiceCount());
+        assertEquals(2999, readSample(mixer.getOutputBuffer(), 0), 1);
+    }
+
+    @Test
+    void releasesVoicesWhenSampleEnds() {
+        AudioMixer mixer = new AudioMixer(new NullSink(), FORMAT, 64, 4);
+        mixer.play(constant("a", 1000, 100), "a");
+
+        mixer.renderBlock();
+        mixer.renderBlock();
+
+        // Frame 100 is frame 36 of the second block
+        assertEquals(1000, readSample(mixer.getOutputBuffer(), 35 * 2), 1);
+        assertEquals(0, readSample(mixer.getOutputBuffer(), 36 * 2));
+        assertEquals(0, mixer.getActiveVoiceCount());
+    }
+
+    @Test
+    void stealsOldestVoiceWhenFull() {
+        AudioMixer mixer = new AudioMixer(new NullSink(), FORMAT, 64, 2);
+        mixer.play(constant("a", 1000, 1000), "a");
+        mixer.renderBlock();
+        mixer.play(constant("b", 2000, 1000), "b");
+        mixer.play(constant("c", 4000, 1000), "c");
+
+        mixer.renderBlock();
+
+        assertEquals(1, mixer.getStolenVoiceCount());
+        assertEquals(5999, readSample(mixer.getOutputBuffer(), 0), 1);
+    }
+
+    @Test
+    void stopsVoicesByKey() {
+        AudioMixer mixer = new AudioMixer(new NullSink(), FORMAT, 64, 4);
+        mixer.play(constant("a", 1000, 1000), "a");
+        mixer.play(constant("b", 2000, 1000), "b");
+        mixer.renderBlock();
+
+        mixer.stop("a");
+        mixer.renderBlock();
+
+        assertEquals(1, mixer.getActiveVoiceCount());
+        assertEquals(2000, readSample(mixer.getOutputBuffer(), 0), 1);
+    }
+
+    @Test
+    void appliesVoiceGainAndLimitsTheSum() {
+        AudioMixer mixer = new AudioMixer(new NullSink(), FORMAT, 64, 4);
+        mixer.play(constant("a", 4000, 1000), "a", System.nanoTime(), 0.5f);
+        mixer.renderBlock();
+        assertEquals(2000, readSample(mixer.getOutputBuffer(), 0), 1);
+
+        // Two loud voices would clip; with the limiter the sum stays just under full scale
+        mixer.setLimiterEnabled(true);
+        mixer.play(constant("b", 30000, 1000), "b", System.nanoTime(), 1f);
+        mixer.play(constant("c", 30000, 1000), "c", System.nanoTime(), 1f);
+        mixer.renderBlock();
+        int limited = readSample(mixer.getOutputBuffer(), 0);
+        assertTrue(limited > 30000 && limited < 31000, "limited to " + limited);
+        assertEquals(1, mixer.getLimitedBlockCount());
+    }
+
+    @Test
+    void appliesRetriggerPoliciesToRapidTriggers() {
+        // 60 triggers a second is one every 735 frames, so about 11 blocks between triggers
+        DecodedSample longSample = constant("a", 1000, 44100 * 10);
+        assertEquals(1, retrigger(longSample, RetriggerPolicy.RESTART, 1).getActiveVoiceCount());
+        assertEquals(3, retrigger(longSample, RetriggerPolicy.OVERLAP, 3).getActiveVoiceCount());
+        assertEquals(0, retrigger(longSample, RetriggerPolicy.TOGGLE, 1).getActiveVoiceCount());
+
+        AudioMixer ignoring = retrigger(longSample, RetriggerPolicy.IGNORE, 1);
+        assertEquals(1, ignoring.getActiveVoiceCount());
+        assertEquals(59, ignoring.getIgnoredTriggerCount());
+        // The first trigger is still playing from where it started
+        assertEquals(1000, readSample(ignoring.getOutputBuffer(), 0), 1);
+    }
+
+    @Test
+    void overlapReusesTheOldestVoiceOfTheSameSound() {
+        AudioMixer mixer = new AudioMixer(new NullSink(), FORMAT, 64, 8);
+        mixer.play(constant("b", 4000, 10000), "b");
+        for (int i = 0; i < 5; i++) {
+            mixer.play(constant("a", 1000, 10000), "a", System.nanoTime(), 1f, RetriggerPolicy.OVERLAP, 2);
+            mixer.renderBlock();
+        }
+
+        // Sound b keeps its voice; a never holds more than two and nothing is stolen
+        assertEquals(3, mixer.getActiveVoiceCount());
+        assertEquals(0, mixer.getStolenVoiceCount());
+        assertEquals(5999, readSample(mixer.getOutputBuffer(), 0), 1);
+    }
+
+    private static AudioMixer retrigger(DecodedSample sample, RetriggerPolicy policy, int voiceLimit) {
+        AudioMixer mixer = new AudioMixer(new NullSink(), FORMAT, 64, 16);
+        for (int trigger = 0; trigger < 60; trigger++) {
+            mixer.play(sample, "a", System.nanoTime(), 1f, policy, voiceLimit);
+            for (int block = 0; block < 11; block++) {
+                mixer.renderBlock();
+            }
+        }
+        return mixer;
+    }
+
+    @Test
+    void expandsMuLawSamplesWhileMixing() {
+        byte[] pcm = new byte[64 * 4];
+        for (int i = 0; i < pcm.length / 2; i++) {
+            short value = (short) (Math.sin(i / 7.0) * 20000);
+            pcm[i * 2] = (byte) value;
+            pcm[i * 2 + 1] = (byte) (value >> 8);
+        }
+        DecodedSample compact = new DecodedSample("mu", FORMAT, pcm, SampleEncoding.MU_LAW);
+        assertEquals(pcm.length / 2, compact.getSizeInBytes());
+
+        AudioMixer mixer = new AudioMixer(new NullSink(), FORMAT, 64, 4);
+        mixer.play(compact, "mu");
+        mixer.renderBlock();
+
+        // µ-law keeps each sample within about 3% of its magnitude
+        for (int i = 0; i < 128; i++) {
+            int expected = readSample(pcm, i);
+            assertEquals(expected, readSample(mixer.getOutputBuffer(), i), Math.abs(expected) * 0.03 + 8);
+        }
+    }
+
+    @Test
+    void writesRealTimeOutputToWavFile() throws Exception {
+        File output = tempDir.resolve("out.wav").toFile();
+        AudioMixer mixer = new AudioMixer(new WavFileSink(output), FORMAT, 256, 8);
+        mixer.start();
+        mixer.play(constant("a", 1000, 4410), "a");
+        Thread.sleep(200);
+        mixer.shutdown();
+
+        try (AudioInputStream stream = AudioSystem.getAudioInputStream(output)) {
+            assertEquals(FORMAT.getSampleRate(), stream.getFormat().getSampleRate());
+            assertTrue(stream.getFrameLength() >= 4410);
+        }
+    }
+
+    @Test
+    void shutdownUnblocksTheSinkAndClosesItOnlyOnceTheAudioThreadStops() throws Exception {
+        BlockingSink stoppable = new BlockingSink(true);
+        AudioMixer mixer = new AudioMixer(stoppable, FORMAT, 256, 8);
+        mixer.start();
+        mixer.play(constant("a", 1000, 44100), "a");
+        assertTrue(stoppable.blocked.await(5, TimeUnit.SECONDS));
+        mixer.shutdown();
+        assertTrue(stoppable.closed);
+        assertFalse(stoppable.writeAfterClose);
+
+        // A write that ignores stop outlives the join; the audio thread cleans up once it returns
+        BlockingSink stuck = new BlockingSink(false);
+        mixer = new AudioMixer(stuck, FORMAT, 256, 8);
+        mixer.start();
+        mixer.play(constant("a", 1000, 44100), "a");
+        assertTrue(stuck.blocked.await(5, TimeUnit.SECONDS));
+        mixer.shutdown();
+        assertFalse(stuck.closed);
+        stuck.release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!stuck.closed && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(stuck.closed);
+        assertFalse(stuck.writeAfterClose);
+    }
+
+    /**
+     * Blocks the first write, like a full sound card buffer, until stopped or released
+     */
+    private static final class BlockingSink implements AudioSink {
+        private final boolean returnsOnStop;
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean closed;
+        volatile boolean writeAfterClose;
+
+        BlockingSink(boolean returnsOnStop) {
+            this.returnsOnStop = returnsOnStop;
+        }
+
+        @Override
+        public void open(AudioFormat format, int blockFrames) {
+        }
+
+        @Override
+        public void write(byte[] buffer, int length) throws InterruptedException {
+            writeAfterClose |= closed;
+            blocked.countDown();
+            release.await();
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return true;
+        }
+
+        @Override
+        public void stop() {
+            if (returnsOnStop) {
+                release.countDown();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static DecodedSample constant(String name, int value, int frames) {
+        byte[] data = new byte[frames * 4];
+        for (int i = 0; i < data.length; i += 2) {
+            data[i] = (byte) value;
+            data[i + 1] = (byte) (value >> 8);
+        }
+        return new DecodedSample(name, FORMAT, data);
+    }
+
+    private static int readSample(byte[] buffer, int sampleIndex) {
+        return (short) ((buffer[sampleIndex * 2] & 0xff) | (buffer[sampleIndex * 2 + 1] << 8));
+    }
+}
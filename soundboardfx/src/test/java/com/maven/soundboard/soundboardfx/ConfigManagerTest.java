@@ -0,0 +1,109 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void coalescesBurstOfSavesIntoOneWrite() {
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        for (int i = 1; i <= 5; i++) {
+            configManager.saveSoundsAsync(List.of(new SoundItem("Sound " + i, "/s" + i + ".wav", "F" + i)));
+        }
+        configManager.close();
+
+        assertEquals(1, configManager.getSaveLatency().getCount());
+        List<SoundItem> loaded = new ConfigManager(tempDir.toFile()).loadSounds();
+        assertEquals(1, loaded.size());
+        assertEquals("Sound 5", loaded.get(0).getName());
+    }
+
+    @Test
+    void closeWaitsForASaveAlreadyWriting() throws Exception {
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        SlowSoundItem slow = new SlowSoundItem();
+        configManager.saveSoundsAsync(List.of(slow));
+        assertTrue(slow.writing.await(5, TimeUnit.SECONDS));
+        configManager.close();
+
+        assertEquals("Last edit", new ConfigManager(tempDir.toFile()).loadSounds().get(0).getName());
+        assertFalse(tempDir.resolve("sounds.json.tmp").toFile().exists());
+    }
+
+    @Test
+    void replacesFileWithoutLeavingTemporaryFile() {
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        configManager.saveSounds(List.of(new SoundItem("Old", "/old.wav", "F1")));
+        configManager.saveSounds(List.of(new SoundItem("New", "/new.wav", "F2")));
+
+        File configFile = tempDir.resolve("sounds.json").toFile();
+        assertTrue(configFile.exists());
+        assertFalse(tempDir.resolve("sounds.json.tmp").toFile().exists());
+        assertEquals(configFile.length(), configManager.getLastSaveBytes());
+        assertEquals("New", configManager.loadSounds().get(0).getName());
+    }
+
+    /**
+     * Takes a while to serialize, so a close arrives mid-save
+     */
+    private static final class SlowSoundItem extends SoundItem {
+        final CountDownLatch writing = new CountDownLatch(1);
+
+        SlowSoundItem() {
+            super("Last edit", "/last.wav", "F1");
+        }
+
+        @Override
+        public String getName() {
+            writing.countDown();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getName();
+        }
+    }
+
+    @Test
+    void streamsSoundsInBatches() throws Exception {
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        List<SoundItem> sounds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sounds.add(new SoundItem("Sound " + i, "/s" + i + ".wav", "F" + (i + 1)));
+        }
+        configManager.saveSounds(sounds);
+
+        List<Integer> batchSizes = new ArrayList<>();
+        List<SoundItem> loaded = new ArrayList<>();
+        int total = configManager.loadSounds(2, batch -> {
+            batchSizes.add(batch.size());
+            loaded.addAll(batch);
+        });
+
+        assertEquals(5, total);
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        assertEquals("Sound 4", loaded.get(4).getName());
+
+        // A truncated file still yields the sounds before the damage
+        Files.writeString(tempDir.resolve("sounds.json"),
+            "[{\"name\":\"A\",\"filePath\":\"/a.wav\",\"keybind\":\"F1\"},{\"name\":\"B\",");
+        assertEquals(1, configManager.loadSounds().size());
+    }
+}
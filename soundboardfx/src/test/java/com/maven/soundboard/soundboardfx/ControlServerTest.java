@@ -0,0 +1,98 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ControlServerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void answersPipelinedCommandsInOrder() throws Exception {
+        ControlServer server = new ControlServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            (line, receivedNanos, reply) -> {
+                reply.append("OK ").append(line);
+                return !line.equals("QUIT");
+            });
+        server.start();
+        try (SocketChannel channel = SocketChannel.open(server.getLocalAddress())) {
+            StringBuilder batch = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                batch.append("PLAY ").append(i).append(i % 2 == 0 ? "\n" : "\r\n");
+            }
+            // A command split across writes, then one that closes the connection
+            batch.append("PLAY ");
+            write(channel, batch.toString());
+            write(channel, "café\nQUIT\nPLAY ignored\n");
+
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            for (int i = 0; i < 5000; i++) {
+                assertEquals("OK PLAY " + i, reader.readLine());
+            }
+            assertEquals("OK PLAY café", reader.readLine());
+            assertEquals("OK QUIT", reader.readLine());
+            assertEquals(null, reader.readLine());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    void headlessEngineTakesTriggersOverUnixSocket() throws Exception {
+        ConfigManager configManager = new ConfigManager(tempDir.resolve("config").toFile());
+        HeadlessEngine engine = new HeadlessEngine(configManager, new SoundManager());
+        String hornPath = TestWavs.write(tempDir, "horn.wav", 44100f, 2, 4410, 0).getPath();
+        SoundItem horn = new SoundItem("Horn", hornPath, "CTRL+K DIGIT3");
+        engine.start();
+        engine.setSounds(List.of(horn));
+
+        SocketAddress address = ControlServer.parseAddress("unix:" + tempDir.resolve("engine.sock"));
+        ControlServer server = new ControlServer(address, engine);
+        server.start();
+        try {
+            ControlLoadGenerator.Result result = ControlLoadGenerator.run(address, "PLAY 0", 5000, 32, 256, 0);
+            assertEquals(0, result.getErrors());
+            assertEquals((5000 + 31) / 32, result.getBatchLatency().getCount());
+            assertEquals(5000, engine.getTriggerCount());
+
+            try (SocketChannel channel = SocketChannel.open(address)) {
+                BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+                write(channel, "KEY CTRL+K DIGIT3\nPLAYNAME Horn\nPLAY 1\nDOWN NOPE\nSTATS\n");
+                assertEquals("OK", reader.readLine());
+                assertEquals("OK", reader.readLine());
+                assertEquals("ERR no sound 1", reader.readLine());
+                assertEquals("ERR unknown key NOPE", reader.readLine());
+                String stats = reader.readLine();
+                assertTrue(stats.startsWith("OK sounds=1 commands=5005 errors=2 triggers=5002"), stats);
+            }
+        } finally {
+            server.close();
+            engine.shutdown();
+        }
+        assertTrue(!tempDir.resolve("engine.sock").toFile().exists());
+    }
+
+    private static void write(SocketChannel channel, String text) throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.maven.soundboard.soundboardfx;
+
+import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
+import javafx.scene.input.KeyCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GlobalHotkeyManagerTest {
+    private static final int[] LETTER_CODES = {
+        NativeKeyEvent.VC_A, NativeKeyEvent.VC_B, NativeKeyEvent.VC_C, NativeKeyEvent.VC_D,
+        NativeKeyEvent.VC_E, NativeKeyEvent.VC_F, NativeKeyEvent.VC_G, NativeKeyEvent.VC_H
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void matchesModifierCombinationInAnyOrder() {
+        SoundItem item = new SoundItem("Horn", "horn.wav", "CTRL+SHIFT+H");
+        GlobalHotkeyManager manager = new GlobalHotkeyManager(null, null);
+        manager.updateKeybinds(Map.of("CTRL+SHIFT+H", item));
+
+        assertNull(manager.keyDown(NativeKeyEvent.VC_SHIFT));
+        assertNull(manager.keyDown(NativeKeyEvent.VC_CONTROL));
+        assertSame(item, manager.keyDown(NativeKeyEvent.VC_H));
+        // Auto-repeat does not retrigger
+        assertNull(manager.keyDown(NativeKeyEvent.VC_H));
+
+        manager.keyUp(NativeKeyEvent.VC_H);
+        manager.keyUp(NativeKeyEvent.VC_SHIFT);
+        assertNull(manager.keyDown(NativeKeyEvent.VC_H));
+    }
+
+    @Test
+    void readersNeverSeeHalfBuiltTableDuringUpdates() throws Exception {
+        Map<String, SoundItem> generationA = generation("a");
+        Map<String, SoundItem> generationB = generation("b");
+        GlobalHotkeyManager manager = new GlobalHotkeyManager(null, null);
+        manager.updateKeybinds(generationA);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicLong updates = new AtomicLong();
+        AtomicLong lookups = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(3);
+
+        Thread writer = new Thread(() -> {
+            boolean useA = false;
+            while (running.get()) {
+                manager.updateKeybinds(useA ? generationA : generationB);
+                useA = !useA;
+                updates.incrementAndGet();
+            }
+            done.countDown();
+        });
+
+        // Simulates the native hook thread pressing every bound key in turn
+        Thread hookThread = new Thread(() -> {
+            while (running.get()) {
+                for (int code : LETTER_CODES) {
+                    SoundItem item = manager.keyDown(code);
+                    manager.keyUp(code);
+                    if (item == null) {
+                        failure.compareAndSet(null, "Lost trigger for key code " + code);
+                    }
+                    lookups.incrementAndGet();
+                }
+            }
+            done.countDown();
+        });
+
+        // Every snapshot must hold one complete generation, never a mix
+        Thread snapshotReader = new Thread(() -> {
+            while (running.get()) {
+                KeybindTable table = manager.getKeybindTable();
+                String first = table.get(KeyChord.parse("A")).getFilePath().substring(0, 1);
+                for (char letter = 'A'; letter <= 'H'; letter++) {
+                    SoundItem item = table.get(KeyChord.parse(String.valueOf(letter)));
+                    if (item == null || !item.getFilePath().startsWith(first)) {
+                        failure.compareAndSet(null, "Mixed or partial snapshot at " + letter);
+                    }
+                }
+                lookups.incrementAndGet();
+            }
+            done.countDown();
+        });
+
+        writer.start();
+        hookThread.start();
+        snapshotReader.start();
+        Thread.sleep(500);
+        running.set(false);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertNull(failure.get(), failure.get());
+        assertTrue(updates.get() > 100, "writer made progress");
+        assertTrue(lookups.get() > 100, "readers made progress");
+        assertEquals(8, manager.getKeybindTable().size());
+    }
+
+    @Test
+    void matchesQueuedKeysAndTimeoutsOnOneThread() throws Exception {
+        String path = TestWavs.write(tempDir, "tap.wav", 44100f, 2, 441, 0).getPath();
+        SoundItem tap = new SoundItem("Tap", path, "A");
+        SoundItem hold = new SoundItem("Hold", path, "HOLD+F1");
+        AtomicInteger taps = new AtomicInteger();
+        CountDownLatch held = new CountDownLatch(1);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        SoundManager soundManager = new SoundManager();
+        GlobalHotkeyManager manager = new GlobalHotkeyManager(soundManager, soundItem -> {
+            threads.add(Thread.currentThread().getName());
+            if (soundItem == tap) {
+                taps.incrementAndGet();
+            } else {
+                held.countDown();
+            }
+        });
+        manager.updateKeybinds(List.of(tap, hold), List.of());
+        manager.initialize(false);
+        try {
+            // Paced like the control server, since a full queue drops events rather than block the hook
+            for (int i = 0; i < 200; i++) {
+                manager.keyPressed(KeyCode.A, System.nanoTime());
+                manager.keyReleased(KeyCode.A, System.nanoTime());
+                manager.awaitMatched();
+            }
+            assertEquals(200, taps.get());
+
+            // The hold is decided by a timeout, ticked on the same thread that matched the keys
+            manager.keyPressed(KeyCode.F1, System.nanoTime());
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+            manager.keyReleased(KeyCode.F1, System.nanoTime());
+            manager.awaitMatched();
+        } finally {
+            manager.shutdown();
+            soundManager.dispose();
+        }
+        assertEquals(Set.of("soundboard-hotkey-matcher"), threads);
+    }
+
+    @Test
+    void countsATapSeenByWindowAndHookOnce() throws Exception {
+        String path = TestWavs.write(tempDir, "tap.wav", 44100f, 2, 441, 0).getPath();
+        SoundItem tap = new SoundItem("Tap", path, "A");
+        AtomicInteger triggers = new AtomicInteger();
+        SoundManager soundManager = new SoundManager();
+        GlobalHotkeyManager manager = new GlobalHotkeyManager(soundManager, soundItem -> triggers.incrementAndGet());
+        manager.updateKeybinds(List.of(tap), List.of());
+        manager.initialize(false);
+        manager.setNativeHookActive(true);
+        try {
+            // The hook sees a quick tap before the window's copy of it comes through the FX thread
+            manager.nativeKeyPressed(nativeEvent(NativeKeyEvent.NATIVE_KEY_PRESSED, NativeKeyEvent.VC_A));
+            manager.nativeKeyReleased(nativeEvent(NativeKeyEvent.NATIVE_KEY_RELEASED, NativeKeyEvent.VC_A));
+            manager.windowKeyPressed(KeyCode.A, System.nanoTime());
+            manager.windowKeyReleased(KeyCode.A, System.nanoTime());
+            manager.awaitMatched();
+            assertEquals(1, triggers.get());
+
+            // The window's late release must not cut short the next press the hook reports
+            manager.windowKeyPressed(KeyCode.A, System.nanoTime());
+            manager.nativeKeyPressed(nativeEvent(NativeKeyEvent.NATIVE_KEY_PRESSED, NativeKeyEvent.VC_A));
+            manager.windowKeyReleased(KeyCode.A, System.nanoTime());
+            manager.nativeKeyPressed(nativeEvent(NativeKeyEvent.NATIVE_KEY_PRESSED, NativeKeyEvent.VC_A));
+            manager.nativeKeyReleased(nativeEvent(NativeKeyEvent.NATIVE_KEY_RELEASED, NativeKeyEvent.VC_A));
+            manager.awaitMatched();
+            assertEquals(2, triggers.get());
+
+            // Without the hook the window is the only source
+            manager.setNativeHookActive(false);
+            manager.windowKeyPressed(KeyCode.A, System.nanoTime());
+            manager.windowKeyReleased(KeyCode.A, System.nanoTime());
+            manager.awaitMatched();
+            assertEquals(3, triggers.get());
+        } finally {
+            manager.shutdown();
+            soundManager.dispose();
+        }
+    }
+
+    private static NativeKeyEvent nativeEvent(int id, int keyCode) {
+        return new NativeKeyEvent(id, 0, 0, keyCode, NativeKeyEvent.CHAR_UNDEFINED);
+    }
+
+    private static Map<String, SoundItem> generation(String prefix) {
+        Map<String, SoundItem> keybinds = new HashMap<>();
+        for (char letter = 'A'; letter <= 'H'; letter++) {
+            String keybind = String.valueOf(letter);
+            keybinds.put(keybind, new SoundItem(keybind, prefix + "/" + letter + ".wav", keybind));
+        }
+        return keybinds;
+    }
+}
@@ -0,0 +1,139 @@
+package com.maven.soundboard.soundboardfx;
+
+import javafx.scene.input.KeyCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotkeyMatcherTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<SoundItem> deferred = new ArrayList<>();
+    private final List<Integer> pages = new ArrayList<>();
+    private final HotkeyMatcher matcher = new HotkeyMatcher(new HotkeyMatcher.Listener() {
+        @Override
+        public void onTrigger(SoundItem soundItem, long triggerNanos) {
+            deferred.add(soundItem);
+        }
+
+        @Override
+        public void onPageChanged(int page) {
+            pages.add(page);
+        }
+    }, 1000 * MS, 400 * MS, 0);
+
+    @Test
+    void followsSequencesAndResolvesPrefixesByTimeout() {
+        SoundItem prefix = sound("CTRL+K");
+        SoundItem sequence = sound("CTRL+K DIGIT3");
+        SoundItem plain = sound("X");
+        matcher.setTable(new KeybindTable(List.of(prefix, sequence, plain), List.of()));
+
+        assertNull(matcher.keyDown(KeyCode.CONTROL, 0));
+        assertNull(matcher.keyDown(KeyCode.K, 10 * MS));
+        matcher.keyUp(KeyCode.K, 20 * MS);
+        matcher.keyUp(KeyCode.CONTROL, 30 * MS);
+        assertSame(sequence, matcher.keyDown(KeyCode.DIGIT3, 200 * MS));
+        matcher.keyUp(KeyCode.DIGIT3, 210 * MS);
+        assertTrue(deferred.isEmpty());
+
+        // The prefix on its own plays once nothing follows it in time
+        press(KeyCode.CONTROL, KeyCode.K, 1000 * MS);
+        matcher.advance(1900 * MS);
+        assertTrue(deferred.isEmpty());
+        matcher.advance(2100 * MS);
+        assertEquals(List.of(prefix), deferred);
+        assertTrue(!matcher.hasPendingTimeouts());
+
+        // A key outside the sequence ends it early and still counts on its own
+        deferred.clear();
+        press(KeyCode.CONTROL, KeyCode.K, 3000 * MS);
+        assertSame(plain, matcher.keyDown(KeyCode.X, 3100 * MS));
+        assertEquals(List.of(prefix), deferred);
+    }
+
+    @Test
+    void tellsTapFromHold() {
+        SoundItem tap = sound("F1");
+        SoundItem hold = sound("HOLD+F1");
+        matcher.setTable(new KeybindTable(List.of(tap, hold), List.of()));
+
+        assertNull(matcher.keyDown(KeyCode.F1, 0));
+        assertSame(tap, matcher.keyUp(KeyCode.F1, 100 * MS));
+
+        assertNull(matcher.keyDown(KeyCode.F1, 1000 * MS));
+        // Auto-repeat while held neither taps nor restarts the wait
+        assertNull(matcher.keyDown(KeyCode.F1, 1300 * MS));
+        matcher.advance(1420 * MS);
+        assertEquals(List.of(hold), deferred);
+        assertNull(matcher.keyUp(KeyCode.F1, 2000 * MS));
+    }
+
+    @Test
+    void switchesPagesOverSharedSounds() {
+        SoundItem shared = sound("A");
+        SoundItem sharedB = sound("B");
+        SoundItem pageB = sound("B");
+        pageB.setPage(1);
+        matcher.setTable(new KeybindTable(List.of(shared, sharedB, pageB),
+            List.of("CTRL+DIGIT0", "CTRL+DIGIT1")));
+
+        assertSame(sharedB, tap(KeyCode.B, 0));
+        press(KeyCode.CONTROL, KeyCode.DIGIT1, 100 * MS);
+        assertEquals(List.of(1), pages);
+        assertEquals(1, matcher.getPage());
+        assertSame(pageB, tap(KeyCode.B, 200 * MS));
+        assertSame(shared, tap(KeyCode.A, 300 * MS));
+
+        press(KeyCode.CONTROL, KeyCode.DIGIT0, 400 * MS);
+        assertSame(sharedB, tap(KeyCode.B, 500 * MS));
+    }
+
+    @Test
+    void timerWheelFiresInOrderAcrossTurns() {
+        List<String> fired = new ArrayList<>();
+        TimerWheel wheel = new TimerWheel(10 * MS, 8, 0);
+        TimerWheel.Timer late = new TimerWheel.Timer(() -> fired.add("late"));
+        TimerWheel.Timer early = new TimerWheel.Timer(() -> fired.add("early"));
+        TimerWheel.Timer cancelled = new TimerWheel.Timer(() -> fired.add("cancelled"));
+        // 250 ms is three turns of an 80 ms wheel
+        wheel.schedule(late, 250 * MS);
+        wheel.schedule(early, 35 * MS);
+        wheel.schedule(cancelled, 35 * MS);
+        wheel.cancel(cancelled);
+
+        wheel.advance(30 * MS);
+        assertTrue(fired.isEmpty());
+        wheel.advance(40 * MS);
+        assertEquals(List.of("early"), fired);
+        wheel.advance(240 * MS);
+        assertEquals(1, wheel.size());
+        wheel.advance(250 * MS);
+        assertEquals(List.of("early", "late"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    private SoundItem tap(KeyCode key, long nowNanos) {
+        SoundItem item = matcher.keyDown(key, nowNanos);
+        matcher.keyUp(key, nowNanos + MS);
+        return item;
+    }
+
+    private void press(KeyCode modifier, KeyCode key, long nowNanos) {
+        matcher.keyDown(modifier, nowNanos);
+        matcher.keyDown(key, nowNanos + MS);
+        matcher.keyUp(key, nowNanos + 2 * MS);
+        matcher.keyUp(modifier, nowNanos + 3 * MS);
+    }
+
+    private static SoundItem sound(String keybind) {
+        return new SoundItem(keybind, "/sounds/" + keybind + ".wav", keybind);
+    }
+}
@@ -0,0 +1,118 @@
+package com.maven.soundboard.soundboardfx;
+
+import javafx.scene.input.KeyCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class KeyChordTest {
+    private static final KeyCode[] MODIFIER_KEYS = {KeyCode.CONTROL, KeyCode.ALT, KeyCode.SHIFT};
+
+    @Test
+    void everySupportedChordRoundTripsThroughItsText() {
+        Random random = new Random(42);
+        int checked = 0;
+        for (KeyCode key : keys()) {
+            for (int modifiers = 0; modifiers < 16; modifiers++) {
+                int chord = KeyChord.of(modifiers, key.getCode());
+                String text = KeyChord.format(chord);
+                assertEquals(chord, KeyChord.parse(text), text);
+
+                // Any token order and case names the same chord
+                List<String> tokens = new ArrayList<>(List.of(text.split("\\+")));
+                Collections.shuffle(tokens, random);
+                String shuffled = String.join("+", tokens);
+                shuffled = random.nextBoolean() ? shuffled.toLowerCase(Locale.ROOT) : shuffled;
+                assertEquals(chord, KeyChord.parse(shuffled), shuffled);
+                assertEquals(text, KeyChord.normalize(shuffled));
+                checked++;
+            }
+        }
+        assertEquals(keys().size() * 16, checked);
+
+        // Random sequences, with HOLD only on the last chord
+        for (int i = 0; i < 1000; i++) {
+            int[] steps = new int[1 + random.nextInt(KeyChord.MAX_STEPS)];
+            for (int s = 0; s < steps.length; s++) {
+                int modifiers = random.nextInt(s == steps.length - 1 ? 16 : 8);
+                steps[s] = KeyChord.of(modifiers, keys().get(random.nextInt(keys().size())).getCode());
+            }
+            assertArrayEquals(steps, KeyChord.parseSequence(KeyChord.formatSequence(steps)));
+        }
+        assertNull(KeyChord.parseSequence("HOLD+A B"));
+        assertEquals(KeyChord.NONE, KeyChord.parse("CTRL+WINDOWS"));
+    }
+
+    @Test
+    void windowAndNativeKeysMatchTheSameBindings() {
+        Map<KeyCode, Integer> nativeCodes = new HashMap<>();
+        for (int nativeKeyCode = 0; nativeKeyCode <= 0xffff; nativeKeyCode++) {
+            KeyCode key = KeyChord.fromNativeKeyCode(nativeKeyCode);
+            if (key != null) {
+                nativeCodes.putIfAbsent(key, nativeKeyCode);
+                // The window reports the same key the native hook does
+                assertSame(key, KeyChord.canonicalKey(key));
+            }
+        }
+        assertEquals(KeyChord.supportedKeys().size(), nativeCodes.size());
+        assertSame(KeyCode.ALT, KeyChord.canonicalKey(KeyCode.ALT_GRAPH));
+        assertNull(KeyChord.canonicalKey(KeyCode.WINDOWS));
+
+        for (KeyCode key : keys()) {
+            for (int modifiers = 0; modifiers < 8; modifiers++) {
+                String keybind = KeyChord.format(KeyChord.of(modifiers, key.getCode()));
+                SoundItem item = new SoundItem(keybind, "/sounds/" + key + ".wav", keybind);
+                GlobalHotkeyManager manager = new GlobalHotkeyManager(null, null);
+                manager.updateKeybinds(List.of(item), List.of());
+
+                // Native hook: modifiers, then the key
+                for (int m = 0; m < MODIFIER_KEYS.length; m++) {
+                    if ((modifiers & (1 << m)) != 0) {
+                        manager.keyDown(nativeCodes.get(MODIFIER_KEYS[m]));
+                    }
+                }
+                assertSame(item, manager.keyDown(nativeCodes.get(key)), keybind);
+                releaseAll(manager, nativeCodes);
+
+                // Window events, with AltGr standing in for ALT
+                for (int m = 0; m < MODIFIER_KEYS.length; m++) {
+                    if ((modifiers & (1 << m)) != 0) {
+                        KeyCode modifier = MODIFIER_KEYS[m] == KeyCode.ALT ? KeyCode.ALT_GRAPH : MODIFIER_KEYS[m];
+                        manager.match(modifier, true, 0);
+                    }
+                }
+                assertSame(item, manager.match(key, true, 0), keybind);
+            }
+        }
+    }
+
+    private static void releaseAll(GlobalHotkeyManager manager, Map<KeyCode, Integer> nativeCodes) {
+        for (int nativeKeyCode : nativeCodes.values()) {
+            manager.keyUp(nativeKeyCode);
+        }
+    }
+
+    /**
+     * @return Every supported key that is not a modifier
+     */
+    private static List<KeyCode> keys() {
+        List<KeyCode> keys = new ArrayList<>();
+        for (KeyCode key : KeyChord.supportedKeys()) {
+            if (KeyChord.modifierBit(key) == 0) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
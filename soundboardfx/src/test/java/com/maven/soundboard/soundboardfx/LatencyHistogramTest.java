@@ -0,0 +1,41 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 ms .. 100 ms in 1 ms steps
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1_000_000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMaxNanos());
+        assertEquals(50.0, histogram.getMillisAtPercentile(50), 50.0 * 0.02);
+        assertEquals(99.0, histogram.getMillisAtPercentile(99), 99.0 * 0.02);
+        assertEquals(100.0, histogram.getMillisAtPercentile(100), 0.0);
+    }
+
+    @Test
+    void smallValuesAreExactAndResetClears() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(100);
+
+        assertEquals(0, histogram.getValueAtPercentile(1));
+        assertEquals(3, histogram.getValueAtPercentile(50));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertTrue(histogram.toString().contains("no samples"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LibraryFolderWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final BlockingQueue<List<List<String>>> changes = new LinkedBlockingQueue<>();
+
+    @Test
+    void scansFoldersAndReportsOnlyWhatChanged() throws Exception {
+        Path nested = Files.createDirectories(tempDir.resolve("effects/short"));
+        Path a = Files.write(tempDir.resolve("a.wav"), new byte[10]);
+        Path b = Files.write(nested.resolve("b.MP3"), new byte[10]);
+        Files.write(tempDir.resolve("notes.txt"), new byte[10]);
+
+        try (LibraryFolderWatcher watcher = new LibraryFolderWatcher(this::record, 2)) {
+            watcher.start(List.of(tempDir.toFile()));
+            List<List<String>> initial = next();
+            assertEquals(2, initial.get(0).size());
+            assertTrue(initial.get(0).containsAll(List.of(a.toString(), b.toString())));
+            assertEquals(3, watcher.getWatchedDirectoryCount());
+
+            // Nothing changed, nothing reported
+            assertEquals(2, watcher.rescan());
+            assertNull(changes.poll(300, TimeUnit.MILLISECONDS));
+
+            Files.write(a, new byte[20]);
+            assertEquals(List.of(a.toString()), nextWithin(1).get(1));
+
+            Path c = Files.write(Files.createDirectories(tempDir.resolve("new")).resolve("c.wav"), new byte[10]);
+            assertEquals(List.of(c.toString()), nextWithin(0).get(0));
+
+            Files.delete(b);
+            assertEquals(List.of(b.toString()), nextWithin(2).get(2));
+            assertEquals(List.of(a.toString(), c.toString()), watcher.getFiles());
+        }
+    }
+
+    @Test
+    void recognisesSoundFilesByExtension() {
+        assertTrue(LibraryFolderWatcher.isAudioFile(Path.of("x/boom.WAV")));
+        assertTrue(LibraryFolderWatcher.isAudioFile(Path.of("x/horn.aiff")));
+        assertFalse(LibraryFolderWatcher.isAudioFile(Path.of("x/.wav")));
+        assertFalse(LibraryFolderWatcher.isAudioFile(Path.of("x/readme")));
+    }
+
+    private void record(List<String> added, List<String> changed, List<String> removed) {
+        changes.add(List.of(added, changed, removed));
+    }
+
+    private List<List<String>> next() throws InterruptedException {
+        List<List<String>> next = changes.poll(10, TimeUnit.SECONDS);
+        assertNotNull(next, "no changes reported");
+        return next;
+    }
+
+    /**
+     * Waits for a report whose given list (0 added, 1 changed, 2 removed) is not empty;
+     * file systems may report a write as several events
+     */
+    private List<List<String>> nextWithin(int kind) throws InterruptedException {
+        while (true) {
+            List<List<String>> next = next();
+            if (!next.get(kind).isEmpty()) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoudnessAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void measuresASineAtItsLevel() throws Exception {
+        // A 997 Hz sine in both channels reads at its peak level in dBFS
+        File wav = writeSine("sine.wav", 48000f, 997, 0.1, 0, 3.0);
+
+        LoudnessAnalyzer.Result result = LoudnessAnalyzer.analyze(wav);
+
+        assertEquals(-20.0, result.getIntegratedLufs(), 0.2);
+        assertEquals(-20.0, result.getTruePeakDb(), 0.2);
+    }
+
+    @Test
+    void findsPeaksBetweenSamples() throws Exception {
+        // At a quarter of the sample rate and 45 degrees of phase every sample lands 3 dB below the peak
+        File wav = writeSine("quarter.wav", 44100f, 11025, 0.5, Math.PI / 4, 1.0);
+
+        LoudnessAnalyzer.Result result = LoudnessAnalyzer.analyze(wav);
+
+        assertEquals(-6.0, result.getTruePeakDb(), 0.5);
+    }
+
+    @Test
+    void measuresShortClipsAndNormalizesTowardsTheTarget() throws Exception {
+        File loud = writeSine("short.wav", 44100f, 997, 0.5, 0, 0.2);
+        SoundItem item = new SoundItem("Short", loud.getPath(), null);
+        item.setMeasurement(LoudnessAnalyzer.analyze(loud));
+        assertEquals(-6.0, item.getLoudness(), 0.3);
+
+        LoudnessNormalizer normalizer = new LoudnessNormalizer(true, -16, true);
+        assertEquals(-10.0, normalizer.gainDbFor(item), 0.3);
+        // Without a limiter a quiet sound is only raised until its peak reaches the ceiling
+        item.setMeasurement(new LoudnessAnalyzer.Result(-30, -3));
+        assertEquals(12.0, normalizer.gainDbFor(item), 0.001);
+        assertEquals(2.0, new LoudnessNormalizer(true, -16, false).gainDbFor(item), 0.001);
+        item.setGainDb(-4.5);
+        assertEquals(-4.5, normalizer.gainDbFor(item), 0.001);
+    }
+
+    private File writeSine(String name, float sampleRate, double frequency, double amplitude, double phase,
+                           double seconds) throws Exception {
+        short[] frames = new short[(int) (sampleRate * seconds)];
+        for (int frame = 0; frame < frames.length; frame++) {
+            frames[frame] = (short) Math.round(Math.sin(2 * Math.PI * frequency * frame / sampleRate + phase)
+                * amplitude * 32767);
+        }
+        return TestWavs.writeFrames(tempDir, name, sampleRate, 2, frames);
+    }
+}
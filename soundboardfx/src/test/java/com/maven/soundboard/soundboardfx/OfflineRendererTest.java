@@ -0,0 +1,150 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OfflineRendererTest {
+    /** 10 ms is a whole number of frames at 44.1 kHz */
+    private static final long MS = 1_000_000L;
+    private static final int TEN_MS = 441;
+    private static final int LENGTH = 4410;
+
+    @TempDir
+    Path tempDir;
+
+    private final OfflineRenderer renderer = new OfflineRenderer(
+        new SampleCache(new SampleDecoder()), new LoudnessNormalizer(false, -16, false), 256, false);
+
+    @Test
+    void startsTriggersOnTheirFrameUnderEachRetriggerPolicy() throws Exception {
+        SoundItem restart = constant("restart", null, null);
+        SoundItem overlap = constant("overlap", RetriggerPolicy.OVERLAP, 2);
+        SoundItem ignore = constant("ignore", RetriggerPolicy.IGNORE, null);
+        SoundItem toggle = constant("toggle", RetriggerPolicy.TOGGLE, null);
+
+        // RESTART: the second trigger cuts the first, so the level never doubles
+        short[] out = render(restart, 0, restart, 2);
+        assertEquals(1000, out[0], 1);
+        assertEquals(1000, out[2 * TEN_MS], 1);
+        assertEquals(1000, out[2 * TEN_MS + LENGTH - 1], 1);
+        assertEquals(0, out[2 * TEN_MS + LENGTH]);
+
+        // OVERLAP with two voices: the third trigger reuses the oldest voice
+        out = render(overlap, 0, overlap, 1, overlap, 2);
+        assertEquals(1000, out[TEN_MS - 1], 1);
+        assertEquals(2000, out[TEN_MS], 1);
+        assertEquals(2000, out[2 * TEN_MS], 1);
+        assertEquals(2000, out[TEN_MS + LENGTH - 1], 1);
+        assertEquals(1000, out[TEN_MS + LENGTH], 1);
+        assertEquals(0, out[2 * TEN_MS + LENGTH]);
+
+        // IGNORE: the sound plays out once
+        out = render(ignore, 0, ignore, 1);
+        assertEquals(1000, out[LENGTH - 1], 1);
+        assertEquals(0, out[LENGTH]);
+
+        // TOGGLE: the second trigger stops it on that frame, the third starts it again
+        out = render(toggle, 0, toggle, 1, toggle, 2);
+        assertEquals(1000, out[TEN_MS - 1], 1);
+        assertEquals(0, out[TEN_MS]);
+        assertEquals(1000, out[2 * TEN_MS], 1);
+    }
+
+    @Test
+    void mixedSceneMatchesGoldenRender() throws Exception {
+        SoundItem low = sine("low", 40.0, 8000, null, null);
+        SoundItem high = sine("high", 7.0, 12000, RetriggerPolicy.OVERLAP, 4);
+        high.setGainDb(-6.0);
+        SoundItem hit = sine("hit", 3.0, 30000, null, null);
+
+        TriggerTimeline timeline = TriggerTimeline.parse(List.of(
+            "# seconds action sound",
+            "0.000 PLAY low",
+            "0.013 PLAY high",
+            "0.017 PLAY high",
+            "0.0213 PLAY high",
+            "0.040 PLAY hit",
+            "0.041 PLAY hit",
+            "0.045 PLAY low",
+            "0.060 STOP high",
+            "0.090 STOP"),
+            Map.of("low", low, "high", high, "hit", hit));
+        OfflineRenderer limited = new OfflineRenderer(
+            new SampleCache(new SampleDecoder()), new LoudnessNormalizer(false, -16, true), 256, true);
+        File output = tempDir.resolve("scene.wav").toFile();
+        long frames = limited.renderToWav(timeline, output);
+
+        try (AudioInputStream stream = AudioSystem.getAudioInputStream(output)) {
+            assertEquals(frames, stream.getFrameLength());
+            byte[] data = stream.readAllBytes();
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            // Golden checksum of the whole mix; update only for an intended change to mixing
+            assertEquals(1222856910L, crc.getValue());
+
+            // The two hits overlap well above full scale, and the limiter holds them under its ceiling
+            int peak = 0;
+            for (int i = 0; i < data.length; i += 2) {
+                peak = Math.max(peak, Math.abs((short) ((data[i] & 0xff) | (data[i + 1] << 8))));
+            }
+            assertTrue(peak > 29000 && peak <= 0.944 * 32767, "peak " + peak);
+        }
+    }
+
+    /**
+     * Renders pairs of sound and trigger time in units of 10 ms
+     * @return The left channel
+     */
+    private short[] render(Object... events) throws Exception {
+        TriggerTimeline timeline = new TriggerTimeline();
+        for (int i = 0; i < events.length; i += 2) {
+            timeline.play((Integer) events[i + 1] * 10 * MS, (SoundItem) events[i]);
+        }
+        File output = tempDir.resolve("render.wav").toFile();
+        long frames = renderer.renderToWav(timeline, output);
+        try (AudioInputStream stream = AudioSystem.getAudioInputStream(output)) {
+            byte[] data = stream.readAllBytes();
+            assertEquals(frames * 4, data.length);
+            short[] left = new short[(int) frames];
+            for (int i = 0; i < left.length; i++) {
+                left[i] = (short) ((data[i * 4] & 0xff) | (data[i * 4 + 1] << 8));
+            }
+            return left;
+        }
+    }
+
+    private SoundItem constant(String name, RetriggerPolicy policy, Integer voices) throws Exception {
+        short[] samples = new short[LENGTH];
+        Arrays.fill(samples, (short) 1000);
+        return sound(name, samples, policy, voices);
+    }
+
+    private SoundItem sine(String name, double period, double amplitude, RetriggerPolicy policy, Integer voices)
+            throws Exception {
+        short[] samples = new short[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            samples[i] = (short) (StrictMath.sin(i / period) * amplitude);
+        }
+        return sound(name, samples, policy, voices);
+    }
+
+    private SoundItem sound(String name, short[] samples, RetriggerPolicy policy, Integer voices) throws Exception {
+        File file = TestWavs.writeFrames(tempDir, name + ".wav", 44100f, 2, samples);
+        SoundItem soundItem = new SoundItem(name, file.getPath(), "");
+        soundItem.setRetrigger(policy);
+        soundItem.setMaxVoices(voices);
+        return soundItem;
+    }
+}
@@ -0,0 +1,153 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SampleCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void decodesMonoToStereoAtEngineRate() throws Exception {
+        File wav = TestWavs.write(tempDir, "mono.wav", 22050f, 1, 22050, 0);
+        DecodedSample sample = new SampleDecoder().decode(wav);
+
+        assertEquals(2, sample.getFormat().getChannels());
+        assertEquals(44100, sample.getFrameCount());
+        assertEquals(1.0, sample.getDurationSeconds(), 0.001);
+    }
+
+    @Test
+    void countsHitsAndMisses() throws Exception {
+        File wav = TestWavs.write(tempDir, "a.wav", 44100f, 2, 1000, 0);
+        SampleCache cache = new SampleCache(new SampleDecoder());
+
+        DecodedSample first = cache.get(wav.getPath());
+        DecodedSample second = cache.get(wav.getPath());
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() throws Exception {
+        File a = TestWavs.write(tempDir, "a.wav", 44100f, 2, 1000, 0);
+        File b = TestWavs.write(tempDir, "b.wav", 44100f, 2, 1000, 1);
+        File c = TestWavs.write(tempDir, "c.wav", 44100f, 2, 1000, 2);
+        // Room for two 4000-byte samples
+        SampleCache cache = new SampleCache(new SampleDecoder(), 8000);
+
+        cache.get(a.getPath());
+        cache.get(b.getPath());
+        cache.get(a.getPath());
+        cache.get(c.getPath());
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(8000, cache.getSizeInBytes());
+        // The evicted path's hash is forgotten with its sample
+        assertEquals(2, cache.getPathCount());
+
+        long misses = cache.getMissCount();
+        cache.get(a.getPath());
+        assertEquals(misses, cache.getMissCount());
+        cache.get(b.getPath());
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    void sharesOneSampleBetweenCopiesOfAFile() throws Exception {
+        File original = TestWavs.write(tempDir, "a.wav", 44100f, 2, 1000, 0);
+        File copy = tempDir.resolve("copy of a.wav").toFile();
+        Files.copy(original.toPath(), copy.toPath());
+        File other = TestWavs.write(tempDir, "b.wav", 44100f, 2, 500, 1);
+        SampleCache cache = new SampleCache(new SampleDecoder());
+
+        DecodedSample first = cache.get(original.getPath());
+        assertSame(first, cache.get(copy.getPath()));
+        assertSame(first, cache.getIfPresent(copy.getPath()));
+        cache.get(other.getPath());
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(6000, cache.getSizeInBytes());
+        assertEquals(1, cache.getDuplicateCount());
+        assertEquals(4000, cache.getDeduplicatedBytes());
+        assertEquals(2, cache.getDecodeTimes().getCount());
+
+        // The shared sample stays until no path uses it
+        cache.invalidate(original.getPath());
+        assertSame(first, cache.getIfPresent(copy.getPath()));
+        assertEquals(0, cache.getDuplicateCount());
+        cache.invalidate(copy.getPath());
+        assertNull(cache.getIfPresent(copy.getPath()));
+        assertEquals(2000, cache.getSizeInBytes());
+    }
+
+    @Test
+    void concurrentMissesWaitForOneDecode() throws Exception {
+        File wav = TestWavs.write(tempDir, "a.wav", 44100f, 2, 1000, 0);
+        AtomicInteger decodes = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        SampleCache cache = new SampleCache(new SampleDecoder() {
+            @Override
+            public DecodedSample decode(File file) throws IOException, UnsupportedAudioFileException {
+                decodes.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.decode(file);
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<DecodedSample> first = executor.submit(() -> cache.get(wav.getPath()));
+            while (decodes.get() == 0) {
+                Thread.sleep(1);
+            }
+            Future<DecodedSample> second = executor.submit(() -> cache.get(wav.getPath()));
+            Future<Boolean> preloaded = executor.submit(() -> cache.preload(wav.getPath()));
+            // Let the other lookups reach the decode under way before it finishes
+            Thread.sleep(100);
+            release.countDown();
+
+            assertNotNull(first.get(5, TimeUnit.SECONDS));
+            assertSame(first.get(), second.get(5, TimeUnit.SECONDS));
+            assertFalse(preloaded.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, decodes.get());
+    }
+
+    @Test
+    void reportsUnsupportedFilesAsNull() throws Exception {
+        File text = tempDir.resolve("notes.mp3").toFile();
+        Files.writeString(text.toPath(), "not audio");
+
+        assertNull(new SampleCache(new SampleDecoder()).get(text.getPath()));
+    }
+}
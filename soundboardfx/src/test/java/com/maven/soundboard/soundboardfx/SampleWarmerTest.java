@@ -0,0 +1,58 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampleWarmerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void decodesEachFileOnceWithoutTouchingHitCounters() throws Exception {
+        File a = TestWavs.write(tempDir, "a.wav", 44100f, 2, 2000, 0);
+        File b = TestWavs.write(tempDir, "b.wav", 44100f, 2, 2000, 1);
+        File c = TestWavs.write(tempDir, "c.wav", 44100f, 2, 2000, 2);
+        List<SoundItem> sounds = List.of(
+            new SoundItem("Unbound", c.getPath(), ""),
+            new SoundItem("A", a.getPath(), "F1"),
+            new SoundItem("B", b.getPath(), "F2"),
+            new SoundItem("A again", a.getPath(), "F3"));
+
+        SampleCache cache = new SampleCache(new SampleDecoder());
+        SampleWarmer warmer = new SampleWarmer(cache, null, 2);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicInteger finishedCount = new AtomicInteger();
+        warmer.start(sounds, new SampleWarmer.Listener() {
+            @Override
+            public void onProgress(int done, int total) {
+            }
+
+            @Override
+            public void onFinished(int done, int total, long elapsedNanos, boolean cancelled) {
+                assertFalse(cancelled);
+                finishedCount.set(done);
+                finished.countDown();
+            }
+        });
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(3, finishedCount.get());
+        assertEquals(3, cache.getEntryCount());
+        assertEquals(3, warmer.getDecodeNanos().size());
+        assertEquals(0, cache.getHitCount() + cache.getMissCount());
+        assertNotNull(cache.getIfPresent(c.getPath()));
+    }
+}
@@ -0,0 +1,123 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SoundLibraryFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<SoundItem> sounds = List.of(
+        new SoundItem("Airhorn", "/sounds/airhorn.wav", "CTRL+A"),
+        new SoundItem("Ünïcødé 🎺", "C:\\Users\\Zoë\\Music\\fanfare.mp3", "ALT+SHIFT+F1"),
+        new SoundItem("Airhorn", "/sounds/airhorn.wav", null),
+        new SoundItem("", "", ""));
+
+    @Test
+    void convertsBetweenJsonAndBinaryWithoutLoss() throws Exception {
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        configManager.saveSounds(sounds);
+        String originalJson = Files.readString(tempDir.resolve("sounds.json"));
+
+        assertEquals(4, configManager.convertJsonToBinary());
+        try (SoundLibraryFile library = SoundLibraryFile.open(tempDir.resolve("sounds.bin").toFile())) {
+            assertEquals(4, library.size());
+            assertEquals("C:\\Users\\Zoë\\Music\\fanfare.mp3", library.getFilePath(1));
+            assertNull(library.getKeybind(2));
+            assertEquals("", library.getName(3));
+        }
+
+        Files.delete(tempDir.resolve("sounds.json"));
+        assertEquals(4, configManager.convertBinaryToJson());
+        assertEquals(originalJson, Files.readString(tempDir.resolve("sounds.json")));
+    }
+
+    @Test
+    void keepsSoundSettingsInBothFormats() throws Exception {
+        SoundItem measured = new SoundItem("Airhorn", "/sounds/airhorn.wav", "CTRL+A");
+        measured.setMeasurement(new LoudnessAnalyzer.Result(-9.73, -0.12));
+        measured.setGainDb(-3.5);
+        measured.setRetrigger(RetriggerPolicy.OVERLAP);
+        measured.setMaxVoices(3);
+        measured.setPage(2);
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        configManager.saveSounds(List.of(measured, sounds.get(1)));
+
+        assertEquals(2, configManager.convertJsonToBinary());
+        try (SoundLibraryFile library = SoundLibraryFile.open(tempDir.resolve("sounds.bin").toFile())) {
+            assertEquals(-9.73, library.getLoudness(0));
+            assertEquals(-0.12, library.getTruePeak(0));
+            assertEquals(-3.5, library.getGainDb(0));
+            assertNull(library.getLoudness(1));
+            assertNull(library.getGainDb(1));
+            assertEquals(RetriggerPolicy.OVERLAP, library.getRetrigger(0));
+            assertEquals(3, library.getMaxVoices(0));
+            assertNull(library.getRetrigger(1));
+            assertNull(library.getMaxVoices(1));
+            assertEquals(2, library.getPage(0));
+            assertNull(library.getPage(1));
+        }
+        SoundItem loaded = configManager.loadSounds().get(0);
+        assertEquals(-9.73, loaded.getLoudness());
+        assertEquals(-3.5, loaded.getGainDb());
+        assertEquals(RetriggerPolicy.OVERLAP, loaded.getRetriggerPolicy());
+        assertEquals(3, loaded.getVoiceLimit());
+    }
+
+    @Test
+    void loadsFromBinaryWhenEnabledAndRejectsOtherFiles() throws Exception {
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        configManager.setBinaryLibraryEnabled(true);
+        configManager.saveSounds(sounds);
+        assertTrue(tempDir.resolve("sounds.bin").toFile().exists());
+
+        // Damage the JSON; loading must come from the binary file
+        Files.writeString(tempDir.resolve("sounds.json"), "[");
+        tempDir.resolve("sounds.bin").toFile().setLastModified(System.currentTimeMillis() + 1000);
+        List<SoundItem> loaded = configManager.loadSounds();
+        assertEquals(4, loaded.size());
+        assertEquals("Ünïcødé 🎺", loaded.get(1).getName());
+
+        File notALibrary = tempDir.resolve("settings.json").toFile();
+        Files.writeString(notALibrary.toPath(), "{\"backend\":\"SAMPLED_LINE\",\"bufferFrames\":2048}");
+        assertThrows(IOException.class, () -> SoundLibraryFile.open(notALibrary));
+    }
+
+    @Test
+    void fallsBackToJsonWhenTheBinaryFileIsDamaged() throws Exception {
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        configManager.setBinaryLibraryEnabled(true);
+        configManager.saveSounds(sounds);
+        Path binary = tempDir.resolve("sounds.bin");
+        binary.toFile().setLastModified(System.currentTimeMillis() + 1000);
+
+        // Point the second sound's name past the end of the string table
+        byte[] bytes = Files.readAllBytes(binary);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(32 + 64, Integer.MAX_VALUE - 8);
+        Files.write(binary, bytes);
+        binary.toFile().setLastModified(System.currentTimeMillis() + 1000);
+        assertThrows(IOException.class, () -> SoundLibraryFile.open(binary.toFile()));
+        assertEquals(sounds.size(), configManager.loadSounds().size());
+
+        // Cut off inside the string table
+        Files.write(binary, Arrays.copyOf(bytes, bytes.length - 5));
+        binary.toFile().setLastModified(System.currentTimeMillis() + 1000);
+        assertThrows(IOException.class, () -> SoundLibraryFile.open(binary.toFile()));
+        assertEquals("Ünïcødé 🎺", configManager.loadSounds().get(1).getName());
+    }
+}
@@ -0,0 +1,66 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SoundSearchIndexTest {
+
+    private final SoundItem airHorn = new SoundItem("Air Horn", "/sounds/memes/airhorn.wav", "CTRL+H");
+    private final SoundItem drumRoll = new SoundItem("Drum Roll", "/sounds/music/drumroll.mp3", "CTRL+D");
+    private final SoundItem sadTrombone = new SoundItem("Sad Trombone", "/sounds/memes/trombone.wav", "ALT+T");
+
+    @Test
+    void matchesEveryTermInNamePathOrKeybind() {
+        SoundSearchIndex index = new SoundSearchIndex();
+        index.addAll(List.of(airHorn, drumRoll, sadTrombone));
+
+        assertEquals(List.of(airHorn), index.search("horn"));
+        assertEquals(List.of(airHorn, sadTrombone), index.search("MEMES"));
+        assertEquals(List.of(sadTrombone), index.search("memes  bone"));
+        assertEquals(List.of(drumRoll), index.search("ctrl+d"));
+        // Terms shorter than a trigram are checked directly
+        assertEquals(List.of(airHorn, drumRoll), index.search("ct"));
+        assertEquals(3, index.search("  ").size());
+        assertTrue(index.search("tuba").isEmpty());
+        // Trigrams present but not in this order
+        assertTrue(index.search("hornair").isEmpty());
+    }
+
+    @Test
+    void followsRemovesAndEdits() {
+        SoundSearchIndex index = new SoundSearchIndex();
+        index.addAll(List.of(airHorn, drumRoll, sadTrombone));
+
+        index.remove(drumRoll);
+        assertTrue(index.search("drum").isEmpty());
+
+        sadTrombone.setName("Wah Wah");
+        index.update(sadTrombone);
+        assertTrue(index.search("sad").isEmpty());
+        assertEquals(List.of(sadTrombone), index.search("wah"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void staysCorrectAcrossCompaction() {
+        SoundSearchIndex index = new SoundSearchIndex();
+        List<SoundItem> items = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            SoundItem item = new SoundItem("Clip " + i, "/library/clip" + i + ".wav", null);
+            items.add(item);
+            index.add(item);
+        }
+        // Removing most items forces the postings to be rebuilt
+        index.removeAll(items.subList(0, 4000));
+
+        assertEquals(1000, index.size());
+        assertEquals(List.of(items.get(4321)), index.search("clip 4321"));
+        assertTrue(index.search("clip 1234").isEmpty());
+        assertEquals(1000, index.search("clip").size());
+    }
+}
@@ -0,0 +1,57 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void streamedOutputMatchesFullDecode() throws Exception {
+        // Mono at a different rate exercises channel mapping and resampling across many chunks
+        File wav = TestWavs.write(tempDir, "bed.wav", 22050f, 1, 22050 * 3 + 7, 0);
+        SampleDecoder decoder = new SampleDecoder();
+        byte[] expected = decoder.decode(wav).toPcmBytes();
+
+        StreamingSource stream = StreamingSource.open(wav, decoder.getTargetFormat(), 512, 4);
+        stream.start();
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        float[] mix = new float[256 * 2];
+        while (!stream.isFinished()) {
+            assertTrue(stream.awaitBuffered(5000));
+            Arrays.fill(mix, 0f);
+            int frames = stream.mixInto(mix, 256);
+            for (int i = 0; i < frames * 2; i++) {
+                int sample = Math.round(mix[i] * 32768f);
+                streamed.write(sample);
+                streamed.write(sample >> 8);
+            }
+        }
+
+        assertArrayEquals(expected, streamed.toByteArray());
+        assertEquals(512 * 4 * 4, stream.getBufferBytes());
+    }
+
+    @Test
+    void policyStreamsOnlyLongFiles() throws Exception {
+        File shortWav = TestWavs.write(tempDir, "short.wav", 44100f, 2, 44100, 0);
+        File longWav = TestWavs.write(tempDir, "long.wav", 8000f, 1, 8000 * 12, 0);
+        StreamingPolicy policy = new StreamingPolicy(10);
+
+        assertFalse(policy.shouldStream(shortWav.getPath()));
+        assertTrue(policy.shouldStream(longWav.getPath()));
+        assertFalse(policy.shouldStream(tempDir.resolve("missing.wav").toString()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.maven.soundboard.soundboardfx;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 16-bit PCM WAV files for tests
+ */
+final class TestWavs {
+    private TestWavs() {
+    }
+
+    /**
+     * Writes a sine running through every sample of every channel
+     * @param phase Added to the sine; give files different phases when they must not share
+     *              content, since the sample cache shares identical files
+     */
+    static File write(Path dir, String name, float sampleRate, int channels, int frames, double phase)
+            throws IOException {
+        short[] samples = new short[frames * channels];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (Math.sin(i / 10.0 + phase) * 8000);
+        }
+        return writeSamples(dir, name, sampleRate, channels, samples);
+    }
+
+    /**
+     * Writes one value per frame, the same in every channel
+     */
+    static File writeFrames(Path dir, String name, float sampleRate, int channels, short[] frames)
+            throws IOException {
+        short[] samples = new short[frames.length * channels];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = frames[i / channels];
+        }
+        return writeSamples(dir, name, sampleRate, channels, samples);
+    }
+
+    private static File writeSamples(Path dir, String name, float sampleRate, int channels, short[] samples)
+            throws IOException {
+        AudioFormat format = new AudioFormat(sampleRate, 16, channels, true, false);
+        byte[] data = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            data[i * 2] = (byte) samples[i];
+            data[i * 2 + 1] = (byte) (samples[i] >> 8);
+        }
+        File file = dir.resolve(name).toFile();
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(data), format,
+                samples.length / channels)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,248 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TriggerMacroTest {
+    private static final long MS = 1_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private final SampleCache cache = new SampleCache(new SampleDecoder());
+    private final LoudnessNormalizer normalizer = new LoudnessNormalizer(false, -16, false);
+
+    @Test
+    void recordsOffsetsFromTheFirstTriggerAndStoresThemCompactly() {
+        SoundItem horn = new SoundItem("Horn", "/sounds/horn.wav", "F1");
+        SoundItem drum = new SoundItem("Drum", "/sounds/drum.wav", "F2");
+        TriggerRecorder recorder = new TriggerRecorder();
+        recorder.record(horn, 1_000 * MS);
+        recorder.start();
+        recorder.recordStopAll(5_000 * MS);
+        recorder.record(horn, 5_000 * MS + 123_456);
+        recorder.record(new TriggerMacro("Other", "F9", new TriggerTimeline()), 5_010 * MS);
+        recorder.record(drum, 5_250 * MS);
+        recorder.record(horn, 5_249 * MS);
+        recorder.recordStopAll(6_000 * MS);
+        TriggerTimeline timeline = recorder.stop();
+        recorder.record(drum, 7_000 * MS);
+
+        // A stop before anything played, other macros and triggers outside the recording are left out
+        assertEquals(4, timeline.size());
+        assertEquals(0, timeline.getTimeNanos(0));
+        assertSame(horn, timeline.getSound(0));
+        assertEquals(249 * MS - 123_456, timeline.getTimeNanos(1));
+        assertSame(horn, timeline.getSound(1));
+        assertSame(drum, timeline.getSound(2));
+        assertTrue(timeline.isStop(3));
+        assertNull(timeline.getSound(3));
+
+        TriggerMacro macro = new TriggerMacro("Fanfare", "CTRL+K M", timeline);
+        macro.setPage(2);
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        configManager.saveMacros(List.of(macro));
+        // Headers and paths aside, each trigger takes a few bytes
+        assertTrue(tempDir.resolve("macros.bin").toFile().length() < 120);
+
+        // Drum left the library since, so it gets a sound of its own
+        List<TriggerMacro> loaded = configManager.loadMacros(List.of(horn));
+        assertEquals(1, loaded.size());
+        TriggerMacro copy = loaded.get(0);
+        assertEquals("Fanfare", copy.getName());
+        assertEquals("CTRL+K M", copy.getKeybind());
+        assertEquals(2, copy.getPage());
+        TriggerTimeline read = copy.getTimeline();
+        assertEquals(4, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals(timeline.getTimeNanos(i), read.getTimeNanos(i), 1000);
+            assertEquals(timeline.isStop(i), read.isStop(i));
+        }
+        assertSame(horn, read.getSound(0));
+        assertEquals("/sounds/drum.wav", read.getSound(2).getFilePath());
+        assertNull(read.getSound(3));
+    }
+
+    @Test
+    void rejectsDamagedCountsInsteadOfAllocatingThem() throws Exception {
+        File file = tempDir.resolve("macros.bin").toFile();
+        ConfigManager configManager = new ConfigManager(tempDir.toFile());
+        long[][] damaged = {
+            {-1},
+            {Integer.MAX_VALUE},
+            {1, Integer.MAX_VALUE},
+            {1, 0, Integer.MAX_VALUE},
+            {1, 1, 1, Long.MAX_VALUE, 2},
+            {1, 1, 1, 0, Long.MAX_VALUE},
+        };
+        for (long[] counts : damaged) {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+                out.writeBytes("SBFXMAC1");
+                out.writeInt(1);
+                out.writeInt((int) counts[0]);
+                out.writeUTF("M");
+                out.writeUTF("");
+                out.writeByte(0);
+                if (counts.length > 1) {
+                    // Path count, then one path when a path is asked for
+                    writeVarint(out, counts[1]);
+                    if (counts[1] == 1) {
+                        out.writeUTF("/sounds/horn.wav");
+                    }
+                }
+                for (int i = 2; i < counts.length; i++) {
+                    writeVarint(out, counts[i]);
+                }
+            }
+            assertThrows(IOException.class, () -> MacroFile.read(file, Map.of()), Arrays.toString(counts));
+            assertTrue(configManager.loadMacros(List.of()).isEmpty());
+        }
+    }
+
+    @Test
+    void scheduledTriggersStartOnTheSameFramesAsAnOfflineRender() throws Exception {
+        SoundItem low = sine("low", 40.0, 9000, null, null);
+        SoundItem high = sine("high", 7.0, 6000, RetriggerPolicy.OVERLAP, 3);
+        SoundItem tick = sine("tick", 3.0, 12000, RetriggerPolicy.TOGGLE, null);
+
+        // Offsets fall between block boundaries and between frames
+        TriggerTimeline timeline = new TriggerTimeline();
+        timeline.play(0, low);
+        timeline.play(3_170_011, high);
+        timeline.play(5_803_900, tick);
+        timeline.play(5_803_900, high);
+        timeline.play(9_001_234, tick);
+        timeline.play(11_600_000, high);
+        timeline.play(14_444_444, high);
+        timeline.stop(17_250_000, high);
+        timeline.play(21_000_000, tick);
+        timeline.stop(33_333_333, null);
+        timeline.play(40_000_000, low);
+
+        AudioMixer mixer = new AudioMixer(new NullSink(), cache.getFormat(), 256, AudioMixer.DEFAULT_MAX_VOICES);
+        TriggerSchedule schedule = new TriggerSchedule("test", cache.getFormat().getFrameRate());
+        for (int i = 0; i < timeline.size(); i++) {
+            SoundItem soundItem = timeline.getSound(i);
+            if (timeline.isStop(i)) {
+                schedule.stop(timeline.getTimeNanos(i), soundItem != null ? soundItem.getFilePath() : null);
+            } else {
+                schedule.play(timeline.getTimeNanos(i), cache.get(soundItem.getFilePath()), soundItem.getFilePath(),
+                    normalizer.gainFor(soundItem), soundItem.getRetriggerPolicy(), soundItem.getVoiceLimit());
+            }
+        }
+        assertTrue(mixer.playSchedule(schedule, System.nanoTime()));
+        ByteArrayOutputStream live = new ByteArrayOutputStream();
+        do {
+            live.write(mixer.getOutputBuffer(), 0, mixer.renderBlock());
+        } while (mixer.getActiveScheduleCount() > 0 || mixer.getActiveVoiceCount() > 0);
+
+        File offlineFile = tempDir.resolve("offline.wav").toFile();
+        new OfflineRenderer(cache, normalizer, 256, false).renderToWav(timeline, offlineFile);
+        byte[] offline;
+        try (AudioInputStream stream = AudioSystem.getAudioInputStream(offlineFile)) {
+            offline = stream.readAllBytes();
+        }
+
+        // Both end on a block after the last voice, which need not be the same block
+        byte[] liveBytes = live.toByteArray();
+        int common = Math.min(liveBytes.length, offline.length);
+        assertTrue(common > 40 * 44 * 4);
+        assertArrayEquals(Arrays.copyOf(offline, common), Arrays.copyOf(liveBytes, common));
+        byte[] tail = Arrays.copyOfRange(liveBytes.length > common ? liveBytes : offline, common,
+            Math.max(liveBytes.length, offline.length));
+        assertArrayEquals(new byte[tail.length], tail);
+    }
+
+    @Test
+    void measuresJitterOfARunningScheduleAgainstTheRecording() throws Exception {
+        SoundItem tick = sine("tick", 3.0, 8000, RetriggerPolicy.OVERLAP, 8);
+        DecodedSample sample = cache.get(tick.getFilePath());
+        AudioMixer mixer = new AudioMixer(new NullSink(), cache.getFormat());
+        TriggerSchedule schedule = new TriggerSchedule("ticks", cache.getFormat().getFrameRate());
+        for (int i = 0; i < 20; i++) {
+            schedule.play(i * 7_300_000L, sample, tick.getFilePath(), 1f, RetriggerPolicy.OVERLAP, 8);
+        }
+        mixer.start();
+        try {
+            assertTrue(mixer.playSchedule(schedule, System.nanoTime()));
+            long deadline = System.nanoTime() + 5_000 * MS;
+            while (mixer.getScheduleJitter().getCount() < 20 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            mixer.shutdown();
+        }
+        LatencyHistogram jitter = mixer.getScheduleJitter();
+        assertEquals(20, jitter.getCount());
+        // Only the output clock's wobble; a loose bound keeps busy build machines green
+        assertTrue(jitter.getMaxMillis() < 50, jitter.toString());
+    }
+
+    @Test
+    void longFilesInAMacroAreDecodedWithoutEnteringTheCache() throws Exception {
+        SoundItem shortSound = sine("short", 5.0, 4000, null, null);
+        String longPath = TestWavs.write(tempDir, "long.wav", 44100f, 2, 44100, 0).getPath();
+        SoundItem longSound = new SoundItem("long", longPath, "");
+        TriggerTimeline timeline = new TriggerTimeline();
+        timeline.play(0, shortSound);
+        timeline.play(10 * MS, longSound);
+        TriggerMacro macro = new TriggerMacro("mixed", null, timeline);
+
+        StreamingPolicy policy = new StreamingPolicy(0.5);
+        MixerBackend backend = new MixerBackend(cache, policy, normalizer, new AudioSettings(),
+            (filePath, latencyNanos) -> { }, new LatencyMetrics());
+        try {
+            assertTrue(backend.playMacro(macro, System.nanoTime(), true));
+            assertEquals(1, cache.getEntryCount());
+            assertNull(cache.getIfPresent(longPath));
+
+            // Once warm the short sound plays without decoding; the long one must stream even if cached
+            cache.get(longPath);
+            assertTrue(backend.playIfReady(shortSound, System.nanoTime()));
+            assertFalse(backend.playIfReady(longSound, System.nanoTime()));
+        } finally {
+            backend.dispose();
+        }
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private SoundItem sine(String name, double period, double amplitude, RetriggerPolicy policy, Integer voices)
+            throws Exception {
+        short[] frames = new short[441 * 6];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = (short) (StrictMath.sin(i / period) * amplitude);
+        }
+        File file = TestWavs.writeFrames(tempDir, name + ".wav", 44100f, 2, frames);
+        SoundItem soundItem = new SoundItem(name, file.getPath(), "");
+        soundItem.setRetrigger(policy);
+        soundItem.setMaxVoices(voices);
+        return soundItem;
+    }
+}
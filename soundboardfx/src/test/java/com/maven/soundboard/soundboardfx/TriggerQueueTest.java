@@ -0,0 +1,73 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TriggerQueueTest {
+
+    @Test
+    void rejectsCommandsWhenFull() {
+        TriggerQueue queue = new TriggerQueue(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(TriggerQueue.STOP, null, "k" + i, i));
+        }
+        assertFalse(queue.offer(TriggerQueue.STOP, null, "overflow", 0));
+
+        assertEquals(4, queue.drain((type, sample, stream, key, triggerNanos, gain, enqueueNanos) -> { }));
+        assertTrue(queue.offer(TriggerQueue.STOP, null, "again", 0));
+    }
+
+    @Test
+    void deliversEveryCommandFromConcurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 5_000;
+        TriggerQueue queue = new TriggerQueue(64);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    long id = (long) producer * perProducer + i;
+                    while (!queue.offer(TriggerQueue.PLAY, null, null, id)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        Set<Long> received = new HashSet<>();
+        long[] lastPerProducer = new long[producers];
+        Arrays.fill(lastPerProducer, -1);
+        start.countDown();
+        while (received.size() < producers * perProducer) {
+            queue.drain((type, sample, stream, key, triggerNanos, gain, enqueueNanos) -> {
+                received.add(triggerNanos);
+                // Commands from one producer keep their order
+                int producer = (int) (triggerNanos / perProducer);
+                assertTrue(triggerNanos > lastPerProducer[producer]);
+                lastPerProducer[producer] = triggerNanos;
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(producers * perProducer, received.size());
+    }
+}
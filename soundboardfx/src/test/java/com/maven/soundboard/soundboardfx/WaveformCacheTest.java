@@ -0,0 +1,83 @@
+package com.maven.soundboard.soundboardfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WaveformCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void summarizesDurationAndLevels() throws Exception {
+        File wav = TestWavs.write(tempDir, "tone.wav", 44100f, 2, 44100, 0);
+
+        WaveformEnvelope envelope = WaveformEnvelope.analyze(wav, 50);
+
+        assertEquals(1.0, envelope.getDurationSeconds(), 0.001);
+        assertEquals(50, envelope.getBucketCount());
+        for (int i = 0; i < envelope.getBucketCount(); i++) {
+            // A sine of amplitude 8000 peaks near 8000 / 256 and has an RMS near 8000 / sqrt(2) / 128
+            assertEquals(31, envelope.getMax(i), 1);
+            assertEquals(-32, envelope.getMin(i), 1);
+            assertEquals(44, envelope.getRms(i), 2);
+        }
+    }
+
+    @Test
+    void reusesSavedEnvelopesUntilTheFileChanges() throws Exception {
+        File wav = TestWavs.write(tempDir, "tone.wav", 44100f, 2, 44100, 0);
+        File cacheFile = tempDir.resolve("waveforms.bin").toFile();
+        WaveformCache first = new WaveformCache(cacheFile);
+        first.refresh(wav.getPath());
+        first.save();
+
+        WaveformCache second = new WaveformCache(cacheFile);
+        second.load();
+        WaveformEnvelope loaded = second.refresh(wav.getPath());
+        assertEquals(1.0, loaded.getDurationSeconds(), 0.001);
+        assertEquals(0, second.getAnalyzeTimes().getCount());
+
+        TestWavs.write(tempDir, "tone.wav", 44100f, 2, 22050, 0);
+        assertTrue(wav.setLastModified(loaded.getLastModified() + 2000));
+        WaveformEnvelope changed = second.refresh(wav.getPath());
+        assertEquals(0.5, changed.getDurationSeconds(), 0.001);
+        assertEquals(1, second.getAnalyzeTimes().getCount());
+
+        assertTrue(wav.delete());
+        assertNull(second.refresh(wav.getPath()));
+        assertEquals(0, second.size());
+    }
+
+    @Test
+    void servesRequestsInTheBackground() throws Exception {
+        File wav = TestWavs.write(tempDir, "tone.wav", 44100f, 2, 44100, 0);
+        File text = tempDir.resolve("notes.mp3").toFile();
+        Files.writeString(text.toPath(), "not audio");
+        CountDownLatch done = new CountDownLatch(2);
+        WaveformCache cache = new WaveformCache(tempDir.resolve("waveforms.bin").toFile());
+        cache.start((filePath, envelope) -> done.countDown());
+
+        assertNull(cache.get(wav.getPath()));
+        assertNull(cache.get(text.getPath()));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertNotNull(cache.get(wav.getPath()));
+        assertTrue(cache.get(wav.getPath()).isSupported());
+        assertFalse(cache.get(text.getPath()).isSupported());
+        cache.close();
+        assertTrue(tempDir.resolve("waveforms.bin").toFile().exists());
+    }
+}